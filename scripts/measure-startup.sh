@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# 网关启动时间测量（mvn -Pcds package 的最后一步）
+# 分别以 fat jar 与 解压目录+AppCDS归档（AOT构建时同时启用AOT）启动若干次，每次就绪后立即退出，
+# 输出从JVM启动到就绪耗时的中位数，结果追加到 <target>/startup-time.txt 便于对比
+#
+# 用法: measure-startup.sh <target目录> <fat jar文件名> <解压后的应用jar文件名> <运行次数> <是否AOT> [应用参数...]
+set -euo pipefail
+
+target=$1
+fat_jar=$2
+app_jar=$3
+runs=$4
+aot=$5
+shift 5
+app_args=("$@")
+report="$target/startup-time.txt"
+
+measure() {
+  local name=$1
+  shift
+  local times="$target/startup-$name.txt"
+  rm -f "$times"
+  for ((i = 1; i <= runs; i++)); do
+    if ! java "$@" "${app_args[@]}" --gateway.startup.exit-on-ready=true \
+        --gateway.startup.report-file="$times" > "$target/startup-$name.log" 2>&1; then
+      echo "启动失败: $name，日志见 $target/startup-$name.log" >&2
+      exit 1
+    fi
+  done
+  local median
+  median=$(sort -n "$times" | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }')
+  echo "$(date '+%F %T') $name: median=${median}ms runs=$(paste -sd, "$times")" | tee -a "$report"
+}
+
+measure baseline -Dspring.aot.enabled=false -jar "$target/$fat_jar"
+measure cds -XX:SharedArchiveFile="$target/application/application.jsa" -Dspring.aot.enabled="$aot" \
+  -jar "$target/application/$app_jar"
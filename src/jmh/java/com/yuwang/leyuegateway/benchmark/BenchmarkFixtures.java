@@ -0,0 +1,169 @@
+package com.yuwang.leyuegateway.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.yuwang.leyuegateway.auth.JwtKeyManager;
+import com.yuwang.leyuegateway.auth.VerifiedTokenCache;
+import com.yuwang.leyuegateway.auth.WhitelistMatcher;
+import com.yuwang.leyuegateway.config.GatewayAuthProperties;
+import com.yuwang.leyuegateway.filter.JwtAuthGlobalFilter;
+import com.yuwang.leyuegateway.handler.ErrorResponseWriter;
+import com.yuwang.leyuegateway.handler.MenuPermissionHandler;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.adapter.DefaultServerWebExchange;
+import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
+import org.springframework.web.server.i18n.LocaleContextResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+import org.springframework.web.server.session.WebSessionManager;
+import reactor.core.publisher.Mono;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试公共夹具：密钥、Token、菜单、白名单与过滤器装配
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+final class BenchmarkFixtures {
+
+    /**
+     * 什么都不做的过滤器链，只衡量被测过滤器自身的开销
+     */
+    static final GatewayFilterChain NOOP_CHAIN = exchange -> Mono.empty();
+
+    private static final ErrorResponseWriter ERROR_RESPONSE_WRITER = new ErrorResponseWriter();
+    private static final ServerCodecConfigurer CODEC_CONFIGURER = ServerCodecConfigurer.create();
+    private static final WebSessionManager SESSION_MANAGER = new DefaultWebSessionManager();
+    private static final LocaleContextResolver LOCALE_CONTEXT_RESOLVER = new AcceptHeaderLocaleContextResolver();
+
+    static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toPem(KeyPair keyPair) {
+        return "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----";
+    }
+
+    /**
+     * 生成 /module{i}/page{i} 形式的菜单
+     */
+    static List<Map<String, Object>> menus(int count) {
+        List<Map<String, Object>> menus = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            menus.add(Map.of("path", "/module" + i + "/page" + i, "name", "菜单" + i));
+        }
+        return menus;
+    }
+
+    /**
+     * 生成混合了前缀、通配符与精确路径的白名单，最后一条为 /auth/**
+     */
+    static List<String> whitelist(int size) {
+        List<String> whitelist = new ArrayList<>(size);
+        for (int i = 0; i < size - 1; i++) {
+            switch (i % 3) {
+                case 0 -> whitelist.add("/open" + i + "/**");
+                case 1 -> whitelist.add("/api/v" + i + "/public/*");
+                default -> whitelist.add("/static" + i + "/**/*.js");
+            }
+        }
+        whitelist.add("/auth/**");
+        return whitelist;
+    }
+
+    /**
+     * 签发RS256 Token，padding为额外填充到claims中的字符数，用于模拟不同的Token大小
+     */
+    static String sign(KeyPair keyPair, List<?> menus, int padding) {
+        return Jwts.builder()
+                .setSubject("u1")
+                .claim("username", "alice")
+                .claim("roles", List.of(Map.of("name", "admin"), "ops"))
+                .claim("menus", menus)
+                .claim("ext", "x".repeat(padding))
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000L))
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+    }
+
+    static MenuPermissionHandler menuPermissionHandler() {
+        MenuPermissionHandler handler = new MenuPermissionHandler();
+        ReflectionTestUtils.setField(handler, "errorResponseWriter", ERROR_RESPONSE_WRITER);
+        return handler;
+    }
+
+    /**
+     * 按生产环境的Bean关系装配JwtAuthGlobalFilter
+     */
+    static JwtAuthGlobalFilter jwtAuthGlobalFilter(GatewayAuthProperties authProperties) {
+        JwtKeyManager keyManager = new JwtKeyManager(authProperties, event -> { });
+        keyManager.init();
+        WhitelistMatcher whitelistMatcher = new WhitelistMatcher(authProperties);
+        whitelistMatcher.rebuild();
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(authProperties,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+
+        JwtAuthGlobalFilter filter = new JwtAuthGlobalFilter();
+        ReflectionTestUtils.setField(filter, "authProperties", authProperties);
+        ReflectionTestUtils.setField(filter, "menuPermissionHandler", menuPermissionHandler());
+        ReflectionTestUtils.setField(filter, "errorResponseWriter", ERROR_RESPONSE_WRITER);
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", tokenCache);
+        ReflectionTestUtils.setField(filter, "jwtKeyManager", keyManager);
+        ReflectionTestUtils.setField(filter, "whitelistMatcher", whitelistMatcher);
+        return filter;
+    }
+
+    static ServerWebExchange exchange(String path, String token) {
+        MockServerHttpRequest.BaseBuilder<?> builder = MockServerHttpRequest.get("http://localhost:8080" + path);
+        if (token != null) {
+            builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        return exchange(builder.build());
+    }
+
+    /**
+     * 复用编解码器与会话管理器创建exchange
+     * MockServerWebExchange.from 每次都会新建 ServerCodecConfigurer，其开销远大于被测过滤器
+     */
+    static ServerWebExchange exchange(MockServerHttpRequest request) {
+        return new DefaultServerWebExchange(request, new MockServerHttpResponse(), SESSION_MANAGER, CODEC_CONFIGURER,
+                LOCALE_CONTEXT_RESOLVER);
+    }
+
+    /**
+     * 关闭日志输出：拒绝路径会逐次打印WARN日志，控制台IO会掩盖被测代码本身的开销
+     */
+    static void silenceLogging() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.OFF);
+    }
+
+    private BenchmarkFixtures() {
+    }
+}
@@ -0,0 +1,95 @@
+package com.yuwang.leyuegateway.benchmark;
+
+import com.yuwang.leyuegateway.config.GatewayAuthProperties;
+import com.yuwang.leyuegateway.filter.JwtAuthGlobalFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.security.KeyPair;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthGlobalFilter.filter 基准测试
+ * 覆盖白名单放行、鉴权通过与菜单权限拒绝三条路径，按Token大小、菜单数量、白名单规模与验签缓存开关组合
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="JwtAuthGlobalFilterBenchmark -prof gc"
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthGlobalFilterBenchmark {
+
+    /**
+     * claims中额外填充的字符数，0约为1KB的Token
+     */
+    @Param({"0", "4096"})
+    private int tokenPadding;
+
+    @Param({"10", "200"})
+    private int menuCount;
+
+    @Param({"10", "500"})
+    private int whitelistSize;
+
+    @Param({"true", "false"})
+    private boolean tokenCacheEnabled;
+
+    private JwtAuthGlobalFilter filter;
+    private String token;
+    private String permittedPath;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.silenceLogging();
+        KeyPair keyPair = BenchmarkFixtures.generateKeyPair();
+
+        GatewayAuthProperties authProperties = new GatewayAuthProperties();
+        authProperties.setPublicKey(BenchmarkFixtures.toPem(keyPair));
+        authProperties.setWhitelist(BenchmarkFixtures.whitelist(whitelistSize));
+        authProperties.setMenuPermissionWhitelist(List.of("/common/**"));
+        authProperties.setTokenCacheEnabled(tokenCacheEnabled);
+
+        filter = BenchmarkFixtures.jwtAuthGlobalFilter(authProperties);
+        token = BenchmarkFixtures.sign(keyPair, BenchmarkFixtures.menus(menuCount), tokenPadding);
+        // 命中最后一个菜单，线性扫描的最坏情况
+        permittedPath = "/module" + (menuCount - 1) + "/page" + (menuCount - 1) + "/list";
+    }
+
+    @Benchmark
+    public ServerWebExchange whitelisted() {
+        ServerWebExchange exchange = BenchmarkFixtures.exchange("/auth/login", null);
+        filter.filter(exchange, BenchmarkFixtures.NOOP_CHAIN).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange permitted() {
+        ServerWebExchange exchange = BenchmarkFixtures.exchange(permittedPath, token);
+        filter.filter(exchange, BenchmarkFixtures.NOOP_CHAIN).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange forbidden() {
+        ServerWebExchange exchange = BenchmarkFixtures.exchange("/system/role", token);
+        filter.filter(exchange, BenchmarkFixtures.NOOP_CHAIN).block();
+        return exchange;
+    }
+}
@@ -0,0 +1,81 @@
+package com.yuwang.leyuegateway.benchmark;
+
+import com.yuwang.leyuegateway.config.RateLimitProperties;
+import com.yuwang.leyuegateway.constant.RateLimitKeyType;
+import com.yuwang.leyuegateway.ratelimit.LocalRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LocalRateLimiter.tryAcquire 基准测试
+ * 多线程下同一令牌桶（route）与大量分散令牌桶（ip）的单次判定耗时
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="LocalRateLimiterBenchmark -prof gc"
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class LocalRateLimiterBenchmark {
+
+    private static final int EXCHANGE_COUNT = 1024;
+
+    @Param({"route", "ip"})
+    private String key;
+
+    private LocalRateLimiter limiter;
+    private ServerWebExchange[] exchanges;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.silenceLogging();
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setKey(RateLimitKeyType.valueOf(key.toUpperCase()));
+        rule.setCapacity(1_000_000);
+        rule.setRate(1_000_000);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRules(new ArrayList<>(List.of(rule)));
+        limiter = new LocalRateLimiter(properties);
+        limiter.rebuild();
+
+        Route route = Route.async().id("user-service").uri("lb://user-service").predicate(exchange -> true).build();
+        exchanges = new ServerWebExchange[EXCHANGE_COUNT];
+        for (int i = 0; i < EXCHANGE_COUNT; i++) {
+            exchanges[i] = BenchmarkFixtures.exchange(MockServerHttpRequest.get("http://localhost/api/user/list")
+                    .remoteAddress(new InetSocketAddress("10.0." + (i >> 8) + "." + (i & 0xFF), 40000))
+                    .build());
+            exchanges[i].getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        }
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        return limiter.tryAcquire(exchanges[ThreadLocalRandom.current().nextInt(EXCHANGE_COUNT)]);
+    }
+}
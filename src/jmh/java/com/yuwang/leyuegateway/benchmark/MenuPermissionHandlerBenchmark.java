@@ -0,0 +1,75 @@
+package com.yuwang.leyuegateway.benchmark;
+
+import com.yuwang.leyuegateway.auth.MenuPermissionMatcher;
+import com.yuwang.leyuegateway.handler.MenuPermissionHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MenuPermissionHandler.checkPermission 基准测试
+ * 对比每次按菜单列表编译与使用预编译匹配器（验签缓存命中时的路径）的开销
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="MenuPermissionHandlerBenchmark -prof gc"
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuPermissionHandlerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int menuCount;
+
+    private final MenuPermissionHandler handler = BenchmarkFixtures.menuPermissionHandler();
+    private List<Map<String, Object>> menus;
+    private MenuPermissionMatcher matcher;
+    private String permittedPath;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.silenceLogging();
+        menus = BenchmarkFixtures.menus(menuCount);
+        matcher = MenuPermissionMatcher.compile(menus);
+        permittedPath = "/module" + (menuCount - 1) + "/page" + (menuCount - 1) + "/list";
+    }
+
+    @Benchmark
+    public Object permittedFromMenus() {
+        return handler.checkPermission(exchange(), permittedPath, menus).block();
+    }
+
+    @Benchmark
+    public Object permittedFromMatcher() {
+        return handler.checkPermission(exchange(), permittedPath, matcher).block();
+    }
+
+    @Benchmark
+    public ServerWebExchange forbiddenFromMatcher() {
+        ServerWebExchange exchange = exchange();
+        handler.checkPermission(exchange, "/system/role", matcher).block();
+        return exchange;
+    }
+
+    private static ServerWebExchange exchange() {
+        return BenchmarkFixtures.exchange("/system/role", null);
+    }
+}
@@ -0,0 +1,124 @@
+package com.yuwang.leyuegateway.benchmark;
+
+import com.yuwang.leyuegateway.util.TraceContextParser;
+import com.yuwang.leyuegateway.util.TraceIdUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 追踪头解析基准测试
+ * legacy* 为原 TraceIdUtils 中基于 split、正则与 String.format 的实现，用于对比
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="TraceContextParserBenchmark -prof gc"
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceContextParserBenchmark {
+
+    private String traceparent = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+    private String b3Single = "80f198ee56343ba864fe8b2a57d3eff7-e457b5a2e4d86bd1-1-05e3ac9a4f6e3b90";
+    private String tracestate = "rojo=00f067aa0ba902b7,congo=t61rcWkgMzE";
+    private String uuidTraceId = "4bf92f35-77b3-4da6-a3ce-929d0e0e4736";
+    private TraceIdUtils.TraceInfo traceInfo =
+            new TraceIdUtils.TraceInfo("4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7", "benchmark", true);
+
+    @Benchmark
+    public TraceContextParser.TraceContext traceparent() {
+        return TraceContextParser.parseTraceparent(traceparent);
+    }
+
+    @Benchmark
+    public String legacyTraceparent() {
+        String[] parts = traceparent.split("-");
+        if (parts.length != 4 || !"00".equals(parts[0])) {
+            return null;
+        }
+        String traceId = parts[1].length() != 32 ? legacyNormalizeTraceId(parts[1]) : parts[1];
+        return "01".equals(parts[3]) ? traceId : null;
+    }
+
+    @Benchmark
+    public TraceContextParser.TraceContext b3Single() {
+        return TraceContextParser.parseB3Single(b3Single);
+    }
+
+    @Benchmark
+    public String legacyB3Single() {
+        String[] parts = b3Single.split("-");
+        return parts.length >= 2 ? parts[0] : null;
+    }
+
+    @Benchmark
+    public String tracestate() {
+        return TraceContextParser.validateTracestate(tracestate);
+    }
+
+    @Benchmark
+    public String normalizeTraceId() {
+        return TraceIdUtils.normalizeTraceId(uuidTraceId);
+    }
+
+    @Benchmark
+    public String legacyNormalizeTraceId() {
+        return legacyNormalizeTraceId(uuidTraceId);
+    }
+
+    @Benchmark
+    public boolean isValidTraceId() {
+        return TraceIdUtils.isValidW3CTraceId(traceInfo.getTraceId());
+    }
+
+    @Benchmark
+    public boolean legacyIsValidTraceId() {
+        String traceId = traceInfo.getTraceId();
+        return traceId.length() == 32 && traceId.matches("^[0-9a-f]+$")
+                && !"00000000000000000000000000000000".equals(traceId);
+    }
+
+    @Benchmark
+    public String toW3CTraceparent() {
+        return traceInfo.toW3CTraceparent();
+    }
+
+    @Benchmark
+    public String legacyToW3CTraceparent() {
+        return String.format("%s-%s-%s-%s", "00", legacyNormalizeTraceId(traceInfo.getTraceId()),
+                legacyNormalizeSpanId(traceInfo.getSpanId()), traceInfo.isSampled() ? "01" : "00");
+    }
+
+    private static String legacyNormalizeTraceId(String traceId) {
+        String cleanTraceId = traceId.replaceAll("[^0-9a-fA-F]", "").toLowerCase();
+        if (cleanTraceId.length() >= 32) {
+            return cleanTraceId.substring(0, 32);
+        } else if (cleanTraceId.length() >= 16) {
+            return String.format("%32s", cleanTraceId).replace(' ', '0');
+        } else {
+            String combined = cleanTraceId + Integer.toHexString(traceId.hashCode());
+            return String.format("%32s", combined.substring(0, Math.min(combined.length(), 32))).replace(' ', '0');
+        }
+    }
+
+    private static String legacyNormalizeSpanId(String spanId) {
+        String cleanSpanId = spanId.replaceAll("[^0-9a-fA-F]", "").toLowerCase();
+        if (cleanSpanId.length() >= 16) {
+            return cleanSpanId.substring(0, 16);
+        }
+        return String.format("%16s", cleanSpanId).replace(' ', '0');
+    }
+}
@@ -0,0 +1,48 @@
+package com.yuwang.leyuegateway.benchmark;
+
+import com.yuwang.leyuegateway.util.TraceIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * traceId/spanId生成策略基准测试
+ * SECURE_RANDOM为原实现，多线程下可对比共享SecureRandom的争用开销
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="TraceIdGeneratorBenchmark -prof gc"
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TraceIdGeneratorBenchmark {
+
+    @Param({"SECURE_RANDOM", "RANDOM", "TIME_ORDERED"})
+    private TraceIdGenerator generator;
+
+    @Benchmark
+    public String traceId() {
+        return generator.generateTraceId();
+    }
+
+    @Benchmark
+    public String spanId() {
+        return generator.generateSpanId();
+    }
+}
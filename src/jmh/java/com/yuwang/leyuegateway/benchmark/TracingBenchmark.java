@@ -0,0 +1,98 @@
+package com.yuwang.leyuegateway.benchmark;
+
+import com.yuwang.leyuegateway.config.TracingProperties;
+import com.yuwang.leyuegateway.constant.TracingHeaders;
+import com.yuwang.leyuegateway.filter.TracingGlobalFilter;
+import com.yuwang.leyuegateway.util.TraceIdUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Hooks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 追踪基准测试：TraceIdUtils.extractOrGenerateTraceInfo 与完整的 TracingGlobalFilter
+ * 按上游携带的追踪头格式与采样率组合，采样率0时不记录请求开始/完成日志
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="TracingBenchmark -prof gc"
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracingBenchmark {
+
+    @Param({"none", "w3c", "b3-single", "b3-multi", "custom"})
+    private String inbound;
+
+    @Param({"1.0", "0.0"})
+    private double samplingRate;
+
+    private TracingProperties tracingProperties;
+    private TracingGlobalFilter filter;
+    private MockServerHttpRequest request;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.silenceLogging();
+        // 与 spring.reactor.context-propagation=auto 保持一致
+        Hooks.enableAutomaticContextPropagation();
+
+        tracingProperties = new TracingProperties();
+        tracingProperties.getSampling().setRate(samplingRate);
+        filter = new TracingGlobalFilter(tracingProperties);
+        request = request();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Hooks.disableAutomaticContextPropagation();
+    }
+
+    @Benchmark
+    public TraceIdUtils.TraceInfo extractOrGenerateTraceInfo() {
+        return TraceIdUtils.extractOrGenerateTraceInfo(request, tracingProperties.getProtocol().getInput(),
+                samplingRate, tracingProperties.getIdGenerator());
+    }
+
+    @Benchmark
+    public ServerWebExchange tracingGlobalFilter() {
+        ServerWebExchange exchange = BenchmarkFixtures.exchange(request);
+        filter.filter(exchange, BenchmarkFixtures.NOOP_CHAIN).block();
+        return exchange;
+    }
+
+    private MockServerHttpRequest request() {
+        MockServerHttpRequest.BaseBuilder<?> builder = MockServerHttpRequest.get("http://localhost:8080/api/test");
+        switch (inbound) {
+            case "w3c" -> builder
+                    .header(TracingHeaders.W3C_TRACEPARENT, "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")
+                    .header(TracingHeaders.W3C_TRACESTATE, "rojo=00f067aa0ba902b7,congo=t61rcWkgMzE");
+            case "b3-single" -> builder
+                    .header(TracingHeaders.B3_SINGLE, "80f198ee56343ba864fe8b2a57d3eff7-e457b5a2e4d86bd1-1");
+            case "b3-multi" -> builder
+                    .header(TracingHeaders.B3_TRACE_ID, "80f198ee56343ba864fe8b2a57d3eff7")
+                    .header(TracingHeaders.B3_SPAN_ID, "e457b5a2e4d86bd1");
+            case "custom" -> builder.header(TracingHeaders.X_TRACE_ID, "custom-trace-12345");
+            default -> { }
+        }
+        return builder.build();
+    }
+}
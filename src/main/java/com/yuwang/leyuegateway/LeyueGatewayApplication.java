@@ -1,15 +1,30 @@
 package com.yuwang.leyuegateway;
 
+import com.yuwang.leyuegateway.config.GatewayRuntimeHints;
+import com.yuwang.leyuegateway.config.StartupTimeReporter;
+import org.springframework.aot.AotDetector;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
 @EnableDiscoveryClient
+@ImportRuntimeHints(GatewayRuntimeHints.class)
 public class LeyueGatewayApplication {
 
+    /**
+     * AOT构建的运行配置（application-aot.yml），使用AOT生成的Bean定义启动时自动激活
+     */
+    public static final String AOT_PROFILE = "aot";
+
     public static void main(String[] args) {
-        SpringApplication.run(LeyueGatewayApplication.class, args);
+        SpringApplication application = new SpringApplication(LeyueGatewayApplication.class);
+        if (AotDetector.useGeneratedArtifacts()) {
+            application.setAdditionalProfiles(AOT_PROFILE);
+        }
+        application.addListeners(new StartupTimeReporter());
+        application.run(args);
     }
 
 }
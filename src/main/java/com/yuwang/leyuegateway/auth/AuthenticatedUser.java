@@ -0,0 +1,156 @@
+package com.yuwang.leyuegateway.auth;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 已验签Token解析出的用户身份
+ * 不可变对象，可在验签缓存中跨请求共享
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public final class AuthenticatedUser {
+
+    /**
+     * 认证通过后存放当前用户身份的exchange属性名，供后续过滤器（限流等）读取
+     */
+    public static final String EXCHANGE_ATTRIBUTE = AuthenticatedUser.class.getName();
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticatedUser.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * 租户ID所在的Claim，未携带时租户ID为null
+     */
+    private static final String TENANT_CLAIM = "tenantId";
+
+    private final String userId;
+    private final String username;
+    private final String tenantId;
+    private final String roleString;
+    private final List<?> menus;
+    private final long expiresAtMillis;
+    private volatile MenuPermissionMatcher menuPermissionMatcher;
+    private volatile String menusJson;
+
+    public AuthenticatedUser(String userId, String username, String roleString, List<?> menus, long expiresAtMillis) {
+        this(userId, username, null, roleString, menus, expiresAtMillis);
+    }
+
+    public AuthenticatedUser(String userId, String username, String tenantId, String roleString, List<?> menus,
+                             long expiresAtMillis) {
+        this.userId = userId;
+        this.username = username;
+        this.tenantId = tenantId;
+        this.roleString = roleString;
+        this.menus = menus != null ? Collections.unmodifiableList(menus) : Collections.emptyList();
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    /**
+     * 从JWT Claims构建用户身份
+     */
+    public static AuthenticatedUser fromClaims(Claims claims) {
+        String userId = claims.getSubject();
+        String username = (String) claims.get("username");
+        Object tenant = claims.get(TENANT_CLAIM);
+        String tenantId = tenant != null ? tenant.toString() : null;
+        List<?> roles = (List<?>) claims.get("roles");
+        List<?> menus = (List<?>) claims.get("menus");
+
+        // 构建用户角色字符串
+        String roleString = "";
+        if (roles != null && !roles.isEmpty()) {
+            roleString = roles.stream()
+                    .map(role -> {
+                        if (role instanceof Map) {
+                            return ((Map<?, ?>) role).get("name");
+                        }
+                        return role.toString();
+                    })
+                    .map(Object::toString)
+                    .collect(Collectors.joining(","));
+        }
+
+        Date expiration = claims.getExpiration();
+        long expiresAtMillis = expiration != null ? expiration.getTime() : 0L;
+
+        return new AuthenticatedUser(userId, username, tenantId, roleString, menus, expiresAtMillis);
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public String getRoleString() {
+        return roleString;
+    }
+
+    public List<?> getMenus() {
+        return menus;
+    }
+
+    /**
+     * 获取预编译的菜单权限匹配器，首次访问时编译
+     * 并发首次访问可能重复编译，结果等价且不可变，不影响正确性
+     */
+    public MenuPermissionMatcher getMenuPermissionMatcher() {
+        MenuPermissionMatcher matcher = menuPermissionMatcher;
+        if (matcher == null) {
+            matcher = MenuPermissionMatcher.compile(menus);
+            menuPermissionMatcher = matcher;
+        }
+        return matcher;
+    }
+
+    /**
+     * Token过期时间（毫秒时间戳），Token未携带exp时为0
+     */
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    /**
+     * 获取菜单列表的JSON序列化结果，首次访问时序列化并缓存
+     * 菜单为空时返回空字符串
+     */
+    public String getMenusJson() {
+        String json = menusJson;
+        if (json == null) {
+            json = serializeMenus(menus);
+            menusJson = json;
+        }
+        return json;
+    }
+
+    private static String serializeMenus(List<?> menus) {
+        if (menus.isEmpty()) {
+            return "";
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsString(menus);
+        } catch (JsonProcessingException e) {
+            logger.warn("序列化菜单信息失败", e);
+            return "[]";
+        }
+    }
+}
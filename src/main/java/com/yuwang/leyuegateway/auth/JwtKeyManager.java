@@ -0,0 +1,224 @@
+package com.yuwang.leyuegateway.auth;
+
+import com.yuwang.leyuegateway.config.GatewayAuthProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * JWT验签密钥管理
+ * 启动时将配置的RSA公钥解析为线程安全的JwtParser，之后所有请求共享同一实例。
+ * Nacos配置刷新后重新解析，并以原子替换的方式切换到新的JwtParser。
+ * 支持通过 jwt.public-keys 按kid配置多把公钥用于密钥轮换，Token头未携带kid或kid未配置时使用 jwt.public-key。
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+public class JwtKeyManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyManager.class);
+
+    private static final String PEM_BEGIN = "-----BEGIN PUBLIC KEY-----";
+    private static final String PEM_END = "-----END PUBLIC KEY-----";
+
+    private final GatewayAuthProperties authProperties;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile KeyMaterial keyMaterial = KeyMaterial.EMPTY;
+
+    public JwtKeyManager(GatewayAuthProperties authProperties, ApplicationEventPublisher eventPublisher) {
+        this.authProperties = authProperties;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * 配置刷新后重新加载公钥，公钥有变化时发布 {@link JwtKeyRotatedEvent}
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        if (reload()) {
+            eventPublisher.publishEvent(new JwtKeyRotatedEvent(this));
+        }
+    }
+
+    /**
+     * 按当前配置重新构建JwtParser
+     *
+     * @return 公钥配置是否发生变化并已切换
+     */
+    public boolean reload() {
+        KeySource source = new KeySource(authProperties.getPublicKey(), authProperties.getPublicKeys(),
+                authProperties.getClockSkew());
+        KeyMaterial current = keyMaterial;
+        if (source.equals(current.source)) {
+            return false;
+        }
+
+        try {
+            keyMaterial = KeyMaterial.build(source);
+            logger.info("JWT公钥加载完成: defaultKey={}, kids={}",
+                    source.publicKey != null, source.publicKeys.keySet());
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("JWT公钥解析失败，继续使用当前公钥: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 获取当前的JwtParser
+     *
+     * @throws JwtException 未配置任何公钥时
+     */
+    public JwtParser getParser() {
+        JwtParser parser = keyMaterial.parser;
+        if (parser == null) {
+            throw new JwtException("未配置JWT公钥");
+        }
+        return parser;
+    }
+
+    /**
+     * 解析PEM格式的RSA公钥
+     */
+    static PublicKey parsePublicKey(String pem) {
+        String body = pem.replace(PEM_BEGIN, "").replace(PEM_END, "");
+        StringBuilder base64 = new StringBuilder(body.length());
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                base64.append(c);
+            }
+        }
+
+        try {
+            byte[] keyBytes = Base64.getDecoder().decode(base64.toString());
+            return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(keyBytes));
+        } catch (Exception e) {
+            throw new IllegalStateException("无法加载RSA公钥", e);
+        }
+    }
+
+    /**
+     * 公钥配置快照，用于判断配置是否变化
+     */
+    private static final class KeySource {
+        private final String publicKey;
+        private final Map<String, String> publicKeys;
+        private final long clockSkew;
+
+        KeySource(String publicKey, Map<String, String> publicKeys, long clockSkew) {
+            this.publicKey = publicKey != null && !publicKey.isBlank() ? publicKey : null;
+            this.publicKeys = publicKeys != null ? Map.copyOf(publicKeys) : Collections.emptyMap();
+            this.clockSkew = clockSkew;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof KeySource)) {
+                return false;
+            }
+            KeySource that = (KeySource) o;
+            return clockSkew == that.clockSkew
+                    && Objects.equals(publicKey, that.publicKey)
+                    && publicKeys.equals(that.publicKeys);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(publicKey, publicKeys, clockSkew);
+        }
+    }
+
+    /**
+     * 解析后的密钥材料，构建后不可变
+     */
+    private static final class KeyMaterial {
+
+        static final KeyMaterial EMPTY = new KeyMaterial(null, null);
+
+        private final KeySource source;
+        private final JwtParser parser;
+
+        private KeyMaterial(KeySource source, JwtParser parser) {
+            this.source = source;
+            this.parser = parser;
+        }
+
+        static KeyMaterial build(KeySource source) {
+            PublicKey defaultKey = source.publicKey != null ? parsePublicKey(source.publicKey) : null;
+            Map<String, PublicKey> keysById = new HashMap<>();
+            source.publicKeys.forEach((kid, pem) -> keysById.put(kid, parsePublicKey(pem)));
+
+            if (defaultKey == null && keysById.isEmpty()) {
+                return new KeyMaterial(source, null);
+            }
+
+            JwtParser parser = Jwts.parserBuilder()
+                    .setSigningKeyResolver(new KidSigningKeyResolver(defaultKey, Map.copyOf(keysById)))
+                    .setAllowedClockSkewSeconds(source.clockSkew)
+                    .build();
+            return new KeyMaterial(source, parser);
+        }
+    }
+
+    /**
+     * 按Token头中的kid选择验签公钥
+     */
+    private static final class KidSigningKeyResolver extends SigningKeyResolverAdapter {
+
+        private final PublicKey defaultKey;
+        private final Map<String, PublicKey> keysById;
+
+        KidSigningKeyResolver(PublicKey defaultKey, Map<String, PublicKey> keysById) {
+            this.defaultKey = defaultKey;
+            this.keysById = keysById;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            String kid = header.getKeyId();
+            if (kid != null) {
+                PublicKey key = keysById.get(kid);
+                if (key != null) {
+                    return key;
+                }
+            }
+            if (defaultKey == null) {
+                throw new JwtException("未找到匹配的JWT公钥: kid=" + kid);
+            }
+            return defaultKey;
+        }
+    }
+}
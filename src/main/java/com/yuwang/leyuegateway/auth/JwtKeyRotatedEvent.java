@@ -0,0 +1,17 @@
+package com.yuwang.leyuegateway.auth;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * JWT验签公钥变更事件
+ * 公钥配置经Nacos刷新并重新加载后发布，监听方据此丢弃基于旧公钥的验签结果
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public class JwtKeyRotatedEvent extends ApplicationEvent {
+
+    public JwtKeyRotatedEvent(Object source) {
+        super(source);
+    }
+}
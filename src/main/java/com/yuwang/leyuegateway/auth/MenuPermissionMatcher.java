@@ -0,0 +1,165 @@
+package com.yuwang.leyuegateway.auth;
+
+import com.yuwang.leyuegateway.util.PathPatternIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预编译的用户菜单权限匹配器
+ * 由Token中的menus声明编译而来，每个Token只编译一次并随 {@link AuthenticatedUser} 缓存。
+ * 对菜单的 path、url、permission 字段，与原逐条匹配的语义保持一致：
+ * 满足 Ant匹配(pattern)、Ant匹配(pattern + "/**") 或 请求路径以pattern开头 之一即视为有权限。
+ * 构建后不可变，可在多线程间共享。
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public final class MenuPermissionMatcher {
+
+    private static final MenuPermissionMatcher EMPTY = new MenuPermissionMatcher(
+            Collections.emptySet(), new PrefixNode(), PathPatternIndex.empty(), true);
+
+    private static final String[] PATTERN_FIELDS = {"path", "url", "permission"};
+
+    /**
+     * 精确路径集合，命中时无需再做前缀与通配匹配
+     */
+    private final Set<String> exactPaths;
+
+    /**
+     * 按字符组织的前缀树，对应"请求路径以pattern开头"
+     */
+    private final PrefixNode prefixes;
+
+    /**
+     * pattern 与 pattern + "/**" 编译后的Ant表达式索引
+     */
+    private final PathPatternIndex patterns;
+
+    private final boolean empty;
+
+    private MenuPermissionMatcher(Set<String> exactPaths, PrefixNode prefixes, PathPatternIndex patterns, boolean empty) {
+        this.exactPaths = exactPaths;
+        this.prefixes = prefixes;
+        this.patterns = patterns;
+        this.empty = empty;
+    }
+
+    /**
+     * 编译用户菜单列表
+     *
+     * @param menus JWT中的menus声明，元素为包含 path/url/permission 字段的Map
+     */
+    public static MenuPermissionMatcher compile(List<?> menus) {
+        if (menus == null || menus.isEmpty()) {
+            return EMPTY;
+        }
+
+        Set<String> exactPaths = new HashSet<>();
+        PrefixNode prefixes = new PrefixNode();
+        List<String> antPatterns = new ArrayList<>();
+        for (Object menu : menus) {
+            if (!(menu instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> menuMap = (Map<?, ?>) menu;
+            for (String field : PATTERN_FIELDS) {
+                Object value = menuMap.get(field);
+                if (!(value instanceof String)) {
+                    continue;
+                }
+                String pattern = (String) value;
+                exactPaths.add(pattern);
+                prefixes.insert(pattern);
+                antPatterns.add(pattern);
+                antPatterns.add(pattern + "/**");
+            }
+        }
+        return new MenuPermissionMatcher(Set.copyOf(exactPaths), prefixes,
+                PathPatternIndex.compile(antPatterns), false);
+    }
+
+    /**
+     * 用户菜单声明是否为空
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * 判断是否有权限访问指定路径
+     */
+    public boolean permits(String path) {
+        if (path == null) {
+            return false;
+        }
+        return exactPaths.contains(path) || prefixes.matchesPrefixOf(path) || patterns.matches(path);
+    }
+
+    /**
+     * 字符级前缀树节点，子节点数通常很少，使用并行数组线性查找
+     */
+    private static final class PrefixNode {
+        private char[] keys = new char[0];
+        private PrefixNode[] children = new PrefixNode[0];
+        private boolean terminal;
+
+        void insert(String prefix) {
+            PrefixNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.childOrCreate(prefix.charAt(i));
+            }
+            node.terminal = true;
+        }
+
+        boolean matchesPrefixOf(String path) {
+            PrefixNode node = this;
+            if (node.terminal) {
+                return true;
+            }
+            for (int i = 0; i < path.length(); i++) {
+                node = node.child(path.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+                if (node.terminal) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private PrefixNode child(char c) {
+            char[] k = keys;
+            for (int i = 0; i < k.length; i++) {
+                if (k[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private PrefixNode childOrCreate(char c) {
+            PrefixNode existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            int n = keys.length;
+            char[] newKeys = new char[n + 1];
+            PrefixNode[] newChildren = new PrefixNode[n + 1];
+            System.arraycopy(keys, 0, newKeys, 0, n);
+            System.arraycopy(children, 0, newChildren, 0, n);
+            PrefixNode created = new PrefixNode();
+            newKeys[n] = c;
+            newChildren[n] = created;
+            keys = newKeys;
+            children = newChildren;
+            return created;
+        }
+    }
+}
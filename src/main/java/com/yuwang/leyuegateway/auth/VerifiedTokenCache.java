@@ -0,0 +1,119 @@
+package com.yuwang.leyuegateway.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.yuwang.leyuegateway.config.GatewayAuthProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 已验签Token缓存
+ * 以Token的SHA-256摘要为键缓存解析后的用户身份，同一Token在有效期内只做一次RSA验签。
+ * 条目在Token的exp减去时钟漂移容忍度时过期，超过容量按大小淘汰。
+ * 命中、未命中、淘汰次数通过actuator指标 cache.gets / cache.evictions（cache=jwtTokenCache）暴露。
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+public class VerifiedTokenCache {
+
+    /**
+     * 缓存指标名称
+     */
+    public static final String CACHE_NAME = "jwtTokenCache";
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前JVM不支持SHA-256", e);
+        }
+    });
+
+    private final GatewayAuthProperties authProperties;
+
+    private final Cache<String, AuthenticatedUser> cache;
+
+    public VerifiedTokenCache(GatewayAuthProperties authProperties, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.authProperties = authProperties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(authProperties.getTokenCacheMaxSize(), 0))
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        meterRegistryProvider.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+    }
+
+    /**
+     * 获取Token对应的用户身份，缓存未命中时调用verifier验签并缓存结果
+     *
+     * @param token Bearer Token
+     * @param verifier 验签并解析用户身份的函数，验签失败时应抛出异常（异常结果不会被缓存）
+     * @return 用户身份
+     */
+    public AuthenticatedUser resolve(String token, Function<String, AuthenticatedUser> verifier) {
+        if (!authProperties.isTokenCacheEnabled()) {
+            return verifier.apply(token);
+        }
+        return cache.get(digest(token), key -> verifier.apply(token));
+    }
+
+    /**
+     * 清空缓存，用于公钥变更等需要强制重新验签的场景
+     */
+    @EventListener(JwtKeyRotatedEvent.class)
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 当前缓存条目数（近似值）
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static String digest(String token) {
+        byte[] hash = SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    /**
+     * 按Token的exp减去时钟漂移计算条目存活时间，未携带exp的Token不保留
+     */
+    private class TokenExpiry implements Expiry<String, AuthenticatedUser> {
+
+        @Override
+        public long expireAfterCreate(String key, AuthenticatedUser user, long currentTime) {
+            if (user.getExpiresAtMillis() <= 0) {
+                return 0L;
+            }
+            long ttlMillis = user.getExpiresAtMillis()
+                    - TimeUnit.SECONDS.toMillis(authProperties.getClockSkew())
+                    - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMillis, 0L));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, AuthenticatedUser user, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, user, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, AuthenticatedUser user, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.yuwang.leyuegateway.auth;
+
+import com.yuwang.leyuegateway.config.GatewayAuthProperties;
+import com.yuwang.leyuegateway.util.PathPatternIndex;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 认证白名单匹配器
+ * 启动及Nacos配置刷新时将 jwt.whitelist 与 jwt.menu-permission-whitelist 编译为 {@link PathPatternIndex}，
+ * 请求路径的白名单判断不再逐条执行AntPathMatcher。
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+public class WhitelistMatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(WhitelistMatcher.class);
+
+    private final GatewayAuthProperties authProperties;
+
+    private volatile PathPatternIndex whitelist = PathPatternIndex.empty();
+
+    private volatile PathPatternIndex menuPermissionWhitelist = PathPatternIndex.empty();
+
+    public WhitelistMatcher(GatewayAuthProperties authProperties) {
+        this.authProperties = authProperties;
+    }
+
+    /**
+     * 按当前配置重新编译白名单
+     */
+    @PostConstruct
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void rebuild() {
+        whitelist = PathPatternIndex.compile(authProperties.getWhitelist());
+        menuPermissionWhitelist = PathPatternIndex.compile(authProperties.getMenuPermissionWhitelist());
+        logger.info("认证白名单编译完成: whitelist={}, menuPermissionWhitelist={}",
+                whitelist.size(), menuPermissionWhitelist.size());
+    }
+
+    /**
+     * 检查路径是否在白名单中
+     */
+    public boolean isWhitelisted(String path) {
+        return whitelist.matches(path);
+    }
+
+    /**
+     * 检查路径是否在菜单权限验证白名单中
+     */
+    public boolean isMenuPermissionWhitelisted(String path) {
+        return menuPermissionWhitelist.matches(path);
+    }
+}
@@ -0,0 +1,91 @@
+package com.yuwang.leyuegateway.cache;
+
+import java.util.List;
+
+/**
+ * Cache-Control 指令解析结果
+ * 只解析缓存决策用到的指令，未知指令忽略
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+final class CacheDirectives {
+
+    static final CacheDirectives NONE = new CacheDirectives();
+
+    boolean present;
+    boolean noStore;
+    boolean noCache;
+    boolean isPrivate;
+    long maxAge = -1;
+    long sMaxAge = -1;
+
+    private CacheDirectives() {
+    }
+
+    static CacheDirectives parse(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return NONE;
+        }
+        CacheDirectives directives = new CacheDirectives();
+        directives.present = true;
+        for (String value : values) {
+            int length = value.length();
+            int start = 0;
+            while (start < length) {
+                int end = value.indexOf(',', start);
+                if (end < 0) {
+                    end = length;
+                }
+                directives.apply(value, start, end);
+                start = end + 1;
+            }
+        }
+        return directives;
+    }
+
+    private void apply(String value, int start, int end) {
+        while (start < end && value.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int eq = value.indexOf('=', start);
+        int nameEnd = eq >= 0 && eq < end ? eq : end;
+        String name = value.substring(start, nameEnd).trim();
+        if (name.equalsIgnoreCase("no-store")) {
+            noStore = true;
+        } else if (name.equalsIgnoreCase("no-cache")) {
+            noCache = true;
+        } else if (name.equalsIgnoreCase("private")) {
+            isPrivate = true;
+        } else if (name.equalsIgnoreCase("max-age")) {
+            maxAge = seconds(value, nameEnd + 1, end);
+        } else if (name.equalsIgnoreCase("s-maxage")) {
+            sMaxAge = seconds(value, nameEnd + 1, end);
+        }
+    }
+
+    /**
+     * 解析秒数，格式错误时视为0（按已过期处理）
+     */
+    private static long seconds(String value, int start, int end) {
+        if (start >= end) {
+            return 0L;
+        }
+        if (value.charAt(start) == '"' && end - start >= 2 && value.charAt(end - 1) == '"') {
+            start++;
+            end--;
+        }
+        long result = 0L;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0L;
+            }
+            result = Math.min(result * 10 + (c - '0'), Integer.MAX_VALUE);
+        }
+        return result;
+    }
+}
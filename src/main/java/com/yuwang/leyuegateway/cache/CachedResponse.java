@@ -0,0 +1,92 @@
+package com.yuwang.leyuegateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 缓存的上游响应
+ * 不可变对象，响应头为只读副本，响应体在请求间共享，输出时以只读缓冲区包装
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public final class CachedResponse {
+
+    /**
+     * 每个响应头估算的额外字节数
+     */
+    private static final int HEADER_OVERHEAD = 32;
+
+    private final int status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final long storedAtMillis;
+    private final long storedAtNanos;
+    private final long ttlNanos;
+    private final int weight;
+
+    CachedResponse(int status, HttpHeaders headers, byte[] body, long storedAtMillis, long storedAtNanos,
+                   long ttlNanos) {
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.storedAtMillis = storedAtMillis;
+        this.storedAtNanos = storedAtNanos;
+        this.ttlNanos = ttlNanos;
+        this.weight = weigh(headers, body);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getETag() {
+        return headers.getETag();
+    }
+
+    /**
+     * 按存入时间判断是否仍然新鲜
+     */
+    public boolean isFresh(long nowNanos) {
+        return nowNanos - storedAtNanos < ttlNanos;
+    }
+
+    /**
+     * 响应在缓存中的存放时长（秒），用于Age响应头
+     */
+    public long ageSeconds(long nowMillis) {
+        return Math.max(0L, (nowMillis - storedAtMillis) / 1000L);
+    }
+
+    long getTtlNanos() {
+        return ttlNanos;
+    }
+
+    /**
+     * 估算的内存占用，用于按字节淘汰
+     */
+    int getWeight() {
+        return weight;
+    }
+
+    private static int weigh(HttpHeaders headers, byte[] body) {
+        long weight = body.length;
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            weight += entry.getKey().length() + HEADER_OVERHEAD;
+            for (String value : entry.getValue()) {
+                weight += value.length();
+            }
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+}
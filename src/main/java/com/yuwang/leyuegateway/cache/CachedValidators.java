@@ -0,0 +1,98 @@
+package com.yuwang.leyuegateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.net.URI;
+
+/**
+ * 某个资源最近一次上游响应的校验器（ETag/Last-Modified）
+ * 同时保存转发到上游的地址与不含凭证的请求头，用于后台重新校验；由已认证请求记录时，
+ * 后台校验使用触发校验的请求的凭证
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+final class CachedValidators {
+
+    private final String etag;
+    private final long lastModified;
+    private final HttpHeaders responseHeaders;
+    private final URI upstreamUri;
+    private final HttpHeaders requestHeaders;
+    private final boolean authenticated;
+    private final long storedAtNanos;
+    private final long ttlNanos;
+
+    CachedValidators(String etag, long lastModified, HttpHeaders responseHeaders, URI upstreamUri,
+                     HttpHeaders requestHeaders, boolean authenticated, long storedAtNanos, long ttlNanos) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.responseHeaders = HttpHeaders.readOnlyHttpHeaders(responseHeaders);
+        this.upstreamUri = upstreamUri;
+        this.requestHeaders = HttpHeaders.readOnlyHttpHeaders(requestHeaders);
+        this.authenticated = authenticated;
+        this.storedAtNanos = storedAtNanos;
+        this.ttlNanos = ttlNanos;
+    }
+
+    String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Last-Modified（毫秒时间戳），未携带时为-1
+     */
+    long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * 304响应需要带回的响应头
+     */
+    HttpHeaders getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    URI getUpstreamUri() {
+        return upstreamUri;
+    }
+
+    HttpHeaders getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    /**
+     * 是否由已认证的请求记录，上游结果可能依赖凭证
+     */
+    boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    long getTtlNanos() {
+        return ttlNanos;
+    }
+
+    boolean isFresh(long nowNanos) {
+        return nowNanos - storedAtNanos < ttlNanos;
+    }
+
+    /**
+     * 已超过有效期的一半，需要在后台重新校验
+     */
+    boolean needsRevalidation(long nowNanos) {
+        return nowNanos - storedAtNanos >= ttlNanos / 2;
+    }
+
+    /**
+     * 上游确认未变化后刷新存入时间，上游返回了新的校验相关响应头时一并更新
+     */
+    CachedValidators refreshed(HttpHeaders revalidatedHeaders, long nowNanos) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(responseHeaders);
+        ValidatorCache.copyValidatorHeaders(revalidatedHeaders, headers);
+        String newEtag = headers.getETag();
+        long newLastModified = headers.getLastModified();
+        return new CachedValidators(newEtag, newLastModified, headers, upstreamUri, requestHeaders, authenticated,
+                nowNanos, ttlNanos);
+    }
+}
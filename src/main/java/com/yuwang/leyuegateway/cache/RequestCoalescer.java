@@ -0,0 +1,292 @@
+package com.yuwang.leyuegateway.cache;
+
+import com.yuwang.leyuegateway.config.RequestCoalescingProperties;
+import com.yuwang.leyuegateway.util.PathPatternIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求合并（single-flight）
+ * 按路由启用，相同的GET/HEAD请求（方法、路径、查询串及配置的请求头相同）在上游请求进行中时只由第一个请求访问上游，
+ * 其余请求订阅同一个结果，上游响应结束后共享给所有等待的请求，不做缓存。
+ * 带Set-Cookie、超过大小上限、流式输出或失败的响应不共享，等待的请求各自访问上游。
+ * 合并情况通过 gateway.request-coalescing.requests（result=leader/coalesced/fallback）
+ * 与合并比例 gateway.request-coalescing.ratio 暴露
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.request-coalescing", name = "enabled", havingValue = "true")
+public class RequestCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    public static final String REQUESTS_METRIC = "gateway.request-coalescing.requests";
+    public static final String RATIO_METRIC = "gateway.request-coalescing.ratio";
+
+    private static final String SEPARATOR = "\n";
+
+    private final RequestCoalescingProperties properties;
+    private final Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final Counter leaderCounter;
+    private final Counter coalescedCounter;
+    private final Counter fallbackCounter;
+
+    private volatile Map<String, Policy> policies = Map.of();
+
+    public RequestCoalescer(RequestCoalescingProperties properties, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.properties = properties;
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            this.leaderCounter = Counter.builder(REQUESTS_METRIC).tag("result", "leader").register(meterRegistry);
+            this.coalescedCounter = Counter.builder(REQUESTS_METRIC).tag("result", "coalesced").register(meterRegistry);
+            this.fallbackCounter = Counter.builder(REQUESTS_METRIC).tag("result", "fallback").register(meterRegistry);
+            Gauge.builder(RATIO_METRIC, this, RequestCoalescer::coalescingRatio).register(meterRegistry);
+        } else {
+            this.leaderCounter = null;
+            this.coalescedCounter = null;
+            this.fallbackCounter = null;
+        }
+    }
+
+    /**
+     * 编译路由合并策略，配置刷新后重新编译
+     */
+    @PostConstruct
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void rebuild() {
+        Map<String, Policy> compiled = new HashMap<>();
+        properties.getRoutes().forEach((routeKey, route) -> compiled.put(routeKey, new Policy(route)));
+        policies = compiled;
+        logger.info("请求合并路由已加载: {}", compiled.keySet());
+    }
+
+    /**
+     * 获取请求适用的合并策略
+     *
+     * @return 请求不可合并（非GET/HEAD、路由或路径未启用）时返回null
+     */
+    public Policy policyFor(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        HttpMethod method = request.getMethod();
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+            return null;
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return null;
+        }
+        Map<String, Policy> current = policies;
+        Policy policy = current.get(route.getId());
+        if (policy == null) {
+            URI uri = route.getUri();
+            if (uri != null && "lb".equals(uri.getScheme()) && uri.getHost() != null) {
+                policy = current.get(uri.getHost());
+            }
+        }
+        return policy != null && policy.matchesPath(request.getURI().getPath()) ? policy : null;
+    }
+
+    /**
+     * 生成合并key：路由、方法、路径与查询串及策略配置的请求头
+     */
+    public String key(ServerWebExchange exchange, Policy policy) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI uri = request.getURI();
+        StringBuilder key = new StringBuilder(128)
+                .append(route != null ? route.getId() : "").append(SEPARATOR)
+                .append(request.getMethod().name()).append(' ').append(uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            key.append('?').append(uri.getRawQuery());
+        }
+        HttpHeaders headers = request.getHeaders();
+        for (String name : policy.keyHeaders) {
+            key.append(SEPARATOR).append(name).append('=');
+            List<String> values = headers.get(name);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * 尝试成为该key的上游请求发起者
+     *
+     * @return 成功时返回句柄，请求结束后必须调用 {@link Flight#complete}；已有相同请求在进行时返回null
+     */
+    public Flight tryLead(String key) {
+        Sinks.One<CachedResponse> sink = Sinks.one();
+        if (inFlight.putIfAbsent(key, sink) != null) {
+            return null;
+        }
+        leaders.increment();
+        if (leaderCounter != null) {
+            leaderCounter.increment();
+        }
+        return new Flight(key, sink);
+    }
+
+    /**
+     * 订阅该key进行中的上游请求的响应
+     *
+     * @return 发出共享的响应；请求已结束、响应不可共享或等待超时时为空，调用方应自行访问上游
+     */
+    public Mono<CachedResponse> await(String key) {
+        Sinks.One<CachedResponse> sink = inFlight.get(key);
+        if (sink == null) {
+            return fallback();
+        }
+        return sink.asMono()
+                .timeout(properties.getWaitTimeout(), Mono.empty())
+                .doOnNext(shared -> {
+                    coalesced.increment();
+                    if (coalescedCounter != null) {
+                        coalescedCounter.increment();
+                    }
+                })
+                .switchIfEmpty(Mono.defer(this::fallback));
+    }
+
+    /**
+     * 单个可共享响应体的最大字节数
+     */
+    public int maxResponseBytes() {
+        return (int) Math.min(properties.getMaxResponseSize().toBytes(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * 将上游响应转为可共享的响应，带Set-Cookie的响应只属于发起请求的客户端，不共享
+     *
+     * @param method 发起请求的方法，HEAD响应保留上游的Content-Length
+     * @return 可共享的响应，不可共享时返回null
+     */
+    public CachedResponse share(HttpMethod method, HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        if (status == null || body == null || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return null;
+        }
+        HttpHeaders stored = ResponseCache.storedHeaders(headers);
+        if (method == HttpMethod.HEAD && headers.getContentLength() >= 0) {
+            stored.setContentLength(headers.getContentLength());
+        }
+        long now = System.nanoTime();
+        return new CachedResponse(status.value(), stored, body, System.currentTimeMillis(), now, 0L);
+    }
+
+    /**
+     * 输出共享的响应
+     */
+    public Mono<Void> write(ServerWebExchange exchange, CachedResponse shared) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        shared.getHeaders().forEach((name, values) -> {
+            if (!headers.containsKey(name)) {
+                headers.put(name, new ArrayList<>(values));
+            }
+        });
+        response.setStatusCode(HttpStatusCode.valueOf(shared.getStatus()));
+        if (exchange.getRequest().getMethod() == HttpMethod.HEAD) {
+            // HEAD响应没有响应体，Content-Length取自上游响应
+            return response.setComplete();
+        }
+        byte[] body = shared.getBody();
+        headers.setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(ByteBuffer.wrap(body).asReadOnlyBuffer())));
+    }
+
+    /**
+     * 被合并的请求占全部可合并请求的比例
+     */
+    public double coalescingRatio() {
+        long shared = coalesced.sum();
+        long total = leaders.sum() + shared + fallbacks.sum();
+        return total == 0 ? 0.0 : (double) shared / total;
+    }
+
+    private Mono<CachedResponse> fallback() {
+        fallbacks.increment();
+        if (fallbackCounter != null) {
+            fallbackCounter.increment();
+        }
+        return Mono.empty();
+    }
+
+    /**
+     * 路由的合并策略
+     */
+    public static final class Policy {
+
+        private final PathPatternIndex paths;
+        private final List<String> keyHeaders;
+
+        Policy(RequestCoalescingProperties.Route route) {
+            this.paths = PathPatternIndex.compile(route.getPaths());
+            this.keyHeaders = List.copyOf(route.getKeyHeaders());
+        }
+
+        boolean matchesPath(String path) {
+            return paths.isEmpty() || paths.matches(path);
+        }
+    }
+
+    /**
+     * 进行中的上游请求句柄
+     */
+    public final class Flight {
+
+        private final String key;
+        private final Sinks.One<CachedResponse> sink;
+
+        private Flight(String key, Sinks.One<CachedResponse> sink) {
+            this.key = key;
+            this.sink = sink;
+        }
+
+        /**
+         * 结束请求并将响应发给所有等待的请求，重复调用无效
+         *
+         * @param shared 可共享的响应，不可共享或请求失败时为null
+         */
+        public void complete(CachedResponse shared) {
+            inFlight.remove(key, sink);
+            if (shared != null) {
+                sink.tryEmitValue(shared);
+            } else {
+                sink.tryEmitEmpty();
+            }
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package com.yuwang.leyuegateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.yuwang.leyuegateway.auth.AuthenticatedUser;
+import com.yuwang.leyuegateway.config.ResponseCacheProperties;
+import com.yuwang.leyuegateway.constant.AuthHeaders;
+import com.yuwang.leyuegateway.util.PathPatternIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关响应缓存
+ * 缓存按路由启用的GET请求的上游响应，按估算字节数淘汰，条目在Cache-Control（s-maxage/max-age）或路由ttl到期后过期。
+ * 同一key的缓存未命中在上游请求进行中时只由第一个请求访问上游，其余请求等待其结果。
+ * 命中、未命中、淘汰通过actuator指标 cache.gets / cache.evictions（cache=responseCache）暴露，
+ * 等待并共享上游响应的请求数为 gateway.response-cache.coalesced
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.response-cache", name = "enabled", havingValue = "true")
+public class ResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+    public static final String CACHE_NAME = "responseCache";
+    public static final String COALESCED_METRIC = "gateway.response-cache.coalesced";
+
+    /**
+     * 标识缓存结果的响应头：HIT、MISS、COALESCED、STALE
+     */
+    public static final String CACHE_STATUS_HEADER = "X-Gateway-Cache";
+
+    /**
+     * 请求以过期的缓存响应降级时设置的交换属性，该响应不再写回缓存
+     */
+    public static final String STALE_RESPONSE_ATTR = ResponseCache.class.getName() + ".stale";
+
+    private static final String STALE = "STALE";
+
+    /**
+     * 不随缓存保存的响应头（逐跳头、Cookie与缓存自身的头）
+     */
+    private static final Set<String> EXCLUDED_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "te", "trailer", "upgrade", "proxy-authenticate", "proxy-authorization", "set-cookie", "age",
+            "content-length", CACHE_STATUS_HEADER.toLowerCase(Locale.ROOT));
+
+    private static final String SEPARATOR = "\n";
+
+    private final ResponseCacheProperties properties;
+    private final Cache<String, CachedResponse> cache;
+    private final Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedCounter;
+
+    private volatile Map<String, Policy> policies = Map.of();
+
+    public ResponseCache(ResponseCacheProperties properties, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((String key, CachedResponse response) -> response.getWeight())
+                .expireAfter(new ResponseExpiry(properties.getStaleIfError().toNanos()))
+                .recordStats()
+                .build();
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+            this.coalescedCounter = Counter.builder(COALESCED_METRIC).register(meterRegistry);
+        } else {
+            this.coalescedCounter = null;
+        }
+    }
+
+    /**
+     * 编译路由缓存策略，配置刷新后重新编译
+     */
+    @PostConstruct
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void rebuild() {
+        Map<String, Policy> compiled = new HashMap<>();
+        properties.getRoutes().forEach((routeKey, route) -> compiled.put(routeKey, new Policy(route)));
+        policies = compiled;
+        logger.info("响应缓存路由已加载: {}", compiled.keySet());
+    }
+
+    /**
+     * 获取请求适用的缓存策略
+     *
+     * @return 请求不可缓存（非GET、路由或路径未启用、请求声明no-store）时返回null
+     */
+    public Policy policyFor(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() != HttpMethod.GET) {
+            return null;
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return null;
+        }
+        Map<String, Policy> current = policies;
+        Policy policy = current.get(route.getId());
+        if (policy == null) {
+            URI uri = route.getUri();
+            if (uri != null && "lb".equals(uri.getScheme()) && uri.getHost() != null) {
+                policy = current.get(uri.getHost());
+            }
+        }
+        if (policy == null || !policy.matchesPath(request.getURI().getPath())) {
+            return null;
+        }
+        List<String> cacheControl = request.getHeaders().get(HttpHeaders.CACHE_CONTROL);
+        if (cacheControl != null && CacheDirectives.parse(cacheControl).noStore) {
+            return null;
+        }
+        return policy;
+    }
+
+    /**
+     * 请求是否要求跳过缓存直接访问上游（Cache-Control: no-cache 或 max-age=0），上游响应仍会写入缓存
+     */
+    public boolean bypassLookup(ServerWebExchange exchange) {
+        List<String> cacheControl = exchange.getRequest().getHeaders().get(HttpHeaders.CACHE_CONTROL);
+        if (cacheControl == null) {
+            return false;
+        }
+        CacheDirectives directives = CacheDirectives.parse(cacheControl);
+        return directives.noCache || directives.maxAge == 0;
+    }
+
+    /**
+     * 生成缓存key：路由、路径与查询串、Accept-Encoding、用户ID（按策略）及策略配置的请求头
+     */
+    public String key(ServerWebExchange exchange, Policy policy) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI uri = request.getURI();
+        StringBuilder key = new StringBuilder(128)
+                .append(route != null ? route.getId() : "").append(SEPARATOR)
+                .append(uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            key.append('?').append(uri.getRawQuery());
+        }
+        HttpHeaders headers = request.getHeaders();
+        appendHeader(key, headers, HttpHeaders.ACCEPT_ENCODING);
+        if (policy.varyByUser) {
+            // 使用认证过滤器解析出的身份，白名单路径上客户端自带的X-User-Id不可信
+            AuthenticatedUser user = exchange.getAttribute(AuthenticatedUser.EXCHANGE_ATTRIBUTE);
+            key.append(SEPARATOR).append("u=").append(user != null ? user.getUserId() : "");
+        }
+        for (String header : policy.varyHeaders) {
+            appendHeader(key, headers, header);
+        }
+        return key.toString();
+    }
+
+    /**
+     * 获取新鲜的缓存响应
+     */
+    public CachedResponse getFresh(String key) {
+        CachedResponse cached = cache.getIfPresent(key);
+        return cached != null && cached.isFresh(System.nanoTime()) ? cached : null;
+    }
+
+    /**
+     * 获取缓存响应，包括新鲜期已过但仍在 stale-if-error 保留期内的响应，仅用于熔断降级
+     */
+    public CachedResponse getStale(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * 以（可能过期的）缓存响应降级输出，该响应不会被当作上游响应写回缓存
+     */
+    public Mono<Void> writeStale(ServerWebExchange exchange, CachedResponse cached) {
+        exchange.getAttributes().put(STALE_RESPONSE_ATTR, Boolean.TRUE);
+        return write(exchange, cached, STALE);
+    }
+
+    /**
+     * 尝试成为该key的上游请求发起者
+     *
+     * @return 成功时返回填充句柄，请求结束后必须调用 {@link Fill#complete}；已有请求在进行时返回null
+     */
+    public Fill tryLead(String key) {
+        Sinks.One<CachedResponse> sink = Sinks.one();
+        return inFlight.putIfAbsent(key, sink) == null ? new Fill(key, sink) : null;
+    }
+
+    /**
+     * 等待该key正在进行的上游请求的结果
+     *
+     * @return 上游响应可缓存时发出缓存响应；无进行中的请求、响应不可缓存或等待超时时为空
+     */
+    public Mono<CachedResponse> awaitFill(String key) {
+        Sinks.One<CachedResponse> sink = inFlight.get(key);
+        if (sink == null) {
+            return Mono.empty();
+        }
+        return sink.asMono()
+                .timeout(properties.getCoalesceTimeout(), Mono.empty())
+                .doOnNext(cached -> {
+                    if (coalescedCounter != null) {
+                        coalescedCounter.increment();
+                    }
+                });
+    }
+
+    /**
+     * 单个响应体的最大缓存字节数
+     */
+    public int maxEntryBytes() {
+        return (int) Math.min(properties.getMaxEntrySize().toBytes(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按响应的状态码与缓存相关响应头判断是否可缓存，可缓存时写入缓存
+     *
+     * @return 写入的缓存响应，不可缓存时返回null
+     */
+    public CachedResponse store(String key, Policy policy, HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        if (status == null || status.value() != HttpStatus.OK.value() || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return null;
+        }
+        long ttlNanos = freshnessNanos(policy, CacheDirectives.parse(headers.get(HttpHeaders.CACHE_CONTROL)));
+        if (ttlNanos <= 0 || !varyCovered(policy, headers.get(HttpHeaders.VARY))) {
+            return null;
+        }
+
+        CachedResponse cached = new CachedResponse(status.value(), storedHeaders(headers), body, System.currentTimeMillis(),
+                System.nanoTime(), ttlNanos);
+        cache.put(key, cached);
+        return cached;
+    }
+
+    /**
+     * 输出缓存响应，请求携带的If-None-Match与缓存的ETag匹配时返回304
+     */
+    public Mono<Void> write(ServerWebExchange exchange, CachedResponse cached, String cacheStatus) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        // 当前请求已设置的响应头优先
+        cached.getHeaders().forEach((name, values) -> {
+            if (!headers.containsKey(name)) {
+                headers.put(name, new ArrayList<>(values));
+            }
+        });
+        headers.set(HttpHeaders.AGE, Long.toString(cached.ageSeconds(System.currentTimeMillis())));
+        headers.set(CACHE_STATUS_HEADER, cacheStatus);
+
+        if (matchesIfNoneMatch(exchange.getRequest().getHeaders().get(HttpHeaders.IF_NONE_MATCH), cached.getETag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatusCode.valueOf(cached.getStatus()));
+        byte[] body = cached.getBody();
+        headers.setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(ByteBuffer.wrap(body).asReadOnlyBuffer())));
+    }
+
+    /**
+     * 当前缓存条目数（近似值）
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static long freshnessNanos(Policy policy, CacheDirectives directives) {
+        if (directives.noStore || directives.noCache || (directives.isPrivate && !policy.varyByUser)) {
+            return 0L;
+        }
+        if (directives.sMaxAge >= 0) {
+            return TimeUnit.SECONDS.toNanos(directives.sMaxAge);
+        }
+        if (directives.maxAge >= 0) {
+            return TimeUnit.SECONDS.toNanos(directives.maxAge);
+        }
+        return policy.ttlNanos;
+    }
+
+    /**
+     * 复制可在请求间共享的响应头
+     */
+    static HttpHeaders storedHeaders(HttpHeaders headers) {
+        HttpHeaders stored = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (!EXCLUDED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                stored.put(name, List.copyOf(values));
+            }
+        });
+        return stored;
+    }
+
+    /**
+     * 响应的Vary头只能包含缓存key已覆盖的请求头
+     */
+    private static boolean varyCovered(Policy policy, List<String> vary) {
+        if (vary == null) {
+            return true;
+        }
+        for (String value : vary) {
+            for (String header : value.split(",")) {
+                String name = header.trim().toLowerCase(Locale.ROOT);
+                if (!name.isEmpty() && !policy.keyHeaders.contains(name)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 响应是否允许在网关保存（校验器同样遵循no-store与private）
+     */
+    static boolean isStorable(Policy policy, HttpHeaders headers) {
+        CacheDirectives directives = CacheDirectives.parse(headers.get(HttpHeaders.CACHE_CONTROL));
+        return !directives.noStore && (!directives.isPrivate || policy.varyByUser)
+                && !headers.containsKey(HttpHeaders.SET_COOKIE) && varyCovered(policy, headers.get(HttpHeaders.VARY));
+    }
+
+    static boolean matchesIfNoneMatch(List<String> ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String opaqueTag = weakStripped(etag);
+        for (String value : ifNoneMatch) {
+            for (String candidate : value.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || weakStripped(tag).equals(opaqueTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String weakStripped(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static void appendHeader(StringBuilder key, HttpHeaders headers, String name) {
+        key.append(SEPARATOR).append(name).append('=');
+        List<String> values = headers.get(name);
+        if (values != null) {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    key.append(',');
+                }
+                key.append(values.get(i));
+            }
+        }
+    }
+
+    /**
+     * 路由的缓存策略
+     */
+    public static final class Policy {
+
+        private final PathPatternIndex paths;
+        private final long ttlNanos;
+        private final long validatorTtlNanos;
+        private final boolean varyByUser;
+        private final List<String> varyHeaders;
+
+        /**
+         * 缓存key覆盖的请求头（小写），用于校验响应的Vary
+         */
+        private final Set<String> keyHeaders;
+
+        Policy(ResponseCacheProperties.Route route) {
+            this.paths = PathPatternIndex.compile(route.getPaths());
+            this.ttlNanos = route.getTtl() != null ? route.getTtl().toNanos() : 0L;
+            this.validatorTtlNanos = route.getValidatorTtl() != null ? route.getValidatorTtl().toNanos() : 0L;
+            this.varyByUser = route.isVaryByUser();
+            this.varyHeaders = List.copyOf(route.getVaryHeaders());
+            Set<String> keyHeaders = new HashSet<>();
+            keyHeaders.add(HttpHeaders.ACCEPT_ENCODING.toLowerCase(Locale.ROOT));
+            if (varyByUser) {
+                keyHeaders.add(AuthHeaders.USER_ID.toLowerCase(Locale.ROOT));
+            }
+            varyHeaders.forEach(header -> keyHeaders.add(header.toLowerCase(Locale.ROOT)));
+            this.keyHeaders = Set.copyOf(keyHeaders);
+        }
+
+        boolean matchesPath(String path) {
+            return paths.isEmpty() || paths.matches(path);
+        }
+
+        /**
+         * 是否保存校验器并直接响应条件请求
+         */
+        public boolean isValidatorsEnabled() {
+            return validatorTtlNanos > 0;
+        }
+
+        long getValidatorTtlNanos() {
+            return validatorTtlNanos;
+        }
+
+        boolean isVaryByUser() {
+            return varyByUser;
+        }
+
+        List<String> getVaryHeaders() {
+            return varyHeaders;
+        }
+    }
+
+    /**
+     * 缓存未命中时上游请求的填充句柄
+     */
+    public final class Fill {
+
+        private final String key;
+        private final Sinks.One<CachedResponse> sink;
+
+        private Fill(String key, Sinks.One<CachedResponse> sink) {
+            this.key = key;
+            this.sink = sink;
+        }
+
+        /**
+         * 结束填充并通知等待的请求，重复调用无效
+         *
+         * @param cached 写入的缓存响应，响应不可缓存或请求失败时为null
+         */
+        public void complete(CachedResponse cached) {
+            inFlight.remove(key, sink);
+            if (cached != null) {
+                sink.tryEmitValue(cached);
+            } else {
+                sink.tryEmitEmpty();
+            }
+        }
+    }
+
+    /**
+     * 条目在新鲜期结束后再保留 stale-if-error 时长后过期
+     */
+    private static class ResponseExpiry implements Expiry<String, CachedResponse> {
+
+        private final long staleNanos;
+
+        ResponseExpiry(long staleNanos) {
+            this.staleNanos = Math.max(0L, staleNanos);
+        }
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+            return saturatedAdd(response.getTtlNanos(), staleNanos);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return saturatedAdd(response.getTtlNanos(), staleNanos);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private static long saturatedAdd(long a, long b) {
+            long sum = a + b;
+            return sum < 0 ? Long.MAX_VALUE : sum;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.yuwang.leyuegateway.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 在向客户端转发响应体的同时复制一份，用于写入缓存
+ * 响应体照常流式输出，不等待完整响应；超过大小上限、流式（writeAndFlushWith）或中途失败/取消的响应不复制。
+ * 输出结束后回调一次，参数为完整响应体，未能复制时为null
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public class ResponseCaptureDecorator extends ServerHttpResponseDecorator {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int maxBytes;
+    private final Consumer<byte[]> onComplete;
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    private byte[] captured = EMPTY;
+    private int size;
+    private boolean overflow;
+
+    public ResponseCaptureDecorator(ServerHttpResponse delegate, int maxBytes, Consumer<byte[]> onComplete) {
+        super(delegate);
+        this.maxBytes = maxBytes;
+        this.onComplete = onComplete;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        long contentLength = getHeaders().getContentLength();
+        if (contentLength > maxBytes) {
+            finish(false);
+            return super.writeWith(body);
+        }
+        if (contentLength > 0) {
+            captured = new byte[(int) contentLength];
+        }
+        Flux<? extends DataBuffer> tee = Flux.from(body)
+                .doOnNext(this::capture)
+                .doOnComplete(() -> finish(true))
+                .doOnError(error -> finish(false))
+                .doOnCancel(() -> finish(false));
+        return super.writeWith(tee);
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        // 流式响应（SSE等）不缓存
+        finish(false);
+        return super.writeAndFlushWith(body);
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+        // 无响应体
+        return super.setComplete().doOnSuccess(v -> finish(true));
+    }
+
+    private void capture(DataBuffer buffer) {
+        if (overflow) {
+            return;
+        }
+        int readable = buffer.readableByteCount();
+        if (size + readable > maxBytes) {
+            overflow = true;
+            captured = EMPTY;
+            return;
+        }
+        if (size + readable > captured.length) {
+            captured = Arrays.copyOf(captured, Math.min(maxBytes, Math.max(size + readable, captured.length * 2)));
+        }
+        int position = buffer.readPosition();
+        buffer.read(captured, size, readable);
+        buffer.readPosition(position);
+        size += readable;
+    }
+
+    private void finish(boolean success) {
+        if (!completed.compareAndSet(false, true)) {
+            return;
+        }
+        if (!success || overflow) {
+            onComplete.accept(null);
+        } else {
+            onComplete.accept(size == captured.length ? captured : Arrays.copyOf(captured, size));
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.yuwang.leyuegateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.yuwang.leyuegateway.auth.AuthenticatedUser;
+import com.yuwang.leyuegateway.config.ResponseCacheProperties;
+import com.yuwang.leyuegateway.constant.AuthHeaders;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 条件请求校验器缓存
+ * 按缓存key保存上游响应的ETag/Last-Modified，在校验器有效期内直接以304响应匹配的
+ * If-None-Match/If-Modified-Since请求；超过有效期一半后由第一个命中的请求触发后台条件请求重新校验，
+ * 上游返回304时续期，返回新内容时更新校验器，其他结果删除校验器。
+ * 保存的后台校验请求头只包含Accept、Accept-Language与路由的vary-headers，不保存凭证与用户身份；
+ * 由已认证请求记录的校验器，后台校验时携带触发校验的请求的凭证与用户身份头，触发请求未认证时不校验。
+ * 网关直接返回的304次数与后台校验次数通过 gateway.response-cache.not-modified / gateway.response-cache.revalidations 暴露
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.response-cache", name = "enabled", havingValue = "true")
+public class ValidatorCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidatorCache.class);
+
+    public static final String NOT_MODIFIED_METRIC = "gateway.response-cache.not-modified";
+    public static final String REVALIDATIONS_METRIC = "gateway.response-cache.revalidations";
+
+    /**
+     * 304响应带回的响应头（RFC 9110 15.4.5）
+     */
+    private static final List<String> VALIDATOR_HEADERS = List.of(HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED,
+            HttpHeaders.CACHE_CONTROL, HttpHeaders.EXPIRES, HttpHeaders.VARY, HttpHeaders.CONTENT_LOCATION);
+
+    /**
+     * 后台校验请求携带的请求头，另加路由配置的vary-headers
+     */
+    private static final List<String> REVALIDATION_REQUEST_HEADERS = List.of(HttpHeaders.ACCEPT,
+            HttpHeaders.ACCEPT_LANGUAGE);
+
+    /**
+     * 即使配置在vary-headers中也不保存的请求头（小写），另有 X-User- 前缀的用户身份头
+     */
+    private static final Set<String> CREDENTIAL_REQUEST_HEADERS = Set.of("authorization", "proxy-authorization",
+            "cookie", "x-username");
+
+    /**
+     * 已认证的校验器后台校验时，从触发校验的请求复制的凭证与用户身份头
+     */
+    private static final List<String> IDENTITY_REQUEST_HEADERS = List.of(HttpHeaders.AUTHORIZATION,
+            HttpHeaders.COOKIE, AuthHeaders.USER_ID, AuthHeaders.USERNAME, AuthHeaders.USER_ROLES,
+            AuthHeaders.USER_MENUS);
+
+    private final ResponseCacheProperties properties;
+    private final WebClient webClient;
+    private final WebClient loadBalancedWebClient;
+    private final Cache<String, CachedValidators> validators;
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+    private final Counter notModifiedCounter;
+    private final Counter revalidationCounter;
+
+    private LongSupplier nanoClock = System::nanoTime;
+
+    public ValidatorCache(ResponseCacheProperties properties, ObjectProvider<WebClient.Builder> webClientBuilder,
+                          ObjectProvider<ReactorLoadBalancerExchangeFilterFunction> loadBalancerFunction,
+                          ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this(properties, webClientBuilder.getIfAvailable(WebClient::builder).build(),
+                loadBalancerFunction.getIfAvailable() != null
+                        ? webClientBuilder.getIfAvailable(WebClient::builder)
+                                .filter(loadBalancerFunction.getIfAvailable()).build()
+                        : null,
+                meterRegistryProvider.getIfAvailable());
+    }
+
+    ValidatorCache(ResponseCacheProperties properties, WebClient webClient, WebClient loadBalancedWebClient,
+                   MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.webClient = webClient;
+        this.loadBalancedWebClient = loadBalancedWebClient;
+        this.validators = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxValidators())
+                .expireAfter(new Expiry<String, CachedValidators>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedValidators value, long currentTime) {
+                        return value.getTtlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedValidators value, long currentTime,
+                                                  long currentDuration) {
+                        return value.getTtlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedValidators value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.notModifiedCounter = meterRegistry != null ? Counter.builder(NOT_MODIFIED_METRIC).register(meterRegistry) : null;
+        this.revalidationCounter = meterRegistry != null ? Counter.builder(REVALIDATIONS_METRIC).register(meterRegistry) : null;
+    }
+
+    /**
+     * 请求是否携带条件请求头
+     */
+    public static boolean isConditional(ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        return headers.containsKey(HttpHeaders.IF_NONE_MATCH) || headers.containsKey(HttpHeaders.IF_MODIFIED_SINCE);
+    }
+
+    /**
+     * 校验器有效且与条件请求匹配时直接输出304，必要时触发后台重新校验
+     *
+     * @return 已输出304时返回写出结果，否则返回null
+     */
+    public Mono<Void> tryNotModified(ServerWebExchange exchange, String key, String cacheStatus) {
+        CachedValidators cached = validators.getIfPresent(key);
+        long now = nanoClock.getAsLong();
+        if (cached == null || !cached.isFresh(now) || !matches(exchange.getRequest().getHeaders(), cached)) {
+            return null;
+        }
+        if (cached.needsRevalidation(now)) {
+            revalidate(key, cached, exchange);
+        }
+        if (notModifiedCounter != null) {
+            notModifiedCounter.increment();
+        }
+
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        cached.getResponseHeaders().forEach((name, values) -> {
+            if (!headers.containsKey(name)) {
+                headers.put(name, List.copyOf(values));
+            }
+        });
+        headers.set(ResponseCache.CACHE_STATUS_HEADER, cacheStatus);
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        return response.setComplete();
+    }
+
+    /**
+     * 记录上游响应的校验器，在响应提交前调用
+     */
+    public void record(ServerWebExchange exchange, String key, ResponseCache.Policy policy) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpStatusCode status = response.getStatusCode();
+        HttpHeaders headers = response.getHeaders();
+        if (status == null || (status.value() != HttpStatus.OK.value()
+                && status.value() != HttpStatus.NOT_MODIFIED.value())) {
+            // 资源不存在或出错时，旧校验器失效
+            validators.invalidate(key);
+            return;
+        }
+        if (headers.getETag() == null && headers.getLastModified() < 0) {
+            return;
+        }
+        if (!ResponseCache.isStorable(policy, headers)) {
+            validators.invalidate(key);
+            return;
+        }
+
+        HttpHeaders responseHeaders = new HttpHeaders();
+        copyValidatorHeaders(headers, responseHeaders);
+        HttpHeaders requestHeaders = new HttpHeaders();
+        copyRevalidationHeaders(exchange.getRequest().getHeaders(), policy, requestHeaders);
+        validators.put(key, new CachedValidators(headers.getETag(), headers.getLastModified(), responseHeaders,
+                upstreamUri(exchange), requestHeaders, isAuthenticated(exchange), nanoClock.getAsLong(),
+                policy.getValidatorTtlNanos()));
+    }
+
+    /**
+     * 当前保存的校验器数量（近似值）
+     */
+    public long size() {
+        return validators.estimatedSize();
+    }
+
+    void setNanoClock(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    CachedValidators get(String key) {
+        return validators.getIfPresent(key);
+    }
+
+    static void copyValidatorHeaders(HttpHeaders source, HttpHeaders target) {
+        for (String name : VALIDATOR_HEADERS) {
+            List<String> values = source.get(name);
+            if (values != null) {
+                target.put(name, List.copyOf(values));
+            }
+        }
+    }
+
+    private static boolean isAuthenticated(ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        return exchange.getAttribute(AuthenticatedUser.EXCHANGE_ATTRIBUTE) != null
+                || headers.containsKey(HttpHeaders.AUTHORIZATION) || headers.containsKey(HttpHeaders.COOKIE);
+    }
+
+    private static void copyIdentityHeaders(HttpHeaders source, HttpHeaders target) {
+        for (String name : IDENTITY_REQUEST_HEADERS) {
+            List<String> values = source.get(name);
+            if (values != null) {
+                target.put(name, List.copyOf(values));
+            }
+        }
+    }
+
+    private static void copyRevalidationHeaders(HttpHeaders source, ResponseCache.Policy policy, HttpHeaders target) {
+        for (String name : REVALIDATION_REQUEST_HEADERS) {
+            List<String> values = source.get(name);
+            if (values != null) {
+                target.put(name, List.copyOf(values));
+            }
+        }
+        for (String name : policy.getVaryHeaders()) {
+            String lowerCase = name.toLowerCase(Locale.ROOT);
+            List<String> values = source.get(name);
+            if (values != null && !CREDENTIAL_REQUEST_HEADERS.contains(lowerCase) && !lowerCase.startsWith("x-user-")) {
+                target.put(name, List.copyOf(values));
+            }
+        }
+    }
+
+    /**
+     * 按RFC 9110 13.2.2：有If-None-Match时只比较ETag（弱比较），否则比较If-Modified-Since
+     */
+    private static boolean matches(HttpHeaders requestHeaders, CachedValidators cached) {
+        List<String> ifNoneMatch = requestHeaders.get(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return ResponseCache.matchesIfNoneMatch(ifNoneMatch, cached.getEtag());
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = requestHeaders.getIfModifiedSince();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return ifModifiedSince >= 0 && cached.getLastModified() >= 0 && cached.getLastModified() <= ifModifiedSince;
+    }
+
+    /**
+     * 转发时的上游地址：经过负载均衡的请求取原始的lb://地址，以便重新校验时重新选择实例
+     */
+    private static URI upstreamUri(ServerWebExchange exchange) {
+        Collection<URI> originalUrls = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+        if (originalUrls != null) {
+            for (URI uri : originalUrls) {
+                if ("lb".equals(uri.getScheme())) {
+                    return uri;
+                }
+            }
+        }
+        return exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+    }
+
+    private void revalidate(String key, CachedValidators cached, ServerWebExchange trigger) {
+        if (cached.isAuthenticated() && !isAuthenticated(trigger)) {
+            // 上游结果依赖凭证，没有可用的凭证时不校验，校验器到期后由下一次转发重新记录
+            return;
+        }
+        URI uri = cached.getUpstreamUri();
+        WebClient client = webClient;
+        if (uri != null && "lb".equals(uri.getScheme())) {
+            client = loadBalancedWebClient;
+            uri = UriComponentsBuilder.fromUri(uri).scheme("http").build(true).toUri();
+        }
+        if (uri == null || client == null || !revalidating.add(key)) {
+            return;
+        }
+        if (revalidationCounter != null) {
+            revalidationCounter.increment();
+        }
+
+        client.get()
+                .uri(uri)
+                .headers(headers -> {
+                    headers.addAll(cached.getRequestHeaders());
+                    if (cached.isAuthenticated()) {
+                        // 凭证不随校验器保存，使用触发校验的请求（已通过认证过滤器）的凭证
+                        copyIdentityHeaders(trigger.getRequest().getHeaders(), headers);
+                    }
+                    if (cached.getEtag() != null) {
+                        headers.setIfNoneMatch(cached.getEtag());
+                    } else {
+                        headers.setIfModifiedSince(cached.getLastModified());
+                    }
+                })
+                .exchangeToMono(response -> onRevalidated(key, cached, response))
+                .timeout(properties.getRevalidateTimeout())
+                .doFinally(signal -> revalidating.remove(key))
+                .subscribe(null, error -> logger.debug("后台重新校验失败: key={}, error={}", key, error.toString()));
+    }
+
+    private Mono<Void> onRevalidated(String key, CachedValidators cached, ClientResponse response) {
+        int status = response.statusCode().value();
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        if (status == HttpStatus.NOT_MODIFIED.value()) {
+            validators.asMap().replace(key, cached, cached.refreshed(headers, nanoClock.getAsLong()));
+        } else if (status == HttpStatus.OK.value() && (headers.getETag() != null || headers.getLastModified() >= 0)
+                && !CacheDirectives.parse(headers.get(HttpHeaders.CACHE_CONTROL)).noStore) {
+            HttpHeaders responseHeaders = new HttpHeaders();
+            copyValidatorHeaders(headers, responseHeaders);
+            validators.asMap().replace(key, cached, new CachedValidators(headers.getETag(), headers.getLastModified(),
+                    responseHeaders, cached.getUpstreamUri(), cached.getRequestHeaders(), cached.isAuthenticated(),
+                    nanoClock.getAsLong(), cached.getTtlNanos()));
+        } else {
+            validators.asMap().remove(key, cached);
+        }
+        return response.releaseBody();
+    }
+}
@@ -0,0 +1,194 @@
+package com.yuwang.leyuegateway.circuitbreaker;
+
+import com.yuwang.leyuegateway.config.CircuitBreakerProperties;
+import com.yuwang.leyuegateway.constant.CircuitBreakerWindowType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 无锁熔断器
+ * 状态保存在一个不可变的阶段对象中，状态转换即对其引用做一次CAS，只有CAS成功的线程触发转换事件。
+ * CLOSED：记录调用结果，窗口内调用数达到 minimum-calls 且失败率达到阈值时打开；
+ * OPEN：拒绝调用，等待 wait-duration-in-open 后由下一个请求转为半开；
+ * HALF_OPEN：放行 permitted-calls-in-half-open 个试探请求，全部成功后关闭，任一失败重新打开。
+ * 试探请求被取消而没有结果时，半开状态在等待时间后重新发放试探名额
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * 状态转换监听
+     */
+    interface Listener {
+
+        void onTransition(CircuitBreaker breaker, State from, State to);
+    }
+
+    private final String name;
+    private final SlidingWindow window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long waitNanos;
+    private final int permittedCallsInHalfOpen;
+    private final boolean fallbackToCache;
+    private final Listener listener;
+    private final AtomicReference<Phase> phase;
+
+    CircuitBreaker(String name, CircuitBreakerProperties.Breaker config, Listener listener, long nowNanos) {
+        this.name = name;
+        this.window = config.getWindowType() == CircuitBreakerWindowType.TIME_BASED
+                ? new TimeBasedWindow(config.getWindowSize()) : new CountBasedWindow(config.getWindowSize());
+        this.minimumCalls = Math.max(1, config.getMinimumCalls());
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.waitNanos = config.getWaitDurationInOpen().toNanos();
+        this.permittedCallsInHalfOpen = Math.max(1, config.getPermittedCallsInHalfOpen());
+        this.fallbackToCache = config.isFallbackToCache();
+        this.listener = listener;
+        this.phase = new AtomicReference<>(new Phase(State.CLOSED, nowNanos, 0));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 当前状态，OPEN到期后由下一次 {@link #tryAcquire(long)} 转为HALF_OPEN
+     */
+    public State getState() {
+        return phase.get().state;
+    }
+
+    /**
+     * 熔断打开时是否优先以响应缓存中的响应降级
+     */
+    public boolean isFallbackToCache() {
+        return fallbackToCache;
+    }
+
+    /**
+     * 尝试获取调用许可，OPEN到期时转为HALF_OPEN，HALF_OPEN时占用一个试探名额
+     */
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            Phase current = phase.get();
+            switch (current.state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (nowNanos - current.sinceNanos < waitNanos) {
+                        return false;
+                    }
+                    transition(current, State.HALF_OPEN, nowNanos);
+                    break;
+                default:
+                    int permits = current.permits.get();
+                    if (permits > 0) {
+                        if (current.permits.compareAndSet(permits, permits - 1)) {
+                            return true;
+                        }
+                        break;
+                    }
+                    if (nowNanos - current.sinceNanos < waitNanos) {
+                        return false;
+                    }
+                    // 试探请求迟迟没有结果，重新发放名额
+                    phase.compareAndSet(current, new Phase(State.HALF_OPEN, nowNanos, permittedCallsInHalfOpen));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 是否允许调用，不占用试探名额，用于负载均衡筛选实例
+     */
+    public boolean isCallPermitted(long nowNanos) {
+        Phase current = phase.get();
+        return switch (current.state) {
+            case CLOSED -> true;
+            case OPEN -> nowNanos - current.sinceNanos >= waitNanos;
+            case HALF_OPEN -> current.permits.get() > 0 || nowNanos - current.sinceNanos >= waitNanos;
+        };
+    }
+
+    /**
+     * 记录一次调用结果
+     */
+    public void onResult(boolean failure, long nowNanos) {
+        Phase current = phase.get();
+        switch (current.state) {
+            case CLOSED -> {
+                window.record(failure, nowNanos);
+                if (failure && shouldTrip(nowNanos)) {
+                    transition(current, State.OPEN, nowNanos);
+                }
+            }
+            case HALF_OPEN -> {
+                if (failure) {
+                    transition(current, State.OPEN, nowNanos);
+                } else if (current.successes.incrementAndGet() >= permittedCallsInHalfOpen) {
+                    transition(current, State.CLOSED, nowNanos);
+                }
+            }
+            default -> {
+                // 打开之前发出的请求，结果不再计入
+            }
+        }
+    }
+
+    /**
+     * 熔断打开时距离进入半开状态的剩余时间
+     */
+    public long remainingOpenNanos(long nowNanos) {
+        Phase current = phase.get();
+        return current.state == State.OPEN ? Math.max(0L, waitNanos - (nowNanos - current.sinceNanos)) : 0L;
+    }
+
+    /**
+     * 窗口内的失败率（百分比），调用数不足 minimum-calls 时返回-1
+     */
+    public double failureRate(long nowNanos) {
+        int total = window.totalCalls(nowNanos);
+        return total < minimumCalls ? -1.0 : window.failedCalls(nowNanos) * 100.0 / total;
+    }
+
+    private boolean shouldTrip(long nowNanos) {
+        int total = window.totalCalls(nowNanos);
+        return total >= minimumCalls && window.failedCalls(nowNanos) * 100.0 >= failureRateThreshold * total;
+    }
+
+    private void transition(Phase current, State to, long nowNanos) {
+        Phase next = new Phase(to, nowNanos, to == State.HALF_OPEN ? permittedCallsInHalfOpen : 0);
+        if (phase.compareAndSet(current, next)) {
+            if (to == State.CLOSED) {
+                window.reset();
+            }
+            listener.onTransition(this, current.state, to);
+        }
+    }
+
+    /**
+     * 熔断器所处的阶段，每次状态转换创建新对象
+     */
+    private static final class Phase {
+
+        private final State state;
+        private final long sinceNanos;
+        private final AtomicInteger permits;
+        private final AtomicInteger successes = new AtomicInteger();
+
+        private Phase(State state, long sinceNanos, int permits) {
+            this.state = state;
+            this.sinceNanos = sinceNanos;
+            this.permits = new AtomicInteger(permits);
+        }
+    }
+}
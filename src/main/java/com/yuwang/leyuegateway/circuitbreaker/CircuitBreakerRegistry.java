@@ -0,0 +1,213 @@
+package com.yuwang.leyuegateway.circuitbreaker;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.yuwang.leyuegateway.config.CircuitBreakerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 熔断器注册表
+ * 路由熔断器按路由ID创建（配置按路由ID或服务名查找），在负载均衡之前快速失败；
+ * 实例熔断器按 服务名/host:port 创建，熔断打开的实例不参与负载均衡，空闲后回收。
+ * 状态通过 gateway.circuit-breaker.state（type、name，0关闭/1打开/2半开）暴露，
+ * 状态转换次数为 gateway.circuit-breaker.transitions（type、name、from、to），
+ * 被拒绝的请求数为 gateway.circuit-breaker.rejected（type、name、result=fast-fail|fallback）
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.circuit-breaker", name = "enabled", havingValue = "true")
+public class CircuitBreakerRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreakerRegistry.class);
+
+    public static final String STATE_METRIC = "gateway.circuit-breaker.state";
+    public static final String TRANSITIONS_METRIC = "gateway.circuit-breaker.transitions";
+    public static final String REJECTED_METRIC = "gateway.circuit-breaker.rejected";
+
+    static final String ROUTE = "route";
+    static final String INSTANCE = "instance";
+
+    private final CircuitBreakerProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> routeBreakers = new ConcurrentHashMap<>();
+    private final Cache<String, CircuitBreaker> instanceBreakers;
+    private final CircuitBreaker.Listener routeListener;
+    private final CircuitBreaker.Listener instanceListener;
+
+    private LongSupplier nanoClock = System::nanoTime;
+
+    public CircuitBreakerRegistry(CircuitBreakerProperties properties, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistryProvider.getIfAvailable();
+        this.instanceBreakers = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getInstanceIdleTimeout())
+                .removalListener((String name, CircuitBreaker breaker, RemovalCause cause) -> removeStateGauge(name))
+                .build();
+        this.routeListener = (breaker, from, to) -> onTransition(ROUTE, breaker, from, to);
+        this.instanceListener = (breaker, from, to) -> onTransition(INSTANCE, breaker, from, to);
+    }
+
+    /**
+     * 配置刷新后按新配置重建路由熔断器（熔断状态重置）
+     */
+    @PostConstruct
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void rebuild() {
+        routeBreakers.clear();
+        instanceBreakers.invalidateAll();
+        logger.info("熔断配置已加载: routes={}", properties.getRoutes().keySet());
+    }
+
+    /**
+     * 获取路由的熔断器
+     */
+    public CircuitBreaker forRoute(Route route) {
+        CircuitBreaker breaker = routeBreakers.get(route.getId());
+        return breaker != null ? breaker : routeBreakers.computeIfAbsent(route.getId(), id -> createRouteBreaker(route));
+    }
+
+    /**
+     * 获取实例的熔断器
+     */
+    public CircuitBreaker forInstance(ServiceInstance instance) {
+        String name = instance.getServiceId() + "/" + instance.getHost() + ":" + instance.getPort();
+        CircuitBreaker breaker = instanceBreakers.getIfPresent(name);
+        return breaker != null ? breaker : instanceBreakers.get(name, key -> {
+            registerStateGauge(INSTANCE, key, () -> instanceBreakers.policy().getIfPresentQuietly(key));
+            return new CircuitBreaker(key, properties.getInstance(), instanceListener, nanoClock.getAsLong());
+        });
+    }
+
+    /**
+     * 筛选允许调用的实例，不占用半开状态的试探名额
+     *
+     * @return 全部实例都处于熔断状态时返回空列表，请求快速失败
+     */
+    public List<ServiceInstance> available(List<ServiceInstance> instances) {
+        long now = nanoClock.getAsLong();
+        List<ServiceInstance> available = null;
+        for (int i = 0; i < instances.size(); i++) {
+            ServiceInstance instance = instances.get(i);
+            boolean permitted = forInstance(instance).isCallPermitted(now);
+            if (!permitted && available == null) {
+                available = new ArrayList<>(instances.subList(0, i));
+            } else if (permitted && available != null) {
+                available.add(instance);
+            }
+        }
+        return available != null ? available : instances;
+    }
+
+    /**
+     * 负载均衡选定实例，半开状态的实例占用一个试探名额
+     */
+    public void onSelected(ServiceInstance instance) {
+        forInstance(instance).tryAcquire(nanoClock.getAsLong());
+    }
+
+    /**
+     * 记录转发到实例的结果
+     */
+    public void recordInstance(ServiceInstance instance, boolean failure) {
+        forInstance(instance).onResult(failure, nanoClock.getAsLong());
+    }
+
+    /**
+     * 记录被路由熔断器拒绝的请求
+     *
+     * @param fallback 是否以缓存响应降级
+     */
+    public void rejected(CircuitBreaker breaker, boolean fallback) {
+        if (meterRegistry != null) {
+            Counter.builder(REJECTED_METRIC)
+                    .tag("type", ROUTE)
+                    .tag("name", breaker.getName())
+                    .tag("result", fallback ? "fallback" : "fast-fail")
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    public long nanoTime() {
+        return nanoClock.getAsLong();
+    }
+
+    void setNanoClock(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    private CircuitBreaker createRouteBreaker(Route route) {
+        URI uri = route.getUri();
+        String serviceId = uri != null && "lb".equals(uri.getScheme()) ? uri.getHost() : null;
+        registerStateGauge(ROUTE, route.getId(), () -> routeBreakers.get(route.getId()));
+        return new CircuitBreaker(route.getId(), properties.routeBreakerFor(route.getId(), serviceId), routeListener,
+                nanoClock.getAsLong());
+    }
+
+    private void onTransition(String type, CircuitBreaker breaker, CircuitBreaker.State from, CircuitBreaker.State to) {
+        if (to == CircuitBreaker.State.OPEN) {
+            logger.warn("熔断打开: type={}, name={}, from={}", type, breaker.getName(), from);
+        } else {
+            logger.info("熔断状态变化: type={}, name={}, {} -> {}", type, breaker.getName(), from, to);
+        }
+        if (meterRegistry != null) {
+            Counter.builder(TRANSITIONS_METRIC)
+                    .tag("type", type)
+                    .tag("name", breaker.getName())
+                    .tag("from", from.name().toLowerCase())
+                    .tag("to", to.name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    /**
+     * 指标按名称读取当前的熔断器，熔断器重建或回收后重新创建时沿用同一指标
+     */
+    private void registerStateGauge(String type, String name, Supplier<CircuitBreaker> current) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Gauge.builder(STATE_METRIC, () -> {
+                    CircuitBreaker breaker = current.get();
+                    return breaker != null ? breaker.getState().ordinal() : 0;
+                })
+                .tag("type", type)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    private void removeStateGauge(String name) {
+        if (meterRegistry == null || instanceBreakers.policy().getIfPresentQuietly(name) != null) {
+            return;
+        }
+        Meter gauge = meterRegistry.find(STATE_METRIC).tag("type", INSTANCE).tag("name", name).meter();
+        if (gauge != null) {
+            meterRegistry.remove(gauge);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.yuwang.leyuegateway.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按调用次数的环形窗口：保存最近N次调用的结果
+ * 记录时原子地领取一个槽位并替换其中的旧结果，按新旧结果的差异调整调用数与失败数
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+final class CountBasedWindow implements SlidingWindow {
+
+    private static final int EMPTY = 0;
+    private static final int SUCCESS = 1;
+    private static final int FAILURE = 2;
+
+    private final int size;
+    private final AtomicIntegerArray slots;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    CountBasedWindow(int size) {
+        this.size = Math.max(1, size);
+        this.slots = new AtomicIntegerArray(this.size);
+    }
+
+    @Override
+    public void record(boolean failure, long nowNanos) {
+        int outcome = failure ? FAILURE : SUCCESS;
+        int index = (int) ((cursor.getAndIncrement() & Long.MAX_VALUE) % size);
+        replaced(slots.getAndSet(index, outcome));
+        if (failure) {
+            failures.incrementAndGet();
+        }
+    }
+
+    @Override
+    public int totalCalls(long nowNanos) {
+        return total.get();
+    }
+
+    @Override
+    public int failedCalls(long nowNanos) {
+        return failures.get();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < size; i++) {
+            int previous = slots.getAndSet(i, EMPTY);
+            if (previous != EMPTY) {
+                total.decrementAndGet();
+                if (previous == FAILURE) {
+                    failures.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private void replaced(int previous) {
+        if (previous == EMPTY) {
+            total.incrementAndGet();
+        } else if (previous == FAILURE) {
+            failures.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.yuwang.leyuegateway.circuitbreaker;
+
+/**
+ * 熔断器的调用结果统计窗口，实现均为无锁结构
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+interface SlidingWindow {
+
+    /**
+     * 记录一次调用结果
+     */
+    void record(boolean failure, long nowNanos);
+
+    /**
+     * 窗口内的调用次数
+     */
+    int totalCalls(long nowNanos);
+
+    /**
+     * 窗口内的失败次数
+     */
+    int failedCalls(long nowNanos);
+
+    /**
+     * 清空窗口
+     */
+    void reset();
+}
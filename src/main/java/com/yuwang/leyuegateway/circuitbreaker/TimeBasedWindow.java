@@ -0,0 +1,97 @@
+package com.yuwang.leyuegateway.circuitbreaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按时间的环形窗口：每秒一个桶，保存最近N秒的调用数与失败数
+ * 每个桶是一个long：高24位为秒数（取低位），中间20位为调用数，低20位为失败数，记录即一次CAS；
+ * 秒数与当前不一致的桶视为过期，记录时重新开始计数
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+final class TimeBasedWindow implements SlidingWindow {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << 24) - 1;
+
+    private final int seconds;
+    private final AtomicLongArray buckets;
+
+    TimeBasedWindow(int seconds) {
+        this.seconds = Math.max(1, Math.min(seconds, (int) EPOCH_MASK));
+        this.buckets = new AtomicLongArray(this.seconds);
+    }
+
+    @Override
+    public void record(boolean failure, long nowNanos) {
+        long second = Math.floorDiv(nowNanos, NANOS_PER_SECOND);
+        int index = (int) Math.floorMod(second, (long) seconds);
+        long epoch = second & EPOCH_MASK;
+        while (true) {
+            long current = buckets.get(index);
+            long calls = 1;
+            long failures = failure ? 1 : 0;
+            if (epochOf(current) == epoch) {
+                calls = Math.min(COUNT_MASK, callsOf(current) + 1);
+                failures = Math.min(COUNT_MASK, failuresOf(current) + failures);
+            }
+            long next = (epoch << (COUNT_BITS * 2)) | (calls << COUNT_BITS) | failures;
+            if (buckets.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int totalCalls(long nowNanos) {
+        long total = 0;
+        long epoch = Math.floorDiv(nowNanos, NANOS_PER_SECOND) & EPOCH_MASK;
+        for (int i = 0; i < seconds; i++) {
+            long bucket = buckets.get(i);
+            if (inWindow(bucket, epoch)) {
+                total += callsOf(bucket);
+            }
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int failedCalls(long nowNanos) {
+        long total = 0;
+        long epoch = Math.floorDiv(nowNanos, NANOS_PER_SECOND) & EPOCH_MASK;
+        for (int i = 0; i < seconds; i++) {
+            long bucket = buckets.get(i);
+            if (inWindow(bucket, epoch)) {
+                total += failuresOf(bucket);
+            }
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < seconds; i++) {
+            buckets.set(i, 0L);
+        }
+    }
+
+    private boolean inWindow(long bucket, long epoch) {
+        return ((epoch - epochOf(bucket)) & EPOCH_MASK) < seconds;
+    }
+
+    private static long epochOf(long bucket) {
+        return bucket >>> (COUNT_BITS * 2);
+    }
+
+    private static long callsOf(long bucket) {
+        return (bucket >>> COUNT_BITS) & COUNT_MASK;
+    }
+
+    private static long failuresOf(long bucket) {
+        return bucket & COUNT_MASK;
+    }
+}
@@ -0,0 +1,196 @@
+package com.yuwang.leyuegateway.config;
+
+import com.yuwang.leyuegateway.constant.CircuitBreakerWindowType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 熔断配置属性
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.circuit-breaker")
+public class CircuitBreakerProperties {
+
+    /**
+     * 是否启用，修改需要重启
+     */
+    private boolean enabled = false;
+
+    /**
+     * 路由熔断器的默认配置，对所有路由（包括discovery locator生成的路由）生效
+     */
+    private Breaker route = new Breaker();
+
+    /**
+     * 实例熔断器配置，熔断打开的实例不参与负载均衡
+     */
+    private Breaker instance = new Breaker();
+
+    /**
+     * 按路由覆盖的路由熔断器配置，key为路由ID或服务名
+     */
+    private Map<String, Breaker> routes = new LinkedHashMap<>();
+
+    /**
+     * 实例熔断器的空闲过期时间，下线实例的熔断器在此之后清除
+     */
+    private Duration instanceIdleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * 获取路由熔断器配置
+     *
+     * @param routeId 路由ID
+     * @param serviceId lb://路由的服务名，可为null
+     */
+    public Breaker routeBreakerFor(String routeId, String serviceId) {
+        Breaker breaker = routes.get(routeId);
+        if (breaker == null && serviceId != null) {
+            breaker = routes.get(serviceId);
+        }
+        return breaker != null ? breaker : route;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Breaker getRoute() {
+        return route;
+    }
+
+    public void setRoute(Breaker route) {
+        this.route = route;
+    }
+
+    public Breaker getInstance() {
+        return instance;
+    }
+
+    public void setInstance(Breaker instance) {
+        this.instance = instance;
+    }
+
+    public Map<String, Breaker> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Breaker> routes) {
+        this.routes = routes;
+    }
+
+    public Duration getInstanceIdleTimeout() {
+        return instanceIdleTimeout;
+    }
+
+    public void setInstanceIdleTimeout(Duration instanceIdleTimeout) {
+        this.instanceIdleTimeout = instanceIdleTimeout;
+    }
+
+    /**
+     * 熔断器配置：5xx、连接失败与超时计为失败
+     */
+    public static class Breaker {
+
+        /**
+         * 统计窗口类型
+         */
+        private CircuitBreakerWindowType windowType = CircuitBreakerWindowType.COUNT_BASED;
+
+        /**
+         * 窗口大小：count-based为调用次数，time-based为秒数
+         */
+        private int windowSize = 100;
+
+        /**
+         * 窗口内调用次数达到该值后才计算失败率
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 失败率阈值（百分比），达到后熔断打开
+         */
+        private double failureRateThreshold = 50.0;
+
+        /**
+         * 熔断打开后等待多久进入半开状态
+         */
+        private Duration waitDurationInOpen = Duration.ofSeconds(10);
+
+        /**
+         * 半开状态放行的试探请求数，全部成功后关闭熔断，任一失败重新打开
+         */
+        private int permittedCallsInHalfOpen = 5;
+
+        /**
+         * 熔断打开时是否优先以响应缓存中的（可能已过期的）响应降级，仅对启用响应缓存的路由有效
+         */
+        private boolean fallbackToCache = true;
+
+        public CircuitBreakerWindowType getWindowType() {
+            return windowType;
+        }
+
+        public void setWindowType(CircuitBreakerWindowType windowType) {
+            this.windowType = windowType;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public double getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public Duration getWaitDurationInOpen() {
+            return waitDurationInOpen;
+        }
+
+        public void setWaitDurationInOpen(Duration waitDurationInOpen) {
+            this.waitDurationInOpen = waitDurationInOpen;
+        }
+
+        public int getPermittedCallsInHalfOpen() {
+            return permittedCallsInHalfOpen;
+        }
+
+        public void setPermittedCallsInHalfOpen(int permittedCallsInHalfOpen) {
+            this.permittedCallsInHalfOpen = permittedCallsInHalfOpen;
+        }
+
+        public boolean isFallbackToCache() {
+            return fallbackToCache;
+        }
+
+        public void setFallbackToCache(boolean fallbackToCache) {
+            this.fallbackToCache = fallbackToCache;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.yuwang.leyuegateway.config;
+
+import com.yuwang.leyuegateway.ratelimit.InMemoryQuotaCoordinator;
+import com.yuwang.leyuegateway.ratelimit.LeaderQuotaCoordinator;
+import com.yuwang.leyuegateway.ratelimit.QuotaCoordinator;
+import com.yuwang.leyuegateway.ratelimit.QuotaLeaseServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * 集群限流配置
+ * gateway.rate-limit.cluster.coordinator=leader（默认）时由服务发现选出的网关主节点维护全局令牌桶，
+ * 网关未注册到服务发现时启动失败，避免限流阈值静默地按节点生效；custom时使用应用注册的 {@link QuotaCoordinator}。
+ * 集群限流没有基于 {@link SentinelGatewayConfiguration} 实现：Sentinel的集群流控需要单独部署Token Server
+ * 并引入sentinel-cluster依赖与其配置推送，且每个请求仍同步访问Token Server；这里与本地令牌桶引擎共用规则，
+ * 只在本地租借的令牌用完时访问主节点
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "gateway.rate-limit", name = "engine", havingValue = "cluster")
+public class ClusterRateLimitConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterRateLimitConfiguration.class);
+
+    @Bean
+    @ConditionalOnProperty(prefix = "gateway.rate-limit.cluster", name = "coordinator", havingValue = "leader",
+            matchIfMissing = true)
+    public LeaderQuotaCoordinator leaderQuotaCoordinator(RateLimitProperties properties,
+                                                         ObjectProvider<ReactiveDiscoveryClient> discoveryClient,
+                                                         ObjectProvider<Registration> registration,
+                                                         ObjectProvider<WebClient.Builder> webClientBuilder) {
+        ReactiveDiscoveryClient client = discoveryClient.getIfAvailable();
+        Registration self = registration.getIfUnique();
+        if (client == null || self == null) {
+            throw new IllegalStateException("gateway.rate-limit.engine=cluster 需要网关注册到服务发现（Nacos）以选出配额主节点，"
+                    + "或设置 coordinator=custom 并注册基于共享存储的QuotaCoordinator；单节点部署请使用 engine=local");
+        }
+        String secret = properties.getCluster().getLeaseSecret();
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("gateway.rate-limit.cluster.lease-secret 未配置，主节点的租借接口需要共享密钥");
+        }
+        logger.info("集群限流使用网关主节点维护全局配额: service={}, self={}:{}", self.getServiceId(), self.getHost(),
+                self.getPort());
+        return new LeaderQuotaCoordinator(client, self, properties,
+                new InMemoryQuotaCoordinator(properties.getBucketIdleTimeout()),
+                webClientBuilder.getIfAvailable(WebClient::builder).build());
+    }
+
+    /**
+     * 主节点的租借接口，在内部端口上单独监听，不暴露在网关对外端口上，以共享密钥校验调用方
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "gateway.rate-limit.cluster", name = "coordinator", havingValue = "leader",
+            matchIfMissing = true)
+    public QuotaLeaseServer quotaLeaseServer(LeaderQuotaCoordinator coordinator, RateLimitProperties properties,
+                                             ObjectProvider<Registration> registration) {
+        String address = properties.getCluster().getLeaseAddress();
+        if (address == null || address.isBlank()) {
+            address = registration.getIfUnique().getHost();
+        }
+        return new QuotaLeaseServer(coordinator, address, properties.getCluster().getLeasePort());
+    }
+}
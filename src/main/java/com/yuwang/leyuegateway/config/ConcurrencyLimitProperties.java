@@ -0,0 +1,150 @@
+package com.yuwang.leyuegateway.config;
+
+import com.yuwang.leyuegateway.constant.ConcurrencyLimitKeyType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 按用户/租户的自适应并发限制配置属性
+ * 除 enabled、key、key-idle-timeout、max-keys 外均支持Nacos动态刷新
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * 是否启用，修改需要重启
+     */
+    private boolean enabled = false;
+
+    /**
+     * 并发限制维度：user, tenant
+     */
+    private ConcurrencyLimitKeyType key = ConcurrencyLimitKeyType.USER;
+
+    /**
+     * 新用户（租户）的初始并发上限
+     */
+    private int initialLimit = 20;
+
+    /**
+     * 并发上限的下限
+     */
+    private int minLimit = 2;
+
+    /**
+     * 并发上限的上限
+     */
+    private int maxLimit = 200;
+
+    /**
+     * 检测到拥塞时并发上限的乘性衰减系数
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * 响应时间超过基线的倍数即视为拥塞
+     */
+    private double latencyTolerance = 2.0;
+
+    /**
+     * 用户（租户）空闲多久后回收其并发状态
+     */
+    private Duration keyIdleTimeout = Duration.ofMinutes(5);
+
+    /**
+     * 最多保留的用户（租户）数量
+     */
+    private long maxKeys = 100_000;
+
+    /**
+     * 是否按用户（租户）暴露 gateway.concurrency.inflight / gateway.concurrency.limit 指标，
+     * 每个key一组时间序列，只建议在key数量有限（如按租户）时开启
+     */
+    private boolean metricsEnabled = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public ConcurrencyLimitKeyType getKey() {
+        return key;
+    }
+
+    public void setKey(ConcurrencyLimitKeyType key) {
+        this.key = key;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    public double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+
+    public void setLatencyTolerance(double latencyTolerance) {
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    public Duration getKeyIdleTimeout() {
+        return keyIdleTimeout;
+    }
+
+    public void setKeyIdleTimeout(Duration keyIdleTimeout) {
+        this.keyIdleTimeout = keyIdleTimeout;
+    }
+
+    public long getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(long maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+}
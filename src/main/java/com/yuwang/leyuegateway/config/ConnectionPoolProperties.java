@@ -0,0 +1,262 @@
+package com.yuwang.leyuegateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 按服务隔离的上游连接池配置属性
+ * 每个服务的连接池配置按 defaults、实例注册元数据（gateway.pool.*）、services 的顺序逐项覆盖
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.connection-pool")
+public class ConnectionPoolProperties {
+
+    /**
+     * 是否为每个服务（lb://路由）创建独立的连接池，修改需要重启；关闭时使用 spring.cloud.gateway.httpclient.pool 的共享连接池
+     */
+    private boolean enabled = false;
+
+    /**
+     * 各服务连接池的默认配置
+     */
+    private Pool defaults = Pool.defaults();
+
+    /**
+     * 按服务名覆盖的连接池配置
+     */
+    private Map<String, Pool> services = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Pool getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Pool defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Pool> getServices() {
+        return services;
+    }
+
+    public void setServices(Map<String, Pool> services) {
+        this.services = services;
+    }
+
+    /**
+     * 连接池配置，未设置的项（null）沿用上一层的值
+     */
+    public static class Pool {
+
+        /**
+         * 每个实例（远端地址）的最大连接数
+         */
+        private Integer maxConnections;
+
+        /**
+         * 每个实例等待获取连接的最大请求数，超过后立即失败
+         */
+        private Integer pendingAcquireMaxCount;
+
+        /**
+         * 等待获取连接的超时时间
+         */
+        private Duration pendingAcquireTimeout;
+
+        /**
+         * 连接空闲超过该时间后关闭
+         */
+        private Duration maxIdleTime;
+
+        /**
+         * 连接存活超过该时间后不再复用，使上游扩容后连接逐步均衡到新实例
+         */
+        private Duration maxLifeTime;
+
+        /**
+         * 后台清理空闲、过期连接的周期，0表示只在获取连接时检查
+         */
+        private Duration evictionInterval;
+
+        /**
+         * 连接租借策略：lifo优先复用最近归还的连接，多余的连接空闲后被清理；fifo在连接间轮转
+         */
+        private HttpClientProperties.Pool.LeasingStrategy leasingStrategy;
+
+        /**
+         * 是否启用HTTP/2（h2c/h2，与HTTP/1.1协商），同一连接上多路复用请求
+         */
+        private Boolean http2;
+
+        /**
+         * 创建连接池时是否预热事件循环、DNS解析器与SSL等资源
+         */
+        private Boolean warmUp;
+
+        /**
+         * 实例的连接池闲置超过该时间后释放（下线实例）
+         */
+        private Duration poolInactivity;
+
+        static Pool defaults() {
+            Pool pool = new Pool();
+            pool.maxConnections = 200;
+            pool.pendingAcquireMaxCount = 1000;
+            pool.pendingAcquireTimeout = Duration.ofSeconds(5);
+            pool.maxIdleTime = Duration.ofSeconds(30);
+            pool.maxLifeTime = Duration.ofMinutes(10);
+            pool.evictionInterval = Duration.ofSeconds(30);
+            pool.leasingStrategy = HttpClientProperties.Pool.LeasingStrategy.LIFO;
+            pool.http2 = false;
+            pool.warmUp = true;
+            pool.poolInactivity = Duration.ofMinutes(5);
+            return pool;
+        }
+
+        /**
+         * 以另一个配置中已设置的项覆盖当前配置，返回新对象
+         */
+        public Pool overriddenBy(Pool other) {
+            if (other == null) {
+                return this;
+            }
+            Pool merged = new Pool();
+            merged.maxConnections = other.maxConnections != null ? other.maxConnections : maxConnections;
+            merged.pendingAcquireMaxCount = other.pendingAcquireMaxCount != null
+                    ? other.pendingAcquireMaxCount : pendingAcquireMaxCount;
+            merged.pendingAcquireTimeout = other.pendingAcquireTimeout != null
+                    ? other.pendingAcquireTimeout : pendingAcquireTimeout;
+            merged.maxIdleTime = other.maxIdleTime != null ? other.maxIdleTime : maxIdleTime;
+            merged.maxLifeTime = other.maxLifeTime != null ? other.maxLifeTime : maxLifeTime;
+            merged.evictionInterval = other.evictionInterval != null ? other.evictionInterval : evictionInterval;
+            merged.leasingStrategy = other.leasingStrategy != null ? other.leasingStrategy : leasingStrategy;
+            merged.http2 = other.http2 != null ? other.http2 : http2;
+            merged.warmUp = other.warmUp != null ? other.warmUp : warmUp;
+            merged.poolInactivity = other.poolInactivity != null ? other.poolInactivity : poolInactivity;
+            return merged;
+        }
+
+        public Integer getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(Integer maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public Integer getPendingAcquireMaxCount() {
+            return pendingAcquireMaxCount;
+        }
+
+        public void setPendingAcquireMaxCount(Integer pendingAcquireMaxCount) {
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        }
+
+        public Duration getPendingAcquireTimeout() {
+            return pendingAcquireTimeout;
+        }
+
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+            this.pendingAcquireTimeout = pendingAcquireTimeout;
+        }
+
+        public Duration getMaxIdleTime() {
+            return maxIdleTime;
+        }
+
+        public void setMaxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+        }
+
+        public Duration getMaxLifeTime() {
+            return maxLifeTime;
+        }
+
+        public void setMaxLifeTime(Duration maxLifeTime) {
+            this.maxLifeTime = maxLifeTime;
+        }
+
+        public Duration getEvictionInterval() {
+            return evictionInterval;
+        }
+
+        public void setEvictionInterval(Duration evictionInterval) {
+            this.evictionInterval = evictionInterval;
+        }
+
+        public HttpClientProperties.Pool.LeasingStrategy getLeasingStrategy() {
+            return leasingStrategy;
+        }
+
+        public void setLeasingStrategy(HttpClientProperties.Pool.LeasingStrategy leasingStrategy) {
+            this.leasingStrategy = leasingStrategy;
+        }
+
+        public Boolean getHttp2() {
+            return http2;
+        }
+
+        public void setHttp2(Boolean http2) {
+            this.http2 = http2;
+        }
+
+        public Boolean getWarmUp() {
+            return warmUp;
+        }
+
+        public void setWarmUp(Boolean warmUp) {
+            this.warmUp = warmUp;
+        }
+
+        public Duration getPoolInactivity() {
+            return poolInactivity;
+        }
+
+        public void setPoolInactivity(Duration poolInactivity) {
+            this.poolInactivity = poolInactivity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Pool)) {
+                return false;
+            }
+            Pool pool = (Pool) o;
+            return Objects.equals(maxConnections, pool.maxConnections)
+                    && Objects.equals(pendingAcquireMaxCount, pool.pendingAcquireMaxCount)
+                    && Objects.equals(pendingAcquireTimeout, pool.pendingAcquireTimeout)
+                    && Objects.equals(maxIdleTime, pool.maxIdleTime)
+                    && Objects.equals(maxLifeTime, pool.maxLifeTime)
+                    && Objects.equals(evictionInterval, pool.evictionInterval)
+                    && leasingStrategy == pool.leasingStrategy
+                    && Objects.equals(http2, pool.http2)
+                    && Objects.equals(warmUp, pool.warmUp)
+                    && Objects.equals(poolInactivity, pool.poolInactivity);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(maxConnections, pendingAcquireMaxCount, pendingAcquireTimeout, maxIdleTime,
+                    maxLifeTime, evictionInterval, leasingStrategy, http2, warmUp, poolInactivity);
+        }
+    }
+}
@@ -3,7 +3,9 @@ package com.yuwang.leyuegateway.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 网关认证配置属性
@@ -20,6 +22,11 @@ public class GatewayAuthProperties {
      */
     private String publicKey;
     
+    /**
+     * 按kid配置的RSA公钥（用于密钥轮换），key为kid，value为PEM格式公钥
+     */
+    private Map<String, String> publicKeys = new LinkedHashMap<>();
+    
     /**
      * 白名单路径列表（Ant表达式）
      */
@@ -35,10 +42,25 @@ public class GatewayAuthProperties {
      */
     private boolean enableMenuPermission = true;
     
+    /**
+     * 用户菜单向下游的传递方式：full, none
+     */
+    private MenuPropagationMode menuPropagation = MenuPropagationMode.FULL;
+    
     /**
      * 菜单权限验证白名单（不需要菜单权限验证的路径）
      */
     private List<String> menuPermissionWhitelist;
+    
+    /**
+     * 是否启用已验签Token缓存
+     */
+    private boolean tokenCacheEnabled = true;
+    
+    /**
+     * 已验签Token缓存的最大条目数
+     */
+    private long tokenCacheMaxSize = 10000;
 
     public String getPublicKey() {
         return publicKey;
@@ -48,6 +70,14 @@ public class GatewayAuthProperties {
         this.publicKey = publicKey;
     }
 
+    public Map<String, String> getPublicKeys() {
+        return publicKeys;
+    }
+
+    public void setPublicKeys(Map<String, String> publicKeys) {
+        this.publicKeys = publicKeys;
+    }
+
     public List<String> getWhitelist() {
         return whitelist;
     }
@@ -72,6 +102,14 @@ public class GatewayAuthProperties {
         this.enableMenuPermission = enableMenuPermission;
     }
 
+    public MenuPropagationMode getMenuPropagation() {
+        return menuPropagation;
+    }
+
+    public void setMenuPropagation(MenuPropagationMode menuPropagation) {
+        this.menuPropagation = menuPropagation;
+    }
+
     public List<String> getMenuPermissionWhitelist() {
         return menuPermissionWhitelist;
     }
@@ -79,4 +117,34 @@ public class GatewayAuthProperties {
     public void setMenuPermissionWhitelist(List<String> menuPermissionWhitelist) {
         this.menuPermissionWhitelist = menuPermissionWhitelist;
     }
+
+    public boolean isTokenCacheEnabled() {
+        return tokenCacheEnabled;
+    }
+
+    public void setTokenCacheEnabled(boolean tokenCacheEnabled) {
+        this.tokenCacheEnabled = tokenCacheEnabled;
+    }
+
+    public long getTokenCacheMaxSize() {
+        return tokenCacheMaxSize;
+    }
+
+    public void setTokenCacheMaxSize(long tokenCacheMaxSize) {
+        this.tokenCacheMaxSize = tokenCacheMaxSize;
+    }
+
+    /**
+     * 用户菜单传递方式
+     */
+    public enum MenuPropagationMode {
+        /**
+         * 通过 X-User-Menus 传递完整菜单JSON（每个Token只序列化一次）
+         */
+        FULL,
+        /**
+         * 不向下游传递菜单信息
+         */
+        NONE
+    }
 } 
\ No newline at end of file
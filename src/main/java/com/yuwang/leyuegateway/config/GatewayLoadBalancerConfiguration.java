@@ -0,0 +1,17 @@
+package com.yuwang.leyuegateway.config;
+
+import com.yuwang.leyuegateway.loadbalancer.GatewayLoadBalancerClientConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 网关负载均衡配置
+ * 所有服务使用 {@link GatewayLoadBalancerClientConfiguration} 创建负载均衡器，策略见 gateway.load-balancer
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = GatewayLoadBalancerClientConfiguration.class)
+public class GatewayLoadBalancerConfiguration {
+}
@@ -0,0 +1,301 @@
+package com.yuwang.leyuegateway.config;
+
+import com.yuwang.leyuegateway.constant.LoadBalancerStrategy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 网关负载均衡配置属性
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.load-balancer")
+public class GatewayLoadBalancerProperties {
+
+    /**
+     * 默认负载均衡策略
+     */
+    private LoadBalancerStrategy strategy = LoadBalancerStrategy.ROUND_ROBIN;
+
+    /**
+     * 按服务名覆盖的负载均衡策略
+     */
+    private Map<String, LoadBalancerStrategy> services = new LinkedHashMap<>();
+
+    /**
+     * 响应时间EWMA的衰减时间常数，越小对最近的响应时间越敏感
+     */
+    private Duration decayTime = Duration.ofSeconds(10);
+
+    /**
+     * 尚无响应时间样本的实例使用的响应时间
+     */
+    private Duration initialRtt = Duration.ofMillis(50);
+
+    /**
+     * 实例统计数据的空闲过期时间，下线实例的统计在此之后清除
+     */
+    private Duration statsIdleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * 异常实例摘除（被动健康检查）
+     */
+    private OutlierDetection outlierDetection = new OutlierDetection();
+
+    /**
+     * 新实例慢启动
+     */
+    private SlowStart slowStart = new SlowStart();
+
+    /**
+     * 获取服务使用的负载均衡策略
+     */
+    public LoadBalancerStrategy strategyFor(String serviceId) {
+        return serviceId != null ? services.getOrDefault(serviceId, strategy) : strategy;
+    }
+
+    public LoadBalancerStrategy getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(LoadBalancerStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public Map<String, LoadBalancerStrategy> getServices() {
+        return services;
+    }
+
+    public void setServices(Map<String, LoadBalancerStrategy> services) {
+        this.services = services;
+    }
+
+    public Duration getDecayTime() {
+        return decayTime;
+    }
+
+    public void setDecayTime(Duration decayTime) {
+        this.decayTime = decayTime;
+    }
+
+    public Duration getInitialRtt() {
+        return initialRtt;
+    }
+
+    public void setInitialRtt(Duration initialRtt) {
+        this.initialRtt = initialRtt;
+    }
+
+    public Duration getStatsIdleTimeout() {
+        return statsIdleTimeout;
+    }
+
+    public void setStatsIdleTimeout(Duration statsIdleTimeout) {
+        this.statsIdleTimeout = statsIdleTimeout;
+    }
+
+    public OutlierDetection getOutlierDetection() {
+        return outlierDetection;
+    }
+
+    public void setOutlierDetection(OutlierDetection outlierDetection) {
+        this.outlierDetection = outlierDetection;
+    }
+
+    public SlowStart getSlowStart() {
+        return slowStart;
+    }
+
+    public void setSlowStart(SlowStart slowStart) {
+        this.slowStart = slowStart;
+    }
+
+    /**
+     * 异常实例摘除配置
+     */
+    public static class OutlierDetection {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 连续返回5xx（含响应超时）达到该次数时摘除，0表示不按5xx摘除
+         */
+        private int consecutive5xx = 5;
+
+        /**
+         * 连续连接失败达到该次数时摘除，0表示不按连接失败摘除
+         */
+        private int consecutiveConnectErrors = 3;
+
+        /**
+         * 响应时间EWMA超过同服务实例中位数的倍数时摘除，0表示不按响应时间摘除
+         */
+        private double latencyFactor = 3.0;
+
+        /**
+         * 按响应时间摘除要求的最少有样本的实例数
+         */
+        private int latencyMinHosts = 3;
+
+        /**
+         * 响应时间异常检查与摘除次数回落的周期
+         */
+        private Duration interval = Duration.ofSeconds(10);
+
+        /**
+         * 首次摘除时长，之后每次连续摘除翻倍
+         */
+        private Duration baseEjectionTime = Duration.ofSeconds(30);
+
+        /**
+         * 单次摘除的最长时长
+         */
+        private Duration maxEjectionTime = Duration.ofMinutes(5);
+
+        /**
+         * 同一服务最多同时摘除的实例比例（百分比）
+         */
+        private int maxEjectionPercent = 50;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getConsecutive5xx() {
+            return consecutive5xx;
+        }
+
+        public void setConsecutive5xx(int consecutive5xx) {
+            this.consecutive5xx = consecutive5xx;
+        }
+
+        public int getConsecutiveConnectErrors() {
+            return consecutiveConnectErrors;
+        }
+
+        public void setConsecutiveConnectErrors(int consecutiveConnectErrors) {
+            this.consecutiveConnectErrors = consecutiveConnectErrors;
+        }
+
+        public double getLatencyFactor() {
+            return latencyFactor;
+        }
+
+        public void setLatencyFactor(double latencyFactor) {
+            this.latencyFactor = latencyFactor;
+        }
+
+        public int getLatencyMinHosts() {
+            return latencyMinHosts;
+        }
+
+        public void setLatencyMinHosts(int latencyMinHosts) {
+            this.latencyMinHosts = latencyMinHosts;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public Duration getBaseEjectionTime() {
+            return baseEjectionTime;
+        }
+
+        public void setBaseEjectionTime(Duration baseEjectionTime) {
+            this.baseEjectionTime = baseEjectionTime;
+        }
+
+        public Duration getMaxEjectionTime() {
+            return maxEjectionTime;
+        }
+
+        public void setMaxEjectionTime(Duration maxEjectionTime) {
+            this.maxEjectionTime = maxEjectionTime;
+        }
+
+        public int getMaxEjectionPercent() {
+            return maxEjectionPercent;
+        }
+
+        public void setMaxEjectionPercent(int maxEjectionPercent) {
+            this.maxEjectionPercent = maxEjectionPercent;
+        }
+    }
+
+    /**
+     * 新实例慢启动配置
+     * 已知服务新注册的实例在窗口内按 max(min-weight, (已运行时间/窗口)^(1/aggression)) 的权重逐步增加流量，
+     * 新实例由 gateway.instance-warm-up 在服务发现刷新时识别
+     */
+    public static class SlowStart {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 权重从最小值升到1的时长
+         */
+        private Duration window = Duration.ofSeconds(60);
+
+        /**
+         * 慢启动开始时的权重
+         */
+        private double minWeight = 0.1;
+
+        /**
+         * 权重增长曲线，1为线性，大于1时前期增长更快
+         */
+        private double aggression = 1.0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public double getMinWeight() {
+            return minWeight;
+        }
+
+        public void setMinWeight(double minWeight) {
+            this.minWeight = minWeight;
+        }
+
+        public double getAggression() {
+            return aggression;
+        }
+
+        public void setAggression(double aggression) {
+            this.aggression = aggression;
+        }
+    }
+}
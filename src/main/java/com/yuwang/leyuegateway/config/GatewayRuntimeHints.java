@@ -0,0 +1,91 @@
+package com.yuwang.leyuegateway.config;
+
+import com.yuwang.leyuegateway.loadbalancer.OutlierDetector;
+import com.yuwang.leyuegateway.ratelimit.LeaderQuotaCoordinator;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.boot.context.properties.bind.BindableRuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * 原生镜像的可达性元数据（mvn -Daot -Pnative package）
+ * Spring AOT只为Bean与配置属性生成反射提示，这里补充依赖自身通过反射、ServiceLoader风格的SPI加载的类与资源：
+ * jjwt的API按类名加载实现类；Sentinel的SpiLoader读取 META-INF/services 后反射创建插槽、命令处理器与初始化函数，
+ * Spring Cloud Alibaba自带的元数据不包含网关适配器，且未包含这些SPI文件；Nacos客户端补充日志配置资源。
+ * 网关自身只补充不经过Bean定义的类型：直接绑定的启动配置、actuator端点输出的摘除事件与集群限流的租借请求
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public class GatewayRuntimeHints implements RuntimeHintsRegistrar {
+
+    /**
+     * jjwt-api通过 Classes.newInstance / invokeStatic 按类名使用的jjwt-impl类
+     */
+    static final List<String> JJWT_IMPL_TYPES = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+            "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+            "io.jsonwebtoken.impl.crypto.MacProvider",
+            "io.jsonwebtoken.impl.crypto.RsaProvider",
+            "io.jsonwebtoken.impl.crypto.EllipticCurveProvider",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    /**
+     * Sentinel SpiLoader加载、Spring Cloud Alibaba元数据未覆盖的实现类（网关限流插槽、网关规则命令、参数限流统计）
+     */
+    static final List<String> SENTINEL_SPI_TYPES = List.of(
+            "com.alibaba.csp.sentinel.adapter.gateway.common.slot.GatewayFlowSlot",
+            "com.alibaba.csp.sentinel.adapter.gateway.common.command.GetGatewayRuleCommandHandler",
+            "com.alibaba.csp.sentinel.adapter.gateway.common.command.UpdateGatewayRuleCommandHandler",
+            "com.alibaba.csp.sentinel.adapter.gateway.common.command.GetGatewayApiDefinitionGroupCommandHandler",
+            "com.alibaba.csp.sentinel.adapter.gateway.common.command.UpdateGatewayApiDefinitionGroupCommandHandler",
+            "com.alibaba.csp.sentinel.adapter.gateway.sc.api.SpringCloudGatewayApiDefinitionChangeObserver",
+            "com.alibaba.csp.sentinel.init.ParamFlowStatisticSlotCallbackInit",
+            "com.alibaba.csp.sentinel.metric.extension.MetricCallbackInit");
+
+    /**
+     * 控制台下发网关规则与API分组时由fastjson反序列化的类型
+     */
+    static final List<String> SENTINEL_GATEWAY_RULE_TYPES = List.of(
+            "com.alibaba.csp.sentinel.adapter.gateway.common.rule.GatewayFlowRule",
+            "com.alibaba.csp.sentinel.adapter.gateway.common.rule.GatewayParamFlowItem",
+            "com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiDefinition",
+            "com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiPathPredicateItem",
+            "com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiPredicateGroupItem");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String type : JJWT_IMPL_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+        for (String type : SENTINEL_SPI_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+        for (String type : SENTINEL_GATEWAY_RULE_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.DECLARED_FIELDS);
+        }
+        hints.resources().registerPattern("META-INF/services/com.alibaba.csp.sentinel.*");
+
+        hints.resources().registerPattern("nacos-logback.xml");
+        hints.resources().registerPattern("META-INF/services/com.alibaba.nacos.common.log.*");
+
+        BindableRuntimeHintsRegistrar.forTypes(StartupProperties.class).registerHints(hints, classLoader);
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                OutlierDetector.EjectionEvent.class, LeaderQuotaCoordinator.LeaseRequest.class);
+    }
+}
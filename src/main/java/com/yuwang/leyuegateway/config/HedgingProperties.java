@@ -0,0 +1,132 @@
+package com.yuwang.leyuegateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对冲请求（hedged requests）配置属性
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.hedging")
+public class HedgingProperties {
+
+    /**
+     * 是否启用，修改需要重启
+     */
+    private boolean enabled = false;
+
+    /**
+     * 对冲请求的响应在网关完整缓冲，超过该大小的对冲响应放弃，仍以原请求为准
+     */
+    private DataSize maxResponseSize = DataSize.ofMegabytes(1);
+
+    /**
+     * 启用对冲的路由，key为路由ID或服务名
+     */
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public DataSize getMaxResponseSize() {
+        return maxResponseSize;
+    }
+
+    public void setMaxResponseSize(DataSize maxResponseSize) {
+        this.maxResponseSize = maxResponseSize;
+    }
+
+    public Map<String, Route> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Route> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * 路由的对冲策略，只对GET/HEAD请求生效
+     */
+    public static class Route {
+
+        /**
+         * 启用对冲的路径（Ant表达式），为空表示该路由的所有GET/HEAD请求
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * 对冲延迟取该路由最近响应时间的分位数
+         */
+        private double delayPercentile = 0.95;
+
+        /**
+         * 对冲延迟下限
+         */
+        private Duration minDelay = Duration.ofMillis(10);
+
+        /**
+         * 对冲延迟上限，样本不足时也使用该值
+         */
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        /**
+         * 对冲请求占原请求的最大比例（百分比）
+         */
+        private double budgetPercent = 5.0;
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public double getDelayPercentile() {
+            return delayPercentile;
+        }
+
+        public void setDelayPercentile(double delayPercentile) {
+            this.delayPercentile = delayPercentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public double getBudgetPercent() {
+            return budgetPercent;
+        }
+
+        public void setBudgetPercent(double budgetPercent) {
+            this.budgetPercent = budgetPercent;
+        }
+    }
+}
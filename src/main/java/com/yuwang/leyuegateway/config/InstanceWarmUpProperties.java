@@ -0,0 +1,106 @@
+package com.yuwang.leyuegateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 新实例连接预热配置属性
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.instance-warm-up")
+public class InstanceWarmUpProperties {
+
+    /**
+     * 是否在服务发现刷新时预热新实例的连接，修改需要重启
+     */
+    private boolean enabled = false;
+
+    /**
+     * 每个新实例预先建立的连接数，0表示只识别新实例（用于慢启动），不建立连接
+     */
+    private int connections = 4;
+
+    /**
+     * 预热请求的路径，响应状态码不影响连接复用
+     */
+    private String path = "/actuator/health";
+
+    /**
+     * 按服务名覆盖的预热请求路径
+     */
+    private Map<String, String> paths = new LinkedHashMap<>();
+
+    /**
+     * 单个预热请求的超时时间
+     */
+    private Duration timeout = Duration.ofSeconds(3);
+
+    /**
+     * 不预热的服务，如网关自身
+     */
+    private List<String> excludeServices = new ArrayList<>();
+
+    /**
+     * 获取服务的预热请求路径
+     */
+    public String pathFor(String serviceId) {
+        return paths.getOrDefault(serviceId, path);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Map<String, String> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(Map<String, String> paths) {
+        this.paths = paths;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public List<String> getExcludeServices() {
+        return excludeServices;
+    }
+
+    public void setExcludeServices(List<String> excludeServices) {
+        this.excludeServices = excludeServices;
+    }
+}
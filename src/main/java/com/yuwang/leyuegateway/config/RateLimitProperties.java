@@ -0,0 +1,308 @@
+package com.yuwang.leyuegateway.config;
+
+import com.yuwang.leyuegateway.constant.QuotaCoordinatorType;
+import com.yuwang.leyuegateway.constant.RateLimitEngine;
+import com.yuwang.leyuegateway.constant.RateLimitKeyType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 网关限流配置属性
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 限流引擎：sentinel, local, cluster，切换引擎需要重启
+     */
+    private RateLimitEngine engine = RateLimitEngine.SENTINEL;
+
+    /**
+     * 令牌桶空闲多久后回收，应不小于令牌桶从空到满所需的时间
+     */
+    private Duration bucketIdleTimeout = Duration.ofMinutes(5);
+
+    /**
+     * 每条规则最多保留的令牌桶数量（按用户、IP限流时即活跃用户数、IP数）
+     */
+    private long maxBuckets = 100_000;
+
+    /**
+     * 解析客户端IP时信任的代理层数，0表示直接使用连接的远端地址，
+     * 大于0时从X-Forwarded-For右侧第N个地址取客户端IP
+     */
+    private int trustedProxyHops = 0;
+
+    /**
+     * 限流规则（local、cluster引擎），同一请求命中的所有规则都需要放行
+     */
+    private List<Rule> rules = new ArrayList<>();
+
+    /**
+     * 集群限流配置（engine=cluster时生效）
+     */
+    private Cluster cluster = new Cluster();
+
+    public RateLimitEngine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(RateLimitEngine engine) {
+        this.engine = engine;
+    }
+
+    public Duration getBucketIdleTimeout() {
+        return bucketIdleTimeout;
+    }
+
+    public void setBucketIdleTimeout(Duration bucketIdleTimeout) {
+        this.bucketIdleTimeout = bucketIdleTimeout;
+    }
+
+    public long getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    public void setMaxBuckets(long maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+
+    public int getTrustedProxyHops() {
+        return trustedProxyHops;
+    }
+
+    public void setTrustedProxyHops(int trustedProxyHops) {
+        this.trustedProxyHops = trustedProxyHops;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    public void setCluster(Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    /**
+     * 集群限流配置
+     */
+    public static class Cluster {
+
+        /**
+         * 每次从配额协调器租借的令牌数，超过规则容量时按容量租借。
+         * 越大协调器调用越少，但节点间配额分布越不均匀
+         */
+        private long batchSize = 10;
+
+        /**
+         * 租借的令牌有效期，过期未用完的令牌作废，避免空闲节点长期占用配额
+         */
+        private Duration leaseTtl = Duration.ofSeconds(1);
+
+        /**
+         * 调用配额协调器的超时时间
+         */
+        private Duration coordinatorTimeout = Duration.ofMillis(100);
+
+        /**
+         * 配额协调器不可用时是否放行请求
+         */
+        private boolean failOpen = true;
+
+        /**
+         * 配额协调器：leader（默认，网关主节点维护全局令牌桶）, custom（使用应用注册的QuotaCoordinator）
+         */
+        private QuotaCoordinatorType coordinator = QuotaCoordinatorType.LEADER;
+
+        /**
+         * 默认协调器从服务发现刷新网关实例列表（选举主节点）的间隔
+         */
+        private Duration leaderRefreshInterval = Duration.ofSeconds(5);
+
+        /**
+         * 主节点租借接口的共享密钥，各网关节点配置相同的值，coordinator=leader时必填
+         */
+        private String leaseSecret;
+
+        /**
+         * 租借接口的内部监听端口，与网关对外端口分开，各节点相同（实例元数据 gateway.rate-limit.lease-port 可覆盖）；
+         * 该端口只应在网关节点之间可达，不能暴露到边缘负载均衡
+         */
+        private int leasePort = 18090;
+
+        /**
+         * 租借接口监听的地址，为空时使用注册到服务发现的地址（内网地址）
+         */
+        private String leaseAddress;
+
+        public long getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(long batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getLeaseTtl() {
+            return leaseTtl;
+        }
+
+        public void setLeaseTtl(Duration leaseTtl) {
+            this.leaseTtl = leaseTtl;
+        }
+
+        public Duration getCoordinatorTimeout() {
+            return coordinatorTimeout;
+        }
+
+        public void setCoordinatorTimeout(Duration coordinatorTimeout) {
+            this.coordinatorTimeout = coordinatorTimeout;
+        }
+
+        public boolean isFailOpen() {
+            return failOpen;
+        }
+
+        public void setFailOpen(boolean failOpen) {
+            this.failOpen = failOpen;
+        }
+
+        public QuotaCoordinatorType getCoordinator() {
+            return coordinator;
+        }
+
+        public void setCoordinator(QuotaCoordinatorType coordinator) {
+            this.coordinator = coordinator;
+        }
+
+        public Duration getLeaderRefreshInterval() {
+            return leaderRefreshInterval;
+        }
+
+        public void setLeaderRefreshInterval(Duration leaderRefreshInterval) {
+            this.leaderRefreshInterval = leaderRefreshInterval;
+        }
+
+        public String getLeaseSecret() {
+            return leaseSecret;
+        }
+
+        public void setLeaseSecret(String leaseSecret) {
+            this.leaseSecret = leaseSecret;
+        }
+
+        public int getLeasePort() {
+            return leasePort;
+        }
+
+        public void setLeasePort(int leasePort) {
+            this.leasePort = leasePort;
+        }
+
+        public String getLeaseAddress() {
+            return leaseAddress;
+        }
+
+        public void setLeaseAddress(String leaseAddress) {
+            this.leaseAddress = leaseAddress;
+        }
+    }
+
+    /**
+     * 限流规则
+     */
+    public static class Rule {
+
+        /**
+         * 规则生效的路由ID或服务名（lb路由），为空表示对所有路由生效
+         */
+        private String routeId;
+
+        /**
+         * 限流维度：route, user, ip
+         */
+        private RateLimitKeyType key = RateLimitKeyType.ROUTE;
+
+        /**
+         * 令牌桶容量，即允许的突发请求数
+         */
+        private long capacity;
+
+        /**
+         * 每秒补充的令牌数
+         */
+        private double rate;
+
+        public String getRouteId() {
+            return routeId;
+        }
+
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+
+        public RateLimitKeyType getKey() {
+            return key;
+        }
+
+        public void setKey(RateLimitKeyType key) {
+            this.key = key;
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Rule)) {
+                return false;
+            }
+            Rule rule = (Rule) o;
+            return capacity == rule.capacity && Double.compare(rate, rule.rate) == 0
+                    && Objects.equals(routeId, rule.routeId) && key == rule.key;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(routeId, key, capacity, rate);
+        }
+
+        @Override
+        public String toString() {
+            return "Rule{routeId=" + routeId + ", key=" + key + ", capacity=" + capacity + ", rate=" + rate + "}";
+        }
+    }
+}
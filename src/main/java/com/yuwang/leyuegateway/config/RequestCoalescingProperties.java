@@ -0,0 +1,106 @@
+package com.yuwang.leyuegateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网关请求合并（single-flight）配置属性
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.request-coalescing")
+public class RequestCoalescingProperties {
+
+    /**
+     * 是否启用，修改需要重启
+     */
+    private boolean enabled = false;
+
+    /**
+     * 可共享的最大响应体字节数，超过时等待的请求各自访问上游
+     */
+    private DataSize maxResponseSize = DataSize.ofMegabytes(1);
+
+    /**
+     * 相同请求等待进行中的上游请求的最长时间，超时后各自访问上游
+     */
+    private Duration waitTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 启用请求合并的路由，key为路由ID或服务名
+     */
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public DataSize getMaxResponseSize() {
+        return maxResponseSize;
+    }
+
+    public void setMaxResponseSize(DataSize maxResponseSize) {
+        this.maxResponseSize = maxResponseSize;
+    }
+
+    public Duration getWaitTimeout() {
+        return waitTimeout;
+    }
+
+    public void setWaitTimeout(Duration waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+
+    public Map<String, Route> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Route> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * 路由的请求合并策略
+     */
+    public static class Route {
+
+        /**
+         * 启用合并的路径（Ant表达式），为空表示该路由的所有GET/HEAD请求
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * 合并key额外包含的请求头，如按用户返回不同内容的接口配置X-User-Id
+         */
+        private List<String> keyHeaders = new ArrayList<>();
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public List<String> getKeyHeaders() {
+            return keyHeaders;
+        }
+
+        public void setKeyHeaders(List<String> keyHeaders) {
+            this.keyHeaders = keyHeaders;
+        }
+    }
+}
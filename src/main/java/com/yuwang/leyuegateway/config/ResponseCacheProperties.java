@@ -0,0 +1,198 @@
+package com.yuwang.leyuegateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网关响应缓存配置属性
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * 是否启用，修改需要重启
+     */
+    private boolean enabled = false;
+
+    /**
+     * 缓存占用的最大字节数（按响应体与响应头估算），超过后按Caffeine策略淘汰，修改需要重启
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 单个响应体的最大字节数，超过的响应不缓存
+     */
+    private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+
+    /**
+     * 缓存未命中时，相同请求等待正在进行的上游请求的最长时间，超时后各自请求上游
+     */
+    private Duration coalesceTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 最多保存的校验器（ETag/Last-Modified）条目数
+     */
+    private long maxValidators = 100_000;
+
+    /**
+     * 后台重新校验请求的超时时间
+     */
+    private Duration revalidateTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 响应过期后继续保留的时间，期间只在路由熔断时用作降级响应（stale-if-error），修改需要重启
+     */
+    private Duration staleIfError = Duration.ZERO;
+
+    /**
+     * 启用缓存的路由，key为路由ID或服务名（discovery locator生成的路由按服务名配置即可）
+     */
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public DataSize getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public DataSize getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public void setMaxEntrySize(DataSize maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    public Duration getCoalesceTimeout() {
+        return coalesceTimeout;
+    }
+
+    public void setCoalesceTimeout(Duration coalesceTimeout) {
+        this.coalesceTimeout = coalesceTimeout;
+    }
+
+    public long getMaxValidators() {
+        return maxValidators;
+    }
+
+    public void setMaxValidators(long maxValidators) {
+        this.maxValidators = maxValidators;
+    }
+
+    public Duration getRevalidateTimeout() {
+        return revalidateTimeout;
+    }
+
+    public void setRevalidateTimeout(Duration revalidateTimeout) {
+        this.revalidateTimeout = revalidateTimeout;
+    }
+
+    public Duration getStaleIfError() {
+        return staleIfError;
+    }
+
+    public void setStaleIfError(Duration staleIfError) {
+        this.staleIfError = staleIfError;
+    }
+
+    public Map<String, Route> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Route> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * 路由的缓存策略
+     */
+    public static class Route {
+
+        /**
+         * 启用缓存的路径（Ant表达式），为空表示该路由的所有GET请求
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * 响应未携带Cache-Control时的缓存时间，0表示只缓存带max-age/s-maxage的响应
+         */
+        private Duration ttl = Duration.ZERO;
+
+        /**
+         * 校验器（ETag/Last-Modified）的有效期，期间网关直接以304响应匹配的条件请求，
+         * 超过一半时在后台向上游重新校验；0表示不保存校验器
+         */
+        private Duration validatorTtl = Duration.ZERO;
+
+        /**
+         * 缓存key是否包含用户ID（X-User-Id），用于按用户返回不同内容的接口
+         */
+        private boolean varyByUser = false;
+
+        /**
+         * 缓存key额外包含的请求头
+         */
+        private List<String> varyHeaders = new ArrayList<>();
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getValidatorTtl() {
+            return validatorTtl;
+        }
+
+        public void setValidatorTtl(Duration validatorTtl) {
+            this.validatorTtl = validatorTtl;
+        }
+
+        public boolean isVaryByUser() {
+            return varyByUser;
+        }
+
+        public void setVaryByUser(boolean varyByUser) {
+            this.varyByUser = varyByUser;
+        }
+
+        public List<String> getVaryHeaders() {
+            return varyHeaders;
+        }
+
+        public void setVaryHeaders(List<String> varyHeaders) {
+            this.varyHeaders = varyHeaders;
+        }
+    }
+}
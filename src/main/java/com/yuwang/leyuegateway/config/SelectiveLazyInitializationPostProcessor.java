@@ -0,0 +1,79 @@
+package com.yuwang.leyuegateway.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 按类型延迟创建非关键Bean
+ * 类型匹配 gateway.startup.lazy-beans 前缀的Bean（actuator端点、健康检查等）标记为延迟初始化，
+ * 首次被访问时才创建，不占用启动时间；路由、过滤器等请求路径上的Bean仍在启动时创建，避免首个请求承担初始化开销。
+ * 被其他非延迟Bean依赖的Bean仍会在启动时创建。AOT构建中标记在构建时写入生成的Bean定义
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+public class SelectiveLazyInitializationPostProcessor implements BeanFactoryPostProcessor, EnvironmentAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(SelectiveLazyInitializationPostProcessor.class);
+
+    private List<String> lazyBeans = List.of();
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.lazyBeans = StartupProperties.bind(environment).getLazyBeans();
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        if (lazyBeans.isEmpty()) {
+            return;
+        }
+        int count = 0;
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+            if (definition.isLazyInit() || definition.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE) {
+                continue;
+            }
+            String type = typeName(definition);
+            if (type != null && matches(type)) {
+                definition.setLazyInit(true);
+                count++;
+            }
+        }
+        logger.debug("延迟初始化的Bean数: {}", count);
+    }
+
+    private boolean matches(String type) {
+        for (String prefix : lazyBeans) {
+            if (type.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bean的类型：@Bean方法取返回类型，其他取Bean类名
+     */
+    static String typeName(BeanDefinition definition) {
+        if (definition.getFactoryMethodName() == null) {
+            return definition.getBeanClassName();
+        }
+        if (definition instanceof AnnotatedBeanDefinition annotated) {
+            MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+            return factoryMethod != null ? factoryMethod.getReturnTypeName() : null;
+        }
+        return null;
+    }
+}
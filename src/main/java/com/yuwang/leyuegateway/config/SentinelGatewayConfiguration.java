@@ -2,14 +2,17 @@ package com.yuwang.leyuegateway.config;
 
 import com.alibaba.csp.sentinel.adapter.gateway.sc.callback.GatewayCallbackManager;
 import com.alibaba.csp.sentinel.adapter.gateway.sc.exception.SentinelGatewayBlockExceptionHandler;
-import com.alibaba.csp.sentinel.adapter.gateway.sc.filter.SentinelGatewayFilter;
+import com.alibaba.csp.sentinel.adapter.gateway.sc.SentinelGatewayFilter;
+import com.alibaba.csp.sentinel.init.InitExecutor;
+import com.yuwang.leyuegateway.handler.ErrorResponseWriter;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
-import org.springframework.cloud.gateway.route.Route;
-import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
@@ -19,23 +22,28 @@ import org.springframework.web.reactive.function.server.ServerResponse;
 import org.springframework.web.reactive.result.view.ViewResolver;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Sentinel 与 Spring Cloud Gateway 的集成配置。
+ * 仅在 gateway.rate-limit.engine=sentinel（默认）时生效。
+ * 传输模块（spring.cloud.sentinel.eager=false）不在启动时初始化，网关就绪后在后台线程初始化，
+ * 不占用启动时间，也不由首个请求同步承担。
  */
 @Configuration
+@ConditionalOnProperty(prefix = "gateway.rate-limit", name = "engine", havingValue = "sentinel", matchIfMissing = true)
 public class SentinelGatewayConfiguration {
 
     private final List<ViewResolver> viewResolvers;
     private final ServerCodecConfigurer serverCodecConfigurer;
+    private final ErrorResponseWriter errorResponseWriter;
 
     public SentinelGatewayConfiguration(ObjectProvider<List<ViewResolver>> viewResolversProvider,
-                                        ServerCodecConfigurer serverCodecConfigurer) {
+                                        ServerCodecConfigurer serverCodecConfigurer,
+                                        ErrorResponseWriter errorResponseWriter) {
         this.viewResolvers = viewResolversProvider.getIfAvailable(Collections::emptyList);
         this.serverCodecConfigurer = serverCodecConfigurer;
+        this.errorResponseWriter = errorResponseWriter;
     }
 
     @Bean
@@ -52,18 +60,17 @@ public class SentinelGatewayConfiguration {
 
     @PostConstruct
     public void initBlockHandlers() {
-        GatewayCallbackManager.setBlockHandler((exchange, t) -> {
-            Map<String, Object> responseBody = new HashMap<>(8);
-            responseBody.put("code", HttpStatus.TOO_MANY_REQUESTS.value());
-            responseBody.put("message", "请求过于频繁，请稍后再试");
-            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
-            if (route != null) {
-                responseBody.put("routeId", route.getId());
-            }
-            responseBody.put("requestUri", exchange.getRequest().getURI().getPath());
-            return ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(responseBody);
-        });
+        // 限流响应体由ErrorResponseWriter按路由模板拼接，避免限流风暴时逐请求的Map构建与JSON序列化
+        GatewayCallbackManager.setBlockHandler((exchange, t) -> ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(errorResponseWriter.tooManyRequestsBody(exchange)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initTransportInBackground() {
+        // InitExecutor只执行一次，首个请求先到时由请求线程完成初始化，这里直接返回
+        Thread thread = new Thread(InitExecutor::doInit, "sentinel-transport-init");
+        thread.setDaemon(true);
+        thread.start();
     }
 }
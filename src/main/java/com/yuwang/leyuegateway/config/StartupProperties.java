@@ -0,0 +1,67 @@
+package com.yuwang.leyuegateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网关启动配置属性
+ * 在Bean创建之前使用（BeanFactoryPostProcessor、启动监听器），不注册为Bean，由 {@link #bind} 直接从Environment绑定
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@ConfigurationProperties(prefix = StartupProperties.PREFIX)
+public class StartupProperties {
+
+    public static final String PREFIX = "gateway.startup";
+
+    /**
+     * 延迟到首次使用时才创建的Bean，按Bean类型的全限定名前缀匹配
+     */
+    private List<String> lazyBeans = new ArrayList<>();
+
+    /**
+     * 就绪后立即退出，用于CDS训练运行与启动时间测量
+     */
+    private boolean exitOnReady = false;
+
+    /**
+     * 就绪时追加写入启动耗时（毫秒）的文件，为空时不写入
+     */
+    private String reportFile;
+
+    /**
+     * 从Environment绑定启动配置
+     */
+    public static StartupProperties bind(Environment environment) {
+        return Binder.get(environment).bindOrCreate(PREFIX, StartupProperties.class);
+    }
+
+    public List<String> getLazyBeans() {
+        return lazyBeans;
+    }
+
+    public void setLazyBeans(List<String> lazyBeans) {
+        this.lazyBeans = lazyBeans;
+    }
+
+    public boolean isExitOnReady() {
+        return exitOnReady;
+    }
+
+    public void setExitOnReady(boolean exitOnReady) {
+        this.exitOnReady = exitOnReady;
+    }
+
+    public String getReportFile() {
+        return reportFile;
+    }
+
+    public void setReportFile(String reportFile) {
+        this.reportFile = reportFile;
+    }
+}
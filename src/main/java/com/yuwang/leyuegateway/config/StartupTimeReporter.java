@@ -0,0 +1,50 @@
+package com.yuwang.leyuegateway.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 启动耗时记录
+ * 应用就绪时记录从JVM启动到就绪的耗时（包括类加载、bootstrap上下文与主上下文刷新），可追加写入 gateway.startup.report-file；
+ * 开启 gateway.startup.exit-on-ready 时随即退出，供CDS训练运行在退出时写出归档、启动时间测量重复启动。
+ * 由 LeyueGatewayApplication 直接注册，不注册为Bean，只接收主应用的就绪事件
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public class StartupTimeReporter implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimeReporter.class);
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        long startupMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        StartupProperties properties = StartupProperties.bind(context.getEnvironment());
+        logger.info("网关已就绪: startupMillis={}", startupMillis);
+
+        if (StringUtils.hasText(properties.getReportFile())) {
+            try {
+                Files.writeString(Path.of(properties.getReportFile()), startupMillis + System.lineSeparator(),
+                        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                logger.warn("写入启动耗时失败: file={}, error={}", properties.getReportFile(), e.toString());
+            }
+        }
+        if (properties.isExitOnReady()) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
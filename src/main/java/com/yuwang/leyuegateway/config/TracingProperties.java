@@ -0,0 +1,182 @@
+package com.yuwang.leyuegateway.config;
+
+import com.yuwang.leyuegateway.constant.TraceProtocol;
+import com.yuwang.leyuegateway.util.TraceIdGenerator;
+import org.slf4j.event.Level;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网关追踪配置属性
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.tracing")
+public class TracingProperties {
+
+    /**
+     * 是否启用网关追踪
+     */
+    private boolean enabled = true;
+
+    /**
+     * traceId/spanId生成策略：random, time-ordered, secure-random
+     */
+    private TraceIdGenerator idGenerator = TraceIdGenerator.RANDOM;
+
+    /**
+     * 采样配置
+     */
+    private Sampling sampling = new Sampling();
+
+    /**
+     * 协议支持配置
+     */
+    private Protocol protocol = new Protocol();
+
+    /**
+     * 日志配置
+     */
+    private Logging logging = new Logging();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public TraceIdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    public void setIdGenerator(TraceIdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    public void setSampling(Sampling sampling) {
+        this.sampling = sampling;
+    }
+
+    public Protocol getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(Protocol protocol) {
+        this.protocol = protocol;
+    }
+
+    public Logging getLogging() {
+        return logging;
+    }
+
+    public void setLogging(Logging logging) {
+        this.logging = logging;
+    }
+
+    /**
+     * 采样配置
+     */
+    public static class Sampling {
+
+        /**
+         * 头部采样率（0.0-1.0），仅对未携带上游采样决策的请求生效
+         */
+        private double rate = 1.0;
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+    }
+
+    /**
+     * 协议支持配置
+     */
+    public static class Protocol {
+
+        /**
+         * 输入协议（网关接受的格式）
+         */
+        private List<TraceProtocol> input = new ArrayList<>(List.of(TraceProtocol.values()));
+
+        /**
+         * 输出协议（向下游发送的格式），支持 w3c 与 b3
+         */
+        private TraceProtocol output = TraceProtocol.W3C;
+
+        public List<TraceProtocol> getInput() {
+            return input;
+        }
+
+        public void setInput(List<TraceProtocol> input) {
+            this.input = input;
+        }
+
+        public TraceProtocol getOutput() {
+            return output;
+        }
+
+        public void setOutput(TraceProtocol output) {
+            this.output = output;
+        }
+    }
+
+    /**
+     * 日志配置
+     */
+    public static class Logging {
+
+        /**
+         * 请求开始/完成日志的级别：trace, debug, info, warn, error
+         */
+        private Level level = Level.INFO;
+
+        /**
+         * 日志中是否包含追踪来源与上游追踪头
+         */
+        private boolean includeHeaders = true;
+
+        /**
+         * 日志中是否包含请求耗时
+         */
+        private boolean includeTiming = true;
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public void setLevel(Level level) {
+            this.level = level;
+        }
+
+        public boolean isIncludeHeaders() {
+            return includeHeaders;
+        }
+
+        public void setIncludeHeaders(boolean includeHeaders) {
+            this.includeHeaders = includeHeaders;
+        }
+
+        public boolean isIncludeTiming() {
+            return includeTiming;
+        }
+
+        public void setIncludeTiming(boolean includeTiming) {
+            this.includeTiming = includeTiming;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.yuwang.leyuegateway.constant;
+
+/**
+ * 熔断器统计窗口类型
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public enum CircuitBreakerWindowType {
+
+    /**
+     * 最近N次调用
+     */
+    COUNT_BASED,
+
+    /**
+     * 最近N秒内的调用
+     */
+    TIME_BASED
+}
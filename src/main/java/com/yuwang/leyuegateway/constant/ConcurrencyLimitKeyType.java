@@ -0,0 +1,20 @@
+package com.yuwang.leyuegateway.constant;
+
+/**
+ * 并发限制的维度
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public enum ConcurrencyLimitKeyType {
+
+    /**
+     * 按用户ID（JWT sub）
+     */
+    USER,
+
+    /**
+     * 按租户ID（JWT tenantId），Token未携带租户时按用户ID
+     */
+    TENANT
+}
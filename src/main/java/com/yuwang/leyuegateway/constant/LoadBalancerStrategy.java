@@ -0,0 +1,20 @@
+package com.yuwang.leyuegateway.constant;
+
+/**
+ * 服务实例负载均衡策略
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public enum LoadBalancerStrategy {
+
+    /**
+     * 轮询（Spring Cloud LoadBalancer默认策略）
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Peak EWMA + 二选一（power of two choices）：随机取两个实例，选择 响应时间EWMA×(在途请求数+1) 较小者
+     */
+    PEAK_EWMA
+}
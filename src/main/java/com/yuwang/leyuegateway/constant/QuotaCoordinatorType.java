@@ -0,0 +1,20 @@
+package com.yuwang.leyuegateway.constant;
+
+/**
+ * 集群限流的配额协调器
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public enum QuotaCoordinatorType {
+
+    /**
+     * 由服务发现选出的网关主节点维护全局令牌桶，网关需注册到服务发现（Nacos）
+     */
+    LEADER,
+
+    /**
+     * 使用应用注册的 QuotaCoordinator 实现（如基于Redis等共享存储）
+     */
+    CUSTOM
+}
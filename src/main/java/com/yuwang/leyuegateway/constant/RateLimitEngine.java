@@ -0,0 +1,25 @@
+package com.yuwang.leyuegateway.constant;
+
+/**
+ * 网关限流引擎
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public enum RateLimitEngine {
+
+    /**
+     * Sentinel 网关限流（SentinelGatewayFilter + 控制台规则）
+     */
+    SENTINEL,
+
+    /**
+     * 网关内置的本地令牌桶限流，规则来自 gateway.rate-limit.rules
+     */
+    LOCAL,
+
+    /**
+     * 集群限流：各节点从全局配额协调器批量租借令牌并在本地消费，规则同 local
+     */
+    CLUSTER
+}
@@ -0,0 +1,25 @@
+package com.yuwang.leyuegateway.constant;
+
+/**
+ * 限流维度
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public enum RateLimitKeyType {
+
+    /**
+     * 按路由限流，同一路由的所有请求共享令牌桶
+     */
+    ROUTE,
+
+    /**
+     * 按JWT中的用户ID限流，未认证的请求退化为按客户端IP限流
+     */
+    USER,
+
+    /**
+     * 按客户端IP限流
+     */
+    IP
+}
@@ -0,0 +1,30 @@
+package com.yuwang.leyuegateway.constant;
+
+/**
+ * 网关支持的追踪协议
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public enum TraceProtocol {
+
+    /**
+     * W3C Trace Context（traceparent/tracestate）
+     */
+    W3C,
+
+    /**
+     * B3 协议（b3 单头或 X-B3-* 多头）
+     */
+    B3,
+
+    /**
+     * 自定义 X-Trace-Id 头
+     */
+    CUSTOM,
+
+    /**
+     * 传统 traceId 头
+     */
+    LEGACY
+}
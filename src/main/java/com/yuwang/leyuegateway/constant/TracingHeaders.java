@@ -55,6 +55,16 @@ public final class TracingHeaders {
      */
     public static final String B3_SPAN_ID = "X-B3-SpanId";
     
+    /**
+     * B3 多头格式 - 采样标记
+     */
+    public static final String B3_SAMPLED = "X-B3-Sampled";
+    
+    /**
+     * B3 多头格式 - debug标记，值为1时强制采样
+     */
+    public static final String B3_FLAGS = "X-B3-Flags";
+    
     /**
      * SkyWalking追踪头
      */
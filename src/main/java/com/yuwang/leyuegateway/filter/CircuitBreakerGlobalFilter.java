@@ -0,0 +1,91 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.cache.CachedResponse;
+import com.yuwang.leyuegateway.cache.ResponseCache;
+import com.yuwang.leyuegateway.circuitbreaker.CircuitBreaker;
+import com.yuwang.leyuegateway.circuitbreaker.CircuitBreakerRegistry;
+import com.yuwang.leyuegateway.handler.ErrorResponseWriter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路由熔断全局过滤器
+ * 在负载均衡之前检查路由熔断器：熔断打开时不占用连接池与负载均衡，直接以响应缓存中（可能已过期）的响应降级，
+ * 没有可用的缓存响应时输出预编码的503响应（带Retry-After）。
+ * 放行的请求按结果计入熔断器：5xx与转发异常（连接失败、超时、无可用实例）为失败
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.circuit-breaker", name = "enabled", havingValue = "true")
+public class CircuitBreakerGlobalFilter implements GlobalFilter, Ordered {
+
+    private final CircuitBreakerRegistry registry;
+    private final ErrorResponseWriter errorResponseWriter;
+    private final ObjectProvider<ResponseCache> responseCache;
+
+    public CircuitBreakerGlobalFilter(CircuitBreakerRegistry registry, ErrorResponseWriter errorResponseWriter,
+                                      ObjectProvider<ResponseCache> responseCache) {
+        this.registry = registry;
+        this.errorResponseWriter = errorResponseWriter;
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        CircuitBreaker breaker = registry.forRoute(route);
+        if (!breaker.tryAcquire(registry.nanoTime())) {
+            return reject(exchange, breaker);
+        }
+        return chain.filter(exchange)
+                .doOnSuccess(v -> breaker.onResult(isFailure(exchange.getResponse().getStatusCode()), registry.nanoTime()))
+                .doOnError(error -> breaker.onResult(true, registry.nanoTime()));
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, CircuitBreaker breaker) {
+        ResponseCache cache = breaker.isFallbackToCache() ? responseCache.getIfAvailable() : null;
+        if (cache != null) {
+            ResponseCache.Policy policy = cache.policyFor(exchange);
+            CachedResponse cached = policy != null ? cache.getStale(cache.key(exchange, policy)) : null;
+            if (cached != null) {
+                registry.rejected(breaker, true);
+                return cache.writeStale(exchange, cached);
+            }
+        }
+
+        registry.rejected(breaker, false);
+        long retryAfterSeconds = Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(
+                breaker.remainingOpenNanos(registry.nanoTime()) + TimeUnit.SECONDS.toNanos(1) - 1));
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return errorResponseWriter.write(exchange, ErrorResponseWriter.ErrorType.SERVICE_UNAVAILABLE);
+    }
+
+    private static boolean isFailure(HttpStatusCode status) {
+        return status != null && status.is5xxServerError();
+    }
+
+    @Override
+    public int getOrder() {
+        // 在负载均衡之前，熔断时不再选择实例
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+}
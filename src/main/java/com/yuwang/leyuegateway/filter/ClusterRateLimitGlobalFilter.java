@@ -0,0 +1,45 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.handler.ErrorResponseWriter;
+import com.yuwang.leyuegateway.ratelimit.ClusterRateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 集群限流全局过滤器
+ * gateway.rate-limit.engine=cluster 时替代 SentinelGatewayFilter，
+ * 被限流的请求返回与Sentinel限流相同的429响应
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.rate-limit", name = "engine", havingValue = "cluster")
+public class ClusterRateLimitGlobalFilter implements GlobalFilter, Ordered {
+
+    private final ClusterRateLimiter clusterRateLimiter;
+    private final ErrorResponseWriter errorResponseWriter;
+
+    public ClusterRateLimitGlobalFilter(ClusterRateLimiter clusterRateLimiter,
+                                        ErrorResponseWriter errorResponseWriter) {
+        this.clusterRateLimiter = clusterRateLimiter;
+        this.errorResponseWriter = errorResponseWriter;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return clusterRateLimiter.tryAcquire(exchange)
+                .flatMap(granted -> granted ? chain.filter(exchange) : errorResponseWriter.tooManyRequests(exchange));
+    }
+
+    @Override
+    public int getOrder() {
+        // 与LocalRateLimitGlobalFilter相同
+        return -1;
+    }
+}
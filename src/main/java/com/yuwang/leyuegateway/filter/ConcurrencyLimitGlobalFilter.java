@@ -0,0 +1,66 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.handler.ErrorResponseWriter;
+import com.yuwang.leyuegateway.ratelimit.AdaptiveConcurrencyLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * 按用户/租户的自适应并发限制全局过滤器
+ * 单个用户（租户）的在途请求超过其并发上限时立即返回429，避免占满下游连接与线程导致排队雪崩；
+ * 请求结束后以下游响应时间与状态调整该用户（租户）的并发上限
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.concurrency-limit", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitGlobalFilter implements GlobalFilter, Ordered {
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ErrorResponseWriter errorResponseWriter;
+
+    public ConcurrencyLimitGlobalFilter(AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                        ErrorResponseWriter errorResponseWriter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.errorResponseWriter = errorResponseWriter;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire(exchange);
+        if (permit == null) {
+            return errorResponseWriter.tooManyRequests(exchange);
+        }
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                permit.cancel();
+            } else {
+                permit.release(signal == SignalType.ON_ERROR || isOverloaded(exchange.getResponse().getStatusCode()));
+            }
+        });
+    }
+
+    /**
+     * 下游返回的过载类状态码
+     */
+    private static boolean isOverloaded(HttpStatusCode status) {
+        return status != null && (status.value() == HttpStatus.TOO_MANY_REQUESTS.value()
+                || status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status.value() == HttpStatus.GATEWAY_TIMEOUT.value());
+    }
+
+    @Override
+    public int getOrder() {
+        // 在认证（-100）与限流（-1）之后，被限流的请求不占用并发许可
+        return 0;
+    }
+}
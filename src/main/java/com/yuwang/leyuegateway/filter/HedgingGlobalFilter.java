@@ -0,0 +1,62 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.hedge.HedgedResponse;
+import com.yuwang.leyuegateway.hedge.RequestHedger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 对冲请求全局过滤器
+ * 在负载均衡选定实例之后，让原请求与延迟发出的对冲请求竞争，以先返回者（原请求为收到响应头，对冲请求为收到完整响应）为准，
+ * 另一方被取消。原请求失败时直接返回错误，不等待对冲请求
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.hedging", name = "enabled", havingValue = "true")
+public class HedgingGlobalFilter implements GlobalFilter, Ordered {
+
+    private final RequestHedger hedger;
+
+    public HedgingGlobalFilter(RequestHedger hedger) {
+        this.hedger = hedger;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        RequestHedger.Policy policy = hedger.policyFor(exchange);
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (policy == null || lbResponse == null || !lbResponse.hasServer()) {
+            return chain.filter(exchange);
+        }
+
+        // 原请求可能在被取消前已把上游响应头写入响应，对冲胜出时恢复到转发前的响应头
+        HttpHeaders gatewayHeaders = new HttpHeaders();
+        gatewayHeaders.addAll(exchange.getResponse().getHeaders());
+        long start = System.nanoTime();
+        Mono<HedgedResponse> primary = chain.filter(exchange).then(Mono.just(HedgedResponse.PRIMARY));
+        Mono<HedgedResponse> hedge = hedger.hedge(exchange, lbResponse.getServer(), policy);
+        return Mono.firstWithSignal(primary, hedge)
+                .flatMap(winner -> {
+                    hedger.recordLatency(policy, System.nanoTime() - start);
+                    return winner == HedgedResponse.PRIMARY ? Mono.empty() : hedger.write(exchange, winner, policy, gatewayHeaders);
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // 在负载均衡统计之后，对冲胜出时原实例按整体耗时记录响应时间，不记录为成功
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 2;
+    }
+}
@@ -0,0 +1,81 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.circuitbreaker.CircuitBreakerRegistry;
+import com.yuwang.leyuegateway.hedge.RequestHedger;
+import com.yuwang.leyuegateway.loadbalancer.InstanceLoad;
+import com.yuwang.leyuegateway.loadbalancer.InstanceLoadRegistry;
+import com.yuwang.leyuegateway.loadbalancer.OutlierDetector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * 负载均衡统计全局过滤器
+ * 在负载均衡选定实例之后记录该实例的在途请求数与响应时间（到收到上游响应头为止），
+ * 并将转发结果（成功、5xx/超时、连接失败）交给异常实例摘除与实例熔断器；请求被取消时只减少在途请求数。
+ * 对冲请求胜出时响应来自其他实例，原实例只记录整体耗时，不记录转发结果
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+public class LoadBalancerStatsGlobalFilter implements GlobalFilter, Ordered {
+
+    private final InstanceLoadRegistry registry;
+    private final OutlierDetector outlierDetector;
+    private final CircuitBreakerRegistry circuitBreakers;
+
+    public LoadBalancerStatsGlobalFilter(InstanceLoadRegistry registry, OutlierDetector outlierDetector,
+                                         ObjectProvider<CircuitBreakerRegistry> circuitBreakers) {
+        this.registry = registry;
+        this.outlierDetector = outlierDetector;
+        this.circuitBreakers = circuitBreakers.getIfAvailable();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return chain.filter(exchange);
+        }
+
+        ServiceInstance instance = lbResponse.getServer();
+        InstanceLoad load = registry.start(instance);
+        long start = registry.nanoTime();
+        return chain.filter(exchange)
+                .doOnSuccess(v -> {
+                    if (exchange.getAttribute(RequestHedger.HEDGE_WON_ATTR) == null) {
+                        record(instance, load, outcome(exchange.getResponse().getStatusCode()));
+                    }
+                })
+                .doOnError(error -> record(instance, load, OutlierDetector.outcomeOf(error)))
+                .doFinally(signal -> registry.complete(load, signal == SignalType.CANCEL ? -1L : start));
+    }
+
+    private void record(ServiceInstance instance, InstanceLoad load, OutlierDetector.Outcome outcome) {
+        outlierDetector.record(instance, load, outcome);
+        if (circuitBreakers != null) {
+            circuitBreakers.recordInstance(instance, outcome != OutlierDetector.Outcome.SUCCESS);
+        }
+    }
+
+    private static OutlierDetector.Outcome outcome(HttpStatusCode status) {
+        return status != null && status.is5xxServerError()
+                ? OutlierDetector.Outcome.SERVER_ERROR : OutlierDetector.Outcome.SUCCESS;
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
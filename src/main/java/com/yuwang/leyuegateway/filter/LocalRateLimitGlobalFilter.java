@@ -0,0 +1,46 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.handler.ErrorResponseWriter;
+import com.yuwang.leyuegateway.ratelimit.LocalRateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 本地令牌桶限流全局过滤器
+ * gateway.rate-limit.engine=local 时替代 SentinelGatewayFilter，
+ * 被限流的请求返回与Sentinel限流相同的429响应
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.rate-limit", name = "engine", havingValue = "local")
+public class LocalRateLimitGlobalFilter implements GlobalFilter, Ordered {
+
+    private final LocalRateLimiter localRateLimiter;
+    private final ErrorResponseWriter errorResponseWriter;
+
+    public LocalRateLimitGlobalFilter(LocalRateLimiter localRateLimiter, ErrorResponseWriter errorResponseWriter) {
+        this.localRateLimiter = localRateLimiter;
+        this.errorResponseWriter = errorResponseWriter;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (localRateLimiter.tryAcquire(exchange)) {
+            return chain.filter(exchange);
+        }
+        return errorResponseWriter.tooManyRequests(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        // 与SentinelGatewayFilter相同，在认证过滤器（-100）之后执行，可按用户ID限流
+        return -1;
+    }
+}
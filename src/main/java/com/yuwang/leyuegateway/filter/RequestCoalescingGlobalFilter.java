@@ -0,0 +1,61 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.cache.RequestCoalescer;
+import com.yuwang.leyuegateway.cache.ResponseCaptureDecorator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * 请求合并全局过滤器
+ * 对按路由启用合并的请求：相同请求正在访问上游时等待并共享其响应，否则访问上游并在转发响应的同时复制一份发给等待的请求
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.request-coalescing", name = "enabled", havingValue = "true")
+public class RequestCoalescingGlobalFilter implements GlobalFilter, Ordered {
+
+    private final RequestCoalescer coalescer;
+
+    public RequestCoalescingGlobalFilter(RequestCoalescer coalescer) {
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        RequestCoalescer.Policy policy = coalescer.policyFor(exchange);
+        if (policy == null) {
+            return chain.filter(exchange);
+        }
+
+        String key = coalescer.key(exchange, policy);
+        RequestCoalescer.Flight flight = coalescer.tryLead(key);
+        if (flight == null) {
+            return coalescer.await(key)
+                    .map(shared -> coalescer.write(exchange, shared))
+                    .defaultIfEmpty(Mono.defer(() -> chain.filter(exchange)))
+                    .flatMap(Function.identity());
+        }
+
+        ResponseCaptureDecorator response = new ResponseCaptureDecorator(exchange.getResponse(),
+                coalescer.maxResponseBytes(), body -> flight.complete(coalescer.share(exchange.getRequest().getMethod(),
+                        exchange.getResponse().getStatusCode(), exchange.getResponse().getHeaders(), body)));
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> flight.complete(null));
+    }
+
+    @Override
+    public int getOrder() {
+        // 在响应缓存之后，已命中缓存的请求不参与合并
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+}
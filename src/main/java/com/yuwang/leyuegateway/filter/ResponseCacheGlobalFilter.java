@@ -0,0 +1,103 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.cache.CachedResponse;
+import com.yuwang.leyuegateway.cache.ResponseCache;
+import com.yuwang.leyuegateway.cache.ResponseCaptureDecorator;
+import com.yuwang.leyuegateway.cache.ValidatorCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * 响应缓存全局过滤器
+ * 对按路由启用缓存的GET请求：命中新鲜缓存时直接输出；未命中时若相同请求正在访问上游则等待其响应，
+ * 否则访问上游并在转发响应的同时写入缓存。
+ * 路由启用校验器时，未命中完整缓存的条件请求可由保存的ETag/Last-Modified直接以304响应
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.response-cache", name = "enabled", havingValue = "true")
+public class ResponseCacheGlobalFilter implements GlobalFilter, Ordered {
+
+    private static final String HIT = "HIT";
+    private static final String MISS = "MISS";
+    private static final String COALESCED = "COALESCED";
+    private static final String NOT_MODIFIED = "NOT_MODIFIED";
+
+    private final ResponseCache responseCache;
+    private final ValidatorCache validatorCache;
+
+    public ResponseCacheGlobalFilter(ResponseCache responseCache, ValidatorCache validatorCache) {
+        this.responseCache = responseCache;
+        this.validatorCache = validatorCache;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ResponseCache.Policy policy = responseCache.policyFor(exchange);
+        if (policy == null) {
+            return chain.filter(exchange);
+        }
+
+        String key = responseCache.key(exchange, policy);
+        if (!responseCache.bypassLookup(exchange)) {
+            CachedResponse cached = responseCache.getFresh(key);
+            if (cached != null) {
+                return responseCache.write(exchange, cached, HIT);
+            }
+            if (policy.isValidatorsEnabled() && ValidatorCache.isConditional(exchange)) {
+                Mono<Void> notModified = validatorCache.tryNotModified(exchange, key, NOT_MODIFIED);
+                if (notModified != null) {
+                    return notModified;
+                }
+            }
+        }
+
+        ResponseCache.Fill fill = responseCache.tryLead(key);
+        if (fill == null) {
+            // 上游响应不可缓存或等待超时时各自访问上游
+            return responseCache.awaitFill(key)
+                    .map(cached -> responseCache.write(exchange, cached, COALESCED))
+                    .defaultIfEmpty(Mono.defer(() -> chain.filter(exchange)))
+                    .flatMap(Function.identity());
+        }
+
+        exchange.getResponse().getHeaders().set(ResponseCache.CACHE_STATUS_HEADER, MISS);
+        if (policy.isValidatorsEnabled()) {
+            exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() -> {
+                if (!isStale(exchange)) {
+                    validatorCache.record(exchange, key, policy);
+                }
+            }));
+        }
+        ResponseCaptureDecorator response = new ResponseCaptureDecorator(exchange.getResponse(),
+                responseCache.maxEntryBytes(), body -> fill.complete(body != null && !isStale(exchange)
+                        ? responseCache.store(key, policy, exchange.getResponse().getStatusCode(),
+                                exchange.getResponse().getHeaders(), body)
+                        : null));
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> fill.complete(null));
+    }
+
+    /**
+     * 熔断时以过期缓存降级的响应不写回缓存
+     */
+    private static boolean isStale(ServerWebExchange exchange) {
+        return exchange.getAttributes().containsKey(ResponseCache.STALE_RESPONSE_ATTR);
+    }
+
+    @Override
+    public int getOrder() {
+        // 需在NettyWriteResponseFilter与请求合并之前包装响应；命中缓存的请求不再经过限流与并发限制
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+    }
+}
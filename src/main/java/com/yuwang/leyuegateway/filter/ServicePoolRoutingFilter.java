@@ -0,0 +1,63 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.httpclient.ServiceConnectionPools;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+/**
+ * 按服务选择连接池的路由过滤器
+ * 启用按服务连接池时先于网关默认的NettyRoutingFilter执行：负载均衡转发的请求使用该服务独立的连接池，
+ * 其余请求与默认实现一致；请求已路由后默认的路由过滤器直接跳过，响应仍由默认的NettyWriteResponseFilter写回。
+ * 未启用时不注册，由默认的路由过滤器转发
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.connection-pool", name = "enabled", havingValue = "true")
+public class ServicePoolRoutingFilter extends NettyRoutingFilter {
+
+    private final ServiceConnectionPools pools;
+
+    public ServicePoolRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                    HttpClientProperties properties, ServiceConnectionPools pools) {
+        super(httpClient, headersFilters, properties);
+        this.pools = pools;
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return super.getHttpClient(route, exchange);
+        }
+        HttpClient client = pools.clientFor(lbResponse.getServer());
+        Object connectTimeout = route.getMetadata().get(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout != null) {
+            int millis = connectTimeout instanceof Number number ? number.intValue()
+                    : Integer.parseInt(connectTimeout.toString());
+            return client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, millis);
+        }
+        return client;
+    }
+
+    @Override
+    public int getOrder() {
+        // 先于默认的NettyRoutingFilter执行，请求已路由后它直接跳过
+        return NettyRoutingFilter.ORDER - 1;
+    }
+}
@@ -1,10 +1,14 @@
 package com.yuwang.leyuegateway.filter;
 
+import com.yuwang.leyuegateway.config.TracingProperties;
+import com.yuwang.leyuegateway.constant.TraceProtocol;
 import com.yuwang.leyuegateway.constant.TracingHeaders;
+import com.yuwang.leyuegateway.util.TraceContextParser;
 import com.yuwang.leyuegateway.util.TraceIdUtils;
+import com.yuwang.leyuegateway.util.TraceMdcAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
+import org.slf4j.event.Level;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
@@ -12,6 +16,7 @@ import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 /**
  * 追踪全局过滤器
@@ -34,76 +39,141 @@ public class TracingGlobalFilter implements GlobalFilter, Ordered {
     // 网关span名称
     private static final String GATEWAY_SPAN_NAME = "gateway";
     
+    private final TracingProperties tracingProperties;
+    
+    public TracingGlobalFilter(TracingProperties tracingProperties) {
+        this.tracingProperties = tracingProperties;
+    }
+    
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        ServerHttpRequest request = exchange.getRequest();
-        String path = request.getURI().getPath();
-        String method = request.getMethod().name();
-        
-        // 提取或生成追踪信息
-        TraceIdUtils.TraceInfo traceInfo = TraceIdUtils.extractOrGenerateTraceInfo(request);
+        if (!tracingProperties.isEnabled()) {
+            return chain.filter(exchange);
+        }
         
-        // 设置MDC用于当前请求的日志
-        MDC.put("traceId", traceInfo.getTraceId());
-        MDC.put("spanId", traceInfo.getSpanId());
-        MDC.put("traceSource", traceInfo.getSource());
+        ServerHttpRequest request = exchange.getRequest();
         
-        logger.info("网关处理请求开始: method={}, path={}, traceId={}, source={}", 
-                method, path, traceInfo.getTraceId(), traceInfo.getSource());
+        // 提取或生成追踪信息（按配置的输入协议、采样率与ID生成策略，配置刷新后随之生效）
+        TraceIdUtils.TraceInfo traceInfo = TraceIdUtils.extractOrGenerateTraceInfo(request,
+                tracingProperties.getProtocol().getInput(), tracingProperties.getSampling().getRate(),
+                tracingProperties.getIdGenerator());
         
         // 构建修改后的请求，添加追踪头
         ServerHttpRequest mutatedRequest = buildRequestWithTracingHeaders(request, traceInfo);
+        ServerWebExchange mutatedExchange = exchange.mutate().request(mutatedRequest).build();
+        // 延迟到订阅时执行，使后续过滤器的同步代码也运行在已恢复MDC的作用域内
+        Mono<Void> result = Mono.defer(() -> chain.filter(mutatedExchange));
         
-        // 记录请求开始时间用于计算延迟
-        long startTime = System.currentTimeMillis();
+        // 未采样的请求不记录开始/完成日志，避免逐请求的日志格式化开销
+        TracingProperties.Logging logging = tracingProperties.getLogging();
+        Level level = logging.getLevel();
+        if (traceInfo.isSampled() && logger.isEnabledForLevel(level)) {
+            result = withRequestLogging(result, request, traceInfo, logging, level);
+        } else {
+            result = result.doOnError(throwable -> logger.error("网关处理请求失败: traceId={}, error={}",
+                    traceInfo.getTraceId(), throwable.getMessage()));
+        }
         
-        return chain.filter(exchange.mutate().request(mutatedRequest).build())
-                .doOnSuccess(aVoid -> {
-                    // 请求成功完成
-                    long duration = System.currentTimeMillis() - startTime;
-                    logger.info("网关处理请求完成: method={}, path={}, traceId={}, duration={}ms, status=success", 
-                            method, path, traceInfo.getTraceId(), duration);
-                })
-                .doOnError(throwable -> {
-                    // 请求处理出错
-                    long duration = System.currentTimeMillis() - startTime;
-                    logger.error("网关处理请求失败: method={}, path={}, traceId={}, duration={}ms, error={}", 
-                            method, path, traceInfo.getTraceId(), duration, throwable.getMessage());
-                })
-                .doFinally(signalType -> {
-                    // 清理MDC，防止内存泄漏
-                    MDC.clear();
-                    
-                    // 记录最终的信号类型
-                    logger.debug("请求处理完成: traceId={}, signalType={}", traceInfo.getTraceId(), signalType);
-                });
+        // 追踪信息写入Reactor Context，由context-propagation在各算子与线程切换时自动设置/还原MDC
+        return result.contextWrite(Context.of(TraceMdcAccessor.KEY, traceInfo));
+    }
+    
+    /**
+     * 为采样请求添加开始/完成日志
+     */
+    private Mono<Void> withRequestLogging(Mono<Void> result, ServerHttpRequest request, TraceIdUtils.TraceInfo traceInfo,
+                                          TracingProperties.Logging logging, Level level) {
+        String path = request.getURI().getPath();
+        String method = request.getMethod().name();
+        
+        return Mono.defer(() -> {
+            logRequestStart(request, traceInfo, logging, level, method, path);
+            
+            // 记录请求开始时间用于计算延迟
+            long startTime = logging.isIncludeTiming() ? System.currentTimeMillis() : 0L;
+            
+            return result
+                    .doOnSuccess(aVoid -> {
+                        // 请求成功完成
+                        if (logging.isIncludeTiming()) {
+                            long duration = System.currentTimeMillis() - startTime;
+                            logger.atLevel(level).log("网关处理请求完成: method={}, path={}, traceId={}, duration={}ms, status=success",
+                                    method, path, traceInfo.getTraceId(), duration);
+                        } else {
+                            logger.atLevel(level).log("网关处理请求完成: method={}, path={}, traceId={}, status=success",
+                                    method, path, traceInfo.getTraceId());
+                        }
+                    })
+                    .doOnError(throwable -> {
+                        // 请求处理出错
+                        long duration = logging.isIncludeTiming() ? System.currentTimeMillis() - startTime : -1L;
+                        logger.error("网关处理请求失败: method={}, path={}, traceId={}, duration={}ms, error={}", 
+                                method, path, traceInfo.getTraceId(), duration, throwable.getMessage());
+                    })
+                    .doFinally(signalType -> {
+                        // 记录最终的信号类型
+                        logger.debug("请求处理完成: traceId={}, signalType={}", traceInfo.getTraceId(), signalType);
+                    });
+        });
+    }
+    
+    /**
+     * 在订阅时记录请求开始日志，此时MDC已由Reactor Context恢复
+     */
+    private void logRequestStart(ServerHttpRequest request, TraceIdUtils.TraceInfo traceInfo,
+                                 TracingProperties.Logging logging, Level level, String method, String path) {
+        if (logging.isIncludeHeaders()) {
+            logger.atLevel(level).log("网关处理请求开始: method={}, path={}, traceId={}, source={}, traceparent={}",
+                    method, path, traceInfo.getTraceId(), traceInfo.getSource(),
+                    request.getHeaders().getFirst(TracingHeaders.W3C_TRACEPARENT));
+        } else {
+            logger.atLevel(level).log("网关处理请求开始: method={}, path={}, traceId={}",
+                    method, path, traceInfo.getTraceId());
+        }
     }
     
     /**
      * 构建包含追踪头的请求
+     * 未采样的请求只传递追踪主头与X-Trace-Id，并移除客户端传入的其余兼容头与元数据头
      */
     private ServerHttpRequest buildRequestWithTracingHeaders(ServerHttpRequest request, TraceIdUtils.TraceInfo traceInfo) {
         return request.mutate()
-                // W3C Trace Context 标准头（主要）
-                .header(TracingHeaders.W3C_TRACEPARENT, traceInfo.toW3CTraceparent())
-                
-                // 向下兼容的自定义头
-                .header(TracingHeaders.X_TRACE_ID, traceInfo.getTraceId())
-                .header(TracingHeaders.X_SPAN_ID, traceInfo.getSpanId())
-                .header(TracingHeaders.TRACE_ID, traceInfo.getTraceId())  // 传统格式兼容
-                
-                // 网关元数据
-                .header(TracingHeaders.X_TRACE_SOURCE, traceInfo.getSource())
-                .header(TracingHeaders.X_REQUEST_TIMESTAMP, String.valueOf(System.currentTimeMillis()))
-                
-                // 如果原始请求有tracestate，保持传递（W3C标准要求）
                 .headers(httpHeaders -> {
-                    String tracestate = request.getHeaders().getFirst(TracingHeaders.W3C_TRACESTATE);
+                    // 主追踪头：默认W3C Trace Context标准头，可配置为B3单头
+                    if (tracingProperties.getProtocol().getOutput() == TraceProtocol.B3) {
+                        httpHeaders.set(TracingHeaders.B3_SINGLE, traceInfo.toB3Single());
+                        httpHeaders.remove(TracingHeaders.W3C_TRACEPARENT);
+                    } else {
+                        httpHeaders.set(TracingHeaders.W3C_TRACEPARENT, traceInfo.toW3CTraceparent());
+                    }
+                    
+                    // 向下兼容的自定义头
+                    httpHeaders.set(TracingHeaders.X_TRACE_ID, traceInfo.getTraceId());
+                    
+                    if (traceInfo.isSampled()) {
+                        httpHeaders.set(TracingHeaders.X_SPAN_ID, traceInfo.getSpanId());
+                        httpHeaders.set(TracingHeaders.TRACE_ID, traceInfo.getTraceId());  // 传统格式兼容
+                        
+                        // 网关元数据
+                        httpHeaders.set(TracingHeaders.X_TRACE_SOURCE, traceInfo.getSource());
+                        httpHeaders.set(TracingHeaders.X_REQUEST_TIMESTAMP, String.valueOf(System.currentTimeMillis()));
+                    } else {
+                        // 客户端传入的同名头可能与网关的traceId不一致，未采样时直接移除
+                        httpHeaders.remove(TracingHeaders.X_SPAN_ID);
+                        httpHeaders.remove(TracingHeaders.TRACE_ID);
+                        httpHeaders.remove(TracingHeaders.X_TRACE_SOURCE);
+                        httpHeaders.remove(TracingHeaders.X_REQUEST_TIMESTAMP);
+                    }
+                    
+                    // 如果原始请求有合法的tracestate，保持传递（W3C标准要求）；不合法时整体丢弃
+                    String tracestate = TraceContextParser.validateTracestate(
+                            request.getHeaders().getFirst(TracingHeaders.W3C_TRACESTATE));
                     if (tracestate != null) {
-                        httpHeaders.add(TracingHeaders.W3C_TRACESTATE, tracestate);
+                        httpHeaders.set(TracingHeaders.W3C_TRACESTATE, tracestate);
+                    } else {
+                        httpHeaders.remove(TracingHeaders.W3C_TRACESTATE);
                     }
                 })
-                
                 .build();
     }
     
@@ -113,4 +183,4 @@ public class TracingGlobalFilter implements GlobalFilter, Ordered {
         // 这样追踪信息在所有后续过滤器中都可用
         return -200;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,162 @@
+package com.yuwang.leyuegateway.handler;
+
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 网关错误响应输出
+ * 401/403/503的响应体是固定内容，启动时预编码为字节数组，每次以只读缓冲区包装输出；
+ * 429响应按路由缓存编码好的前缀，仅对请求路径做一次JSON转义与拼接，不经过Jackson序列化
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+public class ErrorResponseWriter {
+
+    /**
+     * 固定内容的错误响应
+     */
+    public enum ErrorType {
+        MISSING_TOKEN(HttpStatus.UNAUTHORIZED, "缺少或无效的Authorization头"),
+        INVALID_TOKEN(HttpStatus.UNAUTHORIZED, "Token验证失败"),
+        NO_MENU_PERMISSION(HttpStatus.FORBIDDEN, "用户无任何菜单权限"),
+        FORBIDDEN(HttpStatus.FORBIDDEN, "用户无权限访问该资源"),
+        SERVICE_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "服务暂时不可用，请稍后再试");
+
+        private final HttpStatus status;
+        private final byte[] body;
+
+        ErrorType(HttpStatus status, String message) {
+            this.status = status;
+            this.body = utf8("{\"code\":" + status.value() + ",\"message\":\"" + escapeJson(message)
+                    + "\",\"success\":false}");
+        }
+
+        public HttpStatus getStatus() {
+            return status;
+        }
+    }
+
+    private static final String TOO_MANY_REQUESTS_MESSAGE = "请求过于频繁，请稍后再试";
+    private static final byte[] TOO_MANY_REQUESTS_PREFIX = utf8("{\"code\":429,\"message\":\""
+            + TOO_MANY_REQUESTS_MESSAGE + "\"");
+    private static final byte[] REQUEST_URI_FIELD = utf8(",\"requestUri\":\"");
+    private static final byte[] TOO_MANY_REQUESTS_SUFFIX = utf8("\",\"success\":false}");
+
+    /**
+     * 路由ID -> 含routeId字段的429响应前缀，路由数量有限，直接缓存
+     */
+    private final Map<String, byte[]> tooManyRequestsPrefixes = new ConcurrentHashMap<>();
+
+    /**
+     * 输出固定内容的错误响应
+     */
+    public Mono<Void> write(ServerWebExchange exchange, ErrorType errorType) {
+        return write(exchange, errorType.status, errorType.body);
+    }
+
+    /**
+     * 输出429限流响应
+     */
+    public Mono<Void> tooManyRequests(ServerWebExchange exchange) {
+        return write(exchange, HttpStatus.TOO_MANY_REQUESTS, tooManyRequestsBody(exchange));
+    }
+
+    /**
+     * 按请求的路由ID与路径生成429响应体
+     */
+    public byte[] tooManyRequestsBody(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        byte[] prefix = route != null
+                ? tooManyRequestsPrefixes.computeIfAbsent(route.getId(), ErrorResponseWriter::routePrefix)
+                : TOO_MANY_REQUESTS_PREFIX;
+        byte[] requestUri = utf8(escapeJson(exchange.getRequest().getURI().getPath()));
+
+        byte[] body = new byte[prefix.length + REQUEST_URI_FIELD.length + requestUri.length
+                + TOO_MANY_REQUESTS_SUFFIX.length];
+        int position = copy(prefix, body, 0);
+        position = copy(REQUEST_URI_FIELD, body, position);
+        position = copy(requestUri, body, position);
+        copy(TOO_MANY_REQUESTS_SUFFIX, body, position);
+        return body;
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, HttpStatus status, byte[] body) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentLength(body.length);
+
+        // 预编码的字节数组在请求间共享，以只读方式包装，避免被下游误写
+        DataBuffer buffer = response.bufferFactory().wrap(ByteBuffer.wrap(body).asReadOnlyBuffer());
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    private static byte[] routePrefix(String routeId) {
+        String prefix = "{\"code\":429,\"message\":\"" + TOO_MANY_REQUESTS_MESSAGE + "\",\"routeId\":\""
+                + escapeJson(routeId) + "\"";
+        return utf8(prefix);
+    }
+
+    private static int copy(byte[] source, byte[] target, int position) {
+        System.arraycopy(source, 0, target, position, source.length);
+        return position + source.length;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * JSON字符串转义，无需转义时直接返回原值
+     */
+    static String escapeJson(String value) {
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                break;
+            }
+            i++;
+        }
+        if (i == length) {
+            return value;
+        }
+
+        StringBuilder sb = new StringBuilder(length + 16).append(value, 0, i);
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
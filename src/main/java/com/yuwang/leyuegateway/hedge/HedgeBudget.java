@@ -0,0 +1,62 @@
+package com.yuwang.leyuegateway.hedge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲预算
+ * 每个原请求存入 budgetPercent/100 个令牌，每次对冲取出1个，余额有上限，
+ * 长期看对冲请求数不超过原请求的 budgetPercent%，后端变慢时不会因为大量对冲而雪上加霜
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+final class HedgeBudget {
+
+    /**
+     * 令牌以千分之一为单位保存
+     */
+    private static final long SCALE = 1000L;
+
+    /**
+     * 余额上限（令牌数），允许短时突发的对冲
+     */
+    private static final long MAX_TOKENS = 10L;
+
+    private final long depositPerRequest;
+    private final AtomicLong balance = new AtomicLong();
+
+    HedgeBudget(double budgetPercent) {
+        this.depositPerRequest = Math.max(0L, Math.round(budgetPercent / 100.0 * SCALE));
+    }
+
+    /**
+     * 原请求到达，存入令牌
+     */
+    void deposit() {
+        if (depositPerRequest == 0) {
+            return;
+        }
+        while (true) {
+            long current = balance.get();
+            long next = Math.min(MAX_TOKENS * SCALE, current + depositPerRequest);
+            if (next == current || balance.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 尝试取出一个令牌发起对冲
+     */
+    boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.yuwang.leyuegateway.hedge;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * 对冲请求的完整响应
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public final class HedgedResponse {
+
+    /**
+     * 原请求先返回
+     */
+    public static final HedgedResponse PRIMARY = new HedgedResponse(null, HttpHeaders.EMPTY, new byte[0], null);
+
+    private final HttpStatusCode status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final ServiceInstance instance;
+
+    HedgedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, ServiceInstance instance) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+        this.instance = instance;
+    }
+
+    public HttpStatusCode getStatus() {
+        return status;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public ServiceInstance getInstance() {
+        return instance;
+    }
+}
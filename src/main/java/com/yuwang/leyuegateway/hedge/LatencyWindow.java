@@ -0,0 +1,61 @@
+package com.yuwang.leyuegateway.hedge;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 最近响应时间的环形窗口
+ * 记录只写入一个数组槽位；分位数每记录 {@link #RECOMPUTE_EVERY} 个样本重新排序计算一次并缓存，读取无锁
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+final class LatencyWindow {
+
+    static final int SIZE = 1024;
+    static final int RECOMPUTE_EVERY = 64;
+
+    /**
+     * 计算分位数要求的最少样本数
+     */
+    static final int MIN_SAMPLES = 100;
+
+    private final double percentile;
+    private final AtomicLongArray samples = new AtomicLongArray(SIZE);
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * 缓存的分位数，样本不足时为-1
+     */
+    private volatile long percentileNanos = -1L;
+
+    LatencyWindow(double percentile) {
+        this.percentile = Math.min(1.0, Math.max(0.0, percentile));
+    }
+
+    void record(long latencyNanos) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % SIZE), latencyNanos);
+        if ((n + 1) % RECOMPUTE_EVERY == 0 && n + 1 >= MIN_SAMPLES) {
+            recompute((int) Math.min(n + 1, SIZE));
+        }
+    }
+
+    /**
+     * 最近样本的分位数（纳秒），样本不足时返回-1
+     */
+    long percentileNanos() {
+        return percentileNanos;
+    }
+
+    private void recompute(int size) {
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * size) - 1;
+        percentileNanos = sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+}
@@ -0,0 +1,332 @@
+package com.yuwang.leyuegateway.hedge;
+
+import com.yuwang.leyuegateway.circuitbreaker.CircuitBreakerRegistry;
+import com.yuwang.leyuegateway.config.HedgingProperties;
+import com.yuwang.leyuegateway.loadbalancer.InstanceLoad;
+import com.yuwang.leyuegateway.loadbalancer.InstanceLoadRegistry;
+import com.yuwang.leyuegateway.loadbalancer.OutlierDetector;
+import com.yuwang.leyuegateway.util.PathPatternIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.Connection;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 对冲请求
+ * 按路由启用，只对GET/HEAD请求生效：原请求在延迟（该路由最近响应时间的分位数）内未返回时，
+ * 向同服务的另一个未被摘除、未熔断、负载得分最低的实例发出相同的请求，先返回者胜出，另一方被取消。
+ * 对冲请求数受预算限制（不超过原请求的 budget-percent%）。
+ * 通过 gateway.hedging.requests / hedges / wins / budget-exhausted（route）暴露对冲比例与胜出次数
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.hedging", name = "enabled", havingValue = "true")
+public class RequestHedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestHedger.class);
+
+    public static final String REQUESTS_METRIC = "gateway.hedging.requests";
+    public static final String HEDGES_METRIC = "gateway.hedging.hedges";
+    public static final String WINS_METRIC = "gateway.hedging.wins";
+    public static final String BUDGET_EXHAUSTED_METRIC = "gateway.hedging.budget-exhausted";
+
+    /**
+     * 对冲请求胜出的标记，值为对冲请求使用的实例；此时响应状态不属于原实例
+     */
+    public static final String HEDGE_WON_ATTR = RequestHedger.class.getName() + ".hedgeWon";
+
+    private final HedgingProperties properties;
+    private final InstanceLoadRegistry registry;
+    private final OutlierDetector outlierDetector;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final WebClient webClient;
+    private final Function<String, Mono<List<ServiceInstance>>> instanceSource;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final MeterRegistry meterRegistry;
+
+    private volatile Map<String, Policy> policies = Map.of();
+
+    public RequestHedger(HedgingProperties properties, InstanceLoadRegistry registry, OutlierDetector outlierDetector,
+                         ObjectProvider<CircuitBreakerRegistry> circuitBreakers,
+                         ObjectProvider<HttpClient> httpClient, ObjectProvider<LoadBalancerClientFactory> clientFactory,
+                         ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                         ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this(properties, registry, outlierDetector, circuitBreakers.getIfAvailable(),
+                WebClient.builder()
+                        .clientConnector(new ReactorClientHttpConnector(httpClient.getIfAvailable(HttpClient::create)))
+                        .codecs(codecs -> codecs.defaultCodecs()
+                                .maxInMemorySize((int) Math.min(properties.getMaxResponseSize().toBytes(), Integer.MAX_VALUE)))
+                        .build(),
+                serviceId -> clientFactory.getObject().getInstance(serviceId, ServiceInstanceListSupplier.class)
+                        .get().next(),
+                headersFilters, meterRegistryProvider);
+    }
+
+    RequestHedger(HedgingProperties properties, InstanceLoadRegistry registry, OutlierDetector outlierDetector,
+                  CircuitBreakerRegistry circuitBreakers, WebClient webClient, Function<String, Mono<List<ServiceInstance>>> instanceSource,
+                  ObjectProvider<List<HttpHeadersFilter>> headersFilters, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.properties = properties;
+        this.registry = registry;
+        this.outlierDetector = outlierDetector;
+        this.circuitBreakers = circuitBreakers;
+        this.webClient = webClient;
+        this.instanceSource = instanceSource;
+        this.headersFilters = headersFilters;
+        this.meterRegistry = meterRegistryProvider.getIfAvailable();
+    }
+
+    /**
+     * 编译路由对冲策略，配置刷新后重新编译（响应时间窗口与预算重新开始统计）
+     */
+    @PostConstruct
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void rebuild() {
+        Map<String, Policy> compiled = new HashMap<>();
+        properties.getRoutes().forEach((routeKey, route) -> compiled.put(routeKey, new Policy(routeKey, route)));
+        policies = compiled;
+        logger.info("对冲请求路由已加载: {}", compiled.keySet());
+    }
+
+    /**
+     * 获取请求适用的对冲策略
+     *
+     * @return 请求不可对冲（非GET/HEAD、路由或路径未启用）时返回null
+     */
+    public Policy policyFor(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        HttpMethod method = request.getMethod();
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+            return null;
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return null;
+        }
+        Map<String, Policy> current = policies;
+        Policy policy = current.get(route.getId());
+        if (policy == null) {
+            URI uri = route.getUri();
+            if (uri != null && "lb".equals(uri.getScheme()) && uri.getHost() != null) {
+                policy = current.get(uri.getHost());
+            }
+        }
+        return policy != null && policy.matchesPath(request.getURI().getPath()) ? policy : null;
+    }
+
+    /**
+     * 在对冲延迟后向另一个实例发出对冲请求
+     *
+     * @param primary 原请求使用的实例
+     * @return 对冲请求的完整响应；未发出对冲（预算耗尽、无其他可用实例）或对冲失败时永不发出，由原请求决定结果
+     */
+    public Mono<HedgedResponse> hedge(ServerWebExchange exchange, ServiceInstance primary, Policy policy) {
+        policy.budget.deposit();
+        increment(REQUESTS_METRIC, policy);
+        return Mono.delay(policy.delay())
+                .flatMap(tick -> {
+                    if (!policy.budget.tryWithdraw()) {
+                        increment(BUDGET_EXHAUSTED_METRIC, policy);
+                        return Mono.<HedgedResponse>never();
+                    }
+                    return instanceSource.apply(primary.getServiceId())
+                            .mapNotNull(instances -> chooseOther(primary, instances))
+                            .flatMap(instance -> send(exchange, instance, policy))
+                            .switchIfEmpty(Mono.never());
+                })
+                .onErrorResume(error -> {
+                    logger.debug("对冲请求失败: route={}, error={}", policy.name, error.toString());
+                    return Mono.never();
+                });
+    }
+
+    /**
+     * 记录请求的响应时间，用于计算对冲延迟
+     */
+    public void recordLatency(Policy policy, long latencyNanos) {
+        policy.latencies.record(latencyNanos);
+    }
+
+    /**
+     * 对冲请求胜出：释放原请求可能已建立的上游响应连接，输出对冲响应
+     *
+     * @param gatewayHeaders 转发前网关已设置的响应头，原请求写入的上游响应头被丢弃
+     */
+    public Mono<Void> write(ServerWebExchange exchange, HedgedResponse hedged, Policy policy, HttpHeaders gatewayHeaders) {
+        increment(WINS_METRIC, policy);
+        exchange.getAttributes().put(HEDGE_WON_ATTR, hedged.getInstance());
+        Connection connection = (Connection) exchange.getAttributes().remove(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null) {
+            connection.dispose();
+        }
+
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.clear();
+        headers.addAll(gatewayHeaders);
+        List<HttpHeadersFilter> filters = headersFilters.getIfAvailable();
+        headers.putAll(filters != null
+                ? HttpHeadersFilter.filter(filters, hedged.getHeaders(), exchange, HttpHeadersFilter.Type.RESPONSE)
+                : hedged.getHeaders());
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        response.setStatusCode(hedged.getStatus());
+        if (exchange.getRequest().getMethod() == HttpMethod.HEAD) {
+            // HEAD响应没有响应体，保留上游的Content-Length
+            return response.setComplete();
+        }
+        byte[] body = hedged.getBody();
+        headers.setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(ByteBuffer.wrap(body))));
+    }
+
+    /**
+     * 在原实例之外选择未被摘除、未熔断、负载得分最低的实例，半开状态的实例占用一个试探名额
+     */
+    private ServiceInstance chooseOther(ServiceInstance primary, List<ServiceInstance> instances) {
+        List<ServiceInstance> candidates = outlierDetector.available(primary.getServiceId(), instances);
+        if (circuitBreakers != null) {
+            candidates = circuitBreakers.available(candidates);
+        }
+        ServiceInstance best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (ServiceInstance instance : candidates) {
+            if (instance.getHost().equals(primary.getHost()) && instance.getPort() == primary.getPort()) {
+                continue;
+            }
+            double score = registry.score(instance);
+            if (score < bestScore) {
+                best = instance;
+                bestScore = score;
+            }
+        }
+        if (best != null && circuitBreakers != null) {
+            circuitBreakers.onSelected(best);
+        }
+        return best;
+    }
+
+    private Mono<HedgedResponse> send(ServerWebExchange exchange, ServiceInstance instance, Policy policy) {
+        URI requestUrl = exchange.getRequiredAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        URI uri = LoadBalancerUriTools.reconstructURI(instance, requestUrl);
+        List<HttpHeadersFilter> filters = headersFilters.getIfAvailable();
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.addAll(filters != null ? HttpHeadersFilter.filterRequest(filters, exchange)
+                : exchange.getRequest().getHeaders());
+        if (!Boolean.TRUE.equals(exchange.getAttribute(ServerWebExchangeUtils.PRESERVE_HOST_HEADER_ATTRIBUTE))) {
+            requestHeaders.remove(HttpHeaders.HOST);
+        }
+
+        increment(HEDGES_METRIC, policy);
+        InstanceLoad load = registry.start(instance);
+        long start = registry.nanoTime();
+        return webClient.method(exchange.getRequest().getMethod())
+                .uri(uri)
+                .headers(target -> target.addAll(requestHeaders))
+                .exchangeToMono(response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(new byte[0])
+                        .map(body -> new HedgedResponse(response.statusCode(),
+                                HttpHeaders.readOnlyHttpHeaders(response.headers().asHttpHeaders()), body, instance)))
+                .doOnNext(hedged -> record(instance, load, hedged.getStatus().is5xxServerError()
+                        ? OutlierDetector.Outcome.SERVER_ERROR : OutlierDetector.Outcome.SUCCESS))
+                .doOnError(error -> {
+                    if (!isAbandoned(error)) {
+                        record(instance, load, OutlierDetector.outcomeOf(error));
+                    }
+                })
+                .doFinally(signal -> registry.complete(load, signal == SignalType.CANCEL ? -1L : start));
+    }
+
+    /**
+     * 响应体超过 max-response-size 时放弃对冲，实例本身正常，不记录转发结果
+     */
+    private static boolean isAbandoned(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataBufferLimitException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void record(ServiceInstance instance, InstanceLoad load, OutlierDetector.Outcome outcome) {
+        outlierDetector.record(instance, load, outcome);
+        if (circuitBreakers != null) {
+            circuitBreakers.recordInstance(instance, outcome != OutlierDetector.Outcome.SUCCESS);
+        }
+    }
+
+    private void increment(String metric, Policy policy) {
+        if (meterRegistry != null) {
+            Counter.builder(metric).tag("route", policy.name).register(meterRegistry).increment();
+        }
+    }
+
+    /**
+     * 路由的对冲策略
+     */
+    public static final class Policy {
+
+        private final String name;
+        private final PathPatternIndex paths;
+        private final LatencyWindow latencies;
+        private final HedgeBudget budget;
+        private final long minDelayNanos;
+        private final long maxDelayNanos;
+
+        Policy(String name, HedgingProperties.Route route) {
+            this.name = name;
+            this.paths = PathPatternIndex.compile(route.getPaths());
+            this.latencies = new LatencyWindow(route.getDelayPercentile());
+            this.budget = new HedgeBudget(route.getBudgetPercent());
+            this.minDelayNanos = route.getMinDelay().toNanos();
+            this.maxDelayNanos = Math.max(minDelayNanos, route.getMaxDelay().toNanos());
+        }
+
+        boolean matchesPath(String path) {
+            return paths.isEmpty() || paths.matches(path);
+        }
+
+        /**
+         * 对冲延迟：最近响应时间的分位数，限制在[min-delay, max-delay]内，样本不足时取max-delay
+         */
+        Duration delay() {
+            long percentile = latencies.percentileNanos();
+            long delay = percentile < 0 ? maxDelayNanos : Math.max(minDelayNanos, Math.min(maxDelayNanos, percentile));
+            return Duration.ofNanos(delay);
+        }
+    }
+}
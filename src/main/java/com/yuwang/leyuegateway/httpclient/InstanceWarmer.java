@@ -0,0 +1,179 @@
+package com.yuwang.leyuegateway.httpclient;
+
+import com.yuwang.leyuegateway.config.InstanceWarmUpProperties;
+import com.yuwang.leyuegateway.loadbalancer.InstanceLoadRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 新实例连接预热
+ * 路由刷新时（Nacos心跳事件每个 watch-delay 触发一次）从服务发现读取各服务的实例，与上次的实例列表比较，
+ * 对新出现的实例并发发出 connections 个预热请求，请求结束后连接留在该服务的连接池中，
+ * 真实请求到达时无需再建立TCP/TLS连接，上游也已完成首批请求的JIT预热。
+ * 已知服务新增的实例同时开始慢启动（gateway.load-balancer.slow-start）；首次发现的服务只预热，不慢启动。
+ * 通过 gateway.instance-warm-up.connections（service、outcome）暴露预热结果
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.instance-warm-up", name = "enabled", havingValue = "true")
+public class InstanceWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstanceWarmer.class);
+
+    public static final String CONNECTIONS_METRIC = "gateway.instance-warm-up.connections";
+
+    /**
+     * 同时预热的实例数上限，避免启动时集中建立大量连接
+     */
+    private static final int MAX_CONCURRENT_INSTANCES = 8;
+
+    private final InstanceWarmUpProperties properties;
+    private final InstanceLoadRegistry registry;
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final ServiceConnectionPools pools;
+    private final HttpClient httpClient;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 服务名 -> 上次刷新时的实例地址（主机:端口）
+     */
+    private final Map<String, Set<String>> knownInstances = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    public InstanceWarmer(InstanceWarmUpProperties properties, InstanceLoadRegistry registry,
+                          ReactiveDiscoveryClient discoveryClient, ObjectProvider<ServiceConnectionPools> pools,
+                          ObjectProvider<HttpClient> httpClient, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.properties = properties;
+        this.registry = registry;
+        this.discoveryClient = discoveryClient;
+        this.pools = pools.getIfAvailable();
+        this.httpClient = httpClient.getIfAvailable();
+        this.meterRegistry = meterRegistryProvider.getIfAvailable();
+    }
+
+    /**
+     * 路由刷新时比较实例列表，上一次比较未结束时跳过
+     */
+    @EventListener(RefreshRoutesEvent.class)
+    public void onRefreshRoutes() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refresh()
+                .doFinally(signal -> refreshing.set(false))
+                .subscribe(null, error -> logger.warn("刷新服务实例列表失败: {}", error.toString()));
+    }
+
+    /**
+     * 读取所有服务的实例，预热新实例的连接
+     */
+    Mono<Void> refresh() {
+        return discoveryClient.getServices()
+                .filter(serviceId -> !properties.getExcludeServices().contains(serviceId))
+                .collectList()
+                .flatMapMany(serviceIds -> {
+                    // 已下线的服务重新上线时按首次发现处理
+                    knownInstances.keySet().retainAll(serviceIds);
+                    return Flux.fromIterable(serviceIds);
+                })
+                .concatMap(serviceId -> discoveryClient.getInstances(serviceId).collectList()
+                        .flatMapIterable(instances -> added(serviceId, instances)))
+                .flatMap(this::warm, MAX_CONCURRENT_INSTANCES)
+                .then();
+    }
+
+    /**
+     * 记录服务的最新实例列表，返回新增的实例
+     */
+    private List<ServiceInstance> added(String serviceId, List<ServiceInstance> instances) {
+        Set<String> current = new HashSet<>();
+        List<ServiceInstance> added = new ArrayList<>();
+        Set<String> previous = knownInstances.get(serviceId);
+        for (ServiceInstance instance : instances) {
+            String address = address(instance);
+            if (current.add(address) && (previous == null || !previous.contains(address))) {
+                added.add(instance);
+            }
+        }
+        knownInstances.put(serviceId, current);
+        if (previous != null) {
+            for (ServiceInstance instance : added) {
+                registry.startSlowStart(instance);
+            }
+            if (!added.isEmpty()) {
+                logger.info("发现新实例: service={}, instances={}", serviceId,
+                        added.stream().map(InstanceWarmer::address).toList());
+            }
+        }
+        return added;
+    }
+
+    /**
+     * 并发发出预热请求，每个请求占用一个连接，结束后连接归还连接池
+     */
+    private Mono<Void> warm(ServiceInstance instance) {
+        int connections = properties.getConnections();
+        HttpClient client = pools != null ? pools.clientFor(instance) : httpClient;
+        if (connections <= 0 || client == null) {
+            return Mono.empty();
+        }
+        String uri = instance.getUri() + properties.pathFor(instance.getServiceId());
+        return Flux.range(0, connections)
+                .flatMap(i -> client.get()
+                        .uri(uri)
+                        // 读完响应体后连接归还连接池，不能提前取消，否则连接会被关闭
+                        .response((response, body) -> body.then())
+                        .then(Mono.just(true))
+                        .timeout(properties.getTimeout())
+                        .onErrorResume(error -> {
+                            logger.debug("预热请求失败: instance={}, error={}", uri, error.toString());
+                            return Mono.just(false);
+                        }), connections)
+                .filter(success -> success)
+                .count()
+                .doOnNext(succeeded -> {
+                    record(instance.getServiceId(), "success", succeeded);
+                    record(instance.getServiceId(), "failure", connections - succeeded);
+                    logger.info("预热实例连接: service={}, instance={}, connections={}/{}", instance.getServiceId(),
+                            address(instance), succeeded, connections);
+                })
+                .then();
+    }
+
+    private void record(String serviceId, String outcome, long count) {
+        if (meterRegistry == null || count == 0) {
+            return;
+        }
+        Counter.builder(CONNECTIONS_METRIC)
+                .tag("service", serviceId)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    private static String address(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+}
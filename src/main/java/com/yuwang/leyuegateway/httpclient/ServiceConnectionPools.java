@@ -0,0 +1,280 @@
+package com.yuwang.leyuegateway.httpclient;
+
+import com.yuwang.leyuegateway.config.ConnectionPoolProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * 按服务隔离的上游连接池
+ * 每个服务在第一次请求时创建独立的ConnectionProvider与HttpClient，某个服务变慢占满连接不会影响其他服务；
+ * 配置按 defaults、实例注册元数据（Nacos metadata 中的 gateway.pool.*）、gateway.connection-pool.services 逐项覆盖。
+ * 连接池状态按服务汇总为 gateway.connection-pool.active / idle / pending（service）指标。
+ * 配置刷新后只重建配置有变化的服务的连接池，新请求使用新连接池，旧连接池在进行中的请求结束后关闭
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.connection-pool", name = "enabled", havingValue = "true")
+public class ServiceConnectionPools {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceConnectionPools.class);
+
+    public static final String ACTIVE_METRIC = "gateway.connection-pool.active";
+    public static final String IDLE_METRIC = "gateway.connection-pool.idle";
+    public static final String PENDING_METRIC = "gateway.connection-pool.pending";
+
+    /**
+     * 实例注册元数据中连接池配置的前缀，如 gateway.pool.max-connections=100
+     */
+    public static final String METADATA_PREFIX = "gateway.pool";
+
+    /**
+     * 连接池关闭时等待进行中请求的最长时间
+     */
+    private static final Duration DISPOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ConnectionPoolProperties properties;
+    private final HttpClientProperties httpClientProperties;
+    private final ServerProperties serverProperties;
+    private final HttpClientSslConfigurer sslConfigurer;
+    private final List<HttpClientCustomizer> customizers;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ServicePool> pools = new ConcurrentHashMap<>();
+
+    public ServiceConnectionPools(ConnectionPoolProperties properties, HttpClientProperties httpClientProperties,
+                                  ServerProperties serverProperties, HttpClientSslConfigurer sslConfigurer,
+                                  ObjectProvider<HttpClientCustomizer> customizers,
+                                  ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.properties = properties;
+        this.httpClientProperties = httpClientProperties;
+        this.serverProperties = serverProperties;
+        this.sslConfigurer = sslConfigurer;
+        this.customizers = customizers.orderedStream().toList();
+        this.meterRegistry = meterRegistryProvider.getIfAvailable();
+    }
+
+    /**
+     * 获取服务的HttpClient，首次调用时按该实例的注册元数据创建连接池
+     */
+    public HttpClient clientFor(ServiceInstance instance) {
+        String serviceId = instance.getServiceId();
+        ServicePool pool = pools.get(serviceId);
+        if (pool == null) {
+            pool = pools.computeIfAbsent(serviceId, id -> create(id, instance));
+        }
+        return pool.client;
+    }
+
+    /**
+     * 配置刷新后丢弃合并配置有变化的连接池，后续请求按新配置重建；配置未变的连接池保留现有连接
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void rebuild() {
+        List<String> changed = new ArrayList<>();
+        pools.forEach((serviceId, pool) -> {
+            if (!pool.settings.equals(settingsFor(serviceId, pool.instance)) && pools.remove(serviceId, pool)) {
+                pool.provider.disposeLater().subscribe();
+                changed.add(serviceId);
+            }
+        });
+        if (!changed.isEmpty()) {
+            logger.info("服务连接池配置已变更，关闭旧连接池: {}", changed);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        pools.values().forEach(pool -> pool.provider.dispose());
+        pools.clear();
+    }
+
+    /**
+     * 按 defaults、实例元数据、services 的顺序合并服务的连接池配置
+     * 结果总是新对象，刷新配置时原地修改的配置对象不会影响已保存的配置
+     */
+    ConnectionPoolProperties.Pool settingsFor(String serviceId, ServiceInstance instance) {
+        return new ConnectionPoolProperties.Pool()
+                .overriddenBy(properties.getDefaults())
+                .overriddenBy(fromMetadata(serviceId, instance))
+                .overriddenBy(properties.getServices().get(serviceId));
+    }
+
+    ServicePool pool(String serviceId) {
+        return pools.get(serviceId);
+    }
+
+    private ServicePool create(String serviceId, ServiceInstance instance) {
+        ConnectionPoolProperties.Pool settings = settingsFor(serviceId, instance);
+        Map<SocketAddress, ConnectionPoolMetrics> metrics = new ConcurrentHashMap<>();
+        ServicePool pool = new ServicePool(connectionProvider(serviceId, settings, metrics), metrics, settings,
+                instance);
+        HttpClient client = new ServiceHttpClientFactory(httpClientProperties, serverProperties, sslConfigurer,
+                customizers, pool.provider).build();
+        if (settings.getHttp2() != null && settings.getHttp2()) {
+            client = client.protocol(HttpProtocol.HTTP11, HttpProtocol.H2C, HttpProtocol.H2);
+        }
+        if (settings.getWarmUp() != null && settings.getWarmUp()) {
+            client.warmup().subscribe(null, error -> logger.warn("服务连接池预热失败: service={}, error={}",
+                    serviceId, error.toString()));
+        }
+        pool.client = client;
+        registerGauges(serviceId);
+        logger.info("创建服务连接池: service={}, maxConnections={}, leasing={}, http2={}", serviceId,
+                settings.getMaxConnections(), settings.getLeasingStrategy(), settings.getHttp2());
+        return pool;
+    }
+
+    private ConnectionProvider connectionProvider(String serviceId, ConnectionPoolProperties.Pool settings,
+                                                  Map<SocketAddress, ConnectionPoolMetrics> metrics) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("gateway-" + serviceId)
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .maxIdleTime(settings.getMaxIdleTime())
+                .maxLifeTime(settings.getMaxLifeTime())
+                .disposeTimeout(DISPOSE_TIMEOUT)
+                .metrics(true, () -> new ConnectionProvider.MeterRegistrar() {
+                    @Override
+                    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                                                ConnectionPoolMetrics poolMetrics) {
+                        metrics.put(remoteAddress, poolMetrics);
+                    }
+
+                    @Override
+                    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+                        metrics.remove(remoteAddress);
+                    }
+                });
+        if (!settings.getEvictionInterval().isZero()) {
+            builder.evictInBackground(settings.getEvictionInterval());
+        }
+        if (!settings.getPoolInactivity().isZero()) {
+            builder.disposeInactivePoolsInBackground(settings.getPoolInactivity(), settings.getPoolInactivity());
+        }
+        if (settings.getLeasingStrategy() == HttpClientProperties.Pool.LeasingStrategy.LIFO) {
+            builder.lifo();
+        } else {
+            builder.fifo();
+        }
+        return builder.build();
+    }
+
+    private ConnectionPoolProperties.Pool fromMetadata(String serviceId, ServiceInstance instance) {
+        Map<String, String> metadata = instance.getMetadata();
+        if (metadata == null || metadata.isEmpty()) {
+            return null;
+        }
+        Map<String, String> poolMetadata = new HashMap<>();
+        metadata.forEach((key, value) -> {
+            if (key.startsWith(METADATA_PREFIX + ".")) {
+                poolMetadata.put(key, value);
+            }
+        });
+        if (poolMetadata.isEmpty()) {
+            return null;
+        }
+        try {
+            return new Binder(new MapConfigurationPropertySource(poolMetadata))
+                    .bind(METADATA_PREFIX, ConnectionPoolProperties.Pool.class)
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            logger.warn("忽略无效的实例连接池元数据: service={}, metadata={}, error={}", serviceId, poolMetadata,
+                    e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 指标按服务名读取当前的连接池，连接池重建后沿用同一指标
+     */
+    private void registerGauges(String serviceId) {
+        if (meterRegistry == null) {
+            return;
+        }
+        registerGauge(ACTIVE_METRIC, serviceId, ConnectionPoolMetrics::acquiredSize);
+        registerGauge(IDLE_METRIC, serviceId, ConnectionPoolMetrics::idleSize);
+        registerGauge(PENDING_METRIC, serviceId, ConnectionPoolMetrics::pendingAcquireSize);
+    }
+
+    private void registerGauge(String metric, String serviceId, ToIntFunction<ConnectionPoolMetrics> value) {
+        Gauge.builder(metric, () -> {
+                    ServicePool pool = pools.get(serviceId);
+                    return pool != null ? pool.sum(value) : 0;
+                })
+                .tag("service", serviceId)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 服务的连接池，按实例地址分为多个子池
+     */
+    static final class ServicePool {
+
+        private final ConnectionProvider provider;
+        private final Map<SocketAddress, ConnectionPoolMetrics> metrics;
+
+        /**
+         * 创建连接池时的合并配置，刷新时用于判断是否需要重建
+         */
+        private final ConnectionPoolProperties.Pool settings;
+
+        /**
+         * 创建连接池时使用的实例，刷新时按其注册元数据重新合并配置
+         */
+        private final ServiceInstance instance;
+        private volatile HttpClient client;
+
+        private ServicePool(ConnectionProvider provider, Map<SocketAddress, ConnectionPoolMetrics> metrics,
+                            ConnectionPoolProperties.Pool settings, ServiceInstance instance) {
+            this.provider = provider;
+            this.metrics = metrics;
+            this.settings = settings;
+            this.instance = instance;
+        }
+
+        ConnectionProvider getProvider() {
+            return provider;
+        }
+
+        Map<SocketAddress, ConnectionPoolMetrics> getMetrics() {
+            return metrics;
+        }
+
+        int sum(ToIntFunction<ConnectionPoolMetrics> value) {
+            int total = 0;
+            for (ConnectionPoolMetrics poolMetrics : metrics.values()) {
+                total += value.applyAsInt(poolMetrics);
+            }
+            return total;
+        }
+    }
+}
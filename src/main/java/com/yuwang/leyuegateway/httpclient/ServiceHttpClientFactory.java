@@ -0,0 +1,38 @@
+package com.yuwang.leyuegateway.httpclient;
+
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+
+/**
+ * 使用指定连接池创建HttpClient，其余配置（超时、SSL、代理、压缩、HttpClientCustomizer）与网关默认的HttpClient一致
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class ServiceHttpClientFactory extends HttpClientFactory {
+
+    private final ConnectionProvider connectionProvider;
+
+    ServiceHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                             HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                             ConnectionProvider connectionProvider) {
+        super(properties, serverProperties, sslConfigurer, customizers);
+        this.connectionProvider = connectionProvider;
+    }
+
+    HttpClient build() {
+        return createInstance();
+    }
+
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+        return connectionProvider;
+    }
+}
@@ -0,0 +1,32 @@
+package com.yuwang.leyuegateway.loadbalancer;
+
+import com.yuwang.leyuegateway.circuitbreaker.CircuitBreakerRegistry;
+import com.yuwang.leyuegateway.config.GatewayLoadBalancerProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * 各服务负载均衡子上下文的默认配置，替换默认的轮询负载均衡器
+ * 由 {@code @LoadBalancerClients(defaultConfiguration = ...)} 引用，不能被组件扫描注册到主上下文，因此不加@Configuration
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public class GatewayLoadBalancerClientConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory, InstanceLoadRegistry registry,
+            OutlierDetector outlierDetector, GatewayLoadBalancerProperties properties,
+            ObjectProvider<CircuitBreakerRegistry> circuitBreakers) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId, registry, outlierDetector, properties, circuitBreakers.getIfAvailable());
+    }
+}
@@ -0,0 +1,207 @@
+package com.yuwang.leyuegateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个服务实例的负载与健康统计
+ * 在途请求数为原子计数；响应时间为Peak EWMA：样本大于当前值时直接取样本（对变慢立即反应），
+ * 否则按距上次样本的时间指数衰减加权（w = e^(-Δt/τ)），变快时平滑回落。
+ * 计算得分时响应时间同样按距上次样本的时间衰减，长时间未被选中的慢实例会逐渐重新获得流量以便再次探测。
+ * 健康状态记录连续5xx与连续连接失败次数，以及被摘除（eject）的截止时间与累计摘除次数；
+ * 新注册的实例另记录慢启动开始时间
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public final class InstanceLoad {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 响应时间EWMA，0表示尚无样本，受this保护
+     */
+    private double ewmaNanos;
+
+    /**
+     * 上次样本的时间，受this保护
+     */
+    private long lastSampleNanos;
+
+    private final AtomicInteger consecutive5xx = new AtomicInteger();
+    private final AtomicInteger consecutiveConnectErrors = new AtomicInteger();
+
+    /**
+     * 摘除截止时间，0表示未摘除
+     */
+    private volatile long ejectedUntilNanos;
+
+    /**
+     * 连续摘除次数，决定下次摘除时长的倍数，受this保护
+     */
+    private int ejectionCount;
+
+    /**
+     * 慢启动开始时间，0表示不在慢启动中
+     */
+    private volatile long slowStartSinceNanos;
+
+    void start() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * 请求结束
+     *
+     * @param rttNanos 响应时间，小于0表示无有效样本（请求被取消）
+     * @param nowNanos 当前时间
+     * @param decayNanos EWMA衰减时间常数
+     */
+    void complete(long rttNanos, long nowNanos, long decayNanos) {
+        inFlight.decrementAndGet();
+        if (rttNanos >= 0) {
+            observe(rttNanos, nowNanos, decayNanos);
+        }
+    }
+
+    private synchronized void observe(long rttNanos, long nowNanos, long decayNanos) {
+        if (ewmaNanos == 0 || rttNanos > ewmaNanos) {
+            ewmaNanos = rttNanos;
+        } else {
+            double elapsed = Math.max(0L, nowNanos - lastSampleNanos);
+            double weight = Math.exp(-elapsed / decayNanos);
+            ewmaNanos = ewmaNanos * weight + rttNanos * (1 - weight);
+        }
+        lastSampleNanos = nowNanos;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 响应时间EWMA（纳秒），尚无样本时返回0
+     */
+    public synchronized double getEwmaNanos() {
+        return ewmaNanos;
+    }
+
+    /**
+     * 负载得分：衰减后的响应时间EWMA×(在途请求数+1)，越小越优先
+     *
+     * @param nowNanos 当前时间
+     * @param decayNanos EWMA衰减时间常数
+     * @param initialRttNanos 尚无样本时使用的响应时间
+     */
+    public double score(long nowNanos, long decayNanos, long initialRttNanos) {
+        double rtt;
+        synchronized (this) {
+            rtt = ewmaNanos > 0
+                    ? ewmaNanos * Math.exp(-Math.max(0L, nowNanos - lastSampleNanos) / (double) decayNanos)
+                    : initialRttNanos;
+        }
+        return rtt * (inFlight.get() + 1);
+    }
+
+    /**
+     * 请求成功，连续失败计数清零
+     */
+    void recordSuccess() {
+        if (consecutive5xx.get() != 0) {
+            consecutive5xx.set(0);
+        }
+        if (consecutiveConnectErrors.get() != 0) {
+            consecutiveConnectErrors.set(0);
+        }
+    }
+
+    /**
+     * 上游返回5xx或响应超时
+     *
+     * @return 累计的连续失败次数
+     */
+    int record5xx() {
+        return consecutive5xx.incrementAndGet();
+    }
+
+    /**
+     * 连接上游失败，同时计入连续失败次数
+     *
+     * @return 累计的连续连接失败次数
+     */
+    int recordConnectError() {
+        consecutive5xx.incrementAndGet();
+        return consecutiveConnectErrors.incrementAndGet();
+    }
+
+    public boolean isEjected(long nowNanos) {
+        long until = ejectedUntilNanos;
+        return until != 0 && until - nowNanos > 0;
+    }
+
+    /**
+     * 摘除实例，摘除时长为 基础时长×2^(连续摘除次数)，不超过最大时长
+     *
+     * @return 本次摘除时长，实例已被摘除时返回0
+     */
+    synchronized long eject(long nowNanos, long baseNanos, long maxNanos) {
+        if (isEjected(nowNanos)) {
+            return 0L;
+        }
+        long duration = baseNanos << Math.min(ejectionCount, 20);
+        if (duration <= 0 || duration > maxNanos) {
+            duration = maxNanos;
+        }
+        ejectionCount++;
+        ejectedUntilNanos = nowNanos + duration;
+        consecutive5xx.set(0);
+        consecutiveConnectErrors.set(0);
+        return duration;
+    }
+
+    /**
+     * 检查周期到达时调用：恢复后已保持健康超过一个周期的实例，连续摘除次数减1
+     */
+    synchronized void decayEjectionCount(long nowNanos, long intervalNanos) {
+        if (ejectionCount > 0 && nowNanos - ejectedUntilNanos >= intervalNanos) {
+            ejectionCount--;
+        }
+    }
+
+    public synchronized int getEjectionCount() {
+        return ejectionCount;
+    }
+
+    /**
+     * 剩余摘除时间（纳秒），未摘除时返回0
+     */
+    public long ejectionRemainingNanos(long nowNanos) {
+        long until = ejectedUntilNanos;
+        return until != 0 ? Math.max(0L, until - nowNanos) : 0L;
+    }
+
+    void startSlowStart(long nowNanos) {
+        slowStartSinceNanos = nowNanos == 0 ? 1L : nowNanos;
+    }
+
+    /**
+     * 慢启动权重，不在慢启动中或已超过窗口时为1
+     *
+     * @param nowNanos 当前时间
+     * @param windowNanos 慢启动窗口
+     * @param aggression 权重增长曲线
+     * @param minWeight 最小权重
+     */
+    public double weight(long nowNanos, long windowNanos, double aggression, double minWeight) {
+        long since = slowStartSinceNanos;
+        if (since == 0) {
+            return 1.0;
+        }
+        long elapsed = nowNanos - since;
+        if (windowNanos <= 0 || elapsed >= windowNanos) {
+            slowStartSinceNanos = 0L;
+            return 1.0;
+        }
+        double ratio = Math.max(0L, elapsed) / (double) windowNanos;
+        return Math.max(minWeight, Math.pow(ratio, 1.0 / aggression));
+    }
+}
@@ -0,0 +1,192 @@
+package com.yuwang.leyuegateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yuwang.leyuegateway.config.GatewayLoadBalancerProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 服务实例负载统计
+ * 按服务名与 主机:端口 保存各实例的在途请求数、响应时间EWMA与健康状态，由网关实际转发的请求更新，
+ * 供负载均衡选择实例、异常实例摘除与actuator查看
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+public class InstanceLoadRegistry {
+
+    private final GatewayLoadBalancerProperties properties;
+    private final Map<String, ServiceLoads> services = new ConcurrentHashMap<>();
+
+    private LongSupplier nanoClock = System::nanoTime;
+
+    public InstanceLoadRegistry(GatewayLoadBalancerProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 获取实例的负载统计，不存在时创建
+     */
+    public InstanceLoad get(ServiceInstance instance) {
+        return service(instance.getServiceId()).instances.get(address(instance), address -> new InstanceLoad());
+    }
+
+    /**
+     * 记录请求开始
+     */
+    public InstanceLoad start(ServiceInstance instance) {
+        InstanceLoad load = get(instance);
+        load.start();
+        return load;
+    }
+
+    /**
+     * 记录请求结束
+     *
+     * @param startNanos {@link #nanoTime()} 取得的请求开始时间，小于0表示请求被取消，不计入响应时间
+     */
+    public void complete(InstanceLoad load, long startNanos) {
+        long now = nanoClock.getAsLong();
+        load.complete(startNanos >= 0 ? now - startNanos : -1L, now, properties.getDecayTime().toNanos());
+    }
+
+    /**
+     * 实例当前的负载得分，越小越优先；慢启动中的实例得分按权重放大
+     */
+    public double score(ServiceInstance instance) {
+        InstanceLoad load = get(instance);
+        long now = nanoClock.getAsLong();
+        return load.score(now, properties.getDecayTime().toNanos(), properties.getInitialRtt().toNanos())
+                / weight(load, now);
+    }
+
+    /**
+     * 新注册的实例开始慢启动，未启用慢启动时不生效
+     */
+    public void startSlowStart(ServiceInstance instance) {
+        get(instance).startSlowStart(nanoClock.getAsLong());
+    }
+
+    /**
+     * 实例的慢启动权重，取值 (0, 1]
+     */
+    public double weight(ServiceInstance instance) {
+        return weight(get(instance), nanoClock.getAsLong());
+    }
+
+    private double weight(InstanceLoad load, long nowNanos) {
+        GatewayLoadBalancerProperties.SlowStart slowStart = properties.getSlowStart();
+        if (!slowStart.isEnabled()) {
+            return 1.0;
+        }
+        return load.weight(nowNanos, slowStart.getWindow().toNanos(), slowStart.getAggression(),
+                slowStart.getMinWeight());
+    }
+
+    public long nanoTime() {
+        return nanoClock.getAsLong();
+    }
+
+    /**
+     * 各服务实例的负载快照：服务名 -> 实例列表（instance、inFlight、ewmaMillis、score、weight、ejected等）
+     */
+    public Map<String, List<Map<String, Object>>> snapshot() {
+        long now = nanoClock.getAsLong();
+        long decayNanos = properties.getDecayTime().toNanos();
+        long initialRttNanos = properties.getInitialRtt().toNanos();
+        Map<String, List<Map<String, Object>>> snapshot = new TreeMap<>();
+        services.forEach((serviceId, service) -> {
+            List<Map<String, Object>> instances = new ArrayList<>();
+            new TreeMap<>(service.instances.asMap()).forEach((address, load) -> {
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("instance", address);
+                stats.put("inFlight", load.getInFlight());
+                stats.put("ewmaMillis", load.getEwmaNanos() / 1_000_000.0);
+                double weight = weight(load, now);
+                stats.put("score", load.score(now, decayNanos, initialRttNanos) / weight / 1_000_000.0);
+                stats.put("weight", weight);
+                stats.put("ejected", load.isEjected(now));
+                stats.put("ejectionRemainingMillis", load.ejectionRemainingNanos(now) / 1_000_000);
+                stats.put("ejectionCount", load.getEjectionCount());
+                instances.add(stats);
+            });
+            if (!instances.isEmpty()) {
+                snapshot.put(serviceId, instances);
+            }
+        });
+        return snapshot;
+    }
+
+    /**
+     * 获取服务下所有实例的统计
+     */
+    ServiceLoads service(String serviceId) {
+        return services.computeIfAbsent(serviceId, id -> new ServiceLoads(properties));
+    }
+
+    void setNanoClock(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    static String address(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    /**
+     * 单个服务的实例统计
+     */
+    static final class ServiceLoads {
+
+        private final Cache<String, InstanceLoad> instances;
+
+        /**
+         * 最近一次负载均衡时服务发现返回的实例数，用于限制摘除比例
+         */
+        private volatile int knownInstances;
+
+        /**
+         * 下次按周期检查响应时间异常的时间
+         */
+        private final AtomicLong nextSweepNanos = new AtomicLong(Long.MIN_VALUE);
+
+        private ServiceLoads(GatewayLoadBalancerProperties properties) {
+            this.instances = Caffeine.newBuilder()
+                    .expireAfterAccess(properties.getStatsIdleTimeout())
+                    .build();
+        }
+
+        Map<String, InstanceLoad> instances() {
+            return instances.asMap();
+        }
+
+        int getKnownInstances() {
+            return knownInstances;
+        }
+
+        void setKnownInstances(int knownInstances) {
+            this.knownInstances = knownInstances;
+        }
+
+        /**
+         * 到达检查周期时返回true，同一周期只有一个调用方返回true
+         */
+        boolean trySweep(long nowNanos, long intervalNanos) {
+            long next = nextSweepNanos.get();
+            if (next != Long.MIN_VALUE && next - nowNanos > 0) {
+                return false;
+            }
+            return nextSweepNanos.compareAndSet(next, nowNanos + intervalNanos);
+        }
+    }
+}
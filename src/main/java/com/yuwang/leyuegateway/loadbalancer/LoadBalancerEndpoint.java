@@ -0,0 +1,59 @@
+package com.yuwang.leyuegateway.loadbalancer;
+
+import com.yuwang.leyuegateway.config.GatewayLoadBalancerProperties;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 负载均衡actuator端点：/actuator/loadbalancer[/{serviceId}]
+ * 输出各服务的负载均衡策略，实例的在途请求数、响应时间EWMA、负载得分（毫秒）与摘除状态，以及最近的摘除事件
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@Endpoint(id = "loadbalancer")
+public class LoadBalancerEndpoint {
+
+    private final InstanceLoadRegistry registry;
+    private final OutlierDetector outlierDetector;
+    private final GatewayLoadBalancerProperties properties;
+
+    public LoadBalancerEndpoint(InstanceLoadRegistry registry, OutlierDetector outlierDetector,
+                                GatewayLoadBalancerProperties properties) {
+        this.registry = registry;
+        this.outlierDetector = outlierDetector;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public Map<String, Object> services() {
+        Map<String, Object> services = new LinkedHashMap<>();
+        registry.snapshot().forEach((serviceId, instances) -> {
+            Map<String, Object> service = new LinkedHashMap<>();
+            service.put("strategy", properties.strategyFor(serviceId));
+            service.put("instances", instances);
+            services.put(serviceId, service);
+        });
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("services", services);
+        result.put("recentEjections", outlierDetector.recentEjections());
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> service(@Selector String serviceId) {
+        Map<String, Object> service = new LinkedHashMap<>();
+        service.put("strategy", properties.strategyFor(serviceId));
+        service.put("instances", registry.snapshot().getOrDefault(serviceId, List.of()));
+        service.put("recentEjections", outlierDetector.recentEjections().stream()
+                .filter(event -> serviceId.equals(event.getService())).toList());
+        return service;
+    }
+}
@@ -0,0 +1,279 @@
+package com.yuwang.leyuegateway.loadbalancer;
+
+import com.yuwang.leyuegateway.config.GatewayLoadBalancerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.net.ConnectException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异常实例摘除（被动健康检查）
+ * 根据网关实际转发的结果摘除异常实例：连续5xx、连续连接失败，或响应时间EWMA显著高于同服务其他实例（按周期检查）。
+ * 摘除时长按连续摘除次数指数增长，实例在一个检查周期内保持健康时次数回落；同一服务同时摘除的实例不超过 max-ejection-percent。
+ * 负载均衡只在未摘除的实例中选择，全部实例都被摘除时退回使用全部实例。
+ * 摘除次数通过 gateway.loadbalancer.ejections（service、reason）暴露，最近的摘除事件可在 /actuator/loadbalancer 查看
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+public class OutlierDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutlierDetector.class);
+
+    public static final String EJECTIONS_METRIC = "gateway.loadbalancer.ejections";
+
+    /**
+     * 保留的最近摘除事件数
+     */
+    private static final int MAX_EVENTS = 100;
+
+    /**
+     * 转发结果
+     */
+    public enum Outcome {
+        SUCCESS,
+        /**
+         * 上游返回5xx或响应超时
+         */
+        SERVER_ERROR,
+        /**
+         * 连接上游失败
+         */
+        CONNECT_ERROR
+    }
+
+    /**
+     * 摘除原因
+     */
+    public enum Reason {
+        CONSECUTIVE_5XX,
+        CONSECUTIVE_CONNECT_ERRORS,
+        LATENCY
+    }
+
+    private final GatewayLoadBalancerProperties properties;
+    private final InstanceLoadRegistry registry;
+    private final MeterRegistry meterRegistry;
+    private final Deque<EjectionEvent> events = new ArrayDeque<>();
+
+    public OutlierDetector(GatewayLoadBalancerProperties properties, InstanceLoadRegistry registry,
+                           ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.properties = properties;
+        this.registry = registry;
+        this.meterRegistry = meterRegistryProvider.getIfAvailable();
+    }
+
+    /**
+     * 按转发异常判断结果：只有连接失败、连接超时按连接错误计，响应超时等其他错误按5xx计
+     */
+    public static Outcome outcomeOf(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+                return Outcome.CONNECT_ERROR;
+            }
+        }
+        return Outcome.SERVER_ERROR;
+    }
+
+    /**
+     * 记录一次转发结果，连续失败达到阈值时摘除实例
+     */
+    public void record(ServiceInstance instance, InstanceLoad load, Outcome outcome) {
+        GatewayLoadBalancerProperties.OutlierDetection config = properties.getOutlierDetection();
+        if (!config.isEnabled()) {
+            return;
+        }
+        switch (outcome) {
+            case SUCCESS -> load.recordSuccess();
+            case SERVER_ERROR -> {
+                int failures = load.record5xx();
+                if (config.getConsecutive5xx() > 0 && failures >= config.getConsecutive5xx()) {
+                    eject(instance.getServiceId(), InstanceLoadRegistry.address(instance), load, Reason.CONSECUTIVE_5XX);
+                }
+            }
+            case CONNECT_ERROR -> {
+                int failures = load.recordConnectError();
+                if (config.getConsecutiveConnectErrors() > 0 && failures >= config.getConsecutiveConnectErrors()) {
+                    eject(instance.getServiceId(), InstanceLoadRegistry.address(instance), load,
+                            Reason.CONSECUTIVE_CONNECT_ERRORS);
+                }
+            }
+        }
+    }
+
+    /**
+     * 过滤掉已摘除的实例，并按周期检查响应时间异常的实例
+     *
+     * @return 可用的实例，全部被摘除时返回原列表
+     */
+    public List<ServiceInstance> available(String serviceId, List<ServiceInstance> instances) {
+        GatewayLoadBalancerProperties.OutlierDetection config = properties.getOutlierDetection();
+        if (!config.isEnabled() || instances.isEmpty()) {
+            return instances;
+        }
+        InstanceLoadRegistry.ServiceLoads service = registry.service(serviceId);
+        service.setKnownInstances(instances.size());
+        long now = registry.nanoTime();
+        if (service.trySweep(now, config.getInterval().toNanos())) {
+            sweep(serviceId, service, now);
+        }
+
+        List<ServiceInstance> available = null;
+        for (int i = 0, n = instances.size(); i < n; i++) {
+            ServiceInstance instance = instances.get(i);
+            InstanceLoad load = service.instances().get(InstanceLoadRegistry.address(instance));
+            boolean ejected = load != null && load.isEjected(now);
+            if (ejected && available == null) {
+                available = new ArrayList<>(instances.subList(0, i));
+            } else if (!ejected && available != null) {
+                available.add(instance);
+            }
+        }
+        if (available == null) {
+            return instances;
+        }
+        return available.isEmpty() ? instances : available;
+    }
+
+    /**
+     * 最近的摘除事件，按时间倒序
+     */
+    public List<EjectionEvent> recentEjections() {
+        synchronized (events) {
+            return new ArrayList<>(events);
+        }
+    }
+
+    /**
+     * 检查响应时间异常的实例，并让保持健康的实例的连续摘除次数回落
+     */
+    private void sweep(String serviceId, InstanceLoadRegistry.ServiceLoads service, long now) {
+        GatewayLoadBalancerProperties.OutlierDetection config = properties.getOutlierDetection();
+        Map<String, InstanceLoad> instances = service.instances();
+        long intervalNanos = config.getInterval().toNanos();
+        instances.values().forEach(load -> load.decayEjectionCount(now, intervalNanos));
+        if (config.getLatencyFactor() <= 0) {
+            return;
+        }
+
+        double[] ewmas = instances.values().stream()
+                .filter(load -> !load.isEjected(now))
+                .mapToDouble(InstanceLoad::getEwmaNanos)
+                .filter(ewma -> ewma > 0)
+                .sorted()
+                .toArray();
+        if (ewmas.length < Math.max(2, config.getLatencyMinHosts())) {
+            return;
+        }
+        double median = ewmas.length % 2 == 1 ? ewmas[ewmas.length / 2]
+                : (ewmas[ewmas.length / 2 - 1] + ewmas[ewmas.length / 2]) / 2;
+        double threshold = median * config.getLatencyFactor();
+        instances.forEach((address, load) -> {
+            if (!load.isEjected(now) && load.getEwmaNanos() > threshold) {
+                eject(serviceId, address, load, Reason.LATENCY);
+            }
+        });
+    }
+
+    private void eject(String serviceId, String address, InstanceLoad load, Reason reason) {
+        GatewayLoadBalancerProperties.OutlierDetection config = properties.getOutlierDetection();
+        InstanceLoadRegistry.ServiceLoads service = registry.service(serviceId);
+        long now = registry.nanoTime();
+        int total = Math.max(service.getKnownInstances(), service.instances().size());
+        long ejected = service.instances().values().stream().filter(other -> other.isEjected(now)).count();
+        if (ejected + 1 > (long) total * config.getMaxEjectionPercent() / 100) {
+            logger.debug("实例异常但已达到最大摘除比例: service={}, instance={}, reason={}", serviceId, address, reason);
+            return;
+        }
+
+        long duration = load.eject(now, config.getBaseEjectionTime().toNanos(), config.getMaxEjectionTime().toNanos());
+        if (duration == 0) {
+            return;
+        }
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(duration);
+        logger.warn("摘除异常实例: service={}, instance={}, reason={}, duration={}ms, ejectionCount={}",
+                serviceId, address, reason, durationMillis, load.getEjectionCount());
+        if (meterRegistry != null) {
+            Counter.builder(EJECTIONS_METRIC).tag("service", serviceId).tag("reason", reason.name())
+                    .register(meterRegistry).increment();
+        }
+        EjectionEvent event = new EjectionEvent(Instant.now(), serviceId, address, reason, durationMillis,
+                load.getEjectionCount());
+        synchronized (events) {
+            events.addFirst(event);
+            if (events.size() > MAX_EVENTS) {
+                events.removeLast();
+            }
+        }
+    }
+
+    /**
+     * 摘除事件
+     */
+    public static final class EjectionEvent {
+
+        private final Instant time;
+        private final String service;
+        private final String instance;
+        private final Reason reason;
+        private final long durationMillis;
+        private final int ejectionCount;
+
+        EjectionEvent(Instant time, String service, String instance, Reason reason, long durationMillis,
+                      int ejectionCount) {
+            this.time = time;
+            this.service = service;
+            this.instance = instance;
+            this.reason = reason;
+            this.durationMillis = durationMillis;
+            this.ejectionCount = ejectionCount;
+        }
+
+        public Instant getTime() {
+            return time;
+        }
+
+        public String getService() {
+            return service;
+        }
+
+        /**
+         * 实例地址（host:port）
+         */
+        public String getInstance() {
+            return instance;
+        }
+
+        public Reason getReason() {
+            return reason;
+        }
+
+        /**
+         * 本次摘除时长（毫秒）
+         */
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        /**
+         * 连续摘除次数，摘除时长按该次数翻倍
+         */
+        public int getEjectionCount() {
+            return ejectionCount;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.yuwang.leyuegateway.loadbalancer;
+
+import com.yuwang.leyuegateway.circuitbreaker.CircuitBreakerRegistry;
+import com.yuwang.leyuegateway.config.GatewayLoadBalancerProperties;
+import com.yuwang.leyuegateway.constant.LoadBalancerStrategy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Peak EWMA 负载均衡
+ * 随机选取两个实例，选择负载得分（响应时间EWMA×(在途请求数+1)）较小者，慢实例与积压请求的实例自动少分流量；
+ * 相比全量比较最小值，二选一避免所有节点同时涌向同一个“最优”实例。
+ * 策略按服务在每次选择时读取，未配置为peak-ewma的服务使用轮询；两种策略都只在未被摘除、实例熔断未打开的实例中选择。
+ * 慢启动中的实例在二选一时得分按权重放大，轮询时按权重概率跳过
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final InstanceLoadRegistry registry;
+    private final OutlierDetector outlierDetector;
+    private final GatewayLoadBalancerProperties properties;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final AtomicInteger position = new AtomicInteger(ThreadLocalRandom.current().nextInt(1000));
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider, String serviceId,
+                                InstanceLoadRegistry registry, OutlierDetector outlierDetector,
+                                GatewayLoadBalancerProperties properties) {
+        this(supplierProvider, serviceId, registry, outlierDetector, properties, null);
+    }
+
+    /**
+     * @param circuitBreakers 实例熔断器，未启用熔断时为null
+     */
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider, String serviceId,
+                                InstanceLoadRegistry registry, OutlierDetector outlierDetector,
+                                GatewayLoadBalancerProperties properties, CircuitBreakerRegistry circuitBreakers) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.registry = registry;
+        this.outlierDetector = outlierDetector;
+        this.properties = properties;
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> response = choose(instances);
+            if (supplier instanceof SelectedInstanceCallback callback && response.hasServer()) {
+                callback.selectedServiceInstance(response.getServer());
+            }
+            return response;
+        });
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> serviceInstances) {
+        List<ServiceInstance> instances = outlierDetector.available(serviceId, serviceInstances);
+        if (circuitBreakers == null) {
+            return choose(instances, instances.size());
+        }
+        instances = circuitBreakers.available(instances);
+        Response<ServiceInstance> response = choose(instances, instances.size());
+        if (response.hasServer()) {
+            circuitBreakers.onSelected(response.getServer());
+        }
+        return response;
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances, int size) {
+        if (size == 0) {
+            return new EmptyResponse();
+        }
+        if (size == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (properties.strategyFor(serviceId) != LoadBalancerStrategy.PEAK_EWMA) {
+            ServiceInstance instance = instances.get((position.incrementAndGet() & Integer.MAX_VALUE) % size);
+            if (properties.getSlowStart().isEnabled() && random.nextDouble() >= registry.weight(instance)) {
+                // 慢启动中的实例按权重跳过，轮到下一个实例
+                instance = instances.get((position.incrementAndGet() & Integer.MAX_VALUE) % size);
+            }
+            return new DefaultResponse(instance);
+        }
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        return new DefaultResponse(registry.score(a) <= registry.score(b) ? a : b);
+    }
+}
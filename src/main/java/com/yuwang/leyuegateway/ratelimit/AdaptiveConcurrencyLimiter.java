@@ -0,0 +1,250 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.yuwang.leyuegateway.auth.AuthenticatedUser;
+import com.yuwang.leyuegateway.config.ConcurrencyLimitProperties;
+import com.yuwang.leyuegateway.constant.ConcurrencyLimitKeyType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按用户/租户的自适应并发限制器
+ * 每个用户（租户）一个 {@link AimdLimit}，存放在Caffeine缓存中并在空闲后回收；有在途请求的key不参与容量淘汰与空闲回收，
+ * 避免回收后重建的限制器从0开始计数、并发超过上限。
+ * 跟踪的key数量与在途请求总数通过 gateway.concurrency.keys / gateway.concurrency.inflight.total 暴露，
+ * 拒绝次数为 gateway.concurrency.rejected；开启 metrics-enabled 后按key暴露
+ * gateway.concurrency.inflight / gateway.concurrency.limit（tag: key，租户为 t:租户ID、用户为 u:用户ID），key数量多时指标基数很大
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.concurrency-limit", name = "enabled", havingValue = "true")
+public class AdaptiveConcurrencyLimiter {
+
+    public static final String INFLIGHT_METRIC = "gateway.concurrency.inflight";
+    public static final String LIMIT_METRIC = "gateway.concurrency.limit";
+    public static final String REJECTED_METRIC = "gateway.concurrency.rejected";
+    public static final String KEYS_METRIC = "gateway.concurrency.keys";
+    public static final String TOTAL_INFLIGHT_METRIC = "gateway.concurrency.inflight.total";
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedCounter;
+    private final Cache<String, AimdLimit> limits;
+    private final AtomicInteger totalInFlight = new AtomicInteger();
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties properties,
+                                      ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistryProvider.getIfAvailable();
+        long idleNanos = properties.getKeyIdleTimeout().toNanos();
+        this.limits = Caffeine.newBuilder()
+                // 有在途请求的key权重为0且不过期，在途请求数在0与非0之间变化时重新计算
+                .maximumWeight(properties.getMaxKeys())
+                .weigher((String key, AimdLimit limit) -> limit.getInFlight() > 0 ? 0 : 1)
+                .expireAfter(new Expiry<String, AimdLimit>() {
+                    @Override
+                    public long expireAfterCreate(String key, AimdLimit limit, long currentTime) {
+                        return limit.getInFlight() > 0 ? Long.MAX_VALUE : idleNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, AimdLimit limit, long currentTime,
+                                                  long currentDuration) {
+                        return limit.getInFlight() > 0 ? Long.MAX_VALUE : idleNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, AimdLimit limit, long currentTime,
+                                                long currentDuration) {
+                        return limit.getInFlight() > 0 ? Long.MAX_VALUE : idleNanos;
+                    }
+                })
+                .removalListener((String key, AimdLimit limit, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        removeMeters(key);
+                    }
+                })
+                .build();
+        if (meterRegistry != null) {
+            this.rejectedCounter = Counter.builder(REJECTED_METRIC)
+                    .tag("keyType", properties.getKey().name().toLowerCase())
+                    .register(meterRegistry);
+            Gauge.builder(KEYS_METRIC, limits, Cache::estimatedSize).register(meterRegistry);
+            Gauge.builder(TOTAL_INFLIGHT_METRIC, totalInFlight, AtomicInteger::get).register(meterRegistry);
+        } else {
+            this.rejectedCounter = null;
+        }
+    }
+
+    /**
+     * 为请求获取并发许可，未认证的请求不限制
+     *
+     * @return 许可，请求结束后必须释放；超过并发上限时返回null
+     */
+    public Permit tryAcquire(ServerWebExchange exchange) {
+        String key = resolveKey(exchange);
+        if (key == null) {
+            return Permit.UNLIMITED;
+        }
+
+        while (true) {
+            AimdLimit limit = limits.getIfPresent(key);
+            if (limit == null) {
+                limit = limits.get(key, this::createLimit);
+            }
+            int inFlightAtStart = limit.tryAcquire();
+            if (inFlightAtStart < 0) {
+                if (rejectedCounter != null) {
+                    rejectedCounter.increment();
+                }
+                return null;
+            }
+            if (inFlightAtStart == 0 && !reweigh(key, limit)) {
+                // 限制器在获取许可前刚被回收，改用重建的限制器
+                limit.release();
+                continue;
+            }
+            totalInFlight.incrementAndGet();
+            return new Permit(this, key, limit, inFlightAtStart, System.nanoTime());
+        }
+    }
+
+    /**
+     * 当前跟踪的key数量（近似值）
+     */
+    public long size() {
+        return limits.estimatedSize();
+    }
+
+    AimdLimit limitOf(String key) {
+        return limits.policy().getIfPresentQuietly(key);
+    }
+
+    private void released(String key, AimdLimit limit, int remaining) {
+        totalInFlight.decrementAndGet();
+        if (remaining == 0) {
+            reweigh(key, limit);
+        }
+    }
+
+    /**
+     * 按当前在途请求数重新计算权重与过期时间
+     *
+     * @return 限制器已被回收或替换时返回false
+     */
+    private boolean reweigh(String key, AimdLimit limit) {
+        return limits.asMap().replace(key, limit, limit);
+    }
+
+    private String resolveKey(ServerWebExchange exchange) {
+        AuthenticatedUser user = exchange.getAttribute(AuthenticatedUser.EXCHANGE_ATTRIBUTE);
+        if (user == null) {
+            return null;
+        }
+        // 租户与用户ID可能相同，加前缀区分
+        if (properties.getKey() == ConcurrencyLimitKeyType.TENANT && user.getTenantId() != null) {
+            return "t:" + user.getTenantId();
+        }
+        return user.getUserId() != null ? "u:" + user.getUserId() : null;
+    }
+
+    private AimdLimit createLimit(String key) {
+        if (meterRegistry != null && properties.isMetricsEnabled()) {
+            // 指标按key读取当前的限制器（不刷新访问时间），key回收后重建时沿用同一指标
+            Gauge.builder(INFLIGHT_METRIC, () -> {
+                        AimdLimit limit = limitOf(key);
+                        return limit != null ? limit.getInFlight() : 0;
+                    })
+                    .tag("key", key)
+                    .register(meterRegistry);
+            Gauge.builder(LIMIT_METRIC, () -> {
+                        AimdLimit limit = limitOf(key);
+                        return limit != null ? limit.getLimit() : Double.NaN;
+                    })
+                    .tag("key", key)
+                    .register(meterRegistry);
+        }
+        return new AimdLimit(properties);
+    }
+
+    /**
+     * 删除已回收key的指标。在该key的映射上计算，与重建key时注册指标互斥
+     */
+    private void removeMeters(String key) {
+        if (meterRegistry == null || !properties.isMetricsEnabled()) {
+            return;
+        }
+        limits.asMap().compute(key, (k, current) -> {
+            if (current == null) {
+                Meter inFlight = meterRegistry.find(INFLIGHT_METRIC).tag("key", k).meter();
+                if (inFlight != null) {
+                    meterRegistry.remove(inFlight);
+                }
+                Meter limit = meterRegistry.find(LIMIT_METRIC).tag("key", k).meter();
+                if (limit != null) {
+                    meterRegistry.remove(limit);
+                }
+            }
+            return current;
+        });
+    }
+
+    /**
+     * 并发许可
+     */
+    public static final class Permit {
+
+        /**
+         * 不受限制的请求使用的许可，释放时不做任何事
+         */
+        static final Permit UNLIMITED = new Permit(null, null, null, 0, 0L);
+
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final String key;
+        private final AimdLimit limit;
+        private final int inFlightAtStart;
+        private final long startNanos;
+
+        private Permit(AdaptiveConcurrencyLimiter limiter, String key, AimdLimit limit, int inFlightAtStart,
+                       long startNanos) {
+            this.limiter = limiter;
+            this.key = key;
+            this.limit = limit;
+            this.inFlightAtStart = inFlightAtStart;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * 请求完成，按耗时调整并发上限
+         *
+         * @param dropped 下游是否过载或出错
+         */
+        public void release(boolean dropped) {
+            if (limit != null) {
+                limiter.released(key, limit, limit.release(System.nanoTime() - startNanos, inFlightAtStart, dropped));
+            }
+        }
+
+        /**
+         * 请求被取消，只释放许可
+         */
+        public void cancel() {
+            if (limit != null) {
+                limiter.released(key, limit, limit.release());
+            }
+        }
+    }
+}
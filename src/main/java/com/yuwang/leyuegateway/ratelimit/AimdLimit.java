@@ -0,0 +1,112 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import com.yuwang.leyuegateway.config.ConcurrencyLimitProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个用户（租户）的自适应并发上限
+ * 获取许可只对在途请求数做一次CAS；请求完成后按响应时间调整上限（AIMD）：
+ * 响应时间超过无负载基线的 latency-tolerance 倍、或下游过载/出错时按 backoff-ratio 乘性衰减，
+ * 否则在并发已用到上限一半以上时加1。基线取观测到的最小响应时间，并缓慢向新样本上浮以适应后端变化
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+final class AimdLimit {
+
+    /**
+     * 基线向较大样本上浮的速率
+     */
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final ConcurrencyLimitProperties properties;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    /**
+     * 无负载响应时间基线，0表示尚无样本，受this保护
+     */
+    private double baselineRttNanos;
+
+    AimdLimit(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * 尝试获取一个并发许可
+     *
+     * @return 获取成功时返回获取前的在途请求数，否则返回-1
+     */
+    int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * 释放许可并根据本次请求的结果调整上限
+     *
+     * @param rttNanos 请求耗时
+     * @param inFlightAtStart 获取许可时的在途请求数
+     * @param dropped 下游是否过载或出错
+     * @return 释放后的在途请求数
+     */
+    int release(long rttNanos, int inFlightAtStart, boolean dropped) {
+        int remaining = inFlight.decrementAndGet();
+        onSample(rttNanos, inFlightAtStart, dropped);
+        return remaining;
+    }
+
+    /**
+     * 释放许可，不调整上限（请求被取消等无法判断下游状态的情况）
+     *
+     * @return 释放后的在途请求数
+     */
+    int release() {
+        return inFlight.decrementAndGet();
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    double getLimit() {
+        return limit;
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        double current = limit;
+        double minLimit = properties.getMinLimit();
+        double maxLimit = Math.max(properties.getMaxLimit(), minLimit);
+
+        boolean congested = dropped;
+        if (!dropped) {
+            if (baselineRttNanos == 0 || rttNanos < baselineRttNanos) {
+                baselineRttNanos = rttNanos;
+            } else {
+                baselineRttNanos += (rttNanos - baselineRttNanos) * BASELINE_DRIFT;
+                congested = rttNanos > baselineRttNanos * properties.getLatencyTolerance();
+            }
+        }
+
+        double next;
+        if (congested) {
+            next = current * properties.getBackoffRatio();
+        } else if (inFlightAtStart * 2 >= current) {
+            next = current + 1;
+        } else {
+            next = current;
+        }
+        limit = Math.min(Math.max(next, minLimit), maxLimit);
+    }
+}
@@ -0,0 +1,230 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yuwang.leyuegateway.config.RateLimitProperties;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * 集群令牌桶限流器
+ * 规则与本地限流相同，但令牌来自 {@link QuotaCoordinator} 维护的全局令牌桶：
+ * 每个节点按批租借令牌并在本地消费，多副本部署时限流阈值不随副本数放大
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.rate-limit", name = "engine", havingValue = "cluster")
+public class ClusterRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterRateLimiter.class);
+
+    private final RateLimitProperties properties;
+    private final QuotaCoordinator quotaCoordinator;
+
+    private LongSupplier nanoClock = System::nanoTime;
+
+    private volatile RateLimitRules<RuleQuota> rules = RateLimitRules.empty();
+
+    public ClusterRateLimiter(RateLimitProperties properties, QuotaCoordinator quotaCoordinator) {
+        this.properties = properties;
+        this.quotaCoordinator = quotaCoordinator;
+    }
+
+    /**
+     * 编译限流规则，配置刷新后重新编译
+     */
+    @PostConstruct
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void rebuild() {
+        RateLimitProperties.Cluster cluster = properties.getCluster();
+        LeaseSettings settings = new LeaseSettings(properties.getBucketIdleTimeout(), properties.getMaxBuckets(),
+                properties.getTrustedProxyHops(), cluster.getBatchSize(), cluster.getLeaseTtl(),
+                cluster.getCoordinatorTimeout(), cluster.isFailOpen());
+        RateLimitRules<RuleQuota> compiled = RateLimitRules.compile(properties.getRules(), settings, rules,
+                rule -> new RuleQuota(rule, settings, quotaCoordinator));
+        rules = compiled;
+        logger.info("集群限流规则已加载: globalRules={}, routeRules={}, batchSize={}", compiled.globalRules().size(),
+                compiled.routeCount(), cluster.getBatchSize());
+    }
+
+    /**
+     * 尝试为请求获取令牌，请求命中的所有规则都放行才返回true。
+     * 本地租借的令牌足够时直接返回常量结果，不访问协调器；任一规则拒绝时归还其他规则已获取的令牌
+     */
+    public Mono<Boolean> tryAcquire(ServerWebExchange exchange) {
+        RateLimitRules<RuleQuota> current = rules;
+        if (current.isEmpty()) {
+            return LeasedTokenBucket.GRANTED;
+        }
+
+        long now = nanoClock.getAsLong();
+        List<RuleQuota> globalRules = current.globalRules();
+        List<RuleQuota> routeRules = current.routeRules(exchange);
+        int globalCount = globalRules.size();
+        int count = globalCount + routeRules.size();
+        if (count == 1) {
+            RuleQuota only = globalCount == 1 ? globalRules.get(0) : routeRules.get(0);
+            return only.bucket(exchange).tryAcquire(now);
+        }
+
+        List<LeasedTokenBucket> acquired = new ArrayList<>(count);
+        List<LeasedTokenBucket> waiting = null;
+        List<Mono<Boolean>> waitingResults = null;
+        for (int i = 0; i < count; i++) {
+            LeasedTokenBucket bucket = i < globalCount
+                    ? globalRules.get(i).bucket(exchange) : routeRules.get(i - globalCount).bucket(exchange);
+            Mono<Boolean> result = bucket.tryAcquire(now);
+            if (result == LeasedTokenBucket.GRANTED) {
+                acquired.add(bucket);
+            } else if (result == LeasedTokenBucket.REJECTED) {
+                refund(acquired, now);
+                return result;
+            } else {
+                // 等待租借的规则在订阅时才取令牌，租借请求已经发出
+                if (waiting == null) {
+                    waiting = new ArrayList<>(count - i);
+                    waitingResults = new ArrayList<>(count - i);
+                }
+                waiting.add(bucket);
+                waitingResults.add(result);
+            }
+        }
+        if (waiting == null) {
+            return LeasedTokenBucket.GRANTED;
+        }
+
+        List<LeasedTokenBucket> pending = waiting;
+        List<Mono<Boolean>> pendingResults = waitingResults;
+        // 依次取令牌，遇到拒绝即停止，后面的规则不再取令牌
+        return Flux.range(0, pending.size())
+                .concatMap(i -> pendingResults.get(i).doOnNext(granted -> {
+                    if (granted) {
+                        acquired.add(pending.get(i));
+                    }
+                }))
+                .all(Boolean::booleanValue)
+                .doOnNext(granted -> {
+                    if (!granted) {
+                        refund(acquired, now);
+                    }
+                });
+    }
+
+    void setNanoClock(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 规则的全局配额key前缀，规则参数变化后使用新的全局令牌桶
+     */
+    static String quotaKeyPrefix(RateLimitProperties.Rule rule) {
+        return (rule.getRouteId() != null && !rule.getRouteId().isEmpty() ? rule.getRouteId() : "*")
+                + ':' + rule.getKey().name().toLowerCase() + ':' + rule.getCapacity() + ':' + rule.getRate() + ':';
+    }
+
+    private static void refund(List<LeasedTokenBucket> acquired, long now) {
+        for (int i = 0, n = acquired.size(); i < n; i++) {
+            acquired.get(i).refund(now);
+        }
+    }
+
+    /**
+     * 单条规则在本节点租借的令牌
+     */
+    private static final class RuleQuota {
+
+        private final RateLimitProperties.Rule rule;
+        private final String quotaKeyPrefix;
+        private final LeaseSettings settings;
+        private final QuotaCoordinator quotaCoordinator;
+        private final RateLimitKeyResolver keyResolver;
+        private final Cache<String, LeasedTokenBucket> buckets;
+
+        RuleQuota(RateLimitProperties.Rule rule, LeaseSettings settings, QuotaCoordinator quotaCoordinator) {
+            this.rule = rule;
+            this.quotaKeyPrefix = quotaKeyPrefix(rule);
+            this.settings = settings;
+            this.quotaCoordinator = quotaCoordinator;
+            this.keyResolver = new RateLimitKeyResolver(settings.trustedProxyHops);
+            this.buckets = Caffeine.newBuilder()
+                    .expireAfterAccess(settings.idleTimeout)
+                    .maximumSize(settings.maxBuckets)
+                    .build();
+        }
+
+        LeasedTokenBucket bucket(ServerWebExchange exchange) {
+            String key = keyResolver.resolve(rule.getKey(), exchange);
+            LeasedTokenBucket bucket = buckets.getIfPresent(key);
+            if (bucket == null) {
+                bucket = buckets.get(key, k -> new LeasedTokenBucket(quotaCoordinator, quotaKeyPrefix + k,
+                        rule.getCapacity(), rule.getRate(), settings.batchSize, settings.leaseTtl,
+                        settings.coordinatorTimeout, settings.failOpen));
+            }
+            return bucket;
+        }
+    }
+
+    /**
+     * 租借令牌的公共参数
+     */
+    private static final class LeaseSettings {
+        private final Duration idleTimeout;
+        private final long maxBuckets;
+        private final int trustedProxyHops;
+        private final long batchSize;
+        private final Duration leaseTtl;
+        private final Duration coordinatorTimeout;
+        private final boolean failOpen;
+
+        LeaseSettings(Duration idleTimeout, long maxBuckets, int trustedProxyHops, long batchSize,
+                      Duration leaseTtl, Duration coordinatorTimeout, boolean failOpen) {
+            this.idleTimeout = idleTimeout;
+            this.maxBuckets = maxBuckets;
+            this.trustedProxyHops = trustedProxyHops;
+            this.batchSize = batchSize;
+            this.leaseTtl = leaseTtl;
+            this.coordinatorTimeout = coordinatorTimeout;
+            this.failOpen = failOpen;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LeaseSettings)) {
+                return false;
+            }
+            LeaseSettings that = (LeaseSettings) o;
+            return maxBuckets == that.maxBuckets
+                    && trustedProxyHops == that.trustedProxyHops
+                    && batchSize == that.batchSize
+                    && failOpen == that.failOpen
+                    && Objects.equals(idleTimeout, that.idleTimeout)
+                    && Objects.equals(leaseTtl, that.leaseTtl)
+                    && Objects.equals(coordinatorTimeout, that.coordinatorTimeout);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(idleTimeout, maxBuckets, trustedProxyHops, batchSize, leaseTtl, coordinatorTimeout,
+                    failOpen);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内的配额协调器
+ * 全局令牌桶保存在本进程中，作为 {@link LeaderQuotaCoordinator} 主节点的存储，单独使用时仅对单节点有效
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public class InMemoryQuotaCoordinator implements QuotaCoordinator {
+
+    private final Cache<String, TokenBucket> buckets;
+    private final LongSupplier nanoClock;
+
+    public InMemoryQuotaCoordinator(Duration idleTimeout) {
+        this(idleTimeout, System::nanoTime);
+    }
+
+    InMemoryQuotaCoordinator(Duration idleTimeout, LongSupplier nanoClock) {
+        this.buckets = Caffeine.newBuilder().expireAfterAccess(idleTimeout).build();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public Mono<Long> lease(String quotaKey, long capacity, double ratePerSecond, long permits) {
+        long now = nanoClock.getAsLong();
+        TokenBucket bucket = buckets.get(quotaKey, k -> new TokenBucket(capacity, ratePerSecond, now));
+        return Mono.just(bucket.tryAcquire(permits, now));
+    }
+}
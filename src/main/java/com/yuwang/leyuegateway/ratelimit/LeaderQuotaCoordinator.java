@@ -0,0 +1,186 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import com.yuwang.leyuegateway.config.RateLimitProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 由网关主节点维护全局令牌桶的配额协调器
+ * 各节点从服务发现（Nacos）读取网关自身的实例列表，按地址排序后第一个实例为主节点：
+ * 主节点从本进程的 {@link InMemoryQuotaCoordinator} 租借，其他节点通过 {@link #LEASE_PATH} 向主节点租借。
+ * 主节点变更后新主节点的令牌桶从满桶开始，切换期间每个限流key最多多放行一个桶容量。
+ * 租借接口由 {@link QuotaLeaseServer} 在内部端口（gateway.rate-limit.cluster.lease-port）上提供，不在网关对外端口上；
+ * 接口只接受携带共享密钥（gateway.rate-limit.cluster.lease-secret）的请求，密钥以明文HTTP在节点间传输，
+ * 该端口需限制为仅网关节点之间可达。令牌桶容量与速率取自主节点自身的限流规则，不信任请求中的参数
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public class LeaderQuotaCoordinator implements QuotaCoordinator {
+
+    public static final String LEASE_PATH = "/internal/rate-limit/lease";
+    public static final String LEASE_SECRET_HEADER = "X-Rate-Limit-Lease-Secret";
+
+    /**
+     * 实例注册元数据中的租借接口端口，未设置时使用本节点配置的 lease-port
+     */
+    public static final String LEASE_PORT_METADATA = "gateway.rate-limit.lease-port";
+
+    private static final Comparator<ServiceInstance> LEADER_ORDER =
+            Comparator.comparing(ServiceInstance::getHost).thenComparingInt(ServiceInstance::getPort);
+
+    private final String selfHost;
+    private final int selfPort;
+    private final RateLimitProperties properties;
+    private final InMemoryQuotaCoordinator store;
+    private final WebClient webClient;
+
+    /**
+     * 网关实例列表，按刷新间隔缓存
+     */
+    private final Mono<List<ServiceInstance>> instances;
+
+    public LeaderQuotaCoordinator(ReactiveDiscoveryClient discoveryClient, Registration registration,
+                                  RateLimitProperties properties, InMemoryQuotaCoordinator store, WebClient webClient) {
+        this.selfHost = registration.getHost();
+        this.selfPort = registration.getPort();
+        this.properties = properties;
+        this.store = store;
+        this.webClient = webClient;
+        String serviceId = registration.getServiceId();
+        Duration refreshInterval = properties.getCluster().getLeaderRefreshInterval();
+        this.instances = Mono.defer(() -> discoveryClient.getInstances(serviceId).collectList())
+                .cache(list -> refreshInterval, error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    @Override
+    public Mono<Long> lease(String quotaKey, long capacity, double ratePerSecond, long permits) {
+        return instances.flatMap(list -> {
+            if (list.isEmpty()) {
+                // 本节点尚未出现在服务发现中，由租借方按fail-open处理
+                return Mono.error(new IllegalStateException("服务发现中没有网关实例，无法确定配额主节点"));
+            }
+            ServiceInstance leader = list.stream().min(LEADER_ORDER).get();
+            if (selfHost.equals(leader.getHost()) && selfPort == leader.getPort()) {
+                return store.lease(quotaKey, capacity, ratePerSecond, permits);
+            }
+            return webClient.post()
+                    .uri(leaseUri(leader))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(LEASE_SECRET_HEADER, properties.getCluster().getLeaseSecret())
+                    .bodyValue(new LeaseRequest(quotaKey, permits))
+                    .retrieve()
+                    .bodyToMono(Long.class);
+        });
+    }
+
+    /**
+     * 处理其他网关节点的租借请求，配额key不属于本节点的任何规则（如规则刷新尚未同步）时返回400
+     */
+    public Mono<ServerResponse> handleLease(ServerRequest request) {
+        if (!isAuthorized(request.headers().firstHeader(LEASE_SECRET_HEADER))) {
+            return ServerResponse.status(HttpStatus.FORBIDDEN).build();
+        }
+        return request.bodyToMono(LeaseRequest.class)
+                .filter(LeaseRequest::isValid)
+                .flatMap(lease -> {
+                    RateLimitProperties.Rule rule = ruleFor(lease.getQuotaKey());
+                    return rule == null ? Mono.empty()
+                            : store.lease(lease.getQuotaKey(), rule.getCapacity(), rule.getRate(), lease.getPermits());
+                })
+                .flatMap(granted -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(granted))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.badRequest().build()));
+    }
+
+    /**
+     * 主节点租借接口的地址：注册地址加内部端口
+     */
+    private String leaseUri(ServiceInstance leader) {
+        String host = leader.getHost();
+        if (host.indexOf(':') >= 0) {
+            host = "[" + host + "]";
+        }
+        return "http://" + host + ":" + leasePort(leader) + LEASE_PATH;
+    }
+
+    private int leasePort(ServiceInstance leader) {
+        String port = leader.getMetadata() != null ? leader.getMetadata().get(LEASE_PORT_METADATA) : null;
+        if (port != null) {
+            try {
+                return Integer.parseInt(port.trim());
+            } catch (NumberFormatException e) {
+                // 无效的元数据按配置的端口处理
+            }
+        }
+        return properties.getCluster().getLeasePort();
+    }
+
+    private boolean isAuthorized(String secret) {
+        String expected = properties.getCluster().getLeaseSecret();
+        return secret != null && expected != null && !expected.isEmpty()
+                && MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按配额key前缀查找本节点的限流规则
+     */
+    private RateLimitProperties.Rule ruleFor(String quotaKey) {
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            if (rule.getCapacity() > 0 && rule.getRate() > 0
+                    && quotaKey.startsWith(ClusterRateLimiter.quotaKeyPrefix(rule))) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 租借请求，令牌桶参数由主节点按配额key从自身规则中取得
+     */
+    public static class LeaseRequest {
+
+        private String quotaKey;
+        private long permits;
+
+        public LeaseRequest() {
+        }
+
+        public LeaseRequest(String quotaKey, long permits) {
+            this.quotaKey = quotaKey;
+            this.permits = permits;
+        }
+
+        boolean isValid() {
+            return quotaKey != null && permits > 0;
+        }
+
+        public String getQuotaKey() {
+            return quotaKey;
+        }
+
+        public void setQuotaKey(String quotaKey) {
+            this.quotaKey = quotaKey;
+        }
+
+        public long getPermits() {
+            return permits;
+        }
+
+        public void setPermits(long permits) {
+            this.permits = permits;
+        }
+    }
+}
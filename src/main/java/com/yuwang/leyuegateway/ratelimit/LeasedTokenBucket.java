@@ -0,0 +1,158 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 从配额协调器租借的本地令牌
+ * 请求优先消费本地已租借的令牌（一次CAS）；剩余令牌降到批量的一半时在后台预取下一批，
+ * 本地令牌耗尽时才等待协调器。同一时刻只有一个租借请求，等待中的请求共享其结果
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+final class LeasedTokenBucket {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeasedTokenBucket.class);
+
+    static final Mono<Boolean> GRANTED = Mono.just(Boolean.TRUE);
+    static final Mono<Boolean> REJECTED = Mono.just(Boolean.FALSE);
+
+    /**
+     * 租借结果：协调器不可用
+     */
+    private static final long UNAVAILABLE = -1L;
+
+    /**
+     * 拿到新一批令牌后仍被其他等待请求抢完时，最多再租借的次数
+     */
+    private static final int MAX_LEASE_ATTEMPTS = 2;
+
+    private final QuotaCoordinator coordinator;
+    private final String quotaKey;
+    private final long capacity;
+    private final double ratePerSecond;
+    private final long batchSize;
+    private final long leaseTtlNanos;
+    private final Duration coordinatorTimeout;
+    private final boolean failOpen;
+
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicReference<Mono<Long>> pendingLease = new AtomicReference<>();
+    private volatile long leaseExpiresAt;
+
+    LeasedTokenBucket(QuotaCoordinator coordinator, String quotaKey, long capacity, double ratePerSecond,
+                      long batchSize, Duration leaseTtl, Duration coordinatorTimeout, boolean failOpen) {
+        this.coordinator = coordinator;
+        this.quotaKey = quotaKey;
+        this.capacity = capacity;
+        this.ratePerSecond = ratePerSecond;
+        this.batchSize = Math.max(1L, Math.min(batchSize, capacity));
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.coordinatorTimeout = coordinatorTimeout;
+        this.failOpen = failOpen;
+    }
+
+    /**
+     * 尝试获取一个令牌，本地有令牌时返回 {@link #GRANTED}，不会访问协调器
+     *
+     * @param nowNanos 当前时间（System.nanoTime）
+     */
+    Mono<Boolean> tryAcquire(long nowNanos) {
+        if (tryTake(nowNanos)) {
+            return GRANTED;
+        }
+        return acquireAfterLease(nowNanos, MAX_LEASE_ATTEMPTS);
+    }
+
+    /**
+     * 归还一个已获取的令牌，租约已过期时忽略
+     *
+     * @param nowNanos 当前时间（System.nanoTime）
+     */
+    void refund(long nowNanos) {
+        if (nowNanos - leaseExpiresAt < 0) {
+            tokens.incrementAndGet();
+        }
+    }
+
+    /**
+     * 本地剩余的已租借令牌数
+     */
+    long localTokens(long nowNanos) {
+        return nowNanos - leaseExpiresAt >= 0 ? 0L : tokens.get();
+    }
+
+    private Mono<Boolean> acquireAfterLease(long nowNanos, int attempts) {
+        return lease(nowNanos).flatMap(granted -> {
+            if (granted == UNAVAILABLE) {
+                return failOpen ? GRANTED : REJECTED;
+            }
+            if (tryTake(nowNanos)) {
+                return GRANTED;
+            }
+            // 全局配额已耗尽，或新租到的令牌被其他请求抢完
+            return granted > 0 && attempts > 1 ? acquireAfterLease(nowNanos, attempts - 1) : REJECTED;
+        });
+    }
+
+    private boolean tryTake(long nowNanos) {
+        while (true) {
+            long current = tokens.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (nowNanos - leaseExpiresAt >= 0) {
+                // 租约过期，剩余令牌作废
+                tokens.compareAndSet(current, 0L);
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - 1)) {
+                if (current - 1 == batchSize / 2) {
+                    // 后台预取下一批令牌，结果写入本地令牌数
+                    lease(nowNanos).subscribe();
+                }
+                return true;
+            }
+        }
+    }
+
+    private Mono<Long> lease(long nowNanos) {
+        Sinks.One<Long> sink = Sinks.one();
+        Mono<Long> result = sink.asMono();
+        while (!pendingLease.compareAndSet(null, result)) {
+            Mono<Long> pending = pendingLease.get();
+            if (pending != null) {
+                return pending;
+            }
+        }
+
+        coordinator.lease(quotaKey, capacity, ratePerSecond, batchSize)
+                .timeout(coordinatorTimeout)
+                .defaultIfEmpty(0L)
+                .subscribe(granted -> {
+                    if (granted > 0) {
+                        if (nowNanos - leaseExpiresAt >= 0) {
+                            // 上一批令牌已过期作废
+                            tokens.set(0L);
+                        }
+                        // 有效期从发起租借时算起，偏保守
+                        leaseExpiresAt = nowNanos + leaseTtlNanos;
+                        tokens.addAndGet(granted);
+                    }
+                    pendingLease.set(null);
+                    sink.tryEmitValue(granted);
+                }, error -> {
+                    logger.warn("配额协调器租借令牌失败: quotaKey={}, error={}", quotaKey, error.toString());
+                    pendingLease.set(null);
+                    sink.tryEmitValue(UNAVAILABLE);
+                });
+        return result;
+    }
+}
@@ -0,0 +1,164 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yuwang.leyuegateway.config.RateLimitProperties;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * 本地令牌桶限流器
+ * 按规则维护令牌桶，令牌桶存放在Caffeine（分段并发）缓存中并在空闲后回收。
+ * 规则随Nacos配置刷新重新编译，未变化的规则沿用原有令牌桶
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.rate-limit", name = "engine", havingValue = "local")
+public class LocalRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalRateLimiter.class);
+
+    private final RateLimitProperties properties;
+
+    private LongSupplier nanoClock = System::nanoTime;
+
+    private volatile RateLimitRules<RuleLimiter> rules = RateLimitRules.empty();
+
+    public LocalRateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 编译限流规则，配置刷新后重新编译
+     */
+    @PostConstruct
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void rebuild() {
+        BucketSettings settings = new BucketSettings(properties.getBucketIdleTimeout(), properties.getMaxBuckets(),
+                properties.getTrustedProxyHops());
+        RateLimitRules<RuleLimiter> compiled = RateLimitRules.compile(properties.getRules(), settings, rules,
+                rule -> new RuleLimiter(rule, settings));
+        rules = compiled;
+        logger.info("本地限流规则已加载: globalRules={}, routeRules={}", compiled.globalRules().size(),
+                compiled.routeCount());
+    }
+
+    /**
+     * 尝试为请求获取令牌，请求命中的所有规则都放行才返回true。
+     * 先检查所有规则都有可用令牌再逐一获取，被拒绝的请求不消耗其他规则的令牌
+     */
+    public boolean tryAcquire(ServerWebExchange exchange) {
+        RateLimitRules<RuleLimiter> current = rules;
+        if (current.isEmpty()) {
+            return true;
+        }
+
+        long now = nanoClock.getAsLong();
+        List<RuleLimiter> globalRules = current.globalRules();
+        List<RuleLimiter> routeRules = current.routeRules(exchange);
+        int globalCount = globalRules.size();
+        int count = globalCount + routeRules.size();
+        if (count == 1) {
+            RuleLimiter only = globalCount == 1 ? globalRules.get(0) : routeRules.get(0);
+            return only.bucket(exchange, now).tryAcquire(now);
+        }
+
+        TokenBucket[] buckets = new TokenBucket[count];
+        for (int i = 0; i < count; i++) {
+            buckets[i] = i < globalCount
+                    ? globalRules.get(i).bucket(exchange, now) : routeRules.get(i - globalCount).bucket(exchange, now);
+            if (!buckets[i].canAcquire(now)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (!buckets[i].tryAcquire(now)) {
+                // 检查之后令牌被并发请求取走，归还已获取的令牌
+                for (int j = 0; j < i; j++) {
+                    buckets[j].refund(now);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void setNanoClock(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 单条规则的令牌桶集合
+     */
+    private static final class RuleLimiter {
+
+        private final RateLimitProperties.Rule rule;
+        private final RateLimitKeyResolver keyResolver;
+        private final Cache<String, TokenBucket> buckets;
+
+        RuleLimiter(RateLimitProperties.Rule rule, BucketSettings settings) {
+            this.rule = rule;
+            this.keyResolver = new RateLimitKeyResolver(settings.trustedProxyHops);
+            this.buckets = Caffeine.newBuilder()
+                    .expireAfterAccess(settings.idleTimeout)
+                    .maximumSize(settings.maxBuckets)
+                    .build();
+        }
+
+        TokenBucket bucket(ServerWebExchange exchange, long now) {
+            String key = keyResolver.resolve(rule.getKey(), exchange);
+            TokenBucket bucket = buckets.getIfPresent(key);
+            if (bucket == null) {
+                bucket = buckets.get(key, k -> new TokenBucket(rule.getCapacity(), rule.getRate(), now));
+            }
+            return bucket;
+        }
+    }
+
+    /**
+     * 令牌桶的公共参数
+     */
+    private static final class BucketSettings {
+        private final Duration idleTimeout;
+        private final long maxBuckets;
+        private final int trustedProxyHops;
+
+        BucketSettings(Duration idleTimeout, long maxBuckets, int trustedProxyHops) {
+            this.idleTimeout = idleTimeout;
+            this.maxBuckets = maxBuckets;
+            this.trustedProxyHops = trustedProxyHops;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BucketSettings)) {
+                return false;
+            }
+            BucketSettings that = (BucketSettings) o;
+            return maxBuckets == that.maxBuckets
+                    && trustedProxyHops == that.trustedProxyHops
+                    && Objects.equals(idleTimeout, that.idleTimeout);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(idleTimeout, maxBuckets, trustedProxyHops);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 集群限流的全局配额协调器
+ * 维护各限流key的全局令牌桶，网关节点按批租借令牌后在本地消费，请求路径上不需要每次访问协调器。
+ * 默认由网关主节点维护全局令牌桶（{@link LeaderQuotaCoordinator}），
+ * 也可设置 gateway.rate-limit.cluster.coordinator=custom 并注册基于共享存储（如Redis）的实现
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public interface QuotaCoordinator {
+
+    /**
+     * 从全局令牌桶中租借令牌，令牌桶不存在时按给定参数创建（初始为满）
+     *
+     * @param quotaKey 全局唯一的配额key，由规则与限流维度的取值组成，各节点对同一请求生成相同的key
+     * @param capacity 令牌桶容量
+     * @param ratePerSecond 每秒补充的令牌数
+     * @param permits 期望租借的令牌数
+     * @return 实际租借到的令牌数，0表示全局配额已耗尽
+     */
+    Mono<Long> lease(String quotaKey, long capacity, double ratePerSecond, long permits);
+}
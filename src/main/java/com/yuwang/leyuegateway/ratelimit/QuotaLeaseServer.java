@@ -0,0 +1,63 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * 配额主节点租借接口的内部监听
+ * 租借接口不注册到网关的WebFlux路由中，而是在单独的地址与端口上监听：对外端口上的请求无法到达该接口，
+ * 部署时只需放通网关节点之间的内部端口
+ *
+ * @author yuwang
+ * @since 2026-10-17
+ */
+public class QuotaLeaseServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuotaLeaseServer.class);
+
+    private final LeaderQuotaCoordinator coordinator;
+    private final String address;
+    private final int port;
+    private volatile DisposableServer server;
+
+    public QuotaLeaseServer(LeaderQuotaCoordinator coordinator, String address, int port) {
+        this.coordinator = coordinator;
+        this.address = address;
+        this.port = port;
+    }
+
+    @PostConstruct
+    public void start() {
+        server = HttpServer.create()
+                .host(address)
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(RouterFunctions.route(
+                        RequestPredicates.POST(LeaderQuotaCoordinator.LEASE_PATH), coordinator::handleLease))))
+                .bindNow();
+        logger.info("配额租借接口已启动: address={}, port={}", address, server.port());
+    }
+
+    @PreDestroy
+    public void stop() {
+        DisposableServer current = server;
+        if (current != null) {
+            current.disposeNow();
+            server = null;
+        }
+    }
+
+    /**
+     * 实际监听的端口，配置为0时为随机端口
+     */
+    public int getPort() {
+        DisposableServer current = server;
+        return current != null ? current.port() : port;
+    }
+}
@@ -0,0 +1,60 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import com.yuwang.leyuegateway.auth.AuthenticatedUser;
+import com.yuwang.leyuegateway.constant.RateLimitKeyType;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 按限流维度解析请求的令牌桶key
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+final class RateLimitKeyResolver {
+
+    private static final String UNKNOWN_KEY = "unknown";
+
+    private final RemoteAddressResolver addressResolver;
+
+    RateLimitKeyResolver(int trustedProxyHops) {
+        this.addressResolver = trustedProxyHops > 0
+                ? XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxyHops)
+                : null;
+    }
+
+    String resolve(RateLimitKeyType keyType, ServerWebExchange exchange) {
+        switch (keyType) {
+            case USER: {
+                AuthenticatedUser user = exchange.getAttribute(AuthenticatedUser.EXCHANGE_ATTRIBUTE);
+                if (user != null && user.getUserId() != null) {
+                    return user.getUserId();
+                }
+                // 未认证的请求（白名单路径）按客户端IP限流
+                return "ip:" + clientIp(exchange);
+            }
+            case IP:
+                return clientIp(exchange);
+            case ROUTE:
+            default: {
+                Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+                return route != null ? route.getId() : UNKNOWN_KEY;
+            }
+        }
+    }
+
+    private String clientIp(ServerWebExchange exchange) {
+        InetSocketAddress address = addressResolver != null
+                ? addressResolver.resolve(exchange)
+                : exchange.getRequest().getRemoteAddress();
+        if (address == null) {
+            return UNKNOWN_KEY;
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+}
@@ -0,0 +1,133 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import com.yuwang.leyuegateway.config.RateLimitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 编译后的限流规则快照
+ * 全局规则与按路由的规则分开存放，请求只需遍历命中的规则
+ *
+ * @param <T> 每条规则对应的限流器
+ * @author yuwang
+ * @since 2026-10-16
+ */
+final class RateLimitRules<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitRules.class);
+
+    private static final RateLimitRules<?> EMPTY = new RateLimitRules<>(null, Collections.emptyMap(),
+            Collections.emptyList(), Collections.emptyMap());
+
+    private final Object settings;
+    private final Map<RateLimitProperties.Rule, T> byRule;
+    private final List<T> globalRules;
+    private final Map<String, List<T>> routeRules;
+
+    private RateLimitRules(Object settings, Map<RateLimitProperties.Rule, T> byRule, List<T> globalRules,
+                           Map<String, List<T>> routeRules) {
+        this.settings = settings;
+        this.byRule = byRule;
+        this.globalRules = globalRules;
+        this.routeRules = routeRules;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> RateLimitRules<T> empty() {
+        return (RateLimitRules<T>) EMPTY;
+    }
+
+    /**
+     * 编译限流规则
+     * 限流器参数（settings）未变时，沿用上一份快照中相同规则的限流器，避免刷新配置导致限流状态清零
+     *
+     * @param rules 配置的规则
+     * @param settings 限流器的公共参数，需实现equals
+     * @param previous 上一份快照
+     * @param factory 为新规则创建限流器，传入的规则为配置的副本
+     */
+    static <T> RateLimitRules<T> compile(List<RateLimitProperties.Rule> rules, Object settings,
+                                         RateLimitRules<T> previous,
+                                         Function<RateLimitProperties.Rule, T> factory) {
+        Map<RateLimitProperties.Rule, T> reusable = Objects.equals(settings, previous.settings)
+                ? previous.byRule : Collections.emptyMap();
+
+        Map<RateLimitProperties.Rule, T> byRule = new HashMap<>();
+        List<T> globalRules = new ArrayList<>();
+        Map<String, List<T>> routeRules = new HashMap<>();
+        for (RateLimitProperties.Rule rule : rules) {
+            if (rule.getCapacity() <= 0 || rule.getRate() <= 0) {
+                logger.warn("忽略无效的限流规则: {}", rule);
+                continue;
+            }
+            if (byRule.containsKey(rule)) {
+                continue;
+            }
+
+            // 规则作为Map的key，复制一份避免配置对象被原地修改
+            RateLimitProperties.Rule copy = copyOf(rule);
+            T limiter = reusable.get(copy);
+            if (limiter == null) {
+                limiter = factory.apply(copy);
+            }
+            byRule.put(copy, limiter);
+            if (rule.getRouteId() == null || rule.getRouteId().isEmpty()) {
+                globalRules.add(limiter);
+            } else {
+                routeRules.computeIfAbsent(rule.getRouteId(), id -> new ArrayList<>()).add(limiter);
+            }
+        }
+        return new RateLimitRules<>(settings, byRule, globalRules, routeRules);
+    }
+
+    boolean isEmpty() {
+        return byRule.isEmpty();
+    }
+
+    List<T> globalRules() {
+        return globalRules;
+    }
+
+    /**
+     * 请求所属路由上的规则，按路由ID匹配，未配置时按lb路由的服务名匹配（服务发现生成的路由ID带有前缀）
+     */
+    List<T> routeRules(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return Collections.emptyList();
+        }
+        List<T> limiters = routeRules.get(route.getId());
+        if (limiters == null) {
+            URI uri = route.getUri();
+            if (uri != null && "lb".equals(uri.getScheme()) && uri.getHost() != null) {
+                limiters = routeRules.get(uri.getHost());
+            }
+        }
+        return limiters != null ? limiters : Collections.emptyList();
+    }
+
+    int routeCount() {
+        return routeRules.size();
+    }
+
+    private static RateLimitProperties.Rule copyOf(RateLimitProperties.Rule rule) {
+        RateLimitProperties.Rule copy = new RateLimitProperties.Rule();
+        copy.setRouteId(rule.getRouteId());
+        copy.setKey(rule.getKey());
+        copy.setCapacity(rule.getCapacity());
+        copy.setRate(rule.getRate());
+        return copy;
+    }
+}
@@ -0,0 +1,128 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶
+ * 采用GCRA（通用信元速率算法）实现：只保存下一个令牌的理论到达时间（TAT），
+ * 获取令牌即对单个long做一次CAS，与按时间补充令牌的令牌桶等价
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public final class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * 每个令牌的补充间隔
+     */
+    private final long intervalNanos;
+
+    /**
+     * 桶容量对应的时间窗口，TAT超前当前时间不超过该窗口即可放行
+     */
+    private final long burstNanos;
+
+    private final AtomicLong theoreticalArrivalTime;
+
+    /**
+     * @param capacity 桶容量（允许的突发请求数）
+     * @param ratePerSecond 每秒补充的令牌数
+     * @param nowNanos 当前时间，新建的令牌桶是满的
+     */
+    public TokenBucket(long capacity, double ratePerSecond, long nowNanos) {
+        if (capacity <= 0 || ratePerSecond <= 0) {
+            throw new IllegalArgumentException("capacity and rate must be positive: capacity=" + capacity
+                    + ", rate=" + ratePerSecond);
+        }
+        this.intervalNanos = Math.max(1L, (long) (NANOS_PER_SECOND / ratePerSecond));
+        // 防止极大容量溢出，nanoTime差值比较要求窗口小于Long.MAX_VALUE
+        this.burstNanos = capacity > Long.MAX_VALUE / 4 / intervalNanos
+                ? Long.MAX_VALUE / 4 : intervalNanos * capacity;
+        this.theoreticalArrivalTime = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param nowNanos 当前时间（System.nanoTime）
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrivalTime.get();
+            // 桶已满时TAT落后于当前时间，从当前时间开始计算
+            long base = tat - nowNanos > 0 ? tat : nowNanos;
+            long newTat = base + intervalNanos;
+            if (newTat - nowNanos > burstNanos) {
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(tat, newTat)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 当前是否有可用令牌，不消费令牌
+     *
+     * @param nowNanos 当前时间（System.nanoTime）
+     */
+    public boolean canAcquire(long nowNanos) {
+        long tat = theoreticalArrivalTime.get();
+        long base = tat - nowNanos > 0 ? tat : nowNanos;
+        return base + intervalNanos - nowNanos <= burstNanos;
+    }
+
+    /**
+     * 归还一个已获取的令牌，桶已满时忽略
+     *
+     * @param nowNanos 当前时间（System.nanoTime）
+     */
+    public void refund(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrivalTime.get();
+            if (tat - nowNanos <= 0) {
+                return;
+            }
+            long newTat = tat - intervalNanos - nowNanos > 0 ? tat - intervalNanos : nowNanos;
+            if (theoreticalArrivalTime.compareAndSet(tat, newTat)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 尽量获取多个令牌，可用令牌不足时取走全部可用令牌
+     *
+     * @param permits 期望获取的令牌数
+     * @param nowNanos 当前时间（System.nanoTime）
+     * @return 实际获取到的令牌数，可能为0
+     */
+    public long tryAcquire(long permits, long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrivalTime.get();
+            long base = tat - nowNanos > 0 ? tat : nowNanos;
+            long available = (burstNanos - (base - nowNanos)) / intervalNanos;
+            long granted = Math.min(permits, available);
+            if (granted <= 0) {
+                return 0L;
+            }
+            if (theoreticalArrivalTime.compareAndSet(tat, base + granted * intervalNanos)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * 当前可用的令牌数（估算值，仅用于监控与测试）
+     */
+    public long availableTokens(long nowNanos) {
+        long ahead = theoreticalArrivalTime.get() - nowNanos;
+        if (ahead <= 0) {
+            return burstNanos / intervalNanos;
+        }
+        return Math.max(0L, (burstNanos - ahead) / intervalNanos);
+    }
+}
@@ -0,0 +1,309 @@
+package com.yuwang.leyuegateway.util;
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的Ant路径表达式索引
+ * 将一组Ant表达式按路径段编译为前缀树，匹配时逐段推进，开销与路径段数相关而与表达式数量基本无关。
+ * 匹配语义与 {@link AntPathMatcher#match(String, String)} 一致（包括 "**" 与结尾斜杠的处理），
+ * 不以 "/" 开头的表达式退化为逐条使用AntPathMatcher匹配。
+ * 构建后不可变，可在多线程间共享。
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public final class PathPatternIndex {
+
+    private static final PathPatternIndex EMPTY = new PathPatternIndex(new Node(false), Collections.emptyList(), 0);
+
+    private static final String SEPARATOR = "/";
+    private static final String DOUBLE_WILDCARD = "**";
+
+    /**
+     * 与AntPathMatcher中AntPathStringMatcher一致的段内通配符表达式
+     */
+    private static final Pattern GLOB_PATTERN = Pattern.compile("\\?|\\*|\\{((?:\\{[^/]+?\\}|[^/{}]|\\\\[{}])+?)\\}");
+
+    private static final AntPathMatcher FALLBACK_MATCHER = new AntPathMatcher();
+
+    private final Node root;
+    private final List<String> fallbackPatterns;
+    private final int size;
+
+    private PathPatternIndex(Node root, List<String> fallbackPatterns, int size) {
+        this.root = root;
+        this.fallbackPatterns = fallbackPatterns;
+        this.size = size;
+    }
+
+    /**
+     * 空索引，不匹配任何路径
+     */
+    public static PathPatternIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 编译一组Ant表达式，空白表达式会被忽略
+     */
+    public static PathPatternIndex compile(Collection<String> patterns) {
+        if (patterns == null || patterns.isEmpty()) {
+            return EMPTY;
+        }
+
+        Node root = new Node(false);
+        List<String> fallback = new ArrayList<>();
+        int size = 0;
+        for (String pattern : patterns) {
+            if (pattern == null || pattern.isBlank()) {
+                continue;
+            }
+            size++;
+            if (!pattern.startsWith(SEPARATOR)) {
+                fallback.add(pattern);
+                continue;
+            }
+            insert(root, pattern);
+        }
+        return new PathPatternIndex(root, List.copyOf(fallback), size);
+    }
+
+    /**
+     * 已编译的表达式数量
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 判断路径是否匹配索引中的任一表达式
+     */
+    public boolean matches(String path) {
+        if (path == null || isEmpty()) {
+            return false;
+        }
+        if (path.startsWith(SEPARATOR) && matchesTrie(path)) {
+            return true;
+        }
+        for (String pattern : fallbackPatterns) {
+            if (FALLBACK_MATCHER.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesTrie(String path) {
+        List<Node> current = new ArrayList<>(4);
+        addWithClosure(current, root);
+
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                String segment = path.substring(start, end);
+                List<Node> next = new ArrayList<>(4);
+                for (Node node : current) {
+                    node.advance(segment, next);
+                }
+                if (next.isEmpty()) {
+                    return false;
+                }
+                current = next;
+            }
+            start = end + 1;
+        }
+
+        boolean trailingSlash = path.endsWith(SEPARATOR);
+        for (Node node : current) {
+            if (node.accepts(trailingSlash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void insert(Node root, String pattern) {
+        String[] tokens = tokenize(pattern);
+        boolean hasDoubleWildcard = false;
+        for (String token : tokens) {
+            if (DOUBLE_WILDCARD.equals(token)) {
+                hasDoubleWildcard = true;
+                break;
+            }
+        }
+
+        Node node = root;
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (DOUBLE_WILDCARD.equals(token)) {
+                if (node.doubleWildcard == null) {
+                    node.doubleWildcard = new Node(true);
+                }
+                node = node.doubleWildcard;
+            } else if (isLiteral(token)) {
+                node = node.literals.computeIfAbsent(token, key -> new Node(false));
+            } else {
+                // AntPathMatcher: 路径段已耗尽、表达式仅剩最后一个"*"且路径以"/"结尾时视为匹配
+                if (!hasDoubleWildcard && i == tokens.length - 1 && "*".equals(token)) {
+                    node.acceptsSlashForTrailingStar = true;
+                }
+                node = node.wildcardChild(token);
+            }
+        }
+
+        // 以"**"结尾的表达式不区分结尾斜杠，否则要求表达式与路径的结尾斜杠一致
+        if (tokens.length > 0 && DOUBLE_WILDCARD.equals(tokens[tokens.length - 1])) {
+            node.terminalAny = true;
+        } else if (pattern.endsWith(SEPARATOR)) {
+            node.terminalSlash = true;
+        } else {
+            node.terminalNoSlash = true;
+        }
+    }
+
+    private static String[] tokenize(String pattern) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : pattern.split(SEPARATOR)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static boolean isLiteral(String token) {
+        return token.indexOf('*') < 0 && token.indexOf('?') < 0 && token.indexOf('{') < 0;
+    }
+
+    /**
+     * 将节点及其经"**"可零段到达的节点加入状态集合
+     */
+    private static void addWithClosure(List<Node> states, Node node) {
+        while (node != null) {
+            if (!states.contains(node)) {
+                states.add(node);
+            }
+            node = node.doubleWildcard;
+        }
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static final class Node {
+        private final boolean doubleWildcardNode;
+        private final Map<String, Node> literals = new HashMap<>();
+        private final List<WildcardEdge> wildcards = new ArrayList<>(0);
+        private Node doubleWildcard;
+        private boolean terminalSlash;
+        private boolean terminalNoSlash;
+        private boolean terminalAny;
+        private boolean acceptsSlashForTrailingStar;
+
+        Node(boolean doubleWildcardNode) {
+            this.doubleWildcardNode = doubleWildcardNode;
+        }
+
+        Node wildcardChild(String token) {
+            for (WildcardEdge edge : wildcards) {
+                if (edge.token.equals(token)) {
+                    return edge.target;
+                }
+            }
+            WildcardEdge edge = new WildcardEdge(token, new Node(false));
+            wildcards.add(edge);
+            return edge.target;
+        }
+
+        void advance(String segment, List<Node> next) {
+            if (doubleWildcardNode) {
+                addWithClosure(next, this);
+            }
+            Node literal = literals.get(segment);
+            if (literal != null) {
+                addWithClosure(next, literal);
+            }
+            for (WildcardEdge edge : wildcards) {
+                if (edge.matches(segment)) {
+                    addWithClosure(next, edge.target);
+                }
+            }
+        }
+
+        boolean accepts(boolean trailingSlash) {
+            if (terminalAny) {
+                return true;
+            }
+            if (trailingSlash) {
+                return terminalSlash || acceptsSlashForTrailingStar;
+            }
+            return terminalNoSlash;
+        }
+    }
+
+    /**
+     * 段内通配符边，如 "*"、"user-?"、"{id}"、"{id:\\d+}"
+     */
+    private static final class WildcardEdge {
+        private final String token;
+        private final Pattern pattern;
+        private final Node target;
+
+        WildcardEdge(String token, Node target) {
+            this.token = token;
+            this.pattern = "*".equals(token) ? null : toRegex(token);
+            this.target = target;
+        }
+
+        boolean matches(String segment) {
+            return pattern == null || pattern.matcher(segment).matches();
+        }
+
+        private static Pattern toRegex(String token) {
+            StringBuilder regex = new StringBuilder();
+            Matcher matcher = GLOB_PATTERN.matcher(token);
+            int end = 0;
+            while (matcher.find()) {
+                regex.append(quote(token, end, matcher.start()));
+                String match = matcher.group();
+                if ("?".equals(match)) {
+                    regex.append('.');
+                } else if ("*".equals(match)) {
+                    regex.append(".*");
+                } else {
+                    int colon = match.indexOf(':');
+                    if (colon < 0) {
+                        regex.append("((?s).*)");
+                    } else {
+                        regex.append('(').append(match, colon + 1, match.length() - 1).append(')');
+                    }
+                }
+                end = matcher.end();
+            }
+            regex.append(quote(token, end, token.length()));
+            return Pattern.compile(regex.toString(), Pattern.DOTALL);
+        }
+
+        private static String quote(String s, int start, int end) {
+            return start == end ? "" : Pattern.quote(s.substring(start, end));
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.yuwang.leyuegateway.util;
+
+/**
+ * 追踪上下文解析器
+ * 对 traceparent、tracestate、B3 单头与多头格式做单次遍历、基于下标的解析与校验，
+ * 不使用正则与split，仅为最终的ID分配字符串。
+ * traceparent 按 W3C Trace Context 规范完整校验：版本、各字段长度、小写十六进制、全零ID与flags长度。
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public final class TraceContextParser {
+
+    private static final int TRACEPARENT_LENGTH = 55;
+    private static final int TRACE_ID_LENGTH = 32;
+    private static final int SPAN_ID_LENGTH = 16;
+    private static final int B3_SHORT_TRACE_ID_LENGTH = 16;
+
+    private static final int TRACESTATE_MAX_MEMBERS = 32;
+    private static final int TRACESTATE_MAX_KEY_LENGTH = 256;
+    private static final int TRACESTATE_MAX_TENANT_LENGTH = 241;
+    private static final int TRACESTATE_MAX_SYSTEM_LENGTH = 14;
+    private static final int TRACESTATE_MAX_VALUE_LENGTH = 256;
+
+    /**
+     * 解析结果
+     */
+    public static final class TraceContext {
+        private final String traceId;
+        private final String parentSpanId;
+        private final Boolean sampled;
+
+        TraceContext(String traceId, String parentSpanId, Boolean sampled) {
+            this.traceId = traceId;
+            this.parentSpanId = parentSpanId;
+            this.sampled = sampled;
+        }
+
+        public String getTraceId() {
+            return traceId;
+        }
+
+        public String getParentSpanId() {
+            return parentSpanId;
+        }
+
+        /**
+         * 上游的采样决策，未携带决策时为null
+         */
+        public Boolean getSampled() {
+            return sampled;
+        }
+    }
+
+    /**
+     * 解析W3C traceparent头
+     * 格式：{version}-{trace-id}-{parent-id}-{trace-flags}
+     *
+     * @return 解析结果，格式不合法时返回null
+     */
+    public static TraceContext parseTraceparent(String value) {
+        if (value == null || value.length() < TRACEPARENT_LENGTH) {
+            return null;
+        }
+
+        // version: 2位小写十六进制，ff为非法版本
+        int v0 = lowerHexValue(value.charAt(0));
+        int v1 = lowerHexValue(value.charAt(1));
+        if (v0 < 0 || v1 < 0 || (v0 == 0xF && v1 == 0xF)) {
+            return null;
+        }
+        boolean version00 = v0 == 0 && v1 == 0;
+        int length = value.length();
+        // 版本00长度必须严格为55；更高版本允许在flags之后以"-"追加字段
+        if (version00 ? length != TRACEPARENT_LENGTH
+                : length > TRACEPARENT_LENGTH && value.charAt(TRACEPARENT_LENGTH) != '-') {
+            return null;
+        }
+
+        if (value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-') {
+            return null;
+        }
+        if (!isLowerHexNonZero(value, 3, 35) || !isLowerHexNonZero(value, 36, 52)) {
+            return null;
+        }
+        int flagsHigh = lowerHexValue(value.charAt(53));
+        int flagsLow = lowerHexValue(value.charAt(54));
+        if (flagsHigh < 0 || flagsLow < 0) {
+            return null;
+        }
+
+        boolean sampled = (flagsLow & 0x1) == 1;
+        return new TraceContext(value.substring(3, 35), value.substring(36, 52), sampled);
+    }
+
+    /**
+     * 校验W3C tracestate头
+     * 按规范校验list-member的key/value语法与成员数量上限，不合法的tracestate应整体丢弃
+     *
+     * @return 合法时返回原值，否则返回null
+     */
+    public static String validateTracestate(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        int length = value.length();
+        int members = 0;
+        int start = 0;
+        while (start <= length) {
+            int end = value.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            // 去除成员前后的空白（OWS）
+            int memberStart = start;
+            int memberEnd = end;
+            while (memberStart < memberEnd && isOws(value.charAt(memberStart))) {
+                memberStart++;
+            }
+            while (memberEnd > memberStart && isOws(value.charAt(memberEnd - 1))) {
+                memberEnd--;
+            }
+
+            if (memberStart < memberEnd) {
+                if (++members > TRACESTATE_MAX_MEMBERS || !isValidTracestateMember(value, memberStart, memberEnd)) {
+                    return null;
+                }
+            }
+            start = end + 1;
+        }
+        return members > 0 ? value : null;
+    }
+
+    /**
+     * 解析B3单头
+     * 格式：{traceId}-{spanId}[-{sampled}[-{parentSpanId}]]，仅携带采样标记（如"0"）时返回null
+     *
+     * @return 解析结果，格式不合法时返回null
+     */
+    public static TraceContext parseB3Single(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        int length = value.length();
+        int traceIdEnd = value.indexOf('-');
+        if (traceIdEnd < 0) {
+            return null;
+        }
+        if (!isB3TraceId(value, 0, traceIdEnd)) {
+            return null;
+        }
+
+        int spanIdEnd = traceIdEnd + 1 + SPAN_ID_LENGTH;
+        if (spanIdEnd > length || !isHex(value, traceIdEnd + 1, spanIdEnd)) {
+            return null;
+        }
+
+        Boolean sampled = null;
+        if (spanIdEnd < length) {
+            // -{sampled}
+            if (value.charAt(spanIdEnd) != '-' || spanIdEnd + 2 > length) {
+                return null;
+            }
+            char flag = value.charAt(spanIdEnd + 1);
+            if (flag == '1' || flag == 'd') {
+                sampled = Boolean.TRUE;
+            } else if (flag == '0') {
+                sampled = Boolean.FALSE;
+            } else {
+                return null;
+            }
+
+            int flagEnd = spanIdEnd + 2;
+            if (flagEnd < length) {
+                // -{parentSpanId}
+                if (value.charAt(flagEnd) != '-' || length != flagEnd + 1 + SPAN_ID_LENGTH
+                        || !isHex(value, flagEnd + 1, length)) {
+                    return null;
+                }
+            }
+        }
+
+        return new TraceContext(toLowerCase(value, 0, traceIdEnd), toLowerCase(value, traceIdEnd + 1, spanIdEnd), sampled);
+    }
+
+    /**
+     * 解析B3多头格式
+     *
+     * @param traceId X-B3-TraceId
+     * @param spanId X-B3-SpanId，可为空
+     * @param sampled X-B3-Sampled，可为空
+     * @param flags X-B3-Flags，可为空，"1"表示debug强制采样
+     * @return 解析结果，格式不合法时返回null
+     */
+    public static TraceContext parseB3Multi(String traceId, String spanId, String sampled, String flags) {
+        if (traceId == null || !isB3TraceId(traceId, 0, traceId.length())) {
+            return null;
+        }
+        if (spanId != null && (spanId.length() != SPAN_ID_LENGTH || !isHex(spanId, 0, SPAN_ID_LENGTH))) {
+            return null;
+        }
+
+        Boolean decision = null;
+        if ("1".equals(flags)) {
+            decision = Boolean.TRUE;
+        } else if (sampled != null) {
+            if ("1".equals(sampled) || "true".equalsIgnoreCase(sampled)) {
+                decision = Boolean.TRUE;
+            } else if ("0".equals(sampled) || "false".equalsIgnoreCase(sampled)) {
+                decision = Boolean.FALSE;
+            }
+        }
+
+        return new TraceContext(toLowerCase(traceId, 0, traceId.length()),
+                spanId != null ? toLowerCase(spanId, 0, spanId.length()) : null, decision);
+    }
+
+    /**
+     * 判断字符串是否为指定长度、非全零的小写十六进制
+     */
+    public static boolean isValidLowerHexId(String value, int expectedLength) {
+        return value != null && value.length() == expectedLength && isLowerHexNonZero(value, 0, expectedLength);
+    }
+
+    /**
+     * 小写十六进制字符的数值，非小写十六进制字符返回-1
+     */
+    static int lowerHexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * 十六进制字符（不区分大小写）的数值，非十六进制字符返回-1
+     */
+    static int hexValue(char c) {
+        int value = lowerHexValue(c);
+        if (value >= 0) {
+            return value;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean isLowerHexNonZero(String s, int from, int to) {
+        boolean nonZero = false;
+        for (int i = from; i < to; i++) {
+            int v = lowerHexValue(s.charAt(i));
+            if (v < 0) {
+                return false;
+            }
+            nonZero |= v != 0;
+        }
+        return nonZero;
+    }
+
+    private static boolean isHex(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (hexValue(s.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * B3 traceId为16位或32位十六进制且非全零
+     */
+    private static boolean isB3TraceId(String s, int from, int to) {
+        int length = to - from;
+        if (length != TRACE_ID_LENGTH && length != B3_SHORT_TRACE_ID_LENGTH) {
+            return false;
+        }
+        boolean nonZero = false;
+        for (int i = from; i < to; i++) {
+            int v = hexValue(s.charAt(i));
+            if (v < 0) {
+                return false;
+            }
+            nonZero |= v != 0;
+        }
+        return nonZero;
+    }
+
+    /**
+     * 截取并转为小写，已是小写时不做额外的字符转换
+     */
+    private static String toLowerCase(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                char[] chars = new char[to - from];
+                for (int j = from; j < to; j++) {
+                    char ch = s.charAt(j);
+                    chars[j - from] = ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch;
+                }
+                return new String(chars);
+            }
+        }
+        return from == 0 && to == s.length() ? s : s.substring(from, to);
+    }
+
+    private static boolean isOws(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    /**
+     * 校验tracestate的list-member：key "=" value
+     */
+    private static boolean isValidTracestateMember(String s, int from, int to) {
+        int eq = s.indexOf('=', from);
+        if (eq < 0 || eq >= to) {
+            return false;
+        }
+        return isValidTracestateKey(s, from, eq) && isValidTracestateValue(s, eq + 1, to);
+    }
+
+    /**
+     * key = simple-key / multi-tenant-key
+     * simple-key = lcalpha 0*255( lcalpha / DIGIT / "_" / "-"/ "*" / "/" )
+     * multi-tenant-key = tenant-id "@" system-id
+     * tenant-id = ( lcalpha / DIGIT ) 0*240( lcalpha / DIGIT / "_" / "-"/ "*" / "/" )
+     * system-id = lcalpha 0*13( lcalpha / DIGIT / "_" / "-"/ "*" / "/" )
+     */
+    private static boolean isValidTracestateKey(String s, int from, int to) {
+        int length = to - from;
+        if (length == 0 || length > TRACESTATE_MAX_KEY_LENGTH) {
+            return false;
+        }
+
+        int at = -1;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '@') {
+                if (at >= 0) {
+                    return false;
+                }
+                at = i;
+            } else if (!isTracestateKeyChar(c)) {
+                return false;
+            }
+        }
+
+        if (at < 0) {
+            return isLcAlpha(s.charAt(from));
+        }
+        int tenantLength = at - from;
+        int systemLength = to - at - 1;
+        char tenantFirst = s.charAt(from);
+        return tenantLength >= 1 && tenantLength <= TRACESTATE_MAX_TENANT_LENGTH
+                && (isLcAlpha(tenantFirst) || isDigit(tenantFirst))
+                && systemLength >= 1 && systemLength <= TRACESTATE_MAX_SYSTEM_LENGTH
+                && isLcAlpha(s.charAt(at + 1));
+    }
+
+    /**
+     * value = 0*255(chr) nblk-chr
+     * nblk-chr = %x21-2B / %x2D-3C / %x3E-7E
+     * chr = %x20 / nblk-chr
+     */
+    private static boolean isValidTracestateValue(String s, int from, int to) {
+        int length = to - from;
+        if (length == 0 || length > TRACESTATE_MAX_VALUE_LENGTH) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c != ' ' && !isNonBlankChr(c)) {
+                return false;
+            }
+        }
+        return isNonBlankChr(s.charAt(to - 1));
+    }
+
+    private static boolean isNonBlankChr(char c) {
+        return c >= 0x21 && c <= 0x7E && c != ',' && c != '=';
+    }
+
+    private static boolean isTracestateKeyChar(char c) {
+        return isLcAlpha(c) || isDigit(c) || c == '_' || c == '-' || c == '*' || c == '/';
+    }
+
+    private static boolean isLcAlpha(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private TraceContextParser() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+}
@@ -0,0 +1,105 @@
+package com.yuwang.leyuegateway.util;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * traceId/spanId生成策略
+ * 通过 gateway.tracing.id-generator 选择，默认使用 {@link #RANDOM}。
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public enum TraceIdGenerator {
+
+    /**
+     * 线程本地随机数 + 直接十六进制编码，无锁、不阻塞，吞吐最高
+     */
+    RANDOM {
+        @Override
+        public String generateTraceId() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long high;
+            long low;
+            do {
+                high = random.nextLong();
+                low = random.nextLong();
+            } while (high == 0L && low == 0L);
+            return toHex(high, low);
+        }
+    },
+
+    /**
+     * 时间有序的128位traceId：高48位为毫秒时间戳，其余80位为随机数，便于按时间排序与检索
+     */
+    TIME_ORDERED {
+        @Override
+        public String generateTraceId() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long high = (System.currentTimeMillis() << 16) | (random.nextLong() & 0xFFFFL);
+            return toHex(high, random.nextLong());
+        }
+    },
+
+    /**
+     * 原实现：共享SecureRandom + String.format，保留用于兼容与基准对比
+     */
+    SECURE_RANDOM {
+        @Override
+        public String generateTraceId() {
+            return String.format("%016x%016x", System.currentTimeMillis(), SECURE_RANDOM_SOURCE.nextLong());
+        }
+
+        @Override
+        public String generateSpanId() {
+            return String.format("%016x", SECURE_RANDOM_SOURCE.nextLong() & Long.MAX_VALUE);
+        }
+    };
+
+    private static final SecureRandom SECURE_RANDOM_SOURCE = new SecureRandom();
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * 生成32位十六进制的traceId
+     */
+    public abstract String generateTraceId();
+
+    /**
+     * 生成16位十六进制的非零spanId
+     */
+    public String generateSpanId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id;
+        do {
+            id = random.nextLong();
+        } while (id == 0L);
+        return toHex(id);
+    }
+
+    /**
+     * 将64位整数编码为16位小写十六进制字符串
+     */
+    static String toHex(long value) {
+        char[] buf = new char[16];
+        writeHex(buf, 0, value);
+        return new String(buf);
+    }
+
+    /**
+     * 将128位整数编码为32位小写十六进制字符串
+     */
+    static String toHex(long high, long low) {
+        char[] buf = new char[32];
+        writeHex(buf, 0, high);
+        writeHex(buf, 16, low);
+        return new String(buf);
+    }
+
+    private static void writeHex(char[] buf, int offset, long value) {
+        for (int i = offset + 15; i >= offset; i--) {
+            buf[i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
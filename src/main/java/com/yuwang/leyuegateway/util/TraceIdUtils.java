@@ -1,13 +1,18 @@
 package com.yuwang.leyuegateway.util;
 
+import com.yuwang.leyuegateway.constant.TraceProtocol;
 import com.yuwang.leyuegateway.constant.TracingHeaders;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 
-import java.security.SecureRandom;
-import java.util.UUID;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * TraceId工具类
@@ -20,12 +25,14 @@ public final class TraceIdUtils {
     
     private static final Logger logger = LoggerFactory.getLogger(TraceIdUtils.class);
     
-    private static final SecureRandom random = new SecureRandom();
-    
     // W3C Trace Context 常量
     private static final String W3C_VERSION = "00";
     private static final String W3C_FLAGS_SAMPLED = "01";
     private static final String W3C_FLAGS_NOT_SAMPLED = "00";
+    private static final int TRACE_ID_LENGTH = 32;
+    private static final int SPAN_ID_LENGTH = 16;
+    
+    private static final Set<TraceProtocol> ALL_PROTOCOLS = EnumSet.allOf(TraceProtocol.class);
     
     /**
      * 追踪信息封装类
@@ -52,10 +59,24 @@ public final class TraceIdUtils {
          * 生成W3C traceparent格式
          */
         public String toW3CTraceparent() {
-            String normalizedTraceId = normalizeTraceId(traceId);
-            String normalizedSpanId = normalizeSpanId(spanId);
             String flags = sampled ? W3C_FLAGS_SAMPLED : W3C_FLAGS_NOT_SAMPLED;
-            return String.format("%s-%s-%s-%s", W3C_VERSION, normalizedTraceId, normalizedSpanId, flags);
+            return new StringBuilder(55)
+                    .append(W3C_VERSION).append('-')
+                    .append(normalizeTraceId(traceId)).append('-')
+                    .append(normalizeSpanId(spanId)).append('-')
+                    .append(flags)
+                    .toString();
+        }
+        
+        /**
+         * 生成B3 Single Header格式
+         */
+        public String toB3Single() {
+            return new StringBuilder(51)
+                    .append(normalizeTraceId(traceId)).append('-')
+                    .append(normalizeSpanId(spanId))
+                    .append(sampled ? "-1" : "-0")
+                    .toString();
         }
     }
     
@@ -67,131 +88,144 @@ public final class TraceIdUtils {
      * @return 追踪信息
      */
     public static TraceInfo extractOrGenerateTraceInfo(ServerHttpRequest request) {
+        return extractOrGenerateTraceInfo(request, ALL_PROTOCOLS, 1.0, TraceIdGenerator.RANDOM);
+    }
+    
+    /**
+     * 按启用的输入协议从HTTP请求中提取或生成追踪信息
+     * 上游已携带采样决策（W3C flags、B3 sampled）时沿用上游决策，否则按采样率进行头部采样
+     * 
+     * @param request HTTP请求
+     * @param inputProtocols 启用的输入协议
+     * @param samplingRate 采样率（0.0-1.0）
+     * @param idGenerator 新traceId/spanId的生成策略，为null时使用RANDOM
+     * @return 追踪信息
+     */
+    public static TraceInfo extractOrGenerateTraceInfo(ServerHttpRequest request, Collection<TraceProtocol> inputProtocols,
+                                                       double samplingRate, TraceIdGenerator idGenerator) {
+        if (idGenerator == null) {
+            idGenerator = TraceIdGenerator.RANDOM;
+        }
+        
         // 1. 尝试从W3C traceparent提取（最高优先级）
-        TraceInfo w3cTrace = extractFromW3CTraceparent(request);
-        if (w3cTrace != null) {
-            logger.debug("从W3C traceparent提取追踪信息: traceId={}", w3cTrace.getTraceId());
-            return w3cTrace;
+        if (inputProtocols.contains(TraceProtocol.W3C)) {
+            TraceInfo w3cTrace = extractFromW3CTraceparent(request, idGenerator);
+            if (w3cTrace != null) {
+                logger.debug("从W3C traceparent提取追踪信息: traceId={}", w3cTrace.getTraceId());
+                return w3cTrace;
+            }
         }
         
         // 2. 尝试从B3协议提取
-        TraceInfo b3Trace = extractFromB3Headers(request);
-        if (b3Trace != null) {
-            logger.debug("从B3协议提取追踪信息: traceId={}", b3Trace.getTraceId());
-            return b3Trace;
+        if (inputProtocols.contains(TraceProtocol.B3)) {
+            TraceInfo b3Trace = extractFromB3Headers(request, samplingRate, idGenerator);
+            if (b3Trace != null) {
+                logger.debug("从B3协议提取追踪信息: traceId={}", b3Trace.getTraceId());
+                return b3Trace;
+            }
         }
         
         // 3. 尝试从自定义头提取
-        TraceInfo customTrace = extractFromCustomHeaders(request);
+        TraceInfo customTrace = extractFromCustomHeaders(request, inputProtocols, samplingRate, idGenerator);
         if (customTrace != null) {
             logger.debug("从自定义头提取追踪信息: traceId={}", customTrace.getTraceId());
             return customTrace;
         }
         
         // 4. 生成新的根追踪信息
-        TraceInfo newTrace = generateRootTrace();
+        TraceInfo newTrace = generateRootTrace(samplingRate, idGenerator);
         logger.debug("生成新的根追踪信息: traceId={}", newTrace.getTraceId());
         return newTrace;
     }
     
     /**
-     * 从W3C traceparent头提取追踪信息
+     * 按采样率做出头部采样决策
      */
-    private static TraceInfo extractFromW3CTraceparent(ServerHttpRequest request) {
-        String traceparent = request.getHeaders().getFirst(TracingHeaders.W3C_TRACEPARENT);
-        if (StringUtils.isBlank(traceparent)) {
-            return null;
+    public static boolean shouldSample(double samplingRate) {
+        if (samplingRate >= 1.0) {
+            return true;
         }
-        
-        String[] parts = traceparent.split("-");
-        if (parts.length != 4) {
-            logger.warn("无效的W3C traceparent格式: {}", traceparent);
-            return null;
+        if (samplingRate <= 0.0) {
+            return false;
         }
-        
-        String version = parts[0];
-        String traceId = parts[1];
-        String parentSpanId = parts[2];
-        String flags = parts[3];
-        
-        // 验证格式
-        if (!"00".equals(version)) {
-            logger.warn("不支持的W3C traceparent版本: {}", version);
+        return ThreadLocalRandom.current().nextDouble() < samplingRate;
+    }
+    
+    /**
+     * 从W3C traceparent头提取追踪信息
+     */
+    private static TraceInfo extractFromW3CTraceparent(ServerHttpRequest request, TraceIdGenerator idGenerator) {
+        String traceparent = request.getHeaders().getFirst(TracingHeaders.W3C_TRACEPARENT);
+        if (traceparent == null || traceparent.isEmpty()) {
             return null;
         }
         
-        // 验证traceId和spanId长度，并进行标准化
-        if (traceId.length() != 32) {
-            traceId = normalizeTraceId(traceId);
-        }
-        if (parentSpanId.length() != 16) {
-            parentSpanId = normalizeSpanId(parentSpanId);
-        }
-        
-        // 再次验证
-        if (traceId.length() != 32 || parentSpanId.length() != 16) {
-            logger.warn("W3C traceparent格式错误: traceId长度={}, spanId长度={}", traceId.length(), parentSpanId.length());
+        TraceContextParser.TraceContext context = TraceContextParser.parseTraceparent(traceparent);
+        if (context == null) {
+            logger.debug("无效的W3C traceparent: {}", traceparent);
             return null;
         }
         
-        boolean sampled = "01".equals(flags);
-        String newSpanId = generateSpanId(); // 为当前服务生成新的spanId
-        
-        return new TraceInfo(traceId, newSpanId, "w3c-traceparent", sampled);
+        // 为当前服务生成新的spanId
+        return new TraceInfo(context.getTraceId(), idGenerator.generateSpanId(), "w3c-traceparent", context.getSampled());
     }
     
     /**
      * 从B3协议头提取追踪信息
+     * 未携带采样标记时由网关按采样率做采样决策
      */
-    private static TraceInfo extractFromB3Headers(ServerHttpRequest request) {
+    private static TraceInfo extractFromB3Headers(ServerHttpRequest request, double samplingRate,
+                                                  TraceIdGenerator idGenerator) {
+        HttpHeaders headers = request.getHeaders();
+        
         // 尝试B3 Single Header
-        String b3Single = request.getHeaders().getFirst(TracingHeaders.B3_SINGLE);
-        if (StringUtils.isNotBlank(b3Single)) {
-            return parseB3Single(b3Single);
+        String b3Single = headers.getFirst(TracingHeaders.B3_SINGLE);
+        if (b3Single != null && !b3Single.isEmpty()) {
+            TraceContextParser.TraceContext context = TraceContextParser.parseB3Single(b3Single);
+            return context != null ? toTraceInfo(context, "b3-single", samplingRate, idGenerator) : null;
         }
         
         // 尝试B3 多头格式
-        String traceId = request.getHeaders().getFirst(TracingHeaders.B3_TRACE_ID);
-        String spanId = request.getHeaders().getFirst(TracingHeaders.B3_SPAN_ID);
-        
-        if (StringUtils.isNotBlank(traceId)) {
-            String newSpanId = generateSpanId();
-            return new TraceInfo(traceId, newSpanId, "b3-headers", true);
+        String traceId = headers.getFirst(TracingHeaders.B3_TRACE_ID);
+        if (traceId != null && !traceId.isEmpty()) {
+            TraceContextParser.TraceContext context = TraceContextParser.parseB3Multi(traceId,
+                    headers.getFirst(TracingHeaders.B3_SPAN_ID),
+                    headers.getFirst(TracingHeaders.B3_SAMPLED),
+                    headers.getFirst(TracingHeaders.B3_FLAGS));
+            return context != null ? toTraceInfo(context, "b3-headers", samplingRate, idGenerator) : null;
         }
         
         return null;
     }
     
-    /**
-     * 解析B3 Single Header格式
-     */
-    private static TraceInfo parseB3Single(String b3Single) {
-        String[] parts = b3Single.split("-");
-        if (parts.length >= 2) {
-            String traceId = parts[0];
-            String newSpanId = generateSpanId();
-            boolean sampled = parts.length > 2 && "1".equals(parts[2]);
-            return new TraceInfo(traceId, newSpanId, "b3-single", sampled);
-        }
-        return null;
+    private static TraceInfo toTraceInfo(TraceContextParser.TraceContext context, String source, double samplingRate,
+                                         TraceIdGenerator idGenerator) {
+        Boolean sampled = context.getSampled();
+        return new TraceInfo(context.getTraceId(), idGenerator.generateSpanId(), source,
+                sampled != null ? sampled : shouldSample(samplingRate));
     }
     
     /**
      * 从自定义头提取追踪信息
      */
-    private static TraceInfo extractFromCustomHeaders(ServerHttpRequest request) {
+    private static TraceInfo extractFromCustomHeaders(ServerHttpRequest request, Collection<TraceProtocol> inputProtocols,
+                                                      double samplingRate, TraceIdGenerator idGenerator) {
         // 尝试X-Trace-Id
-        String customTraceId = request.getHeaders().getFirst(TracingHeaders.X_TRACE_ID);
-        if (StringUtils.isNotBlank(customTraceId)) {
-            String spanId = generateSpanId();
-            return new TraceInfo(customTraceId, spanId, "custom-x-trace-id", true);
+        if (inputProtocols.contains(TraceProtocol.CUSTOM)) {
+            String customTraceId = request.getHeaders().getFirst(TracingHeaders.X_TRACE_ID);
+            if (StringUtils.isNotBlank(customTraceId)) {
+                String spanId = idGenerator.generateSpanId();
+                return new TraceInfo(customTraceId, spanId, "custom-x-trace-id", shouldSample(samplingRate));
+            }
         }
         
         // 尝试传统traceId头
-        String legacyTraceId = request.getHeaders().getFirst(TracingHeaders.TRACE_ID);
-        if (StringUtils.isNotBlank(legacyTraceId)) {
-            String spanId = generateSpanId();
-            return new TraceInfo(legacyTraceId, spanId, "legacy-trace-id", true);
+        if (inputProtocols.contains(TraceProtocol.LEGACY)) {
+            String legacyTraceId = request.getHeaders().getFirst(TracingHeaders.TRACE_ID);
+            if (StringUtils.isNotBlank(legacyTraceId)) {
+                String spanId = idGenerator.generateSpanId();
+                return new TraceInfo(legacyTraceId, spanId, "legacy-trace-id", shouldSample(samplingRate));
+            }
         }
         
         return null;
@@ -200,28 +234,24 @@ public final class TraceIdUtils {
     /**
      * 生成根追踪信息（新的追踪开始）
      */
-    private static TraceInfo generateRootTrace() {
-        String traceId = generateTraceId();
-        String spanId = generateSpanId();
-        return new TraceInfo(traceId, spanId, "gateway-generated", true);
+    private static TraceInfo generateRootTrace(double samplingRate, TraceIdGenerator idGenerator) {
+        String traceId = idGenerator.generateTraceId();
+        String spanId = idGenerator.generateSpanId();
+        return new TraceInfo(traceId, spanId, "gateway-generated", shouldSample(samplingRate));
     }
     
     /**
-     * 生成32位十六进制的traceId
+     * 使用默认策略（RANDOM）生成32位十六进制的traceId
      */
     public static String generateTraceId() {
-        // 使用时间戳+随机数生成更好的分布
-        long timestamp = System.currentTimeMillis();
-        long randomPart = random.nextLong();
-        
-        return String.format("%016x%016x", timestamp, randomPart);
+        return TraceIdGenerator.RANDOM.generateTraceId();
     }
     
     /**
-     * 生成16位十六进制的spanId
+     * 使用默认策略（RANDOM）生成16位十六进制的spanId
      */
     public static String generateSpanId() {
-        return String.format("%016x", random.nextLong() & Long.MAX_VALUE);
+        return TraceIdGenerator.RANDOM.generateSpanId();
     }
     
     /**
@@ -231,21 +261,20 @@ public final class TraceIdUtils {
         if (StringUtils.isBlank(traceId)) {
             return generateTraceId();
         }
+        if (isValidW3CTraceId(traceId)) {
+            return traceId;
+        }
         
         // 移除非十六进制字符
-        String cleanTraceId = traceId.replaceAll("[^0-9a-fA-F]", "").toLowerCase();
+        char[] clean = new char[TRACE_ID_LENGTH];
+        int cleanLength = appendHex(traceId, clean, 0);
         
-        if (cleanTraceId.length() >= 32) {
-            return cleanTraceId.substring(0, 32);
-        } else if (cleanTraceId.length() >= 16) {
-            // 使用零填充
-            return String.format("%32s", cleanTraceId).replace(' ', '0');
-        } else {
+        if (cleanLength < 16) {
             // 太短，使用hash + 原值
-            String hash = Integer.toHexString(traceId.hashCode());
-            String combined = cleanTraceId + hash;
-            return String.format("%32s", combined.substring(0, Math.min(combined.length(), 32))).replace(' ', '0');
+            cleanLength = appendHex(Integer.toHexString(traceId.hashCode()), clean, cleanLength);
         }
+        // 不足32位时左侧补零
+        return leftPadZeros(clean, cleanLength);
     }
     
     /**
@@ -255,35 +284,52 @@ public final class TraceIdUtils {
         if (StringUtils.isBlank(spanId)) {
             return generateSpanId();
         }
-        
-        // 移除非十六进制字符
-        String cleanSpanId = spanId.replaceAll("[^0-9a-fA-F]", "").toLowerCase();
-        
-        if (cleanSpanId.length() >= 16) {
-            return cleanSpanId.substring(0, 16);
-        } else {
-            return String.format("%16s", cleanSpanId).replace(' ', '0');
+        if (isValidW3CSpanId(spanId)) {
+            return spanId;
         }
+        
+        // 移除非十六进制字符，不足16位时左侧补零
+        char[] clean = new char[SPAN_ID_LENGTH];
+        return leftPadZeros(clean, appendHex(spanId, clean, 0));
     }
     
     /**
      * 验证traceId格式是否符合W3C标准
      */
     public static boolean isValidW3CTraceId(String traceId) {
-        return StringUtils.isNotBlank(traceId) 
-            && traceId.length() == 32 
-            && traceId.matches("^[0-9a-f]+$")
-            && !"00000000000000000000000000000000".equals(traceId);
+        return TraceContextParser.isValidLowerHexId(traceId, TRACE_ID_LENGTH);
     }
     
     /**
      * 验证spanId格式是否符合W3C标准
      */
     public static boolean isValidW3CSpanId(String spanId) {
-        return StringUtils.isNotBlank(spanId) 
-            && spanId.length() == 16 
-            && spanId.matches("^[0-9a-f]+$")
-            && !"0000000000000000".equals(spanId);
+        return TraceContextParser.isValidLowerHexId(spanId, SPAN_ID_LENGTH);
+    }
+    
+    /**
+     * 将源字符串中的十六进制字符转为小写后追加到缓冲区，缓冲区写满即停止
+     *
+     * @return 追加后的有效长度
+     */
+    private static int appendHex(String source, char[] buffer, int length) {
+        for (int i = 0, n = source.length(); i < n && length < buffer.length; i++) {
+            int value = TraceContextParser.hexValue(source.charAt(i));
+            if (value >= 0) {
+                buffer[length++] = Character.forDigit(value, 16);
+            }
+        }
+        return length;
+    }
+    
+    private static String leftPadZeros(char[] buffer, int length) {
+        if (length == buffer.length) {
+            return new String(buffer);
+        }
+        int padding = buffer.length - length;
+        System.arraycopy(buffer, 0, buffer, padding, length);
+        Arrays.fill(buffer, 0, padding, '0');
+        return new String(buffer);
     }
     
     // 私有构造函数防止实例化
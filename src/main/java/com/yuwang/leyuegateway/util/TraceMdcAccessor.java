@@ -0,0 +1,63 @@
+package com.yuwang.leyuegateway.util;
+
+import io.micrometer.context.ThreadLocalAccessor;
+import org.slf4j.MDC;
+
+/**
+ * 追踪信息的ThreadLocal访问器
+ * 追踪信息随Reactor Context传递，由context-propagation在算子执行、线程切换前后自动恢复到MDC，
+ * 不再依赖事件循环线程上的MDC，避免交错执行的请求之间串号或互相清理MDC。
+ * 通过 META-INF/services 注册到 ContextRegistry，需开启 spring.reactor.context-propagation=auto
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+public class TraceMdcAccessor implements ThreadLocalAccessor<TraceIdUtils.TraceInfo> {
+
+    /**
+     * Reactor Context中追踪信息的key
+     */
+    public static final String KEY = "leyue.gateway.traceInfo";
+
+    public static final String MDC_TRACE_ID = "traceId";
+    public static final String MDC_SPAN_ID = "spanId";
+    public static final String MDC_TRACE_SOURCE = "traceSource";
+
+    private static final ThreadLocal<TraceIdUtils.TraceInfo> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 当前线程上恢复的追踪信息，不在请求上下文中时返回null
+     */
+    public static TraceIdUtils.TraceInfo current() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public Object key() {
+        return KEY;
+    }
+
+    @Override
+    public TraceIdUtils.TraceInfo getValue() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public void setValue(TraceIdUtils.TraceInfo traceInfo) {
+        CURRENT.set(traceInfo);
+        MDC.put(MDC_TRACE_ID, traceInfo.getTraceId());
+        MDC.put(MDC_SPAN_ID, traceInfo.getSpanId());
+        MDC.put(MDC_TRACE_SOURCE, traceInfo.getSource());
+    }
+
+    /**
+     * 仅移除追踪相关的MDC项，不影响其他MDC内容
+     */
+    @Override
+    public void setValue() {
+        CURRENT.remove();
+        MDC.remove(MDC_TRACE_ID);
+        MDC.remove(MDC_SPAN_ID);
+        MDC.remove(MDC_TRACE_SOURCE);
+    }
+}
@@ -0,0 +1,159 @@
+package com.yuwang.leyuegateway;
+
+import com.alibaba.csp.sentinel.adapter.gateway.common.rule.GatewayFlowRule;
+import com.alibaba.csp.sentinel.adapter.gateway.common.rule.GatewayRuleManager;
+import com.yuwang.leyuegateway.constant.AuthHeaders;
+import com.yuwang.leyuegateway.constant.TracingHeaders;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 网关冒烟测试：启动完整应用，经静态路由转发到本地回显服务，验证JWT认证、追踪头与Sentinel限流。
+ * 不依赖Nacos，JVM上随 mvn test 运行；原生镜像中以 mvn -Daot -PnativeTest test 运行，
+ * 用于检查原生编译后jjwt、Sentinel等依赖反射与SPI的功能是否可用
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.nacos.config.enabled=false",
+        "spring.cloud.nacos.discovery.enabled=false",
+        "spring.cloud.service-registry.auto-registration.enabled=false",
+        "spring.cloud.gateway.discovery.locator.enabled=false",
+        "jwt.enable-menu-permission=false",
+        "gateway.rate-limit.engine=sentinel"
+})
+class GatewaySmokeTest {
+
+    private static final String ECHO_USER_ID = "X-Echo-User-Id";
+    private static final String ECHO_TRACEPARENT = "X-Echo-Traceparent";
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    private static final KeyPair KEY_PAIR = generateKeyPair();
+
+    /**
+     * 回显服务：把网关转发来的用户头与追踪头写回响应头
+     */
+    private static final DisposableServer ECHO_SERVER = HttpServer.create()
+            .host("127.0.0.1")
+            .port(0)
+            .handle((request, response) -> response
+                    .header(ECHO_USER_ID, String.valueOf(request.requestHeaders().get(AuthHeaders.USER_ID)))
+                    .header(ECHO_TRACEPARENT, String.valueOf(request.requestHeaders().get(TracingHeaders.W3C_TRACEPARENT)))
+                    .sendString(Mono.just("ok")))
+            .bindNow();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @DynamicPropertySource
+    static void gatewayProperties(DynamicPropertyRegistry registry) {
+        // 列表属性只从一个属性源绑定，路由的各项配置都在这里设置
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "smoke");
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/smoke/**");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> "http://127.0.0.1:" + ECHO_SERVER.port());
+        registry.add("jwt.public-key", () -> "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(KEY_PAIR.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----");
+    }
+
+    @AfterEach
+    void clearRules() {
+        GatewayRuleManager.loadRules(Set.of());
+    }
+
+    @AfterAll
+    static void stopEchoServer() {
+        ECHO_SERVER.disposeNow();
+    }
+
+    @Test
+    void testRejectsMissingToken() {
+        webTestClient.get().uri("/smoke/hello")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void testRejectsInvalidToken() {
+        webTestClient.get().uri("/smoke/hello")
+                .header("Authorization", "Bearer " + token(generateKeyPair()))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void testForwardsAuthenticatedUserAndTraceContext() {
+        webTestClient.get().uri("/smoke/hello")
+                .header("Authorization", "Bearer " + token(KEY_PAIR))
+                .header(TracingHeaders.W3C_TRACEPARENT, "00-" + TRACE_ID + "-00f067aa0ba902b7-01")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ECHO_USER_ID, "smoke-user")
+                .expectHeader().value(ECHO_TRACEPARENT, traceparent -> {
+                    assertTrue(traceparent.startsWith("00-" + TRACE_ID + "-"), traceparent);
+                    assertFalse(traceparent.contains("00f067aa0ba902b7"), "网关应生成新的spanId: " + traceparent);
+                });
+    }
+
+    @Test
+    void testRateLimitsRoute() {
+        GatewayRuleManager.loadRules(Set.of(new GatewayFlowRule("smoke").setCount(1).setIntervalSec(60)));
+        String token = token(KEY_PAIR);
+
+        int tooManyRequests = 0;
+        for (int i = 0; i < 5; i++) {
+            EntityExchangeResult<byte[]> result = webTestClient.get().uri("/smoke/hello")
+                    .header("Authorization", "Bearer " + token)
+                    .exchange()
+                    .expectBody().returnResult();
+            if (result.getStatus() == HttpStatus.TOO_MANY_REQUESTS) {
+                tooManyRequests++;
+            }
+        }
+        assertEquals(4, tooManyRequests);
+    }
+
+    private static String token(KeyPair keyPair) {
+        return Jwts.builder()
+                .setSubject("smoke-user")
+                .claim("username", "smoke")
+                .claim("roles", List.of("admin"))
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.yuwang.leyuegateway.auth;
+
+import com.yuwang.leyuegateway.config.GatewayAuthProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JwtKeyManager 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class JwtKeyManagerTest {
+
+    private static final KeyPair KEY_A = generateKeyPair();
+    private static final KeyPair KEY_B = generateKeyPair();
+
+    private GatewayAuthProperties authProperties;
+    private List<Object> publishedEvents;
+    private JwtKeyManager keyManager;
+
+    @BeforeEach
+    void setUp() {
+        authProperties = new GatewayAuthProperties();
+        authProperties.setPublicKey(toPem(KEY_A));
+        publishedEvents = new ArrayList<>();
+        keyManager = new JwtKeyManager(authProperties, publishedEvents::add);
+        keyManager.init();
+    }
+
+    @Test
+    void testParserReusedAcrossCalls() {
+        JwtParser parser = keyManager.getParser();
+        assertSame(parser, keyManager.getParser());
+
+        Claims claims = parser.parseClaimsJws(sign(KEY_A, null, "u1")).getBody();
+        assertEquals("u1", claims.getSubject());
+    }
+
+    @Test
+    void testRefreshWithoutChangeKeepsParser() {
+        JwtParser parser = keyManager.getParser();
+
+        keyManager.onRefresh();
+
+        assertSame(parser, keyManager.getParser());
+        assertTrue(publishedEvents.isEmpty());
+    }
+
+    @Test
+    void testRefreshSwapsParserAndPublishesEvent() {
+        String tokenA = sign(KEY_A, null, "u1");
+        String tokenB = sign(KEY_B, null, "u2");
+
+        authProperties.setPublicKey(toPem(KEY_B));
+        keyManager.onRefresh();
+
+        assertEquals("u2", keyManager.getParser().parseClaimsJws(tokenB).getBody().getSubject());
+        assertThrows(JwtException.class, () -> keyManager.getParser().parseClaimsJws(tokenA));
+        assertEquals(1, publishedEvents.size());
+        assertInstanceOf(JwtKeyRotatedEvent.class, publishedEvents.get(0));
+    }
+
+    @Test
+    void testKeySelectedByKid() {
+        authProperties.setPublicKeys(Map.of("key-b", toPem(KEY_B)));
+        keyManager.onRefresh();
+
+        // kid命中时使用对应公钥
+        assertEquals("u2", keyManager.getParser().parseClaimsJws(sign(KEY_B, "key-b", "u2")).getBody().getSubject());
+        // 未携带kid时使用默认公钥
+        assertEquals("u1", keyManager.getParser().parseClaimsJws(sign(KEY_A, null, "u1")).getBody().getSubject());
+        // kid对应的公钥与签名不匹配
+        assertThrows(JwtException.class, () -> keyManager.getParser().parseClaimsJws(sign(KEY_A, "key-b", "u1")));
+    }
+
+    @Test
+    void testUnknownKidWithoutDefaultKeyRejected() {
+        authProperties.setPublicKey(null);
+        authProperties.setPublicKeys(Map.of("key-b", toPem(KEY_B)));
+        keyManager.onRefresh();
+
+        assertThrows(JwtException.class, () -> keyManager.getParser().parseClaimsJws(sign(KEY_B, "key-x", "u2")));
+    }
+
+    @Test
+    void testInvalidKeyKeepsCurrentParser() {
+        JwtParser parser = keyManager.getParser();
+
+        authProperties.setPublicKey("-----BEGIN PUBLIC KEY-----not-a-key-----END PUBLIC KEY-----");
+        keyManager.onRefresh();
+
+        assertSame(parser, keyManager.getParser());
+        assertTrue(publishedEvents.isEmpty());
+    }
+
+    @Test
+    void testNoKeyConfigured() {
+        GatewayAuthProperties empty = new GatewayAuthProperties();
+        JwtKeyManager manager = new JwtKeyManager(empty, event -> { });
+        manager.init();
+
+        assertThrows(JwtException.class, manager::getParser);
+    }
+
+    private static String sign(KeyPair keyPair, String kid, String subject) {
+        var builder = Jwts.builder()
+                .setSubject(subject)
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000L))
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256);
+        if (kid != null) {
+            builder.setHeaderParam("kid", kid);
+        }
+        return builder.compact();
+    }
+
+    private static String toPem(KeyPair keyPair) {
+        String base64 = Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(keyPair.getPublic().getEncoded());
+        return "-----BEGIN PUBLIC KEY-----\n" + base64 + "\n-----END PUBLIC KEY-----";
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.yuwang.leyuegateway.auth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MenuPermissionMatcher 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class MenuPermissionMatcherTest {
+
+    private static final String[] MENU_PATTERNS = {
+            "/system/user", "/system/role/", "/system/*/list", "/api/order/**", "/api/order/{id}",
+            "/report", "/report/export/*.xlsx", "/dict", "/api/goods/?", "/monitor/**/detail"};
+
+    private static final String[] SEGMENTS = {
+            "system", "user", "users", "role", "list", "api", "order", "12", "report", "export", "a.xlsx",
+            "dict", "goods", "1", "monitor", "x", "detail"};
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    @Test
+    void testEmptyMenus() {
+        assertTrue(MenuPermissionMatcher.compile(null).isEmpty());
+        assertTrue(MenuPermissionMatcher.compile(List.of()).isEmpty());
+        assertFalse(MenuPermissionMatcher.compile(null).permits("/system/user"));
+    }
+
+    @Test
+    void testMatchesByPathUrlAndPermission() {
+        MenuPermissionMatcher matcher = MenuPermissionMatcher.compile(List.of(
+                Map.of("path", "/system/user"),
+                Map.of("url", "/api/order/**"),
+                Map.of("permission", "/report/*")));
+
+        assertFalse(matcher.isEmpty());
+        assertTrue(matcher.permits("/system/user"));
+        assertTrue(matcher.permits("/system/user/list"));
+        assertTrue(matcher.permits("/system/users"));
+        assertTrue(matcher.permits("/api/order/1/items"));
+        assertTrue(matcher.permits("/report/daily"));
+        assertFalse(matcher.permits("/system/role"));
+        assertFalse(matcher.permits("/api/goods"));
+    }
+
+    @Test
+    void testIgnoresMalformedMenus() {
+        MenuPermissionMatcher matcher = MenuPermissionMatcher.compile(List.of(
+                "not-a-map", Map.of("path", 123), Map.of("path", "/dict")));
+
+        assertTrue(matcher.permits("/dict/items"));
+        assertFalse(matcher.permits("/system"));
+    }
+
+    @Test
+    void testMatchesLegacyLinearScan() {
+        Random random = new Random(2026);
+        for (int round = 0; round < 300; round++) {
+            List<Map<String, Object>> menus = new ArrayList<>();
+            int menuCount = 1 + random.nextInt(5);
+            for (int i = 0; i < menuCount; i++) {
+                Map<String, Object> menu = new HashMap<>();
+                menu.put("path", MENU_PATTERNS[random.nextInt(MENU_PATTERNS.length)]);
+                if (random.nextBoolean()) {
+                    menu.put("url", MENU_PATTERNS[random.nextInt(MENU_PATTERNS.length)]);
+                }
+                menus.add(menu);
+            }
+            MenuPermissionMatcher matcher = MenuPermissionMatcher.compile(menus);
+
+            for (int p = 0; p < 30; p++) {
+                String path = randomPath(random);
+                assertEquals(legacyHasPermission(menus, path), matcher.permits(path),
+                        "menus=" + menus + ", path=" + path);
+            }
+        }
+    }
+
+    private String randomPath(Random random) {
+        StringBuilder path = new StringBuilder();
+        int depth = 1 + random.nextInt(4);
+        for (int i = 0; i < depth; i++) {
+            path.append('/').append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+        }
+        if (random.nextInt(5) == 0) {
+            path.append('/');
+        }
+        return path.toString();
+    }
+
+    /**
+     * 原MenuPermissionHandler中的逐条匹配逻辑
+     */
+    private boolean legacyHasPermission(List<Map<String, Object>> menus, String path) {
+        return menus.stream().anyMatch(menu -> {
+            for (String field : new String[]{"path", "url", "permission"}) {
+                String pattern = (String) menu.get(field);
+                if (pattern != null && (antPathMatcher.match(pattern, path)
+                        || antPathMatcher.match(pattern + "/**", path)
+                        || path.startsWith(pattern))) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+}
@@ -0,0 +1,128 @@
+package com.yuwang.leyuegateway.auth;
+
+import com.yuwang.leyuegateway.config.GatewayAuthProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VerifiedTokenCache 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class VerifiedTokenCacheTest {
+
+    private GatewayAuthProperties authProperties;
+    private MeterRegistry meterRegistry;
+    private AtomicInteger verifyCount;
+
+    @BeforeEach
+    void setUp() {
+        authProperties = new GatewayAuthProperties();
+        authProperties.setClockSkew(60);
+        meterRegistry = new SimpleMeterRegistry();
+        verifyCount = new AtomicInteger();
+    }
+
+    @Test
+    void testRepeatedTokenVerifiedOnce() {
+        VerifiedTokenCache cache = newCache();
+        long exp = System.currentTimeMillis() + 3_600_000L;
+
+        AuthenticatedUser first = cache.resolve("token-a", t -> verify("u1", exp));
+        AuthenticatedUser second = cache.resolve("token-a", t -> verify("u1", exp));
+
+        assertSame(first, second);
+        assertEquals(1, verifyCount.get());
+
+        cache.resolve("token-b", t -> verify("u2", exp));
+        assertEquals(2, verifyCount.get());
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", VerifiedTokenCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", VerifiedTokenCache.CACHE_NAME)
+                .tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void testTokenWithinClockSkewOfExpiryNotReused() {
+        VerifiedTokenCache cache = newCache();
+        // 距离过期仅30秒，小于60秒的时钟漂移容忍度
+        long exp = System.currentTimeMillis() + 30_000L;
+
+        cache.resolve("token-a", t -> verify("u1", exp));
+        cache.resolve("token-a", t -> verify("u1", exp));
+
+        assertEquals(2, verifyCount.get());
+    }
+
+    @Test
+    void testTokenWithoutExpirationNotReused() {
+        VerifiedTokenCache cache = newCache();
+
+        cache.resolve("token-a", t -> verify("u1", 0L));
+        cache.resolve("token-a", t -> verify("u1", 0L));
+
+        assertEquals(2, verifyCount.get());
+    }
+
+    @Test
+    void testFailedVerificationNotCached() {
+        VerifiedTokenCache cache = newCache();
+
+        assertThrows(IllegalArgumentException.class, () -> cache.resolve("bad", t -> {
+            verifyCount.incrementAndGet();
+            throw new IllegalArgumentException("invalid signature");
+        }));
+        assertThrows(IllegalArgumentException.class, () -> cache.resolve("bad", t -> {
+            verifyCount.incrementAndGet();
+            throw new IllegalArgumentException("invalid signature");
+        }));
+
+        assertEquals(2, verifyCount.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testCacheDisabled() {
+        authProperties.setTokenCacheEnabled(false);
+        VerifiedTokenCache cache = newCache();
+        long exp = System.currentTimeMillis() + 3_600_000L;
+
+        cache.resolve("token-a", t -> verify("u1", exp));
+        cache.resolve("token-a", t -> verify("u1", exp));
+
+        assertEquals(2, verifyCount.get());
+    }
+
+    @Test
+    void testInvalidateAll() {
+        VerifiedTokenCache cache = newCache();
+        long exp = System.currentTimeMillis() + 3_600_000L;
+
+        cache.resolve("token-a", t -> verify("u1", exp));
+        cache.invalidateAll();
+        cache.resolve("token-a", t -> verify("u1", exp));
+
+        assertEquals(2, verifyCount.get());
+    }
+
+    private VerifiedTokenCache newCache() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry));
+        return new VerifiedTokenCache(authProperties, beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    private AuthenticatedUser verify(String userId, long expiresAtMillis) {
+        verifyCount.incrementAndGet();
+        return new AuthenticatedUser(userId, "name-" + userId, "admin", List.of(), expiresAtMillis);
+    }
+}
@@ -0,0 +1,169 @@
+package com.yuwang.leyuegateway.cache;
+
+import com.yuwang.leyuegateway.auth.AuthenticatedUser;
+import com.yuwang.leyuegateway.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ResponseCache 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class ResponseCacheTest {
+
+    private static final Route DISCOVERY_ROUTE = Route.async().id("ReactiveCompositeDiscoveryClient_user-service")
+            .uri("lb://user-service").predicate(exchange -> true).build();
+    private static final byte[] BODY = "{\"menus\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    private ResponseCacheProperties properties;
+    private ResponseCacheProperties.Route route;
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ResponseCacheProperties();
+        route = new ResponseCacheProperties.Route();
+        route.setPaths(List.of("/system/menu/**", "/system/dict/**"));
+        properties.getRoutes().put("user-service", route);
+        responseCache = new ResponseCache(properties,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        responseCache.rebuild();
+    }
+
+    @Test
+    void testPolicyByServiceNameAndPath() {
+        assertNotNull(responseCache.policyFor(exchange(MockServerHttpRequest.get("/system/menu/tree"))));
+        assertNull(responseCache.policyFor(exchange(MockServerHttpRequest.get("/system/user/list"))));
+        assertNull(responseCache.policyFor(exchange(MockServerHttpRequest.post("/system/menu/tree"))));
+        assertNull(responseCache.policyFor(exchange(MockServerHttpRequest.get("/system/menu/tree")
+                .header(HttpHeaders.CACHE_CONTROL, "no-store"))));
+        assertTrue(responseCache.bypassLookup(exchange(MockServerHttpRequest.get("/system/menu/tree")
+                .header(HttpHeaders.CACHE_CONTROL, "max-age=0"))));
+
+        MockServerWebExchange otherRoute = MockServerWebExchange.from(MockServerHttpRequest.get("/system/menu/tree"));
+        otherRoute.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id("order").uri("lb://order-service").predicate(exchange -> true).build());
+        assertNull(responseCache.policyFor(otherRoute));
+    }
+
+    @Test
+    void testKeyVariesByQueryUserAndHeaders() {
+        route.setVaryByUser(true);
+        route.setVaryHeaders(List.of("Accept-Language"));
+        responseCache.rebuild();
+
+        MockServerWebExchange base = exchange(MockServerHttpRequest.get("/system/dict/type?code=sex"));
+        ResponseCache.Policy policy = responseCache.policyFor(base);
+        String key = responseCache.key(base, policy);
+
+        assertEquals(key, responseCache.key(exchange(MockServerHttpRequest.get("/system/dict/type?code=sex")), policy));
+        assertNotEquals(key, responseCache.key(exchange(MockServerHttpRequest.get("/system/dict/type?code=age")), policy));
+        assertNotEquals(key, responseCache.key(exchange(MockServerHttpRequest.get("/system/dict/type?code=sex")
+                .header("Accept-Language", "en")), policy));
+        assertNotEquals(key, responseCache.key(exchange(MockServerHttpRequest.get("/system/dict/type?code=sex")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")), policy));
+
+        MockServerWebExchange user1 = exchange(MockServerHttpRequest.get("/system/dict/type?code=sex"));
+        user1.getAttributes().put(AuthenticatedUser.EXCHANGE_ATTRIBUTE, new AuthenticatedUser("1", "a", "", List.of(), 0L));
+        MockServerWebExchange user2 = exchange(MockServerHttpRequest.get("/system/dict/type?code=sex"));
+        user2.getAttributes().put(AuthenticatedUser.EXCHANGE_ATTRIBUTE, new AuthenticatedUser("2", "b", "", List.of(), 0L));
+        assertNotEquals(responseCache.key(user1, policy), responseCache.key(user2, policy));
+    }
+
+    @Test
+    void testStoreHonoursCacheControl() {
+        ResponseCache.Policy policy = policy();
+
+        assertNull(store(policy, HttpStatus.OK, headers()));
+        assertNotNull(store(policy, HttpStatus.OK, headers(HttpHeaders.CACHE_CONTROL, "public, max-age=60")));
+        assertNull(store(policy, HttpStatus.OK, headers(HttpHeaders.CACHE_CONTROL, "max-age=60, no-store")));
+        assertNull(store(policy, HttpStatus.OK, headers(HttpHeaders.CACHE_CONTROL, "no-cache")));
+        assertNull(store(policy, HttpStatus.OK, headers(HttpHeaders.CACHE_CONTROL, "private, max-age=60")));
+        assertNull(store(policy, HttpStatus.OK, headers(HttpHeaders.CACHE_CONTROL, "s-maxage=0, max-age=60")));
+        assertNull(store(policy, HttpStatus.INTERNAL_SERVER_ERROR, headers(HttpHeaders.CACHE_CONTROL, "max-age=60")));
+
+        HttpHeaders withCookie = headers(HttpHeaders.CACHE_CONTROL, "max-age=60");
+        withCookie.add(HttpHeaders.SET_COOKIE, "a=b");
+        assertNull(store(policy, HttpStatus.OK, withCookie));
+
+        HttpHeaders vary = headers(HttpHeaders.CACHE_CONTROL, "max-age=60");
+        vary.add(HttpHeaders.VARY, "Accept-Encoding");
+        assertNotNull(store(policy, HttpStatus.OK, vary));
+        vary.set(HttpHeaders.VARY, "Accept-Encoding, Accept-Language");
+        assertNull(store(policy, HttpStatus.OK, vary));
+        vary.set(HttpHeaders.VARY, "*");
+        assertNull(store(policy, HttpStatus.OK, vary));
+
+        // 路由配置了ttl时缓存未声明Cache-Control的响应；按用户缓存时允许private
+        route.setTtl(Duration.ofSeconds(30));
+        route.setVaryByUser(true);
+        responseCache.rebuild();
+        ResponseCache.Policy userPolicy = policy();
+        assertNotNull(store(userPolicy, HttpStatus.OK, headers()));
+        assertNotNull(store(userPolicy, HttpStatus.OK, headers(HttpHeaders.CACHE_CONTROL, "private, max-age=60")));
+    }
+
+    @Test
+    void testStoredHeadersAndFreshness() {
+        HttpHeaders headers = headers(HttpHeaders.CACHE_CONTROL, "max-age=60");
+        headers.setETag("\"v1\"");
+        headers.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+        headers.setContentLength(BODY.length);
+        CachedResponse cached = store(policy(), HttpStatus.OK, headers);
+
+        assertEquals("\"v1\"", cached.getETag());
+        assertFalse(cached.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING));
+        assertFalse(cached.getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH));
+        assertSame(cached, responseCache.getFresh("k"));
+        assertTrue(cached.isFresh(System.nanoTime()));
+        assertFalse(cached.isFresh(System.nanoTime() + Duration.ofSeconds(61).toNanos()));
+    }
+
+    @Test
+    void testIfNoneMatch() {
+        assertTrue(ResponseCache.matchesIfNoneMatch(List.of("\"a\", \"v1\""), "\"v1\""));
+        assertTrue(ResponseCache.matchesIfNoneMatch(List.of("W/\"v1\""), "\"v1\""));
+        assertTrue(ResponseCache.matchesIfNoneMatch(List.of("*"), "\"v1\""));
+        assertFalse(ResponseCache.matchesIfNoneMatch(List.of("\"v2\""), "\"v1\""));
+        assertFalse(ResponseCache.matchesIfNoneMatch(null, "\"v1\""));
+        assertFalse(ResponseCache.matchesIfNoneMatch(List.of("\"v1\""), null));
+    }
+
+    private ResponseCache.Policy policy() {
+        return responseCache.policyFor(exchange(MockServerHttpRequest.get("/system/menu/tree")));
+    }
+
+    private CachedResponse store(ResponseCache.Policy policy, HttpStatus status, HttpHeaders headers) {
+        return responseCache.store("k", policy, status, headers, BODY);
+    }
+
+    private static HttpHeaders headers(String... nameValues) {
+        HttpHeaders headers = new HttpHeaders();
+        for (int i = 0; i < nameValues.length; i += 2) {
+            headers.add(nameValues[i], nameValues[i + 1]);
+        }
+        return headers;
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, DISCOVERY_ROUTE);
+        return exchange;
+    }
+}
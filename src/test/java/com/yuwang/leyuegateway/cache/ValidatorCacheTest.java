@@ -0,0 +1,210 @@
+package com.yuwang.leyuegateway.cache;
+
+import com.yuwang.leyuegateway.config.ResponseCacheProperties;
+import com.yuwang.leyuegateway.constant.AuthHeaders;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ValidatorCache 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class ValidatorCacheTest {
+
+    private static final String KEY = "user-service|/system/menu/tree";
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<ClientRequest> revalidations = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCache.Policy policy;
+    private ValidatorCache validatorCache;
+    private HttpStatus revalidationStatus;
+
+    @BeforeEach
+    void setUp() {
+        ResponseCacheProperties.Route route = new ResponseCacheProperties.Route();
+        route.setValidatorTtl(Duration.ofSeconds(10));
+        policy = new ResponseCache.Policy(route);
+        meterRegistry = new SimpleMeterRegistry();
+        revalidationStatus = HttpStatus.NOT_MODIFIED;
+        WebClient loadBalanced = WebClient.builder().exchangeFunction(request -> {
+            revalidations.add(request);
+            return Mono.just(ClientResponse.create(revalidationStatus).header(HttpHeaders.ETAG, "\"v1\"").build());
+        }).build();
+        validatorCache = new ValidatorCache(new ResponseCacheProperties(), WebClient.create(), loadBalanced,
+                meterRegistry);
+        validatorCache.setNanoClock(clock::get);
+    }
+
+    @Test
+    void testRecordAndAnswerConditionalRequests() {
+        record(HttpStatus.OK, "no-cache", null);
+
+        MockServerWebExchange byIfModifiedSince = MockServerWebExchange.from(MockServerHttpRequest.get("/system/menu/tree")
+                .ifModifiedSince(LAST_MODIFIED));
+        StepVerifier.create(validatorCache.tryNotModified(byIfModifiedSince, KEY, "NOT_MODIFIED")).verifyComplete();
+        assertEquals(HttpStatus.NOT_MODIFIED, byIfModifiedSince.getResponse().getStatusCode());
+        assertEquals(LAST_MODIFIED, byIfModifiedSince.getResponse().getHeaders().getLastModified());
+        assertEquals("no-cache", byIfModifiedSince.getResponse().getHeaders().getCacheControl());
+
+        // 有If-None-Match时只比较ETag
+        assertNull(validatorCache.tryNotModified(conditional("\"v0\""), KEY, "NOT_MODIFIED"));
+        assertNull(validatorCache.tryNotModified(MockServerWebExchange.from(MockServerHttpRequest.get("/system/menu/tree")
+                .ifNoneMatch("\"v0\"").ifModifiedSince(LAST_MODIFIED)), KEY, "NOT_MODIFIED"));
+        assertNotNull(validatorCache.tryNotModified(conditional("*"), KEY, "NOT_MODIFIED"));
+        assertEquals(2.0, meterRegistry.get(ValidatorCache.NOT_MODIFIED_METRIC).counter().count());
+
+        // 超过有效期后不再直接响应
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertNull(validatorCache.tryNotModified(conditional("\"v1\""), KEY, "NOT_MODIFIED"));
+        assertTrue(revalidations.isEmpty());
+    }
+
+    @Test
+    void testUnsuitableResponsesAreNotRecorded() {
+        record(HttpStatus.OK, "no-store", null);
+        assertNull(validatorCache.get(KEY));
+        record(HttpStatus.OK, "private", null);
+        assertNull(validatorCache.get(KEY));
+
+        // 上游返回错误时删除已有校验器
+        record(HttpStatus.OK, "max-age=0", null);
+        assertNotNull(validatorCache.get(KEY));
+        record(HttpStatus.NOT_FOUND, "max-age=0", null);
+        assertNull(validatorCache.get(KEY));
+    }
+
+    @Test
+    void testBackgroundRevalidation() {
+        record(HttpStatus.OK, "no-cache", URI.create("lb://user-service/system/menu/tree"));
+        clock.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        assertNotNull(validatorCache.tryNotModified(conditional("\"v1\""), KEY, "NOT_MODIFIED"));
+        assertEquals(1, revalidations.size());
+        ClientRequest request = revalidations.get(0);
+        assertEquals(URI.create("http://user-service/system/menu/tree"), request.url());
+        assertEquals("\"v1\"", request.headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("zh-CN", request.headers().getFirst(HttpHeaders.ACCEPT_LANGUAGE));
+        assertNull(request.headers().getFirst(HttpHeaders.HOST));
+        assertEquals(1.0, meterRegistry.get(ValidatorCache.REVALIDATIONS_METRIC).counter().count());
+
+        // 上游确认未变化，有效期重新计算
+        clock.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertNotNull(validatorCache.tryNotModified(conditional("\"v1\""), KEY, "NOT_MODIFIED"));
+        assertEquals(1, revalidations.size());
+
+        // 上游返回其他状态时删除校验器
+        revalidationStatus = HttpStatus.NOT_FOUND;
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertNotNull(validatorCache.tryNotModified(conditional("\"v1\""), KEY, "NOT_MODIFIED"));
+        assertEquals(2, revalidations.size());
+        assertNull(validatorCache.get(KEY));
+    }
+
+    @Test
+    void testRevalidationForwardsOnlyAllowedHeaders() {
+        ResponseCacheProperties.Route route = new ResponseCacheProperties.Route();
+        route.setValidatorTtl(Duration.ofSeconds(10));
+        route.setVaryHeaders(List.of("X-Tenant-Id", "X-User-Roles"));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/system/menu/tree")
+                .header(HttpHeaders.ACCEPT, "application/json")
+                .header("X-Tenant-Id", "t1")
+                .header("X-User-Id", "u1")
+                .header("X-User-Roles", "admin")
+                .header("X-Internal-Token", "secret"));
+        record(exchange, new ResponseCache.Policy(route), URI.create("lb://user-service/system/menu/tree"));
+        clock.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        assertNotNull(validatorCache.tryNotModified(conditional("\"v1\""), KEY, "NOT_MODIFIED"));
+        assertEquals(1, revalidations.size());
+        HttpHeaders forwarded = revalidations.get(0).headers();
+        assertEquals("application/json", forwarded.getFirst(HttpHeaders.ACCEPT));
+        assertEquals("t1", forwarded.getFirst("X-Tenant-Id"));
+        assertNull(forwarded.getFirst("X-User-Id"));
+        assertNull(forwarded.getFirst("X-User-Roles"));
+        assertNull(forwarded.getFirst("X-Internal-Token"));
+    }
+
+    @Test
+    void testAuthenticatedRevalidationUsesTriggeringCredentials() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/system/menu/tree")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer recorder")
+                .header(HttpHeaders.COOKIE, "SESSION=abc"));
+        record(exchange, policy, URI.create("lb://user-service/system/menu/tree"));
+        assertTrue(validatorCache.get(KEY).getRequestHeaders().isEmpty());
+        assertTrue(validatorCache.get(KEY).isAuthenticated());
+        clock.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        // 未认证的请求仍可得到304，但不会触发后台校验
+        assertNotNull(validatorCache.tryNotModified(conditional("\"v1\""), KEY, "NOT_MODIFIED"));
+        assertTrue(revalidations.isEmpty());
+
+        // 已认证的请求触发校验，携带该请求自身的凭证与用户身份头
+        MockServerWebExchange trigger = MockServerWebExchange.from(MockServerHttpRequest.get("/system/menu/tree")
+                .ifNoneMatch("\"v1\"")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer trigger")
+                .header(AuthHeaders.USER_ID, "u2")
+                .header("X-Internal-Token", "secret"));
+        assertNotNull(validatorCache.tryNotModified(trigger, KEY, "NOT_MODIFIED"));
+        assertEquals(1, revalidations.size());
+        HttpHeaders forwarded = revalidations.get(0).headers();
+        assertEquals("Bearer trigger", forwarded.getFirst(HttpHeaders.AUTHORIZATION));
+        assertEquals("u2", forwarded.getFirst(AuthHeaders.USER_ID));
+        assertNull(forwarded.getFirst(HttpHeaders.COOKIE));
+        assertNull(forwarded.getFirst("X-Internal-Token"));
+        assertTrue(validatorCache.get(KEY).isAuthenticated());
+    }
+
+    private void record(HttpStatus status, String cacheControl, URI upstreamUri) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/system/menu/tree")
+                .header(HttpHeaders.HOST, "gateway.leyue.com")
+                .header(HttpHeaders.ACCEPT_LANGUAGE, "zh-CN")
+                .ifNoneMatch("\"v0\""));
+        record(exchange, status, cacheControl, policy, upstreamUri);
+    }
+
+    private void record(MockServerWebExchange exchange, ResponseCache.Policy policy, URI upstreamUri) {
+        record(exchange, HttpStatus.OK, "no-cache", policy, upstreamUri);
+    }
+
+    private void record(MockServerWebExchange exchange, HttpStatus status, String cacheControl,
+                        ResponseCache.Policy policy, URI upstreamUri) {
+        if (upstreamUri != null) {
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR,
+                    new LinkedHashSet<>(List.of(upstreamUri)));
+        }
+        exchange.getResponse().setStatusCode(status);
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        headers.setCacheControl(cacheControl);
+        headers.setETag("\"v1\"");
+        headers.setLastModified(LAST_MODIFIED);
+        validatorCache.record(exchange, KEY, policy);
+    }
+
+    private static MockServerWebExchange conditional(String ifNoneMatch) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/system/menu/tree").ifNoneMatch(ifNoneMatch));
+    }
+}
@@ -0,0 +1,176 @@
+package com.yuwang.leyuegateway.circuitbreaker;
+
+import com.yuwang.leyuegateway.config.CircuitBreakerProperties;
+import com.yuwang.leyuegateway.constant.CircuitBreakerWindowType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.gateway.route.Route;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CircuitBreaker 与 CircuitBreakerRegistry 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class CircuitBreakerTest {
+
+    private static final Route ROUTE = Route.async().id("ReactiveCompositeDiscoveryClient_user-service")
+            .uri("lb://user-service").predicate(exchange -> true).build();
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    private CircuitBreakerProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreakerRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CircuitBreakerProperties();
+        CircuitBreakerProperties.Breaker breaker = new CircuitBreakerProperties.Breaker();
+        breaker.setWindowSize(10);
+        breaker.setMinimumCalls(4);
+        breaker.setPermittedCallsInHalfOpen(2);
+        // discovery locator生成的路由按服务名配置
+        properties.getRoutes().put("user-service", breaker);
+        properties.getInstance().setMinimumCalls(2);
+
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        registry = new CircuitBreakerRegistry(properties, beanFactory.getBeanProvider(MeterRegistry.class));
+        registry.setNanoClock(clock::get);
+        registry.rebuild();
+    }
+
+    @Test
+    void testOpensAtFailureRateAndRecoversThroughHalfOpen() {
+        CircuitBreaker breaker = registry.forRoute(ROUTE);
+        record(breaker, false, 3);
+        record(breaker, true, 2);
+        // 2/5 = 40%
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        record(breaker, true, 1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(clock.get()));
+        assertEquals(Duration.ofSeconds(10).toNanos(), breaker.remainingOpenNanos(clock.get()));
+        assertEquals(1.0, stateGauge(ROUTE.getId()));
+
+        // 等待结束后放行两个试探请求
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(breaker.tryAcquire(clock.get()));
+        assertTrue(breaker.tryAcquire(clock.get()));
+        assertFalse(breaker.tryAcquire(clock.get()));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // 试探失败重新打开
+        breaker.onResult(true, clock.get());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(breaker.tryAcquire(clock.get()));
+        assertTrue(breaker.tryAcquire(clock.get()));
+        record(breaker, false, 2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        // 关闭后窗口清空
+        assertEquals(-1.0, breaker.failureRate(clock.get()));
+
+        assertEquals(2.0, transitions("closed", "open") + transitions("half_open", "closed"));
+        assertEquals(2.0, transitions("open", "half_open"));
+    }
+
+    @Test
+    void testHalfOpenPermitsRefillWhenProbesNeverComplete() {
+        CircuitBreaker breaker = registry.forRoute(ROUTE);
+        record(breaker, true, 4);
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(breaker.tryAcquire(clock.get()));
+        assertTrue(breaker.tryAcquire(clock.get()));
+        assertFalse(breaker.tryAcquire(clock.get()));
+
+        // 试探请求被取消没有结果
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(breaker.tryAcquire(clock.get()));
+    }
+
+    @Test
+    void testCountBasedWindowDropsOldestOutcomes() {
+        CountBasedWindow window = new CountBasedWindow(3);
+        window.record(true, 0L);
+        window.record(true, 0L);
+        window.record(false, 0L);
+        assertEquals(2, window.failedCalls(0L));
+        window.record(false, 0L);
+        window.record(false, 0L);
+        assertEquals(3, window.totalCalls(0L));
+        assertEquals(0, window.failedCalls(0L));
+
+        window.reset();
+        assertEquals(0, window.totalCalls(0L));
+    }
+
+    @Test
+    void testTimeBasedWindowExpiresBuckets() {
+        TimeBasedWindow window = new TimeBasedWindow(2);
+        long now = TimeUnit.SECONDS.toNanos(100);
+        window.record(true, now);
+        window.record(false, now + TimeUnit.MILLISECONDS.toNanos(500));
+        window.record(true, now + TimeUnit.SECONDS.toNanos(1));
+        assertEquals(3, window.totalCalls(now + TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(2, window.failedCalls(now + TimeUnit.SECONDS.toNanos(1)));
+
+        // 第100秒的桶滑出窗口
+        assertEquals(1, window.totalCalls(now + TimeUnit.SECONDS.toNanos(2)));
+        // 复用同一个桶时从零开始计数
+        window.record(false, now + TimeUnit.SECONDS.toNanos(2));
+        assertEquals(2, window.totalCalls(now + TimeUnit.SECONDS.toNanos(2)));
+        assertEquals(1, window.failedCalls(now + TimeUnit.SECONDS.toNanos(2)));
+        assertEquals(0, window.totalCalls(now + TimeUnit.SECONDS.toNanos(10)));
+    }
+
+    @Test
+    void testOpenInstancesAreExcludedFromLoadBalancing() {
+        List<ServiceInstance> instances = List.of(instance("10.0.0.1"), instance("10.0.0.2"));
+        assertSame(instances, registry.available(instances));
+
+        registry.recordInstance(instances.get(0), true);
+        registry.recordInstance(instances.get(0), true);
+        assertEquals(List.of(instances.get(1)), registry.available(instances));
+
+        // 等待结束后重新参与选择，被选中时占用试探名额
+        clock.addAndGet(properties.getInstance().getWaitDurationInOpen().toNanos());
+        assertEquals(instances, registry.available(instances));
+        registry.onSelected(instances.get(0));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, registry.forInstance(instances.get(0)).getState());
+    }
+
+    private void record(CircuitBreaker breaker, boolean failure, int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onResult(failure, clock.get());
+        }
+    }
+
+    private double stateGauge(String name) {
+        return meterRegistry.get(CircuitBreakerRegistry.STATE_METRIC).tag("type", "route").tag("name", name)
+                .gauge().value();
+    }
+
+    private double transitions(String from, String to) {
+        return meterRegistry.find(CircuitBreakerRegistry.TRANSITIONS_METRIC).tag("from", from).tag("to", to)
+                .counters().stream().mapToDouble(counter -> counter.count()).sum();
+    }
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance(host + ":8080", "user-service", host, 8080, false);
+    }
+}
@@ -0,0 +1,58 @@
+package com.yuwang.leyuegateway.config;
+
+import com.yuwang.leyuegateway.loadbalancer.OutlierDetector;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GatewayRuntimeHints 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class GatewayRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    GatewayRuntimeHintsTest() {
+        new GatewayRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void testHintedTypesExistOnClasspath() {
+        // 依赖升级后类名变化时提示会静默失效，这里确保登记的类都存在
+        Stream.of(GatewayRuntimeHints.JJWT_IMPL_TYPES, GatewayRuntimeHints.SENTINEL_SPI_TYPES,
+                        GatewayRuntimeHints.SENTINEL_GATEWAY_RULE_TYPES)
+                .flatMap(List::stream)
+                .forEach(type -> assertDoesNotThrow(() -> Class.forName(type, false, getClass().getClassLoader()),
+                        type));
+    }
+
+    @Test
+    void testRegistersLibraryHints() {
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onType(TypeReference.of("io.jsonwebtoken.impl.DefaultJwtParserBuilder"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource()
+                .forResource("META-INF/services/io.jsonwebtoken.io.Deserializer").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource()
+                .forResource("META-INF/services/com.alibaba.csp.sentinel.slotchain.ProcessorSlot").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onType(TypeReference.of("com.alibaba.csp.sentinel.adapter.gateway.common.slot.GatewayFlowSlot"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+    }
+
+    @Test
+    void testRegistersGatewayTypes() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(StartupProperties.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(OutlierDetector.EjectionEvent.class).test(hints));
+    }
+}
@@ -0,0 +1,77 @@
+package com.yuwang.leyuegateway.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SelectiveLazyInitializationPostProcessor 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class SelectiveLazyInitializationPostProcessorTest {
+
+    private static final AtomicInteger CREATED = new AtomicInteger();
+
+    @Test
+    void testMarksMatchingBeansLazy() {
+        SelectiveLazyInitializationPostProcessor processor = processor(LazyTarget.class.getName());
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("lazyTarget", new RootBeanDefinition(LazyTarget.class));
+        beanFactory.registerBeanDefinition("eagerTarget", new RootBeanDefinition(String.class));
+
+        processor.postProcessBeanFactory(beanFactory);
+
+        assertTrue(beanFactory.getBeanDefinition("lazyTarget").isLazyInit());
+        assertFalse(beanFactory.getBeanDefinition("eagerTarget").isLazyInit());
+    }
+
+    @Test
+    void testBeanMethodMatchedByReturnType() {
+        CREATED.set(0);
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.addBeanFactoryPostProcessor(processor(LazyTarget.class.getName()));
+            context.register(LazyTargetConfiguration.class);
+            context.refresh();
+
+            assertEquals(0, CREATED.get(), "匹配的@Bean应延迟到首次使用时创建");
+            context.getBean(LazyTarget.class);
+            assertEquals(1, CREATED.get());
+        }
+    }
+
+    private static SelectiveLazyInitializationPostProcessor processor(String... prefixes) {
+        MockEnvironment environment = new MockEnvironment();
+        for (int i = 0; i < prefixes.length; i++) {
+            environment.setProperty(StartupProperties.PREFIX + ".lazy-beans[" + i + "]", prefixes[i]);
+        }
+        SelectiveLazyInitializationPostProcessor processor = new SelectiveLazyInitializationPostProcessor();
+        processor.setEnvironment(environment);
+        return processor;
+    }
+
+    static class LazyTarget {
+
+        LazyTarget() {
+            CREATED.incrementAndGet();
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class LazyTargetConfiguration {
+
+        @Bean
+        LazyTarget lazyTarget() {
+            return new LazyTarget();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yuwang.leyuegateway.cache.ResponseCache;
+import com.yuwang.leyuegateway.circuitbreaker.CircuitBreaker;
+import com.yuwang.leyuegateway.circuitbreaker.CircuitBreakerRegistry;
+import com.yuwang.leyuegateway.config.CircuitBreakerProperties;
+import com.yuwang.leyuegateway.config.ResponseCacheProperties;
+import com.yuwang.leyuegateway.handler.ErrorResponseWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CircuitBreakerGlobalFilter 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class CircuitBreakerGlobalFilterTest {
+
+    private static final Route ROUTE = Route.async().id("user-service").uri("lb://user-service")
+            .predicate(exchange -> true).build();
+    private static final String BODY = "{\"code\":200,\"data\":[\"菜单\"]}";
+
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreakerRegistry registry;
+    private ResponseCache responseCache;
+    private CircuitBreakerGlobalFilter filter;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        CircuitBreakerProperties properties = new CircuitBreakerProperties();
+        properties.getRoute().setMinimumCalls(2);
+        properties.getRoute().setWaitDurationInOpen(Duration.ofMinutes(1));
+
+        ResponseCacheProperties cacheProperties = new ResponseCacheProperties();
+        ResponseCacheProperties.Route cacheRoute = new ResponseCacheProperties.Route();
+        cacheRoute.setTtl(Duration.ofMillis(1));
+        cacheProperties.getRoutes().put("user-service", cacheRoute);
+        cacheProperties.setStaleIfError(Duration.ofMinutes(10));
+
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        responseCache = new ResponseCache(cacheProperties, beanFactory.getBeanProvider(MeterRegistry.class));
+        responseCache.rebuild();
+        beanFactory.addBean("responseCache", responseCache);
+        registry = new CircuitBreakerRegistry(properties, beanFactory.getBeanProvider(MeterRegistry.class));
+        registry.rebuild();
+        filter = new CircuitBreakerGlobalFilter(registry, new ErrorResponseWriter(),
+                beanFactory.getBeanProvider(ResponseCache.class));
+        upstreamCalls = new AtomicInteger();
+    }
+
+    @Test
+    void testFastFailWhenOpen() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(filter.filter(exchange("/system/user/list"), upstream(HttpStatus.BAD_GATEWAY)))
+                    .verifyComplete();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, registry.forRoute(ROUTE).getState());
+
+        MockServerWebExchange exchange = exchange("/system/user/list");
+        StepVerifier.create(filter.filter(exchange, upstream(HttpStatus.OK))).verifyComplete();
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode());
+        assertEquals("60", exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(503, new ObjectMapper().readTree(exchange.getResponse().getBodyAsString().block())
+                .get("code").asInt());
+        assertEquals(1.0, rejected("fast-fail"));
+    }
+
+    @Test
+    void testFallbackToStaleCachedResponse() throws Exception {
+        MockServerWebExchange cachedExchange = exchange("/system/menu/tree");
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        assertNotNull(responseCache.store(responseCache.key(cachedExchange, responseCache.policyFor(cachedExchange)),
+                responseCache.policyFor(cachedExchange), HttpStatus.OK, headers, BODY.getBytes(StandardCharsets.UTF_8)));
+        Thread.sleep(5);
+
+        // 请求异常同样计为失败
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(filter.filter(exchange("/system/menu/tree"),
+                    exchange -> Mono.error(new IllegalStateException("connection refused")))).verifyError();
+        }
+
+        MockServerWebExchange exchange = exchange("/system/menu/tree");
+        StepVerifier.create(filter.filter(exchange, upstream(HttpStatus.OK))).verifyComplete();
+
+        assertEquals(0, upstreamCalls.get());
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals(BODY, exchange.getResponse().getBodyAsString().block());
+        assertEquals("STALE", exchange.getResponse().getHeaders().getFirst(ResponseCache.CACHE_STATUS_HEADER));
+        assertTrue(exchange.getAttributes().containsKey(ResponseCache.STALE_RESPONSE_ATTR));
+        assertEquals(1.0, rejected("fallback"));
+    }
+
+    private GatewayFilterChain upstream(HttpStatus status) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(status);
+            return exchange.getResponse().setComplete();
+        };
+    }
+
+    private double rejected(String result) {
+        return meterRegistry.get(CircuitBreakerRegistry.REJECTED_METRIC).tag("result", result).counter().count();
+    }
+
+    private static MockServerWebExchange exchange(String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        return exchange;
+    }
+}
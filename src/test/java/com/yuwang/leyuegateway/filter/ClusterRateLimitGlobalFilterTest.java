@@ -0,0 +1,79 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.config.RateLimitProperties;
+import com.yuwang.leyuegateway.constant.RateLimitKeyType;
+import com.yuwang.leyuegateway.handler.ErrorResponseWriter;
+import com.yuwang.leyuegateway.ratelimit.ClusterRateLimiter;
+import com.yuwang.leyuegateway.ratelimit.InMemoryQuotaCoordinator;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ClusterRateLimitGlobalFilter 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class ClusterRateLimitGlobalFilterTest {
+
+    @Test
+    void testRejectsWithSentinelContractAcrossNodes() {
+        InMemoryQuotaCoordinator coordinator = new InMemoryQuotaCoordinator(Duration.ofMinutes(5));
+        ClusterRateLimitGlobalFilter node1 = filter(coordinator);
+        ClusterRateLimitGlobalFilter node2 = filter(coordinator);
+        AtomicInteger chainInvocations = new AtomicInteger();
+        GatewayFilterChain chain = ex -> {
+            chainInvocations.incrementAndGet();
+            return Mono.empty();
+        };
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(node1.filter(exchange(), chain)).verifyComplete();
+            StepVerifier.create(node2.filter(exchange(), chain)).verifyComplete();
+        }
+        MockServerWebExchange rejected = exchange();
+        StepVerifier.create(node2.filter(rejected, chain)).verifyComplete();
+
+        assertEquals(4, chainInvocations.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        String body = rejected.getResponse().getBodyAsString().block();
+        assertTrue(body.contains("\"code\":429"), body);
+        assertTrue(body.contains("\"routeId\":\"user-service\""), body);
+    }
+
+    private static ClusterRateLimitGlobalFilter filter(InMemoryQuotaCoordinator coordinator) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setRouteId("user-service");
+        rule.setKey(RateLimitKeyType.ROUTE);
+        rule.setCapacity(4);
+        rule.setRate(0.001);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRules(new ArrayList<>());
+        properties.getRules().add(rule);
+        properties.getCluster().setBatchSize(1);
+
+        ClusterRateLimiter limiter = new ClusterRateLimiter(properties, coordinator);
+        limiter.rebuild();
+        return new ClusterRateLimitGlobalFilter(limiter, new ErrorResponseWriter());
+    }
+
+    private static MockServerWebExchange exchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/api/user").build());
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id("user-service").uri("lb://user-service").predicate(ex -> true).build());
+        return exchange;
+    }
+}
@@ -0,0 +1,197 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.auth.AuthenticatedUser;
+import com.yuwang.leyuegateway.config.ConcurrencyLimitProperties;
+import com.yuwang.leyuegateway.constant.ConcurrencyLimitKeyType;
+import com.yuwang.leyuegateway.handler.ErrorResponseWriter;
+import com.yuwang.leyuegateway.ratelimit.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConcurrencyLimitGlobalFilter 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class ConcurrencyLimitGlobalFilterTest {
+
+    private ConcurrencyLimitProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitGlobalFilter filter;
+    private Sinks.Empty<Void> downstream;
+    private GatewayFilterChain pendingChain;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setEnabled(true);
+        properties.setInitialLimit(2);
+        properties.setMinLimit(1);
+        properties.setMetricsEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+        downstream = Sinks.empty();
+        pendingChain = exchange -> downstream.asMono();
+    }
+
+    @Test
+    void testRejectsUserOverInFlightLimit() {
+        createFilter();
+        List<Disposable> inFlight = new ArrayList<>();
+        inFlight.add(filter.filter(exchange("u1", null), pendingChain).subscribe());
+        inFlight.add(filter.filter(exchange("u1", null), pendingChain).subscribe());
+
+        MockServerWebExchange rejected = exchange("u1", null);
+        StepVerifier.create(filter.filter(rejected, pendingChain)).verifyComplete();
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertTrue(rejected.getResponse().getBodyAsString().block().contains("\"code\":429"));
+
+        // 其他用户与未认证请求不受影响
+        MockServerWebExchange otherUser = exchange("u2", null);
+        inFlight.add(filter.filter(otherUser, pendingChain).subscribe());
+        assertNull(otherUser.getResponse().getStatusCode());
+        MockServerWebExchange anonymous = exchange(null, null);
+        StepVerifier.create(filter.filter(anonymous, ex -> Mono.empty())).verifyComplete();
+        assertNull(anonymous.getResponse().getStatusCode());
+
+        assertEquals(2.0, gauge(AdaptiveConcurrencyLimiter.INFLIGHT_METRIC, "u:u1").value());
+        assertEquals(2.0, gauge(AdaptiveConcurrencyLimiter.LIMIT_METRIC, "u:u1").value());
+        assertEquals(1.0, meterRegistry.get(AdaptiveConcurrencyLimiter.REJECTED_METRIC).counter().count());
+
+        // 下游完成后释放许可
+        downstream.tryEmitEmpty();
+        assertEquals(0.0, gauge(AdaptiveConcurrencyLimiter.INFLIGHT_METRIC, "u:u1").value());
+        StepVerifier.create(filter.filter(exchange("u1", null), ex -> Mono.empty())).verifyComplete();
+        inFlight.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void testCancelledRequestReleasesPermit() {
+        createFilter();
+        Disposable first = filter.filter(exchange("u1", null), pendingChain).subscribe();
+        Disposable second = filter.filter(exchange("u1", null), pendingChain).subscribe();
+        first.dispose();
+        second.dispose();
+
+        assertEquals(0.0, gauge(AdaptiveConcurrencyLimiter.INFLIGHT_METRIC, "u:u1").value());
+        assertEquals(2.0, gauge(AdaptiveConcurrencyLimiter.LIMIT_METRIC, "u:u1").value());
+    }
+
+    @Test
+    void testOverloadedDownstreamShrinksLimit() {
+        createFilter();
+        GatewayFilterChain overloaded = exchange -> {
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return Mono.empty();
+        };
+
+        StepVerifier.create(filter.filter(exchange("u1", null), overloaded)).verifyComplete();
+        StepVerifier.create(filter.filter(exchange("u1", null), overloaded)).verifyComplete();
+
+        assertTrue(gauge(AdaptiveConcurrencyLimiter.LIMIT_METRIC, "u:u1").value() < 2.0);
+        filter.filter(exchange("u1", null), pendingChain).subscribe();
+        MockServerWebExchange rejected = exchange("u1", null);
+        StepVerifier.create(filter.filter(rejected, pendingChain)).verifyComplete();
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+    }
+
+    @Test
+    void testInFlightKeyIsNotEvicted() {
+        properties.setMaxKeys(1);
+        createFilter();
+        filter.filter(exchange("u1", null), pendingChain).subscribe();
+        filter.filter(exchange("u1", null), pendingChain).subscribe();
+
+        for (int i = 0; i < 50; i++) {
+            StepVerifier.create(filter.filter(exchange("other-" + i, null), ex -> Mono.empty())).verifyComplete();
+        }
+
+        // u1的限制器仍在，在途请求数没有从0重新计算
+        MockServerWebExchange rejected = exchange("u1", null);
+        StepVerifier.create(filter.filter(rejected, pendingChain)).verifyComplete();
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals(2.0, gauge(AdaptiveConcurrencyLimiter.INFLIGHT_METRIC, "u:u1").value());
+    }
+
+    @Test
+    void testPerKeyMetricsDisabledByDefault() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setEnabled(true);
+        createFilter();
+
+        filter.filter(exchange("u1", null), pendingChain).subscribe();
+        filter.filter(exchange("u2", null), pendingChain).subscribe();
+
+        assertNull(meterRegistry.find(AdaptiveConcurrencyLimiter.INFLIGHT_METRIC).meter());
+        assertNull(meterRegistry.find(AdaptiveConcurrencyLimiter.LIMIT_METRIC).meter());
+        assertEquals(2.0, meterRegistry.get(AdaptiveConcurrencyLimiter.KEYS_METRIC).gauge().value());
+        assertEquals(2.0, meterRegistry.get(AdaptiveConcurrencyLimiter.TOTAL_INFLIGHT_METRIC).gauge().value());
+
+        downstream.tryEmitEmpty();
+        assertEquals(0.0, meterRegistry.get(AdaptiveConcurrencyLimiter.TOTAL_INFLIGHT_METRIC).gauge().value());
+    }
+
+    @Test
+    void testTenantKey() {
+        properties.setKey(ConcurrencyLimitKeyType.TENANT);
+        createFilter();
+
+        filter.filter(exchange("u1", "t1"), pendingChain).subscribe();
+        filter.filter(exchange("u2", "t1"), pendingChain).subscribe();
+        MockServerWebExchange rejected = exchange("u3", "t1");
+        StepVerifier.create(filter.filter(rejected, pendingChain)).verifyComplete();
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+
+        // 未携带租户的Token按用户限制
+        MockServerWebExchange noTenant = exchange("u3", null);
+        filter.filter(noTenant, pendingChain).subscribe();
+        assertNull(noTenant.getResponse().getStatusCode());
+        assertEquals(2.0, gauge(AdaptiveConcurrencyLimiter.INFLIGHT_METRIC, "t:t1").value());
+        assertEquals(1.0, gauge(AdaptiveConcurrencyLimiter.INFLIGHT_METRIC, "u:u3").value());
+
+        // 与租户ID相同的用户ID不共用限制
+        MockServerWebExchange sameId = exchange("t1", null);
+        filter.filter(sameId, pendingChain).subscribe();
+        assertNull(sameId.getResponse().getStatusCode());
+        assertEquals(1.0, gauge(AdaptiveConcurrencyLimiter.INFLIGHT_METRIC, "u:t1").value());
+    }
+
+    private void createFilter() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        ObjectProvider<MeterRegistry> provider = beanFactory.getBeanProvider(MeterRegistry.class);
+        filter = new ConcurrencyLimitGlobalFilter(new AdaptiveConcurrencyLimiter(properties, provider),
+                new ErrorResponseWriter());
+    }
+
+    private Gauge gauge(String name, String key) {
+        return meterRegistry.get(name).tag("key", key).gauge();
+    }
+
+    private static MockServerWebExchange exchange(String userId, String tenantId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/api").build());
+        if (userId != null) {
+            exchange.getAttributes().put(AuthenticatedUser.EXCHANGE_ATTRIBUTE,
+                    new AuthenticatedUser(userId, userId, tenantId, "", List.of(), 0L));
+        }
+        return exchange;
+    }
+}
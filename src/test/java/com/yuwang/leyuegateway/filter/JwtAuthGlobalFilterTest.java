@@ -0,0 +1,209 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.auth.JwtKeyManager;
+import com.yuwang.leyuegateway.auth.VerifiedTokenCache;
+import com.yuwang.leyuegateway.auth.WhitelistMatcher;
+import com.yuwang.leyuegateway.config.GatewayAuthProperties;
+import com.yuwang.leyuegateway.constant.AuthHeaders;
+import com.yuwang.leyuegateway.handler.ErrorResponseWriter;
+import com.yuwang.leyuegateway.handler.MenuPermissionHandler;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JwtAuthGlobalFilter 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class JwtAuthGlobalFilterTest {
+
+    private static final KeyPair KEY_PAIR = generateKeyPair();
+
+    private GatewayAuthProperties authProperties;
+    private JwtAuthGlobalFilter filter;
+    private AtomicReference<ServerWebExchange> capturedExchange;
+    private AtomicInteger chainInvocations;
+
+    @BeforeEach
+    void setUp() {
+        authProperties = new GatewayAuthProperties();
+        authProperties.setPublicKey(toPem(KEY_PAIR));
+        authProperties.setWhitelist(List.of("/auth/**"));
+        authProperties.setMenuPermissionWhitelist(List.of("/common/**"));
+
+        JwtKeyManager keyManager = new JwtKeyManager(authProperties, event -> { });
+        keyManager.init();
+        WhitelistMatcher whitelistMatcher = new WhitelistMatcher(authProperties);
+        whitelistMatcher.rebuild();
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(authProperties,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+
+        ErrorResponseWriter errorResponseWriter = new ErrorResponseWriter();
+        MenuPermissionHandler menuPermissionHandler = new MenuPermissionHandler();
+        ReflectionTestUtils.setField(menuPermissionHandler, "errorResponseWriter", errorResponseWriter);
+
+        filter = new JwtAuthGlobalFilter();
+        ReflectionTestUtils.setField(filter, "authProperties", authProperties);
+        ReflectionTestUtils.setField(filter, "menuPermissionHandler", menuPermissionHandler);
+        ReflectionTestUtils.setField(filter, "errorResponseWriter", errorResponseWriter);
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", tokenCache);
+        ReflectionTestUtils.setField(filter, "jwtKeyManager", keyManager);
+        ReflectionTestUtils.setField(filter, "whitelistMatcher", whitelistMatcher);
+
+        capturedExchange = new AtomicReference<>();
+        chainInvocations = new AtomicInteger();
+    }
+
+    @Test
+    void testWhitelistedPathSkipsAuthentication() {
+        MockServerWebExchange exchange = exchange("/auth/login", null);
+
+        StepVerifier.create(filter.filter(exchange, createMockChain())).verifyComplete();
+
+        assertEquals(1, chainInvocations.get());
+        assertNull(capturedExchange.get().getRequest().getHeaders().getFirst(AuthHeaders.USER_ID));
+    }
+
+    @Test
+    void testMissingTokenRejected() {
+        MockServerWebExchange exchange = exchange("/system/user", null);
+
+        StepVerifier.create(filter.filter(exchange, createMockChain())).verifyComplete();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+        assertEquals(0, chainInvocations.get());
+    }
+
+    @Test
+    void testInvalidSignatureRejected() {
+        String token = sign(generateKeyPair(), List.of(Map.of("path", "/system/user")));
+        MockServerWebExchange exchange = exchange("/system/user", token);
+
+        StepVerifier.create(filter.filter(exchange, createMockChain())).verifyComplete();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+        assertEquals(0, chainInvocations.get());
+    }
+
+    @Test
+    void testPermittedRequestForwardedOnceWithUserHeaders() {
+        String token = sign(KEY_PAIR, List.of(Map.of("path", "/system/user")));
+        MockServerWebExchange exchange = exchange("/system/user/list", token);
+
+        StepVerifier.create(filter.filter(exchange, createMockChain())).verifyComplete();
+
+        assertEquals(1, chainInvocations.get());
+        HttpHeaders headers = capturedExchange.get().getRequest().getHeaders();
+        assertEquals("u1", headers.getFirst(AuthHeaders.USER_ID));
+        assertEquals("alice", headers.getFirst(AuthHeaders.USERNAME));
+        assertEquals("admin,ops", headers.getFirst(AuthHeaders.USER_ROLES));
+        assertEquals("[{\"path\":\"/system/user\"}]", headers.getFirst(AuthHeaders.USER_MENUS));
+    }
+
+    @Test
+    void testForbiddenRequestNotForwarded() {
+        String token = sign(KEY_PAIR, List.of(Map.of("path", "/system/user")));
+        MockServerWebExchange exchange = exchange("/system/role", token);
+
+        StepVerifier.create(filter.filter(exchange, createMockChain())).verifyComplete();
+
+        assertEquals(HttpStatus.FORBIDDEN, exchange.getResponse().getStatusCode());
+        assertEquals(0, chainInvocations.get());
+    }
+
+    @Test
+    void testMenuPermissionWhitelistSkipsMenuCheck() {
+        String token = sign(KEY_PAIR, List.of());
+        MockServerWebExchange exchange = exchange("/common/dict", token);
+
+        StepVerifier.create(filter.filter(exchange, createMockChain())).verifyComplete();
+
+        assertEquals(1, chainInvocations.get());
+        assertEquals("", capturedExchange.get().getRequest().getHeaders().getFirst(AuthHeaders.USER_MENUS));
+    }
+
+    @Test
+    void testNonePropagationStripsMenuHeaders() {
+        authProperties.setMenuPropagation(GatewayAuthProperties.MenuPropagationMode.NONE);
+        String token = sign(KEY_PAIR, List.of(Map.of("path", "/system/user")));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+                .get("http://localhost:8080/system/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .header(AuthHeaders.USER_MENUS, "forged")
+                .build());
+
+        StepVerifier.create(filter.filter(exchange, createMockChain())).verifyComplete();
+
+        HttpHeaders headers = capturedExchange.get().getRequest().getHeaders();
+        assertNull(headers.getFirst(AuthHeaders.USER_MENUS));
+    }
+
+    private MockServerWebExchange exchange(String path, String token) {
+        MockServerHttpRequest.BaseBuilder<?> builder = MockServerHttpRequest.get("http://localhost:8080" + path);
+        if (token != null) {
+            builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        return MockServerWebExchange.from(builder.build());
+    }
+
+    private GatewayFilterChain createMockChain() {
+        return exchange -> {
+            chainInvocations.incrementAndGet();
+            capturedExchange.set(exchange);
+            return Mono.empty();
+        };
+    }
+
+    private static String sign(KeyPair keyPair, List<?> menus) {
+        return Jwts.builder()
+                .setSubject("u1")
+                .claim("username", "alice")
+                .claim("roles", List.of(Map.of("name", "admin"), "ops"))
+                .claim("menus", menus)
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000L))
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+    }
+
+    private static String toPem(KeyPair keyPair) {
+        return "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----";
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.auth.AuthenticatedUser;
+import com.yuwang.leyuegateway.config.RateLimitProperties;
+import com.yuwang.leyuegateway.constant.RateLimitKeyType;
+import com.yuwang.leyuegateway.handler.ErrorResponseWriter;
+import com.yuwang.leyuegateway.ratelimit.LocalRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LocalRateLimitGlobalFilter 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class LocalRateLimitGlobalFilterTest {
+
+    private static final Route USER_ROUTE = route("user-service");
+    private static final Route ORDER_ROUTE = route("order-service");
+
+    private RateLimitProperties properties;
+    private LocalRateLimiter limiter;
+    private LocalRateLimitGlobalFilter filter;
+    private AtomicInteger chainInvocations;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setRules(new ArrayList<>());
+        limiter = new LocalRateLimiter(properties);
+        filter = new LocalRateLimitGlobalFilter(limiter, new ErrorResponseWriter());
+        chainInvocations = new AtomicInteger();
+    }
+
+    @Test
+    void testNoRulesPassThrough() {
+        limiter.rebuild();
+
+        for (int i = 0; i < 100; i++) {
+            assertNull(run(exchange(USER_ROUTE, null, "10.0.0.1")).getResponse().getStatusCode());
+        }
+        assertEquals(100, chainInvocations.get());
+    }
+
+    @Test
+    void testRouteRuleRejectsWithSentinelContract() {
+        properties.getRules().add(rule("user-service", RateLimitKeyType.ROUTE, 2));
+        limiter.rebuild();
+
+        run(exchange(USER_ROUTE, null, "10.0.0.1"));
+        run(exchange(USER_ROUTE, null, "10.0.0.2"));
+        MockServerWebExchange rejected = run(exchange(USER_ROUTE, null, "10.0.0.3"));
+        // 其他路由不受影响
+        run(exchange(ORDER_ROUTE, null, "10.0.0.1"));
+
+        assertEquals(3, chainInvocations.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        String body = rejected.getResponse().getBodyAsString().block();
+        assertTrue(body.contains("\"code\":429"), body);
+        assertTrue(body.contains("\"routeId\":\"user-service\""), body);
+    }
+
+    @Test
+    void testRouteRuleMatchesDiscoveryRouteByServiceName() {
+        Route discoveryRoute = Route.async().id("ReactiveCompositeDiscoveryClient_user-service")
+                .uri("lb://user-service").predicate(exchange -> true).build();
+        properties.getRules().add(rule("user-service", RateLimitKeyType.ROUTE, 1));
+        limiter.rebuild();
+
+        assertNull(run(exchange(discoveryRoute, null, "10.0.0.1")).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                run(exchange(discoveryRoute, null, "10.0.0.2")).getResponse().getStatusCode());
+    }
+
+    @Test
+    void testRejectedRequestDoesNotSpendGlobalToken() {
+        properties.getRules().add(rule(null, RateLimitKeyType.IP, 2));
+        properties.getRules().add(rule("user-service", RateLimitKeyType.ROUTE, 1));
+        limiter.rebuild();
+
+        assertNull(run(exchange(USER_ROUTE, null, "10.0.0.1")).getResponse().getStatusCode());
+        // 路由规则拒绝的请求不消耗IP规则的令牌
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                    run(exchange(USER_ROUTE, null, "10.0.0.1")).getResponse().getStatusCode());
+        }
+        assertNull(run(exchange(ORDER_ROUTE, null, "10.0.0.1")).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                run(exchange(ORDER_ROUTE, null, "10.0.0.1")).getResponse().getStatusCode());
+    }
+
+    @Test
+    void testUserRuleLimitsEachUserSeparately() {
+        properties.getRules().add(rule(null, RateLimitKeyType.USER, 1));
+        limiter.rebuild();
+
+        assertNull(run(exchange(USER_ROUTE, "u1", "10.0.0.1")).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                run(exchange(USER_ROUTE, "u1", "10.0.0.2")).getResponse().getStatusCode());
+        assertNull(run(exchange(USER_ROUTE, "u2", "10.0.0.1")).getResponse().getStatusCode());
+        // 未认证请求按IP限流
+        assertNull(run(exchange(USER_ROUTE, null, "10.0.0.1")).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                run(exchange(ORDER_ROUTE, null, "10.0.0.1")).getResponse().getStatusCode());
+    }
+
+    @Test
+    void testIpRuleUsesForwardedForWithTrustedHops() {
+        properties.setTrustedProxyHops(1);
+        properties.getRules().add(rule(null, RateLimitKeyType.IP, 1));
+        limiter.rebuild();
+
+        MockServerWebExchange first = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/api")
+                .remoteAddress(new InetSocketAddress("10.1.1.1", 50000))
+                .header("X-Forwarded-For", "203.0.113.7")
+                .build());
+        MockServerWebExchange second = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/api")
+                .remoteAddress(new InetSocketAddress("10.1.1.1", 50001))
+                .header("X-Forwarded-For", "198.51.100.9")
+                .build());
+        MockServerWebExchange third = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/api")
+                .remoteAddress(new InetSocketAddress("10.1.1.2", 50002))
+                .header("X-Forwarded-For", "203.0.113.7")
+                .build());
+
+        assertNull(run(first).getResponse().getStatusCode());
+        assertNull(run(second).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, run(third).getResponse().getStatusCode());
+    }
+
+    @Test
+    void testRefreshKeepsUnchangedBucketsAndAppliesNewRules() {
+        properties.getRules().add(rule(null, RateLimitKeyType.ROUTE, 1));
+        limiter.rebuild();
+        run(exchange(USER_ROUTE, null, "10.0.0.1"));
+
+        // 规则未变化，刷新后仍沿用已耗尽的令牌桶
+        limiter.rebuild();
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                run(exchange(USER_ROUTE, null, "10.0.0.1")).getResponse().getStatusCode());
+
+        // 规则变化后按新规则限流
+        properties.setRules(new ArrayList<>(List.of(rule(null, RateLimitKeyType.ROUTE, 5))));
+        limiter.rebuild();
+        assertNull(run(exchange(USER_ROUTE, null, "10.0.0.1")).getResponse().getStatusCode());
+
+        // 无效规则被忽略
+        properties.setRules(new ArrayList<>(List.of(rule(null, RateLimitKeyType.ROUTE, 0))));
+        limiter.rebuild();
+        assertNull(run(exchange(USER_ROUTE, null, "10.0.0.1")).getResponse().getStatusCode());
+    }
+
+    private MockServerWebExchange run(MockServerWebExchange exchange) {
+        GatewayFilterChain chain = ex -> {
+            chainInvocations.incrementAndGet();
+            return Mono.empty();
+        };
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+        return exchange;
+    }
+
+    private static MockServerWebExchange exchange(Route route, String userId, String ip) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/api")
+                .remoteAddress(new InetSocketAddress(ip, 40000))
+                .build());
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        if (userId != null) {
+            exchange.getAttributes().put(AuthenticatedUser.EXCHANGE_ATTRIBUTE,
+                    new AuthenticatedUser(userId, userId, "", List.of(), 0L));
+        }
+        return exchange;
+    }
+
+    private static RateLimitProperties.Rule rule(String routeId, RateLimitKeyType key, long capacity) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setRouteId(routeId);
+        rule.setKey(key);
+        rule.setCapacity(capacity);
+        // 测试期间几乎不补充令牌
+        rule.setRate(0.001);
+        return rule;
+    }
+
+    private static Route route(String id) {
+        return Route.async().id(id).uri("lb://" + id).predicate(exchange -> true).build();
+    }
+}
@@ -0,0 +1,178 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.cache.RequestCoalescer;
+import com.yuwang.leyuegateway.config.RequestCoalescingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RequestCoalescingGlobalFilter 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class RequestCoalescingGlobalFilterTest {
+
+    private static final Route ROUTE = Route.async().id("ReactiveCompositeDiscoveryClient_user-service")
+            .uri("lb://user-service").predicate(exchange -> true).build();
+    private static final String BODY = "{\"code\":200,\"data\":{\"theme\":\"dark\"}}";
+
+    private RequestCoalescingProperties.Route route;
+    private SimpleMeterRegistry meterRegistry;
+    private RequestCoalescer coalescer;
+    private RequestCoalescingGlobalFilter filter;
+    private AtomicInteger upstreamCalls;
+    private Sinks.Empty<Void> release;
+    private boolean setCookie;
+
+    @BeforeEach
+    void setUp() {
+        RequestCoalescingProperties properties = new RequestCoalescingProperties();
+        route = new RequestCoalescingProperties.Route();
+        route.setPaths(List.of("/system/config/**"));
+        properties.getRoutes().put("user-service", route);
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        coalescer = new RequestCoalescer(properties, beanFactory.getBeanProvider(MeterRegistry.class));
+        coalescer.rebuild();
+        filter = new RequestCoalescingGlobalFilter(coalescer);
+        upstreamCalls = new AtomicInteger();
+        release = Sinks.empty();
+        setCookie = false;
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneUpstreamResponse() {
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            exchanges.add(exchange(MockServerHttpRequest.get("/system/config/app?key=theme")));
+        }
+        runConcurrently(exchanges);
+
+        assertEquals(1, upstreamCalls.get());
+        for (MockServerWebExchange exchange : exchanges) {
+            assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+            assertEquals(BODY, exchange.getResponse().getBodyAsString().block());
+            assertEquals("application/json", exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+        }
+        assertEquals(3.0, meterRegistry.get(RequestCoalescer.REQUESTS_METRIC).tag("result", "coalesced").counter().count());
+        assertEquals(0.75, meterRegistry.get(RequestCoalescer.RATIO_METRIC).gauge().value());
+
+        // 请求结束后不保留响应
+        StepVerifier.create(filter.filter(exchange(MockServerHttpRequest.get("/system/config/app?key=theme")),
+                exchange -> writeBody(exchange))).verifyComplete();
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void testKeyIncludesMethodQueryAndConfiguredHeaders() {
+        route.setKeyHeaders(List.of("X-User-Id"));
+        coalescer.rebuild();
+
+        runConcurrently(List.of(
+                exchange(MockServerHttpRequest.get("/system/config/app?key=theme").header("X-User-Id", "1")),
+                exchange(MockServerHttpRequest.get("/system/config/app?key=theme").header("X-User-Id", "2")),
+                exchange(MockServerHttpRequest.get("/system/config/app?key=lang").header("X-User-Id", "1")),
+                exchange(MockServerHttpRequest.head("/system/config/app?key=theme").header("X-User-Id", "1")),
+                exchange(MockServerHttpRequest.get("/system/config/app?key=theme").header("X-User-Id", "1"))));
+
+        assertEquals(4, upstreamCalls.get());
+    }
+
+    @Test
+    void testHeadRequestsKeepUpstreamContentLength() {
+        List<MockServerWebExchange> exchanges = List.of(
+                exchange(MockServerHttpRequest.head("/system/config/app?key=theme")),
+                exchange(MockServerHttpRequest.head("/system/config/app?key=theme")));
+        runConcurrently(exchanges);
+
+        assertEquals(1, upstreamCalls.get());
+        for (MockServerWebExchange exchange : exchanges) {
+            assertEquals(BODY.length(), exchange.getResponse().getHeaders().getContentLength());
+        }
+        assertEquals(1.0, meterRegistry.get(RequestCoalescer.REQUESTS_METRIC).tag("result", "coalesced").counter().count());
+    }
+
+    @Test
+    void testResponsesWithSetCookieAreNotShared() {
+        setCookie = true;
+        List<MockServerWebExchange> exchanges = List.of(
+                exchange(MockServerHttpRequest.get("/system/config/app")),
+                exchange(MockServerHttpRequest.get("/system/config/app")));
+        runConcurrently(exchanges);
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(BODY, exchanges.get(1).getResponse().getBodyAsString().block());
+        assertEquals(1.0, meterRegistry.get(RequestCoalescer.REQUESTS_METRIC).tag("result", "fallback").counter().count());
+    }
+
+    @Test
+    void testRequestsOutsideConfiguredPathsPassThrough() {
+        runConcurrently(List.of(
+                exchange(MockServerHttpRequest.get("/system/user/list")),
+                exchange(MockServerHttpRequest.get("/system/user/list")),
+                exchange(MockServerHttpRequest.post("/system/config/app"))));
+
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(0.0, coalescer.coalescingRatio());
+    }
+
+    private void runConcurrently(List<MockServerWebExchange> exchanges) {
+        GatewayFilterChain slowUpstream = exchange -> release.asMono().then(Mono.defer(() -> writeBody(exchange)));
+        List<Mono<Void>> requests = new ArrayList<>();
+        for (MockServerWebExchange exchange : exchanges) {
+            requests.add(filter.filter(exchange, slowUpstream));
+        }
+        StepVerifier.create(Flux.merge(requests).then())
+                .then(release::tryEmitEmpty)
+                .verifyComplete();
+    }
+
+    private Mono<Void> writeBody(ServerWebExchange exchange) {
+        upstreamCalls.incrementAndGet();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().set(HttpHeaders.CONTENT_TYPE, "application/json");
+        if (setCookie) {
+            response.getHeaders().set(HttpHeaders.SET_COOKIE, "SESSION=" + upstreamCalls.get());
+        }
+        if (exchange.getRequest().getMethod() == HttpMethod.HEAD) {
+            response.getHeaders().setContentLength(BODY.length());
+            return response.setComplete();
+        }
+        return response.writeWith(Mono.just(DefaultDataBufferFactory.sharedInstance
+                .wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        return exchange;
+    }
+}
@@ -0,0 +1,220 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.cache.ResponseCache;
+import com.yuwang.leyuegateway.cache.ValidatorCache;
+import com.yuwang.leyuegateway.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ResponseCacheGlobalFilter 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class ResponseCacheGlobalFilterTest {
+
+    private static final Route ROUTE = Route.async().id("user-service").uri("lb://user-service")
+            .predicate(exchange -> true).build();
+    private static final String BODY = "{\"code\":200,\"data\":[\"菜单\"]}";
+
+    private ResponseCacheProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCache responseCache;
+    private ResponseCacheGlobalFilter filter;
+    private AtomicInteger upstreamCalls;
+    private String cacheControl;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ResponseCacheProperties();
+        properties.getRoutes().put("user-service", new ResponseCacheProperties.Route());
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        responseCache = new ResponseCache(properties, beanFactory.getBeanProvider(MeterRegistry.class));
+        responseCache.rebuild();
+        ValidatorCache validatorCache = new ValidatorCache(properties, beanFactory.getBeanProvider(WebClient.Builder.class),
+                beanFactory.getBeanProvider(ReactorLoadBalancerExchangeFilterFunction.class),
+                beanFactory.getBeanProvider(MeterRegistry.class));
+        filter = new ResponseCacheGlobalFilter(responseCache, validatorCache);
+        upstreamCalls = new AtomicInteger();
+        cacheControl = "max-age=60";
+    }
+
+    @Test
+    void testMissThenHit() {
+        MockServerWebExchange miss = exchange("/system/menu/tree");
+        StepVerifier.create(filter.filter(miss, upstream())).verifyComplete();
+        MockServerWebExchange hit = exchange("/system/menu/tree");
+        StepVerifier.create(filter.filter(hit, upstream())).verifyComplete();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("MISS", miss.getResponse().getHeaders().getFirst(ResponseCache.CACHE_STATUS_HEADER));
+        assertEquals("HIT", hit.getResponse().getHeaders().getFirst(ResponseCache.CACHE_STATUS_HEADER));
+        assertEquals(HttpStatus.OK, hit.getResponse().getStatusCode());
+        assertEquals(BODY, hit.getResponse().getBodyAsString().block());
+        assertEquals(BODY.getBytes(StandardCharsets.UTF_8).length, hit.getResponse().getHeaders().getContentLength());
+        assertEquals("\"v1\"", hit.getResponse().getHeaders().getETag());
+        assertNotNull(hit.getResponse().getHeaders().getFirst(HttpHeaders.AGE));
+
+        // 不同的查询串不命中
+        StepVerifier.create(filter.filter(exchange("/system/menu/tree?type=1"), upstream())).verifyComplete();
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void testConditionalRequestOnHit() {
+        StepVerifier.create(filter.filter(exchange("/system/menu/tree"), upstream())).verifyComplete();
+
+        MockServerWebExchange conditional = MockServerWebExchange.from(MockServerHttpRequest.get("/system/menu/tree")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v1\""));
+        conditional.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        StepVerifier.create(filter.filter(conditional, upstream())).verifyComplete();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, conditional.getResponse().getStatusCode());
+        assertEquals("", conditional.getResponse().getBodyAsString().defaultIfEmpty("").block());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void testConditionalRequestAnsweredFromValidators() {
+        // 响应要求每次校验，不缓存响应体，但保存校验器
+        cacheControl = "no-cache";
+        properties.getRoutes().get("user-service").setValidatorTtl(Duration.ofMinutes(1));
+        responseCache.rebuild();
+        StepVerifier.create(filter.filter(exchange("/system/menu/tree"), upstream())).verifyComplete();
+
+        MockServerWebExchange conditional = conditional("/system/menu/tree", "W/\"v1\"");
+        StepVerifier.create(filter.filter(conditional, upstream())).verifyComplete();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(HttpStatus.NOT_MODIFIED, conditional.getResponse().getStatusCode());
+        assertEquals("NOT_MODIFIED", conditional.getResponse().getHeaders().getFirst(ResponseCache.CACHE_STATUS_HEADER));
+        assertEquals("\"v1\"", conditional.getResponse().getHeaders().getETag());
+        assertEquals(1.0, meterRegistry.get(ValidatorCache.NOT_MODIFIED_METRIC).counter().count());
+
+        // ETag不匹配或没有校验器的请求照常访问上游
+        StepVerifier.create(filter.filter(conditional("/system/menu/tree", "\"v0\""), upstream())).verifyComplete();
+        StepVerifier.create(filter.filter(conditional("/system/dict/all", "\"v1\""), upstream())).verifyComplete();
+        assertEquals(3, upstreamCalls.get());
+    }
+
+    @Test
+    void testUncacheableResponsesAreNotStored() {
+        cacheControl = "no-store";
+        StepVerifier.create(filter.filter(exchange("/system/menu/tree"), upstream())).verifyComplete();
+        StepVerifier.create(filter.filter(exchange("/system/menu/tree"), upstream())).verifyComplete();
+        assertEquals(2, upstreamCalls.get());
+
+        // 超过单条上限的响应照常返回但不缓存
+        cacheControl = "max-age=60";
+        properties.setMaxEntrySize(DataSize.ofBytes(8));
+        MockServerWebExchange large = exchange("/system/dict/all");
+        StepVerifier.create(filter.filter(large, upstream())).verifyComplete();
+        StepVerifier.create(filter.filter(exchange("/system/dict/all"), upstream())).verifyComplete();
+        assertEquals(BODY, large.getResponse().getBodyAsString().block());
+        assertEquals(4, upstreamCalls.get());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneUpstreamCall() {
+        Sinks.Empty<Void> release = Sinks.empty();
+        GatewayFilterChain slowUpstream = exchange -> release.asMono().then(Mono.defer(() -> writeBody(exchange)));
+
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        List<Mono<Void>> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            MockServerWebExchange exchange = exchange("/system/menu/tree");
+            exchanges.add(exchange);
+            requests.add(filter.filter(exchange, slowUpstream));
+        }
+        StepVerifier.create(Flux.merge(requests).then())
+                .then(release::tryEmitEmpty)
+                .verifyComplete();
+
+        assertEquals(1, upstreamCalls.get());
+        for (int i = 0; i < exchanges.size(); i++) {
+            assertEquals(BODY, exchanges.get(i).getResponse().getBodyAsString().block());
+            assertEquals(i == 0 ? "MISS" : "COALESCED",
+                    exchanges.get(i).getResponse().getHeaders().getFirst(ResponseCache.CACHE_STATUS_HEADER));
+        }
+        assertEquals(4.0, meterRegistry.get(ResponseCache.COALESCED_METRIC).counter().count());
+    }
+
+    @Test
+    void testWaitersGoUpstreamWhenResponseNotCacheable() {
+        cacheControl = "no-store";
+        Sinks.Empty<Void> release = Sinks.empty();
+        GatewayFilterChain slowUpstream = exchange -> release.asMono().then(Mono.defer(() -> writeBody(exchange)));
+
+        List<Mono<Void>> requests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            requests.add(filter.filter(exchange("/system/menu/tree"), slowUpstream));
+        }
+        StepVerifier.create(Flux.merge(requests).then())
+                .then(release::tryEmitEmpty)
+                .verifyComplete();
+
+        assertEquals(3, upstreamCalls.get());
+    }
+
+    private GatewayFilterChain upstream() {
+        return this::writeBody;
+    }
+
+    private Mono<Void> writeBody(ServerWebExchange exchange) {
+        upstreamCalls.incrementAndGet();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().set(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.getHeaders().setETag("\"v1\"");
+        byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+        // 分两段输出，验证分块复制
+        return response.writeWith(Flux.just(
+                DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, 0, 5)),
+                DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, 5, bytes.length))));
+    }
+
+    private static MockServerWebExchange conditional(String path, String ifNoneMatch) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path)
+                .header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        return exchange;
+    }
+
+    private static MockServerWebExchange exchange(String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        return exchange;
+    }
+}
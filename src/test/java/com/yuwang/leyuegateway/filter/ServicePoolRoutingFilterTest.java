@@ -0,0 +1,91 @@
+package com.yuwang.leyuegateway.filter;
+
+import com.yuwang.leyuegateway.httpclient.ServiceConnectionPools;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ServicePoolRoutingFilter 测试类：启动网关，经lb路由与按服务连接池把上游响应体完整转发给客户端
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.nacos.config.enabled=false",
+        "spring.cloud.nacos.discovery.enabled=false",
+        "spring.cloud.service-registry.auto-registration.enabled=false",
+        "spring.cloud.gateway.discovery.locator.enabled=false",
+        "gateway.connection-pool.enabled=true",
+        "gateway.connection-pool.defaults.warm-up=false"
+})
+class ServicePoolRoutingFilterTest {
+
+    private static final String BODY = "{\"message\":\"pong\"}";
+
+    private static final DisposableServer ECHO_SERVER = HttpServer.create()
+            .host("127.0.0.1")
+            .port(0)
+            .handle((request, response) -> response
+                    .header("Content-Type", "application/json")
+                    .sendString(Mono.just(BODY)))
+            .bindNow();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private List<NettyRoutingFilter> routingFilters;
+
+    @Autowired
+    private List<NettyWriteResponseFilter> writeResponseFilters;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void gatewayProperties(DynamicPropertyRegistry registry) {
+        // 列表属性只从一个属性源绑定，路由与白名单都在这里设置
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "echo");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> "lb://echo-service");
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/echo/**");
+        registry.add("spring.cloud.discovery.client.simple.instances.echo-service[0].uri",
+                () -> "http://127.0.0.1:" + ECHO_SERVER.port());
+        registry.add("jwt.whitelist[0]", () -> "/echo/**");
+    }
+
+    @AfterAll
+    static void stopEchoServer() {
+        ECHO_SERVER.disposeNow();
+    }
+
+    @Test
+    void testProxiesResponseBodyThroughServicePool() {
+        // 默认的路由过滤器保留，请求由先执行的ServicePoolRoutingFilter转发；响应只由一个过滤器写回
+        assertEquals(2, routingFilters.size());
+        assertTrue(routingFilters.stream().anyMatch(ServicePoolRoutingFilter.class::isInstance));
+        assertEquals(1, writeResponseFilters.size());
+
+        webTestClient.get().uri("/echo/ping")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo(BODY);
+
+        assertNotNull(meterRegistry.find(ServiceConnectionPools.ACTIVE_METRIC).tag("service", "echo-service").gauge(),
+                "请求应经过echo-service的独立连接池");
+    }
+}
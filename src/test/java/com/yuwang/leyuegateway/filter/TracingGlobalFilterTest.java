@@ -1,17 +1,27 @@
 package com.yuwang.leyuegateway.filter;
 
+import com.yuwang.leyuegateway.config.TracingProperties;
+import com.yuwang.leyuegateway.constant.TraceProtocol;
 import com.yuwang.leyuegateway.constant.TracingHeaders;
+import com.yuwang.leyuegateway.util.TraceMdcAccessor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.http.HttpHeaders;
 import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
 import org.springframework.mock.web.server.MockServerWebExchange;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Hooks;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
-import java.net.URI;
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,12 +34,25 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 class TracingGlobalFilterTest {
 
+    private TracingProperties tracingProperties;
     private TracingGlobalFilter tracingGlobalFilter;
     private AtomicReference<ServerWebExchange> capturedExchange;
 
+    @BeforeAll
+    static void enableContextPropagation() {
+        // 与 spring.reactor.context-propagation=auto 等效
+        Hooks.enableAutomaticContextPropagation();
+    }
+
+    @AfterAll
+    static void disableContextPropagation() {
+        Hooks.disableAutomaticContextPropagation();
+    }
+
     @BeforeEach
     void setUp() {
-        tracingGlobalFilter = new TracingGlobalFilter();
+        tracingProperties = new TracingProperties();
+        tracingGlobalFilter = new TracingGlobalFilter(tracingProperties);
         capturedExchange = new AtomicReference<>();
     }
 
@@ -234,6 +257,199 @@ class TracingGlobalFilterTest {
         assertEquals(tracestate, headers.getFirst(TracingHeaders.W3C_TRACESTATE));
     }
 
+    @Test
+    void testUnsampledRootTraceSkipsCompatibilityHeaders() {
+        tracingProperties.getSampling().setRate(0.0);
+        
+        MockServerHttpRequest request = MockServerHttpRequest
+                .get("http://localhost:8080/api/test")
+                .build();
+        
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        GatewayFilterChain chain = createMockChain();
+        
+        StepVerifier.create(tracingGlobalFilter.filter(exchange, chain))
+                .verifyComplete();
+        
+        HttpHeaders headers = capturedExchange.get().getRequest().getHeaders();
+        
+        // 未采样：flags为00，仅保留主追踪头与X-Trace-Id
+        String traceparent = headers.getFirst(TracingHeaders.W3C_TRACEPARENT);
+        assertNotNull(traceparent);
+        assertTrue(traceparent.matches("^00-[0-9a-f]{32}-[0-9a-f]{16}-00$"));
+        assertNotNull(headers.getFirst(TracingHeaders.X_TRACE_ID));
+        assertNull(headers.getFirst(TracingHeaders.X_SPAN_ID));
+        assertNull(headers.getFirst(TracingHeaders.TRACE_ID));
+        assertNull(headers.getFirst(TracingHeaders.X_TRACE_SOURCE));
+        assertNull(headers.getFirst(TracingHeaders.X_REQUEST_TIMESTAMP));
+    }
+
+    @Test
+    void testUnsampledTraceRemovesClientCompatibilityHeaders() {
+        tracingProperties.getSampling().setRate(0.0);
+        
+        MockServerHttpRequest request = MockServerHttpRequest
+                .get("http://localhost:8080/api/test")
+                .header(TracingHeaders.X_SPAN_ID, "1111111111111111")
+                .header(TracingHeaders.TRACE_ID, "client-trace")
+                .header(TracingHeaders.X_TRACE_SOURCE, "client")
+                .header(TracingHeaders.X_REQUEST_TIMESTAMP, "1")
+                .build();
+        
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        GatewayFilterChain chain = createMockChain();
+        
+        StepVerifier.create(tracingGlobalFilter.filter(exchange, chain))
+                .verifyComplete();
+        
+        HttpHeaders headers = capturedExchange.get().getRequest().getHeaders();
+        assertNotNull(headers.getFirst(TracingHeaders.X_TRACE_ID));
+        assertNull(headers.getFirst(TracingHeaders.X_SPAN_ID));
+        assertNull(headers.getFirst(TracingHeaders.TRACE_ID));
+        assertNull(headers.getFirst(TracingHeaders.X_TRACE_SOURCE));
+        assertNull(headers.getFirst(TracingHeaders.X_REQUEST_TIMESTAMP));
+    }
+
+    @Test
+    void testUpstreamSamplingDecisionHonored() {
+        // 采样率为0，但上游已决定采样
+        tracingProperties.getSampling().setRate(0.0);
+        
+        MockServerHttpRequest request = MockServerHttpRequest
+                .get("http://localhost:8080/api/test")
+                .header(TracingHeaders.W3C_TRACEPARENT, "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")
+                .build();
+        
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        GatewayFilterChain chain = createMockChain();
+        
+        StepVerifier.create(tracingGlobalFilter.filter(exchange, chain))
+                .verifyComplete();
+        
+        HttpHeaders headers = capturedExchange.get().getRequest().getHeaders();
+        assertTrue(headers.getFirst(TracingHeaders.W3C_TRACEPARENT).endsWith("-01"));
+        assertEquals("w3c-traceparent", headers.getFirst(TracingHeaders.X_TRACE_SOURCE));
+    }
+
+    @Test
+    void testDisabledInputProtocolIgnored() {
+        tracingProperties.getProtocol().setInput(List.of(TraceProtocol.W3C, TraceProtocol.CUSTOM));
+        
+        MockServerHttpRequest request = MockServerHttpRequest
+                .get("http://localhost:8080/api/test")
+                .header(TracingHeaders.B3_TRACE_ID, "4bf92f3577b34da6a3ce929d0e0e4736")
+                .build();
+        
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        GatewayFilterChain chain = createMockChain();
+        
+        StepVerifier.create(tracingGlobalFilter.filter(exchange, chain))
+                .verifyComplete();
+        
+        HttpHeaders headers = capturedExchange.get().getRequest().getHeaders();
+        assertEquals("gateway-generated", headers.getFirst(TracingHeaders.X_TRACE_SOURCE));
+        assertNotEquals("4bf92f3577b34da6a3ce929d0e0e4736", headers.getFirst(TracingHeaders.X_TRACE_ID));
+    }
+
+    @Test
+    void testB3OutputProtocol() {
+        tracingProperties.getProtocol().setOutput(TraceProtocol.B3);
+        
+        MockServerHttpRequest request = MockServerHttpRequest
+                .get("http://localhost:8080/api/test")
+                .header(TracingHeaders.W3C_TRACEPARENT, "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")
+                .build();
+        
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        GatewayFilterChain chain = createMockChain();
+        
+        StepVerifier.create(tracingGlobalFilter.filter(exchange, chain))
+                .verifyComplete();
+        
+        HttpHeaders headers = capturedExchange.get().getRequest().getHeaders();
+        assertNull(headers.getFirst(TracingHeaders.W3C_TRACEPARENT));
+        assertTrue(headers.getFirst(TracingHeaders.B3_SINGLE).matches("^4bf92f3577b34da6a3ce929d0e0e4736-[0-9a-f]{16}-1$"));
+    }
+
+    @Test
+    void testTracingDisabled() {
+        tracingProperties.setEnabled(false);
+        
+        MockServerHttpRequest request = MockServerHttpRequest
+                .get("http://localhost:8080/api/test")
+                .build();
+        
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        GatewayFilterChain chain = createMockChain();
+        
+        StepVerifier.create(tracingGlobalFilter.filter(exchange, chain))
+                .verifyComplete();
+        
+        assertNull(capturedExchange.get().getRequest().getHeaders().getFirst(TracingHeaders.W3C_TRACEPARENT));
+    }
+
+    @Test
+    void testMdcPropagatedThroughReactorContext() {
+        MockServerHttpRequest request = MockServerHttpRequest
+                .get("http://localhost:8080/api/test")
+                .header(TracingHeaders.W3C_TRACEPARENT, "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")
+                .build();
+        
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        AtomicReference<String> traceIdInChain = new AtomicReference<>();
+        AtomicReference<String> traceIdAfterHop = new AtomicReference<>();
+        GatewayFilterChain chain = ex -> {
+            traceIdInChain.set(MDC.get(TraceMdcAccessor.MDC_TRACE_ID));
+            // 切换到其他线程后MDC仍应可用
+            return Mono.delay(Duration.ofMillis(10), Schedulers.boundedElastic())
+                    .doOnNext(tick -> traceIdAfterHop.set(MDC.get(TraceMdcAccessor.MDC_TRACE_ID)))
+                    .then();
+        };
+        
+        MDC.put("requestOwner", "caller");
+        try {
+            StepVerifier.create(tracingGlobalFilter.filter(exchange, chain))
+                    .verifyComplete();
+            
+            assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", traceIdInChain.get());
+            assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", traceIdAfterHop.get());
+            // 调用线程上的MDC不被写入追踪信息，也不会被整体清空
+            assertNull(MDC.get(TraceMdcAccessor.MDC_TRACE_ID));
+            assertEquals("caller", MDC.get("requestOwner"));
+        } finally {
+            MDC.remove("requestOwner");
+        }
+    }
+
+    @Test
+    void testInterleavedRequestsKeepOwnTraceId() {
+        Sinks.Empty<Void> firstGate = Sinks.empty();
+        AtomicReference<String> firstTraceId = new AtomicReference<>();
+        AtomicReference<String> secondTraceId = new AtomicReference<>();
+        
+        MockServerWebExchange first = MockServerWebExchange.from(MockServerHttpRequest
+                .get("http://localhost:8080/api/first")
+                .header(TracingHeaders.W3C_TRACEPARENT, "00-11111111111111111111111111111111-00f067aa0ba902b7-01")
+                .build());
+        MockServerWebExchange second = MockServerWebExchange.from(MockServerHttpRequest
+                .get("http://localhost:8080/api/second")
+                .header(TracingHeaders.W3C_TRACEPARENT, "00-22222222222222222222222222222222-00f067aa0ba902b7-01")
+                .build());
+        
+        // 第一个请求挂起，期间在同一线程上处理第二个请求，恢复后第一个请求仍读取到自己的traceId
+        Mono<Void> firstResult = tracingGlobalFilter.filter(first, ex -> firstGate.asMono()
+                .doOnSuccess(v -> firstTraceId.set(MDC.get(TraceMdcAccessor.MDC_TRACE_ID))));
+        Mono<Void> secondResult = tracingGlobalFilter.filter(second, ex -> Mono.<Void>empty()
+                .doOnSuccess(v -> secondTraceId.set(MDC.get(TraceMdcAccessor.MDC_TRACE_ID))));
+        
+        StepVerifier.create(Mono.when(firstResult, secondResult.then(Mono.fromRunnable(firstGate::tryEmitEmpty))))
+                .verifyComplete();
+        
+        assertEquals("11111111111111111111111111111111", firstTraceId.get());
+        assertEquals("22222222222222222222222222222222", secondTraceId.get());
+        assertNull(MDC.get(TraceMdcAccessor.MDC_TRACE_ID));
+    }
+
     private GatewayFilterChain createMockChain() {
         return exchange -> {
             capturedExchange.set(exchange);
@@ -0,0 +1,92 @@
+package com.yuwang.leyuegateway.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ErrorResponseWriter 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class ErrorResponseWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ErrorResponseWriter writer = new ErrorResponseWriter();
+
+    @Test
+    void testFixedErrorResponses() throws Exception {
+        for (ErrorResponseWriter.ErrorType errorType : ErrorResponseWriter.ErrorType.values()) {
+            // 同一个预编码响应体被多次输出，内容保持不变
+            for (int i = 0; i < 2; i++) {
+                MockServerWebExchange exchange = exchange("/system/user");
+
+                StepVerifier.create(writer.write(exchange, errorType)).verifyComplete();
+
+                assertEquals(errorType.getStatus(), exchange.getResponse().getStatusCode());
+                assertEquals(MediaType.APPLICATION_JSON, exchange.getResponse().getHeaders().getContentType());
+                String body = exchange.getResponse().getBodyAsString().block();
+                assertEquals(body.getBytes(StandardCharsets.UTF_8).length, exchange.getResponse().getHeaders().getContentLength());
+
+                JsonNode json = objectMapper.readTree(body);
+                assertEquals(errorType.getStatus().value(), json.get("code").asInt());
+                assertFalse(json.get("success").asBoolean());
+                assertFalse(json.get("message").asText().isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void testTooManyRequestsWithRoute() throws Exception {
+        Route route = Route.async().id("user-service").uri("lb://user-service").predicate(exchange -> true).build();
+        for (int i = 0; i < 2; i++) {
+            MockServerWebExchange exchange = exchange("/api/user/\"quoted\"");
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+
+            StepVerifier.create(writer.tooManyRequests(exchange)).verifyComplete();
+
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, exchange.getResponse().getStatusCode());
+            JsonNode json = objectMapper.readTree(exchange.getResponse().getBodyAsString().block());
+            assertEquals(429, json.get("code").asInt());
+            assertEquals("请求过于频繁，请稍后再试", json.get("message").asText());
+            assertEquals("user-service", json.get("routeId").asText());
+            assertEquals("/api/user/\"quoted\"", json.get("requestUri").asText());
+        }
+    }
+
+    @Test
+    void testTooManyRequestsWithoutRoute() throws Exception {
+        MockServerWebExchange exchange = exchange("/api/order");
+
+        JsonNode json = objectMapper.readTree(writer.tooManyRequestsBody(exchange));
+
+        assertEquals(429, json.get("code").asInt());
+        assertNull(json.get("routeId"));
+        assertEquals("/api/order", json.get("requestUri").asText());
+    }
+
+    @Test
+    void testEscapeJson() throws Exception {
+        String raw = "a\"b\\c\nd\te\u0001f中文";
+        String escaped = ErrorResponseWriter.escapeJson(raw);
+
+        assertEquals(raw, objectMapper.readValue("\"" + escaped + "\"", String.class));
+        assertSame("/plain/path", ErrorResponseWriter.escapeJson("/plain/path"));
+    }
+
+    private static MockServerWebExchange exchange(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost:8080" + path).build());
+    }
+}
@@ -0,0 +1,325 @@
+package com.yuwang.leyuegateway.hedge;
+
+import com.yuwang.leyuegateway.circuitbreaker.CircuitBreakerRegistry;
+import com.yuwang.leyuegateway.config.CircuitBreakerProperties;
+import com.yuwang.leyuegateway.config.GatewayLoadBalancerProperties;
+import com.yuwang.leyuegateway.config.HedgingProperties;
+import com.yuwang.leyuegateway.filter.HedgingGlobalFilter;
+import com.yuwang.leyuegateway.filter.LoadBalancerStatsGlobalFilter;
+import com.yuwang.leyuegateway.loadbalancer.InstanceLoadRegistry;
+import com.yuwang.leyuegateway.loadbalancer.OutlierDetector;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RequestHedger 与 HedgingGlobalFilter 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class RequestHedgerTest {
+
+    private static final Route ROUTE = Route.async().id("ReactiveCompositeDiscoveryClient_user-service")
+            .uri("lb://user-service").predicate(exchange -> true).build();
+    private static final List<ServiceInstance> INSTANCES = List.of(instance("10.0.0.1"), instance("10.0.0.2"),
+            instance("10.0.0.3"));
+
+    private HedgingProperties.Route route;
+    private SimpleMeterRegistry meterRegistry;
+    private InstanceLoadRegistry registry;
+    private CircuitBreakerRegistry circuitBreakers;
+    private RequestHedger hedger;
+    private HedgingGlobalFilter filter;
+    private LoadBalancerStatsGlobalFilter statsFilter;
+    private List<URI> hedgeRequests;
+    private List<HttpHeaders> hedgeHeaders;
+    private String hedgeBody;
+
+    @BeforeEach
+    void setUp() {
+        HedgingProperties properties = new HedgingProperties();
+        route = new HedgingProperties.Route();
+        route.setPaths(List.of("/system/dict/**"));
+        route.setMaxDelay(Duration.ofMillis(50));
+        route.setBudgetPercent(100.0);
+        properties.getRoutes().put("user-service", route);
+
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        ObjectProvider<MeterRegistry> meterRegistryProvider = beanFactory.getBeanProvider(MeterRegistry.class);
+        ObjectProvider<List<HttpHeadersFilter>> headersFilters = beanFactory.getBeanProvider(
+                ResolvableType.forClassWithGenerics(List.class, HttpHeadersFilter.class));
+
+        GatewayLoadBalancerProperties loadBalancerProperties = new GatewayLoadBalancerProperties();
+        registry = new InstanceLoadRegistry(loadBalancerProperties);
+        OutlierDetector outlierDetector = new OutlierDetector(loadBalancerProperties, registry, meterRegistryProvider);
+        CircuitBreakerProperties circuitBreakerProperties = new CircuitBreakerProperties();
+        circuitBreakerProperties.getInstance().setMinimumCalls(1);
+        circuitBreakers = new CircuitBreakerRegistry(circuitBreakerProperties, meterRegistryProvider);
+        circuitBreakers.rebuild();
+        beanFactory.addBean("circuitBreakerRegistry", circuitBreakers);
+
+        hedgeRequests = new CopyOnWriteArrayList<>();
+        hedgeHeaders = new CopyOnWriteArrayList<>();
+        hedgeBody = "hedge";
+        // 对应 max-response-size
+        ExchangeStrategies strategies = ExchangeStrategies.builder()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16))
+                .build();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    hedgeRequests.add(request.url());
+                    hedgeHeaders.add(request.headers());
+                    ClientResponse.Builder response = ClientResponse.create(HttpStatus.OK, strategies)
+                            .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                            .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(hedgeBody.length()));
+                    return Mono.just(request.method() == HttpMethod.HEAD ? response.build()
+                            : response.body(hedgeBody).build());
+                })
+                .build();
+        hedger = new RequestHedger(properties, registry, outlierDetector, circuitBreakers, webClient,
+                serviceId -> Mono.just(INSTANCES), headersFilters, meterRegistryProvider);
+        hedger.rebuild();
+        filter = new HedgingGlobalFilter(hedger);
+        statsFilter = new LoadBalancerStatsGlobalFilter(registry, outlierDetector,
+                beanFactory.getBeanProvider(CircuitBreakerRegistry.class));
+    }
+
+    @Test
+    void testHedgeWinsWhenPrimaryIsSlow() {
+        // 10.0.0.2 负载更高，对冲发往得分最低的其他实例 10.0.0.3
+        registry.start(INSTANCES.get(1));
+        MockServerWebExchange exchange = exchange("/system/dict/type");
+
+        StepVerifier.create(filter.filter(exchange, upstream("primary", Duration.ofSeconds(2))))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(List.of(URI.create("http://10.0.0.3:8080/system/dict/type?code=sex")), hedgeRequests);
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals("hedge", exchange.getResponse().getBodyAsString().block());
+        assertEquals(5L, exchange.getResponse().getHeaders().getContentLength());
+        assertEquals(1.0, count(RequestHedger.HEDGES_METRIC));
+        assertEquals(1.0, count(RequestHedger.WINS_METRIC));
+        assertEquals(0, registry.get(INSTANCES.get(2)).getInFlight());
+
+        // 复制原请求头，去掉Host
+        HttpHeaders headers = hedgeHeaders.get(0);
+        assertEquals("application/json", headers.getFirst(HttpHeaders.ACCEPT));
+        assertFalse(headers.containsKey(HttpHeaders.HOST));
+    }
+
+    @Test
+    void testHedgeWinDiscardsPrimaryResponseHeaders() {
+        MockServerWebExchange exchange = exchange("/system/dict/type");
+        exchange.getResponse().getHeaders().set("X-Cache-Status", "MISS");
+        // 原请求已收到上游响应头并写入响应，响应体迟迟未到
+        GatewayFilterChain slowBody = ex -> {
+            HttpHeaders headers = ex.getResponse().getHeaders();
+            headers.set(HttpHeaders.SET_COOKIE, "session=primary");
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            headers.setETag("\"primary\"");
+            return upstream("primary", Duration.ofSeconds(2)).filter(ex);
+        };
+
+        StepVerifier.create(filter.filter(exchange, slowBody))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertEquals("hedge", exchange.getResponse().getBodyAsString().block());
+        assertEquals("application/json", headers.getFirst(HttpHeaders.CONTENT_TYPE));
+        assertEquals("MISS", headers.getFirst("X-Cache-Status"));
+        assertFalse(headers.containsKey(HttpHeaders.SET_COOKIE));
+        assertFalse(headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertNull(headers.getETag());
+    }
+
+    @Test
+    void testHeadHedgeKeepsUpstreamContentLength() {
+        MockServerWebExchange exchange = exchange(HttpMethod.HEAD, "/system/dict/type");
+
+        StepVerifier.create(filter.filter(exchange, upstream("primary", Duration.ofSeconds(2))))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(1.0, count(RequestHedger.WINS_METRIC));
+        assertEquals(5L, exchange.getResponse().getHeaders().getContentLength());
+    }
+
+    @Test
+    void testOversizedHedgeResponseIsAbandoned() {
+        hedgeBody = "x".repeat(64);
+        MockServerWebExchange exchange = exchange("/system/dict/type");
+
+        StepVerifier.create(filter.filter(exchange, upstream("primary", Duration.ofMillis(300))))
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+
+        // 对冲被放弃，由原请求决定结果，对冲实例不记录失败
+        assertEquals("primary", exchange.getResponse().getBodyAsString().block());
+        assertEquals(List.of(URI.create("http://10.0.0.2:8080/system/dict/type?code=sex")), hedgeRequests);
+        assertEquals(0.0, count(RequestHedger.WINS_METRIC));
+        assertEquals(-1.0, circuitBreakers.forInstance(INSTANCES.get(1)).failureRate(circuitBreakers.nanoTime()));
+        assertEquals(0, registry.get(INSTANCES.get(1)).getInFlight());
+    }
+
+    @Test
+    void testHedgeSkipsInstanceWithOpenBreaker() {
+        // 得分最低的 10.0.0.3 熔断打开，对冲改发往 10.0.0.2
+        registry.start(INSTANCES.get(1));
+        circuitBreakers.recordInstance(INSTANCES.get(2), true);
+        MockServerWebExchange exchange = exchange("/system/dict/type");
+
+        StepVerifier.create(filter.filter(exchange, upstream("primary", Duration.ofSeconds(2))))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(List.of(URI.create("http://10.0.0.2:8080/system/dict/type?code=sex")), hedgeRequests);
+        assertEquals(0.0, circuitBreakers.forInstance(INSTANCES.get(1)).failureRate(circuitBreakers.nanoTime()));
+    }
+
+    @Test
+    void testHedgeWinIsNotRecordedAsPrimarySuccess() {
+        MockServerWebExchange exchange = exchange("/system/dict/type");
+
+        StepVerifier.create(statsFilter.filter(exchange,
+                        ex -> filter.filter(ex, upstream("primary", Duration.ofSeconds(2)))))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals("hedge", exchange.getResponse().getBodyAsString().block());
+        // 原实例只减少在途请求数，响应状态属于对冲实例，不计入原实例的熔断器
+        assertEquals(0, registry.get(INSTANCES.get(0)).getInFlight());
+        assertEquals(-1.0, circuitBreakers.forInstance(INSTANCES.get(0)).failureRate(circuitBreakers.nanoTime()));
+
+        MockServerWebExchange primaryWins = exchange("/system/dict/type");
+        StepVerifier.create(statsFilter.filter(primaryWins,
+                        ex -> filter.filter(ex, upstream("primary", Duration.ZERO))))
+                .verifyComplete();
+        assertEquals(0.0, circuitBreakers.forInstance(INSTANCES.get(0)).failureRate(circuitBreakers.nanoTime()));
+    }
+
+    @Test
+    void testPrimaryWinsWithoutHedge() {
+        MockServerWebExchange exchange = exchange("/system/dict/type");
+
+        StepVerifier.create(filter.filter(exchange, upstream("primary", Duration.ZERO))).verifyComplete();
+
+        assertEquals("primary", exchange.getResponse().getBodyAsString().block());
+        assertTrue(hedgeRequests.isEmpty());
+        assertEquals(1.0, count(RequestHedger.REQUESTS_METRIC));
+        assertEquals(0.0, count(RequestHedger.HEDGES_METRIC));
+
+        // 不在对冲路径内的请求直接放行
+        assertNull(hedger.policyFor(exchange("/system/user/list")));
+    }
+
+    @Test
+    void testBudgetLimitsHedges() {
+        route.setBudgetPercent(50.0);
+        hedger.rebuild();
+
+        // 预算为50%：第一个请求只存入半个令牌，不对冲；第二个请求凑满一个令牌
+        for (int i = 0; i < 2; i++) {
+            MockServerWebExchange exchange = exchange("/system/dict/type");
+            StepVerifier.create(filter.filter(exchange, upstream("primary", Duration.ofMillis(300))))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(2));
+        }
+
+        assertEquals(1, hedgeRequests.size());
+        assertEquals(1.0, count(RequestHedger.BUDGET_EXHAUSTED_METRIC));
+        assertEquals(1.0, count(RequestHedger.WINS_METRIC));
+    }
+
+    @Test
+    void testDelayFollowsLatencyPercentile() {
+        RequestHedger.Policy policy = hedger.policyFor(exchange("/system/dict/type"));
+        // 样本不足时取上限
+        assertEquals(Duration.ofMillis(50), policy.delay());
+
+        for (int i = 1; i <= 100; i++) {
+            hedger.recordLatency(policy, TimeUnit.MILLISECONDS.toNanos(i / 4));
+        }
+        // 样本数达到64的整数倍时才重新计算
+        assertEquals(Duration.ofMillis(50), policy.delay());
+        for (int i = 101; i <= 128; i++) {
+            hedger.recordLatency(policy, TimeUnit.MILLISECONDS.toNanos(i / 4));
+        }
+        assertEquals(Duration.ofMillis(30), policy.delay());
+
+        // 低于下限时取下限
+        for (int i = 0; i < LatencyWindow.SIZE; i++) {
+            hedger.recordLatency(policy, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertEquals(Duration.ofMillis(10), policy.delay());
+    }
+
+    private GatewayFilterChain upstream(String body, Duration latency) {
+        return exchange -> Mono.delay(latency).then(Mono.defer(() -> {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            return response.writeWith(Mono.just(response.bufferFactory()
+                    .wrap(body.getBytes(StandardCharsets.UTF_8))));
+        }));
+    }
+
+    private double count(String metric) {
+        return meterRegistry.find(metric).tag("route", "user-service").counters().stream()
+                .mapToDouble(counter -> counter.count()).sum();
+    }
+
+    private static MockServerWebExchange exchange(String path) {
+        return exchange(HttpMethod.GET, path);
+    }
+
+    private static MockServerWebExchange exchange(HttpMethod method, String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.method(method, path + "?code=sex")
+                .header(HttpHeaders.HOST, "gateway.example.com")
+                .header(HttpHeaders.ACCEPT, "application/json"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR,
+                new DefaultResponse(INSTANCES.get(0)));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR,
+                URI.create("http://10.0.0.1:8080" + path + "?code=sex"));
+        return exchange;
+    }
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance(host + ":8080", "user-service", host, 8080, false);
+    }
+}
@@ -0,0 +1,149 @@
+package com.yuwang.leyuegateway.httpclient;
+
+import com.yuwang.leyuegateway.config.GatewayLoadBalancerProperties;
+import com.yuwang.leyuegateway.config.InstanceWarmUpProperties;
+import com.yuwang.leyuegateway.loadbalancer.InstanceLoadRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InstanceWarmer 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class InstanceWarmerTest {
+
+    /**
+     * 服务端收到请求的连接，长连接上的每个请求都会触发doOnConnection，按连接ID去重
+     */
+    private final Set<String> connections = ConcurrentHashMap.newKeySet();
+    private final Map<String, List<ServiceInstance>> instances = new ConcurrentHashMap<>();
+    private DisposableServer server;
+    private ConnectionProvider provider;
+    private HttpClient httpClient;
+    private SimpleMeterRegistry meterRegistry;
+    private InstanceLoadRegistry registry;
+    private InstanceWarmer warmer;
+
+    @BeforeEach
+    void setUp() {
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .doOnConnection(connection -> connections.add(connection.channel().id().asLongText()))
+                // 稍作延迟，保证并发的预热请求各自占用一个连接，而不是复用先完成的连接
+                .route(routes -> routes.get("/actuator/health", (request, response) -> response.sendString(
+                        Mono.just("{\"status\":\"UP\"}").delayElement(Duration.ofMillis(50)))))
+                .bindNow();
+        provider = ConnectionProvider.create("warm-up-test", 16);
+        httpClient = HttpClient.create(provider);
+
+        InstanceWarmUpProperties properties = new InstanceWarmUpProperties();
+        properties.setConnections(3);
+        properties.getExcludeServices().add("leyue-gateway");
+        GatewayLoadBalancerProperties loadBalancerProperties = new GatewayLoadBalancerProperties();
+        loadBalancerProperties.getSlowStart().setEnabled(true);
+        registry = new InstanceLoadRegistry(loadBalancerProperties);
+
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        beanFactory.addBean("httpClient", httpClient);
+        warmer = new InstanceWarmer(properties, registry, discoveryClient(),
+                beanFactory.getBeanProvider(ServiceConnectionPools.class),
+                beanFactory.getBeanProvider(HttpClient.class), beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.dispose();
+        server.disposeNow();
+    }
+
+    @Test
+    void testWarmsNewInstancesAndStartsSlowStart() {
+        ServiceInstance first = instance("127.0.0.1");
+        instances.put("user-service", new ArrayList<>(List.of(first)));
+        instances.put("leyue-gateway", List.of(instance("127.0.0.1")));
+
+        // 首次发现的服务：预热连接，不慢启动；排除的服务不预热
+        StepVerifier.create(warmer.refresh()).verifyComplete();
+        assertEquals(3, connections.size());
+        assertEquals(1.0, registry.weight(first), 0.001);
+
+        // 实例未变化时不再预热，预热的连接留在连接池中被复用
+        StepVerifier.create(warmer.refresh()).verifyComplete();
+        StepVerifier.create(httpClient.get().uri(first.getUri() + "/actuator/health")
+                .responseContent().aggregate().asString()).expectNext("{\"status\":\"UP\"}").verifyComplete();
+        assertEquals(3, connections.size());
+
+        // 已知服务新增的实例：预热并开始慢启动
+        ServiceInstance second = instance("localhost");
+        instances.get("user-service").add(second);
+        StepVerifier.create(warmer.refresh()).verifyComplete();
+        assertEquals(6, connections.size());
+        assertEquals(0.1, registry.weight(second), 0.01);
+        assertEquals(6.0, meterRegistry.get(InstanceWarmer.CONNECTIONS_METRIC)
+                .tag("service", "user-service").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void testFailedWarmUpIsRecorded() {
+        int port = server.port();
+        server.disposeNow();
+        instances.put("user-service", List.of(new DefaultServiceInstance("user-service-1", "user-service",
+                "127.0.0.1", port, false)));
+
+        StepVerifier.create(warmer.refresh()).verifyComplete();
+
+        assertEquals(3.0, meterRegistry.get(InstanceWarmer.CONNECTIONS_METRIC)
+                .tag("service", "user-service").tag("outcome", "failure").counter().count());
+    }
+
+    private ReactiveDiscoveryClient discoveryClient() {
+        return new ReactiveDiscoveryClient() {
+            @Override
+            public String description() {
+                return "test";
+            }
+
+            @Override
+            public Flux<ServiceInstance> getInstances(String serviceId) {
+                return Flux.fromIterable(instances.getOrDefault(serviceId, List.of()));
+            }
+
+            @Override
+            public Flux<String> getServices() {
+                return Flux.fromIterable(instances.keySet());
+            }
+        };
+    }
+
+    private ServiceInstance instance(String host) {
+        return new DefaultServiceInstance("user-service-" + host, "user-service", host, server.port(), false);
+    }
+}
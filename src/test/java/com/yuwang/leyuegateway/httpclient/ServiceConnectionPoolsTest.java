@@ -0,0 +1,161 @@
+package com.yuwang.leyuegateway.httpclient;
+
+import com.yuwang.leyuegateway.config.ConnectionPoolProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ServiceConnectionPools 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class ServiceConnectionPoolsTest {
+
+    private ConnectionPoolProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ServiceConnectionPools pools;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConnectionPoolProperties();
+        properties.getDefaults().setWarmUp(false);
+        ConnectionPoolProperties.Pool orderService = new ConnectionPoolProperties.Pool();
+        orderService.setMaxConnections(80);
+        properties.getServices().put("order-service", orderService);
+
+        HttpClientProperties httpClientProperties = new HttpClientProperties();
+        ServerProperties serverProperties = new ServerProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        pools = new ServiceConnectionPools(properties, httpClientProperties, serverProperties,
+                new HttpClientSslConfigurer(httpClientProperties.getSsl(), serverProperties, null),
+                beanFactory.getBeanProvider(HttpClientCustomizer.class),
+                beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pools.destroy();
+    }
+
+    @Test
+    void testSettingsMergeDefaultsMetadataAndServices() {
+        ServiceInstance instance = instance("order-service", Map.of(
+                "gateway.pool.max-connections", "50",
+                "gateway.pool.leasing-strategy", "fifo",
+                "gateway.pool.max-idle-time", "10s",
+                "preserved.register.source", "SPRING_CLOUD"));
+
+        ConnectionPoolProperties.Pool settings = pools.settingsFor("order-service", instance);
+
+        // services 覆盖元数据，元数据覆盖默认值
+        assertEquals(80, settings.getMaxConnections());
+        assertEquals(HttpClientProperties.Pool.LeasingStrategy.FIFO, settings.getLeasingStrategy());
+        assertEquals(Duration.ofSeconds(10), settings.getMaxIdleTime());
+        assertEquals(Duration.ofSeconds(5), settings.getPendingAcquireTimeout());
+
+        // 无效的元数据被忽略
+        ConnectionPoolProperties.Pool invalid = pools.settingsFor("user-service",
+                instance("user-service", Map.of("gateway.pool.max-connections", "many")));
+        assertEquals(200, invalid.getMaxConnections());
+        assertEquals(HttpClientProperties.Pool.LeasingStrategy.LIFO, invalid.getLeasingStrategy());
+    }
+
+    @Test
+    void testPoolPerServiceWithGauges() {
+        HttpClient orders = pools.clientFor(instance("order-service", Map.of()));
+        HttpClient users = pools.clientFor(instance("user-service", Map.of("gateway.pool.max-connections", "20")));
+
+        assertSame(orders, pools.clientFor(instance("order-service", Map.of())));
+        assertNotSame(orders, users);
+        assertEquals(80, pools.pool("order-service").getProvider().maxConnections());
+        assertEquals(20, pools.pool("user-service").getProvider().maxConnections());
+
+        // 各实例子池的指标按服务汇总
+        ServiceConnectionPools.ServicePool pool = pools.pool("user-service");
+        pool.getMetrics().put(new InetSocketAddress("10.0.0.1", 8080), metrics(3, 2, 1));
+        pool.getMetrics().put(new InetSocketAddress("10.0.0.2", 8080), metrics(4, 0, 5));
+        assertEquals(7.0, gauge(ServiceConnectionPools.ACTIVE_METRIC, "user-service"));
+        assertEquals(2.0, gauge(ServiceConnectionPools.IDLE_METRIC, "user-service"));
+        assertEquals(6.0, gauge(ServiceConnectionPools.PENDING_METRIC, "user-service"));
+
+        // 配置未变化的刷新保留现有连接池
+        pools.rebuild();
+        assertSame(orders, pools.clientFor(instance("order-service", Map.of())));
+        assertSame(users, pools.clientFor(instance("user-service", Map.of())));
+
+        // 配置变化后只重建受影响的连接池，指标读取新的连接池
+        properties.getServices().get("order-service").setMaxConnections(60);
+        pools.rebuild();
+        assertSame(users, pools.clientFor(instance("user-service", Map.of())));
+        assertNotSame(orders, pools.clientFor(instance("order-service", Map.of())));
+        assertEquals(60, pools.pool("order-service").getProvider().maxConnections());
+
+        properties.getDefaults().setMaxIdleTime(Duration.ofSeconds(15));
+        pools.rebuild();
+        assertNotSame(users, pools.clientFor(instance("user-service", Map.of())));
+        assertEquals(0.0, gauge(ServiceConnectionPools.ACTIVE_METRIC, "user-service"));
+    }
+
+    private double gauge(String metric, String service) {
+        return meterRegistry.get(metric).tag("service", service).gauge().value();
+    }
+
+    private static ServiceInstance instance(String serviceId, Map<String, String> metadata) {
+        return new DefaultServiceInstance(serviceId + "-1", serviceId, "10.0.0.1", 8080, false, metadata);
+    }
+
+    private static ConnectionPoolMetrics metrics(int acquired, int idle, int pending) {
+        return new ConnectionPoolMetrics() {
+            @Override
+            public int acquiredSize() {
+                return acquired;
+            }
+
+            @Override
+            public int allocatedSize() {
+                return acquired + idle;
+            }
+
+            @Override
+            public int idleSize() {
+                return idle;
+            }
+
+            @Override
+            public int pendingAcquireSize() {
+                return pending;
+            }
+
+            @Override
+            public int maxAllocatedSize() {
+                return 200;
+            }
+
+            @Override
+            public int maxPendingAcquireSize() {
+                return 1000;
+            }
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package com.yuwang.leyuegateway.loadbalancer;
+
+import com.yuwang.leyuegateway.config.GatewayLoadBalancerProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OutlierDetector 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class OutlierDetectorTest {
+
+    private static final List<ServiceInstance> INSTANCES = List.of(instance("10.0.0.1"), instance("10.0.0.2"),
+            instance("10.0.0.3"), instance("10.0.0.4"));
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    private GatewayLoadBalancerProperties properties;
+    private InstanceLoadRegistry registry;
+    private SimpleMeterRegistry meterRegistry;
+    private OutlierDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GatewayLoadBalancerProperties();
+        properties.getOutlierDetection().setEnabled(true);
+        registry = new InstanceLoadRegistry(properties);
+        registry.setNanoClock(clock::get);
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        detector = new OutlierDetector(properties, registry, beanFactory.getBeanProvider(MeterRegistry.class));
+        assertEquals(INSTANCES, detector.available("user-service", INSTANCES));
+    }
+
+    @Test
+    void testConsecutiveFailuresEjectWithExponentialBackoff() {
+        ServiceInstance failing = INSTANCES.get(0);
+        // 中间的成功请求使连续计数清零
+        fail(failing, OutlierDetector.Outcome.SERVER_ERROR, 4);
+        fail(failing, OutlierDetector.Outcome.SUCCESS, 1);
+        fail(failing, OutlierDetector.Outcome.SERVER_ERROR, 4);
+        assertEquals(4, detector.available("user-service", INSTANCES).size());
+
+        fail(failing, OutlierDetector.Outcome.SERVER_ERROR, 1);
+        assertFalse(detector.available("user-service", INSTANCES).contains(failing));
+        assertEquals(30_000L, detector.recentEjections().get(0).getDurationMillis());
+        assertEquals(OutlierDetector.Reason.CONSECUTIVE_5XX, detector.recentEjections().get(0).getReason());
+
+        // 到期后恢复，再次摘除时长翻倍
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertTrue(detector.available("user-service", INSTANCES).contains(failing));
+        fail(failing, OutlierDetector.Outcome.CONNECT_ERROR, 3);
+        assertEquals(OutlierDetector.Reason.CONSECUTIVE_CONNECT_ERRORS, detector.recentEjections().get(0).getReason());
+        assertEquals(60_000L, detector.recentEjections().get(0).getDurationMillis());
+        assertEquals(2.0, meterRegistry.get(OutlierDetector.EJECTIONS_METRIC).tag("service", "user-service")
+                .counters().stream().mapToDouble(counter -> counter.count()).sum());
+
+        // 恢复后保持健康超过一个检查周期，摘除次数回落
+        clock.addAndGet(Duration.ofSeconds(60 + 10).toNanos());
+        detector.available("user-service", INSTANCES);
+        assertEquals(1, registry.get(failing).getEjectionCount());
+    }
+
+    @Test
+    void testDisabledByDefault() {
+        properties.getOutlierDetection().setEnabled(new GatewayLoadBalancerProperties().getOutlierDetection().isEnabled());
+        fail(INSTANCES.get(0), OutlierDetector.Outcome.SERVER_ERROR, 10);
+        assertEquals(INSTANCES, detector.available("user-service", INSTANCES));
+        assertTrue(detector.recentEjections().isEmpty());
+    }
+
+    @Test
+    void testMaxEjectionPercent() {
+        for (ServiceInstance instance : INSTANCES) {
+            fail(instance, OutlierDetector.Outcome.CONNECT_ERROR, 3);
+        }
+        // 4个实例最多摘除50%
+        assertEquals(2, detector.available("user-service", INSTANCES).size());
+        assertEquals(2, detector.recentEjections().size());
+    }
+
+    @Test
+    void testAllInstancesEjectedFallsBackToFullList() {
+        properties.getOutlierDetection().setMaxEjectionPercent(100);
+        for (ServiceInstance instance : INSTANCES) {
+            fail(instance, OutlierDetector.Outcome.CONNECT_ERROR, 3);
+        }
+        assertEquals(4, detector.recentEjections().size());
+        assertEquals(INSTANCES, detector.available("user-service", INSTANCES));
+    }
+
+    @Test
+    void testLatencyOutlierEjectedOnSweep() {
+        sample(INSTANCES.get(0), 20);
+        sample(INSTANCES.get(1), 25);
+        sample(INSTANCES.get(2), 30);
+        sample(INSTANCES.get(3), 200);
+
+        // 未到检查周期
+        assertEquals(4, detector.available("user-service", INSTANCES).size());
+        clock.addAndGet(properties.getOutlierDetection().getInterval().toNanos());
+        List<ServiceInstance> available = detector.available("user-service", INSTANCES);
+        assertEquals(3, available.size());
+        assertFalse(available.contains(INSTANCES.get(3)));
+        assertEquals(OutlierDetector.Reason.LATENCY, detector.recentEjections().get(0).getReason());
+        assertEquals(Boolean.TRUE, registry.snapshot().get("user-service").get(3).get("ejected"));
+    }
+
+    private void fail(ServiceInstance instance, OutlierDetector.Outcome outcome, int times) {
+        for (int i = 0; i < times; i++) {
+            InstanceLoad load = registry.start(instance);
+            long start = registry.nanoTime();
+            detector.record(instance, load, outcome);
+            registry.complete(load, start);
+        }
+    }
+
+    private void sample(ServiceInstance instance, long rttMillis) {
+        InstanceLoad load = registry.start(instance);
+        long start = registry.nanoTime();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(rttMillis));
+        detector.record(instance, load, OutlierDetector.Outcome.SUCCESS);
+        registry.complete(load, start);
+    }
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance("user-service-" + host, "user-service", host, 8080, false);
+    }
+}
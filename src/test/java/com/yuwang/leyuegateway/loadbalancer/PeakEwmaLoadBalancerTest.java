@@ -0,0 +1,170 @@
+package com.yuwang.leyuegateway.loadbalancer;
+
+import com.yuwang.leyuegateway.config.GatewayLoadBalancerProperties;
+import com.yuwang.leyuegateway.constant.LoadBalancerStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PeakEwmaLoadBalancer 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class PeakEwmaLoadBalancerTest {
+
+    private static final ServiceInstance FAST = instance("10.0.0.1");
+    private static final ServiceInstance SLOW = instance("10.0.0.2");
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    private GatewayLoadBalancerProperties properties;
+    private InstanceLoadRegistry registry;
+    private PeakEwmaLoadBalancer loadBalancer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GatewayLoadBalancerProperties();
+        properties.setStrategy(LoadBalancerStrategy.PEAK_EWMA);
+        registry = new InstanceLoadRegistry(properties);
+        registry.setNanoClock(clock::get);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("supplier", ServiceInstanceListSuppliers.from("user-service", FAST, SLOW));
+        OutlierDetector outlierDetector = new OutlierDetector(properties, registry,
+                beanFactory.getBeanProvider(MeterRegistry.class));
+        loadBalancer = new PeakEwmaLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class),
+                "user-service", registry, outlierDetector, properties);
+    }
+
+    @Test
+    void testSlowInstanceReceivesLessTraffic() {
+        sample(FAST, 20);
+        sample(SLOW, 200);
+
+        Map<ServiceInstance, Integer> picks = choose(200);
+        // 两个实例时二选一总是比较这两个实例
+        assertEquals(200, picks.getOrDefault(FAST, 0));
+
+        // 快实例积压的在途请求超过响应时间差距后，慢实例开始分到流量
+        for (int i = 0; i < 10; i++) {
+            registry.start(FAST);
+        }
+        assertEquals(200, choose(200).getOrDefault(SLOW, 0));
+    }
+
+    @Test
+    void testPeakEwmaReactsToSlowdownAndDecays() {
+        InstanceLoad load = registry.get(FAST);
+        long decay = properties.getDecayTime().toNanos();
+        sample(FAST, 20);
+        assertEquals(20.0, load.getEwmaNanos() / 1_000_000.0, 0.001);
+
+        // 变慢立即取峰值
+        sample(FAST, 300);
+        assertEquals(300.0, load.getEwmaNanos() / 1_000_000.0, 0.001);
+
+        // 变快按时间衰减回落：间隔约一个时间常数（另加本次请求的20ms）后旧值权重约为 1/e
+        clock.addAndGet(decay);
+        sample(FAST, 20);
+        double weight = Math.exp(-(decay + TimeUnit.MILLISECONDS.toNanos(20)) / (double) decay);
+        assertEquals(20 + 280 * weight, load.getEwmaNanos() / 1_000_000.0, 0.001);
+
+        // 长时间无样本时得分衰减，慢实例可重新被探测
+        double score = registry.score(FAST);
+        clock.addAndGet(decay * 5);
+        assertTrue(registry.score(FAST) < score / 100);
+    }
+
+    @Test
+    void testUnsampledInstanceUsesInitialRtt() {
+        properties.setInitialRtt(Duration.ofMillis(50));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), registry.score(FAST), 0.001);
+        registry.start(FAST);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), registry.score(FAST), 0.001);
+    }
+
+    @Test
+    void testRoundRobinForUnconfiguredServices() {
+        sample(FAST, 20);
+        sample(SLOW, 200);
+        properties.setStrategy(LoadBalancerStrategy.ROUND_ROBIN);
+
+        Map<ServiceInstance, Integer> picks = choose(10);
+        assertEquals(5, picks.get(FAST));
+        assertEquals(5, picks.get(SLOW));
+
+        properties.getServices().put("user-service", LoadBalancerStrategy.PEAK_EWMA);
+        assertEquals(10, choose(10).get(FAST));
+    }
+
+    @Test
+    void testSlowStartRampsWeight() {
+        properties.getSlowStart().setEnabled(true);
+        properties.getSlowStart().setWindow(Duration.ofSeconds(10));
+        sample(FAST, 20);
+        sample(SLOW, 20);
+        registry.startSlowStart(SLOW);
+
+        // 刚开始慢启动时取最小权重，得分放大10倍
+        assertEquals(0.1, registry.weight(SLOW), 0.001);
+        assertEquals(200, choose(200).getOrDefault(FAST, 0));
+        properties.setStrategy(LoadBalancerStrategy.ROUND_ROBIN);
+        assertTrue(choose(1000).getOrDefault(SLOW, 0) < 200);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0.5, registry.weight(SLOW), 0.001);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1.0, registry.weight(SLOW), 0.001);
+        assertEquals(1.0, (double) registry.snapshot().get("user-service").get(1).get("weight"), 0.001);
+    }
+
+    @Test
+    void testSnapshot() {
+        sample(FAST, 20);
+        registry.start(SLOW);
+
+        List<Map<String, Object>> instances = registry.snapshot().get("user-service");
+        assertEquals(2, instances.size());
+        Map<String, Object> fast = instances.stream()
+                .filter(stats -> "10.0.0.1:8080".equals(stats.get("instance"))).findFirst().orElseThrow();
+        assertEquals(0, fast.get("inFlight"));
+        assertEquals(20.0, (double) fast.get("ewmaMillis"), 0.001);
+    }
+
+    private void sample(ServiceInstance instance, long rttMillis) {
+        InstanceLoad load = registry.start(instance);
+        long start = registry.nanoTime();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(rttMillis));
+        registry.complete(load, start);
+    }
+
+    private Map<ServiceInstance, Integer> choose(int times) {
+        Map<ServiceInstance, Integer> picks = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+            assertNotNull(response);
+            picks.merge(response.getServer(), 1, Integer::sum);
+        }
+        return picks;
+    }
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance("user-service-" + host, "user-service", host, 8080, false);
+    }
+}
@@ -0,0 +1,102 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import com.yuwang.leyuegateway.config.ConcurrencyLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AimdLimit 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class AimdLimitTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private ConcurrencyLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(4);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(6);
+    }
+
+    @Test
+    void testAcquireUpToLimit() {
+        AimdLimit limit = new AimdLimit(properties);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, limit.tryAcquire());
+        }
+        assertEquals(-1, limit.tryAcquire());
+        assertEquals(4, limit.getInFlight());
+
+        limit.release();
+        assertEquals(3, limit.tryAcquire());
+    }
+
+    @Test
+    void testAdditiveIncreaseWhenBusyAndFast() {
+        AimdLimit limit = new AimdLimit(properties);
+
+        // 利用率低时不增加
+        limit.tryAcquire();
+        limit.release(10 * MILLIS, 0, false);
+        assertEquals(4.0, limit.getLimit());
+
+        // 在途请求达到上限一半以上且响应正常时加1，不超过max-limit
+        for (int i = 0; i < 5; i++) {
+            limit.tryAcquire();
+            limit.release(10 * MILLIS, 3, false);
+        }
+        assertEquals(6.0, limit.getLimit());
+    }
+
+    @Test
+    void testMultiplicativeDecreaseOnLatencyAndDrop() {
+        properties.setBackoffRatio(0.5);
+        properties.setMaxLimit(100);
+        properties.setInitialLimit(40);
+        AimdLimit limit = new AimdLimit(properties);
+        limit.tryAcquire();
+        limit.release(10 * MILLIS, 0, false);
+
+        // 响应时间超过基线2倍
+        limit.tryAcquire();
+        limit.release(50 * MILLIS, 0, false);
+        assertEquals(20.0, limit.getLimit());
+
+        // 下游过载
+        limit.tryAcquire();
+        limit.release(5 * MILLIS, 0, true);
+        assertEquals(10.0, limit.getLimit());
+
+        // 不低于min-limit
+        for (int i = 0; i < 10; i++) {
+            limit.tryAcquire();
+            limit.release(5 * MILLIS, 0, true);
+        }
+        assertEquals(2.0, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void testBaselineFollowsMinimumLatency() {
+        properties.setMaxLimit(100);
+        AimdLimit limit = new AimdLimit(properties);
+        limit.tryAcquire();
+        limit.release(100 * MILLIS, 0, false);
+        limit.tryAcquire();
+        limit.release(20 * MILLIS, 0, false);
+
+        // 基线已降到20ms，100ms视为拥塞
+        limit.tryAcquire();
+        limit.release(100 * MILLIS, 0, false);
+        assertTrue(limit.getLimit() < 4.0);
+    }
+}
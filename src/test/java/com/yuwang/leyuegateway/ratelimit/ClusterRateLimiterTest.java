@@ -0,0 +1,230 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import com.yuwang.leyuegateway.config.RateLimitProperties;
+import com.yuwang.leyuegateway.constant.RateLimitKeyType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ClusterRateLimiter 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class ClusterRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final Route ROUTE = Route.async().id("user-service").uri("lb://user-service")
+            .predicate(exchange -> true).build();
+
+    private final AtomicLong clock = new AtomicLong(SECOND);
+    private InMemoryQuotaCoordinator inMemoryCoordinator;
+    private AtomicInteger leaseCalls;
+
+    @BeforeEach
+    void setUp() {
+        inMemoryCoordinator = new InMemoryQuotaCoordinator(Duration.ofMinutes(5), clock::get);
+        leaseCalls = new AtomicInteger();
+    }
+
+    @Test
+    void testGlobalLimitSharedAcrossNodes() {
+        QuotaCoordinator coordinator = countingCoordinator();
+        List<ClusterRateLimiter> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            nodes.add(limiter(coordinator, rule(100), 10, true));
+        }
+
+        int granted = 0;
+        for (int i = 0; i < 600; i++) {
+            if (nodes.get(i % 3).tryAcquire(exchange()).block()) {
+                granted++;
+            }
+        }
+
+        // 三个节点合计放行的请求数等于全局容量，而非每个节点各放行一个容量
+        assertEquals(100, granted);
+    }
+
+    @Test
+    void testTokensSpentLocallyBetweenLeases() {
+        ClusterRateLimiter limiter = limiter(countingCoordinator(), rule(1000), 10, true);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire(exchange()).block());
+        }
+
+        // 每批10个令牌，含后台预取在内协调器调用次数约为请求数的1/10
+        assertTrue(leaseCalls.get() <= 11, "leaseCalls=" + leaseCalls.get());
+    }
+
+    @Test
+    void testLocalGrantDoesNotTouchCoordinator() {
+        ClusterRateLimiter limiter = limiter(countingCoordinator(), rule(1000), 10, true);
+        limiter.tryAcquire(exchange()).block();
+        int calls = leaseCalls.get();
+
+        assertSame(LeasedTokenBucket.GRANTED, limiter.tryAcquire(exchange()));
+        assertEquals(calls, leaseCalls.get());
+    }
+
+    @Test
+    void testExpiredLeaseIsDiscarded() {
+        LeasedTokenBucket bucket = new LeasedTokenBucket(countingCoordinator(), "k", 100, 0.001, 10,
+                Duration.ofSeconds(1), Duration.ofSeconds(1), true);
+
+        assertTrue(bucket.tryAcquire(clock.get()).block());
+        assertEquals(9, bucket.localTokens(clock.get()));
+        assertEquals(0, bucket.localTokens(clock.get() + 2 * SECOND));
+
+        // 过期后重新租借，作废的令牌不再可用
+        assertTrue(bucket.tryAcquire(clock.get() + 2 * SECOND).block());
+        assertEquals(9, bucket.localTokens(clock.get() + 2 * SECOND));
+        assertEquals(2, leaseCalls.get());
+    }
+
+    @Test
+    void testConcurrentWaitersShareOneLease() {
+        QuotaCoordinator slowCoordinator = (quotaKey, capacity, rate, permits) -> {
+            leaseCalls.incrementAndGet();
+            return inMemoryCoordinator.lease(quotaKey, capacity, rate, permits)
+                    .delayElement(Duration.ofMillis(50));
+        };
+        LeasedTokenBucket bucket = new LeasedTokenBucket(slowCoordinator, "k", 100, 0.001, 10,
+                Duration.ofSeconds(10), Duration.ofSeconds(1), false);
+
+        List<Boolean> results = Flux.range(0, 4)
+                .flatMap(i -> bucket.tryAcquire(clock.get()))
+                .collectList()
+                .block();
+
+        assertEquals(4, results.size());
+        assertTrue(results.stream().allMatch(Boolean::booleanValue));
+        assertEquals(1, leaseCalls.get());
+    }
+
+    @Test
+    void testCoordinatorFailure() {
+        QuotaCoordinator failing = (quotaKey, capacity, rate, permits) -> Mono.error(new IllegalStateException("down"));
+        QuotaCoordinator hanging = (quotaKey, capacity, rate, permits) -> Mono.never();
+
+        assertTrue(limiter(failing, rule(10), 10, true).tryAcquire(exchange()).block());
+        assertFalse(limiter(failing, rule(10), 10, false).tryAcquire(exchange()).block());
+
+        ClusterRateLimiter timingOut = limiter(hanging, rule(10), 10, false);
+        assertFalse(timingOut.tryAcquire(exchange()).block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void testRejectedWhenAnyRuleExhausted() {
+        RateLimitProperties properties = properties(10, true);
+        properties.getRules().add(rule(100));
+        RateLimitProperties.Rule routeRule = rule(2);
+        routeRule.setRouteId("user-service");
+        routeRule.setKey(RateLimitKeyType.IP);
+        properties.getRules().add(routeRule);
+        ClusterRateLimiter limiter = new ClusterRateLimiter(properties, countingCoordinator());
+        limiter.setNanoClock(clock::get);
+        limiter.rebuild();
+
+        assertTrue(limiter.tryAcquire(exchange()).block());
+        assertTrue(limiter.tryAcquire(exchange()).block());
+        assertFalse(limiter.tryAcquire(exchange()).block());
+    }
+
+    @Test
+    void testRejectedRequestDoesNotSpendOtherRuleTokens() {
+        RateLimitProperties properties = properties(1, true);
+        RateLimitProperties.Rule ipRule = rule(2);
+        ipRule.setKey(RateLimitKeyType.IP);
+        properties.getRules().add(ipRule);
+        RateLimitProperties.Rule routeRule = rule(1);
+        routeRule.setRouteId("user-service");
+        properties.getRules().add(routeRule);
+        ClusterRateLimiter limiter = new ClusterRateLimiter(properties, countingCoordinator());
+        limiter.setNanoClock(clock::get);
+        limiter.rebuild();
+        Route orderRoute = Route.async().id("order-service").uri("lb://order-service")
+                .predicate(exchange -> true).build();
+
+        assertTrue(limiter.tryAcquire(exchange()).block());
+        // 路由规则拒绝的请求归还全局规则的令牌
+        for (int i = 0; i < 3; i++) {
+            assertFalse(limiter.tryAcquire(exchange()).block());
+        }
+        assertTrue(limiter.tryAcquire(exchange(orderRoute)).block());
+        assertFalse(limiter.tryAcquire(exchange(orderRoute)).block());
+    }
+
+    @Test
+    void testRouteRuleMatchesDiscoveryRouteByServiceName() {
+        RateLimitProperties.Rule routeRule = rule(1);
+        routeRule.setRouteId("user-service");
+        ClusterRateLimiter limiter = limiter(countingCoordinator(), routeRule, 1, true);
+        Route discoveryRoute = Route.async().id("ReactiveCompositeDiscoveryClient_user-service")
+                .uri("lb://user-service").predicate(exchange -> true).build();
+
+        assertTrue(limiter.tryAcquire(exchange(discoveryRoute)).block());
+        assertFalse(limiter.tryAcquire(exchange(discoveryRoute)).block());
+    }
+
+    private QuotaCoordinator countingCoordinator() {
+        return (quotaKey, capacity, rate, permits) -> {
+            leaseCalls.incrementAndGet();
+            return inMemoryCoordinator.lease(quotaKey, capacity, rate, permits);
+        };
+    }
+
+    private ClusterRateLimiter limiter(QuotaCoordinator coordinator, RateLimitProperties.Rule rule, long batchSize,
+                                       boolean failOpen) {
+        RateLimitProperties properties = properties(batchSize, failOpen);
+        properties.getRules().add(rule);
+        ClusterRateLimiter limiter = new ClusterRateLimiter(properties, coordinator);
+        limiter.setNanoClock(clock::get);
+        limiter.rebuild();
+        return limiter;
+    }
+
+    private static RateLimitProperties properties(long batchSize, boolean failOpen) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRules(new ArrayList<>());
+        properties.getCluster().setBatchSize(batchSize);
+        properties.getCluster().setLeaseTtl(Duration.ofMinutes(1));
+        properties.getCluster().setCoordinatorTimeout(Duration.ofMillis(100));
+        properties.getCluster().setFailOpen(failOpen);
+        return properties;
+    }
+
+    private static RateLimitProperties.Rule rule(long capacity) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setKey(RateLimitKeyType.ROUTE);
+        rule.setCapacity(capacity);
+        // 测试期间几乎不补充令牌
+        rule.setRate(0.001);
+        return rule;
+    }
+
+    private static MockServerWebExchange exchange() {
+        return exchange(ROUTE);
+    }
+
+    private static MockServerWebExchange exchange(Route route) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/api").build());
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+}
@@ -0,0 +1,210 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import com.yuwang.leyuegateway.config.ClusterRateLimitConfiguration;
+import com.yuwang.leyuegateway.config.RateLimitProperties;
+import com.yuwang.leyuegateway.constant.RateLimitKeyType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LeaderQuotaCoordinator 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class LeaderQuotaCoordinatorTest {
+
+    private static final String SERVICE_ID = "leyue-gateway";
+    private static final String SECRET = "lease-secret";
+
+    private final List<ServiceInstance> instances = new ArrayList<>();
+    private final List<QuotaLeaseServer> servers = new ArrayList<>();
+
+    private RateLimitProperties properties;
+    private String quotaKey;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setKey(RateLimitKeyType.IP);
+        rule.setCapacity(3);
+        rule.setRate(0.001);
+        properties = new RateLimitProperties();
+        properties.getRules().add(rule);
+        properties.getCluster().setLeaseSecret(SECRET);
+        properties.getCluster().setLeasePort(0);
+        quotaKey = ClusterRateLimiter.quotaKeyPrefix(rule) + "10.0.0.1";
+    }
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(QuotaLeaseServer::stop);
+    }
+
+    @Test
+    void testFollowersLeaseFromLeader() {
+        // 地址最小的实例为主节点，其他节点按主节点元数据中的端口访问租借接口
+        LeaderQuotaCoordinator leader = startNode("127.0.0.1");
+        LeaderQuotaCoordinator follower = startNode("127.0.0.1");
+
+        StepVerifier.create(follower.lease(quotaKey, 3, 0.001, 2)).expectNext(2L).verifyComplete();
+        StepVerifier.create(leader.lease(quotaKey, 3, 0.001, 2)).expectNext(1L).verifyComplete();
+        StepVerifier.create(follower.lease(quotaKey, 3, 0.001, 2)).expectNext(0L).verifyComplete();
+    }
+
+    @Test
+    void testRejectsLeaseWithoutSecret() {
+        startNode("127.0.0.1");
+
+        StepVerifier.create(postLease(null, new LeaderQuotaCoordinator.LeaseRequest(quotaKey, 2)))
+                .expectNext(HttpStatus.FORBIDDEN)
+                .verifyComplete();
+        StepVerifier.create(postLease("wrong", new LeaderQuotaCoordinator.LeaseRequest(quotaKey, 2)))
+                .expectNext(HttpStatus.FORBIDDEN)
+                .verifyComplete();
+    }
+
+    @Test
+    void testLeaseUsesLeaderRules() {
+        LeaderQuotaCoordinator leader = startNode("127.0.0.1");
+
+        // 不属于主节点规则的配额key不能创建令牌桶
+        StepVerifier.create(postLease(SECRET, new LeaderQuotaCoordinator.LeaseRequest("*:ip:1000000:1000000.0:x", 2)))
+                .expectNext(HttpStatus.BAD_REQUEST)
+                .verifyComplete();
+        // 令牌桶容量取自主节点规则，而不是调用方传入的参数
+        StepVerifier.create(postLease(SECRET, new LeaderQuotaCoordinator.LeaseRequest(quotaKey, 100)))
+                .expectNext(HttpStatus.OK)
+                .verifyComplete();
+        StepVerifier.create(leader.lease(quotaKey, 1000, 1000, 1)).expectNext(0L).verifyComplete();
+    }
+
+    @Test
+    void testFailsWithoutRegisteredInstances() {
+        LeaderQuotaCoordinator coordinator = new LeaderQuotaCoordinator(discoveryClient(),
+                registration("127.0.0.1", 8080), properties, new InMemoryQuotaCoordinator(Duration.ofMinutes(1)),
+                WebClient.create());
+
+        StepVerifier.create(coordinator.lease(quotaKey, 3, 0.001, 1)).verifyError(IllegalStateException.class);
+    }
+
+    @Test
+    void testClusterEngineRequiresServiceRegistration() {
+        new ApplicationContextRunner()
+                .withPropertyValues("gateway.rate-limit.engine=cluster")
+                .withBean(RateLimitProperties.class)
+                .withUserConfiguration(ClusterRateLimitConfiguration.class)
+                .run(context -> assertNotNull(context.getStartupFailure()));
+
+        // 未配置租借接口的共享密钥
+        new ApplicationContextRunner()
+                .withPropertyValues("gateway.rate-limit.engine=cluster")
+                .withBean(RateLimitProperties.class)
+                .withBean(ReactiveDiscoveryClient.class, this::discoveryClient)
+                .withBean(Registration.class, () -> registration("127.0.0.1", 8080))
+                .withUserConfiguration(ClusterRateLimitConfiguration.class)
+                .run(context -> assertNotNull(context.getStartupFailure()));
+
+        new ApplicationContextRunner()
+                .withPropertyValues("gateway.rate-limit.engine=cluster")
+                .withBean(RateLimitProperties.class, () -> properties)
+                .withBean(ReactiveDiscoveryClient.class, this::discoveryClient)
+                .withBean(Registration.class, () -> registration("127.0.0.1", 8080))
+                .withUserConfiguration(ClusterRateLimitConfiguration.class)
+                .run(context -> {
+                    assertNull(context.getStartupFailure());
+                    assertInstanceOf(LeaderQuotaCoordinator.class, context.getBean(QuotaCoordinator.class));
+                    assertTrue(context.getBean(QuotaLeaseServer.class).getPort() > 0);
+                });
+    }
+
+    @Test
+    void testCustomCoordinatorReplacesLeader() {
+        QuotaCoordinator custom = new InMemoryQuotaCoordinator(Duration.ofMinutes(1));
+        new ApplicationContextRunner()
+                .withPropertyValues("gateway.rate-limit.engine=cluster", "gateway.rate-limit.cluster.coordinator=custom")
+                .withBean(RateLimitProperties.class)
+                .withBean(QuotaCoordinator.class, () -> custom)
+                .withUserConfiguration(ClusterRateLimitConfiguration.class)
+                .run(context -> {
+                    assertNull(context.getStartupFailure());
+                    assertSame(custom, context.getBean(QuotaCoordinator.class));
+                    assertFalse(context.containsBean("quotaLeaseServer"));
+                });
+    }
+
+    /**
+     * 启动一个网关节点的租借接口，并把节点及其租借端口加入服务发现的实例列表
+     */
+    private LeaderQuotaCoordinator startNode(String registeredHost) {
+        Registration registration = registration(registeredHost, 8080 + servers.size());
+        LeaderQuotaCoordinator coordinator = new LeaderQuotaCoordinator(discoveryClient(), registration, properties,
+                new InMemoryQuotaCoordinator(Duration.ofMinutes(1)), WebClient.create());
+        QuotaLeaseServer server = new QuotaLeaseServer(coordinator, "127.0.0.1", 0);
+        server.start();
+        servers.add(server);
+        registration.getMetadata().put(LeaderQuotaCoordinator.LEASE_PORT_METADATA, String.valueOf(server.getPort()));
+        instances.add(registration);
+        return coordinator;
+    }
+
+    private Mono<HttpStatus> postLease(String secret, LeaderQuotaCoordinator.LeaseRequest lease) {
+        return WebClient.create("http://127.0.0.1:" + servers.get(0).getPort())
+                .post()
+                .uri(LeaderQuotaCoordinator.LEASE_PATH)
+                .headers(headers -> {
+                    if (secret != null) {
+                        headers.set(LeaderQuotaCoordinator.LEASE_SECRET_HEADER, secret);
+                    }
+                })
+                .bodyValue(lease)
+                .exchangeToMono(response -> Mono.just(HttpStatus.valueOf(response.statusCode().value())));
+    }
+
+    private ReactiveDiscoveryClient discoveryClient() {
+        return new ReactiveDiscoveryClient() {
+            @Override
+            public String description() {
+                return "test";
+            }
+
+            @Override
+            public Flux<ServiceInstance> getInstances(String serviceId) {
+                return Flux.fromIterable(new ArrayList<>(instances))
+                        .filter(instance -> instance.getServiceId().equals(serviceId));
+            }
+
+            @Override
+            public Flux<String> getServices() {
+                return Flux.just(SERVICE_ID);
+            }
+        };
+    }
+
+    private static Registration registration(String host, int port) {
+        return new TestRegistration(host, port);
+    }
+
+    private static final class TestRegistration extends DefaultServiceInstance implements Registration {
+        TestRegistration(String host, int port) {
+            super(SERVICE_ID + "-" + port, SERVICE_ID, host, port, false);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.yuwang.leyuegateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenBucket 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testBurstUpToCapacity() {
+        long now = 123_456_789L;
+        TokenBucket bucket = new TokenBucket(5, 1, now);
+
+        assertEquals(5, bucket.availableTokens(now));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(now), "request " + i);
+        }
+        assertFalse(bucket.tryAcquire(now));
+        assertEquals(0, bucket.availableTokens(now));
+    }
+
+    @Test
+    void testRefillOverTime() {
+        long now = -SECOND;  // nanoTime可能为负数
+        TokenBucket bucket = new TokenBucket(2, 10, now);
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(now));
+
+        // 每100ms补充一个令牌
+        assertFalse(bucket.tryAcquire(now + SECOND / 20));
+        assertTrue(bucket.tryAcquire(now + SECOND / 10));
+        assertFalse(bucket.tryAcquire(now + SECOND / 10));
+
+        // 长时间空闲后最多恢复到桶容量
+        long later = now + 60 * SECOND;
+        assertEquals(2, bucket.availableTokens(later));
+        assertTrue(bucket.tryAcquire(later));
+        assertTrue(bucket.tryAcquire(later));
+        assertFalse(bucket.tryAcquire(later));
+    }
+
+    @Test
+    void testAcquireMultiplePermits() {
+        long now = 0L;
+        TokenBucket bucket = new TokenBucket(10, 10, now);
+
+        assertEquals(4, bucket.tryAcquire(4, now));
+        assertEquals(6, bucket.tryAcquire(10, now));
+        assertEquals(0, bucket.tryAcquire(10, now));
+        assertFalse(bucket.tryAcquire(now));
+
+        // 300ms后补充3个令牌
+        assertEquals(3, bucket.tryAcquire(5, now + 3 * SECOND / 10));
+        assertEquals(0, bucket.availableTokens(now + 3 * SECOND / 10));
+    }
+
+    @Test
+    void testCanAcquireAndRefund() {
+        long now = 0L;
+        TokenBucket bucket = new TokenBucket(2, 1, now);
+
+        assertTrue(bucket.canAcquire(now));
+        assertEquals(2, bucket.availableTokens(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertFalse(bucket.canAcquire(now));
+
+        bucket.refund(now);
+        assertTrue(bucket.canAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+
+        // 桶满时归还不会超过容量
+        long later = now + 10 * SECOND;
+        bucket.refund(later);
+        assertEquals(2, bucket.availableTokens(later));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0, 0));
+        // 极大容量不溢出
+        assertTrue(new TokenBucket(Long.MAX_VALUE, 0.001, 0).tryAcquire(0));
+    }
+
+    @Test
+    void testConcurrentAcquireNeverExceedsCapacity() throws InterruptedException {
+        int capacity = 1000;
+        long now = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(capacity, 0.001, now);
+        AtomicInteger granted = new AtomicInteger();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 500; i++) {
+                    if (bucket.tryAcquire(now)) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(capacity, granted.get());
+    }
+}
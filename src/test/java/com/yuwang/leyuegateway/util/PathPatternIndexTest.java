@@ -0,0 +1,94 @@
+package com.yuwang.leyuegateway.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PathPatternIndex 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class PathPatternIndexTest {
+
+    private static final List<String> PATTERNS = List.of(
+            "/", "/*", "/auth/**", "/api/public/*", "/api/public/", "/api/users/{id}", "/api/users/{id:\\d+}/orders",
+            "/api/**/export", "/static/**/*.js", "/docs/v?/index", "/health", "/health/", "/a/**/b/**/c",
+            "/files/*.png", "/**/actuator/**", "relative/**", "/x/*/", "/mixed/**/**", "/api/users/me");
+
+    private static final List<String> PATHS = List.of(
+            "/", "", "/auth", "/auth/", "/auth/login", "/auth/oauth/token", "/api/public", "/api/public/",
+            "/api/public/a", "/api/public/a/", "/api/public/a/b", "/api/users/12", "/api/users/me",
+            "/api/users/12/orders", "/api/users/ab/orders", "/api/export", "/api/a/b/export", "/api/a/b/export/",
+            "/static/app.js", "/static/js/app.js", "/static/js/app.css", "/docs/v1/index", "/docs/v10/index",
+            "/health", "/health/", "/a/b/c", "/a/x/b/y/c", "/a/c", "/files/logo.png", "/files/logo.jpg",
+            "/service/actuator/health", "/actuator", "relative/x", "/x/y/", "/x/y", "/x/", "/mixed", "/mixed/a/b",
+            "//auth//login", "/health//");
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    @Test
+    void testSinglePatternMatchesAntPathMatcher() {
+        for (String pattern : PATTERNS) {
+            PathPatternIndex index = PathPatternIndex.compile(List.of(pattern));
+            for (String path : PATHS) {
+                assertEquals(antPathMatcher.match(pattern, path), index.matches(path),
+                        "pattern=" + pattern + ", path=" + path);
+            }
+        }
+    }
+
+    @Test
+    void testRandomPatternSetsMatchAntPathMatcher() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            List<String> patterns = random.ints(1 + random.nextInt(6), 0, PATTERNS.size())
+                    .mapToObj(PATTERNS::get)
+                    .toList();
+            PathPatternIndex index = PathPatternIndex.compile(patterns);
+            for (String path : PATHS) {
+                boolean expected = patterns.stream().anyMatch(pattern -> antPathMatcher.match(pattern, path));
+                assertEquals(expected, index.matches(path), "patterns=" + patterns + ", path=" + path);
+            }
+        }
+    }
+
+    @Test
+    void testRandomPathsMatchAntPathMatcher() {
+        String[] segments = {"api", "a", "b", "c", "export", "12", "x", "users", "orders", "app.js", "auth", "actuator"};
+        Random random = new Random(7);
+        PathPatternIndex index = PathPatternIndex.compile(PATTERNS);
+        for (int round = 0; round < 5000; round++) {
+            StringBuilder path = new StringBuilder();
+            int depth = random.nextInt(6);
+            for (int i = 0; i < depth; i++) {
+                path.append('/').append(segments[random.nextInt(segments.length)]);
+            }
+            if (depth == 0 || random.nextInt(4) == 0) {
+                path.append('/');
+            }
+            String candidate = path.toString();
+            boolean expected = PATTERNS.stream().anyMatch(pattern -> antPathMatcher.match(pattern, candidate));
+            assertEquals(expected, index.matches(candidate), "path=" + candidate);
+        }
+    }
+
+    @Test
+    void testEmptyIndex() {
+        assertFalse(PathPatternIndex.compile(null).matches("/api"));
+        assertFalse(PathPatternIndex.compile(List.of()).matches("/api"));
+        assertFalse(PathPatternIndex.compile(List.of(" ")).matches("/api"));
+        assertTrue(PathPatternIndex.empty().isEmpty());
+    }
+
+    @Test
+    void testSize() {
+        PathPatternIndex index = PathPatternIndex.compile(List.of("/a/**", "/b", "relative/*", ""));
+        assertEquals(3, index.size());
+    }
+}
@@ -0,0 +1,240 @@
+package com.yuwang.leyuegateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TraceContextParser 测试类
+ *
+ * @author yuwang
+ * @since 2026-10-16
+ */
+class TraceContextParserTest {
+
+    private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+    private static final String B3_SINGLE = "80f198ee56343ba864fe8b2a57d3eff7-e457b5a2e4d86bd1-1-05e3ac9a4f6e3b90";
+
+    /**
+     * 按规范用正则实现的参考校验，仅用于对照
+     */
+    private static final Pattern TRACEPARENT_REFERENCE =
+            Pattern.compile("^([0-9a-f]{2})-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})(-.*)?$");
+    private static final Pattern B3_SINGLE_REFERENCE = Pattern.compile(
+            "^([0-9a-fA-F]{32}|[0-9a-fA-F]{16})-([0-9a-fA-F]{16})(-([01d])(-[0-9a-fA-F]{16})?)?$");
+
+    private static final char[] ALPHABET = "0123456789abcdefABCDEF-xz ".toCharArray();
+
+    @Test
+    void testParseValidTraceparent() {
+        TraceContextParser.TraceContext context = TraceContextParser.parseTraceparent(TRACEPARENT);
+
+        assertNotNull(context);
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", context.getTraceId());
+        assertEquals("00f067aa0ba902b7", context.getParentSpanId());
+        assertTrue(context.getSampled());
+
+        TraceContextParser.TraceContext unsampled = TraceContextParser.parseTraceparent(
+                "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00");
+        assertNotNull(unsampled);
+        assertFalse(unsampled.getSampled());
+
+        // 采样位只看最低位，其他flag位不影响
+        assertTrue(TraceContextParser.parseTraceparent(
+                "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-03").getSampled());
+        assertFalse(TraceContextParser.parseTraceparent(
+                "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-02").getSampled());
+
+        // 更高版本允许在flags之后以"-"追加字段
+        assertNotNull(TraceContextParser.parseTraceparent(
+                "cc-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-what-the-future-will-be"));
+        assertNotNull(TraceContextParser.parseTraceparent(
+                "01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+    }
+
+    @Test
+    void testRejectInvalidTraceparent() {
+        assertNull(TraceContextParser.parseTraceparent(null));
+        assertNull(TraceContextParser.parseTraceparent(""));
+        assertNull(TraceContextParser.parseTraceparent("invalid-format"));
+        // 全零traceId与全零parent-id
+        assertNull(TraceContextParser.parseTraceparent("00-00000000000000000000000000000000-00f067aa0ba902b7-01"));
+        assertNull(TraceContextParser.parseTraceparent("00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01"));
+        // flags长度错误
+        assertNull(TraceContextParser.parseTraceparent("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-1"));
+        assertNull(TraceContextParser.parseTraceparent("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-001"));
+        // 大写十六进制
+        assertNull(TraceContextParser.parseTraceparent("00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01"));
+        // 非法版本ff，版本00不允许追加字段
+        assertNull(TraceContextParser.parseTraceparent("ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+        assertNull(TraceContextParser.parseTraceparent("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-extra"));
+        assertNull(TraceContextParser.parseTraceparent("cc-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01x"));
+        // 字段长度错误
+        assertNull(TraceContextParser.parseTraceparent("00-4bf92f3577b34da6a3ce929d0e0e473-600f067aa0ba902b7-01"));
+    }
+
+    @Test
+    void testTraceparentFuzzMatchesReference() {
+        Random random = new Random(20261016L);
+        for (int i = 0; i < 50_000; i++) {
+            String input = mutate(TRACEPARENT, random);
+            TraceContextParser.TraceContext context = TraceContextParser.parseTraceparent(input);
+            TraceContextParser.TraceContext expected = referenceTraceparent(input);
+
+            if (expected == null) {
+                assertNull(context, input);
+            } else {
+                assertNotNull(context, input);
+                assertEquals(expected.getTraceId(), context.getTraceId(), input);
+                assertEquals(expected.getParentSpanId(), context.getParentSpanId(), input);
+                assertEquals(expected.getSampled(), context.getSampled(), input);
+            }
+        }
+    }
+
+    @Test
+    void testParseB3Single() {
+        TraceContextParser.TraceContext context = TraceContextParser.parseB3Single(B3_SINGLE);
+        assertNotNull(context);
+        assertEquals("80f198ee56343ba864fe8b2a57d3eff7", context.getTraceId());
+        assertEquals("e457b5a2e4d86bd1", context.getParentSpanId());
+        assertTrue(context.getSampled());
+
+        // 64位traceId、未携带采样标记、大写输入
+        TraceContextParser.TraceContext shortId = TraceContextParser.parseB3Single("A3CE929D0E0E4736-00F067AA0BA902B7");
+        assertNotNull(shortId);
+        assertEquals("a3ce929d0e0e4736", shortId.getTraceId());
+        assertEquals("00f067aa0ba902b7", shortId.getParentSpanId());
+        assertNull(shortId.getSampled());
+
+        assertTrue(TraceContextParser.parseB3Single("a3ce929d0e0e4736-00f067aa0ba902b7-d").getSampled());
+        assertFalse(TraceContextParser.parseB3Single("a3ce929d0e0e4736-00f067aa0ba902b7-0").getSampled());
+
+        // 仅携带采样标记或格式不合法
+        assertNull(TraceContextParser.parseB3Single("0"));
+        assertNull(TraceContextParser.parseB3Single("b3-fallback-trace-id"));
+        assertNull(TraceContextParser.parseB3Single("0000000000000000-00f067aa0ba902b7-1"));
+        assertNull(TraceContextParser.parseB3Single("a3ce929d0e0e4736-00f067aa0ba902b7-2"));
+        assertNull(TraceContextParser.parseB3Single("a3ce929d0e0e4736-00f067aa0ba902b7-1-"));
+    }
+
+    @Test
+    void testB3SingleFuzzMatchesReference() {
+        Random random = new Random(20261017L);
+        for (int i = 0; i < 50_000; i++) {
+            String input = mutate(B3_SINGLE, random);
+            TraceContextParser.TraceContext context = TraceContextParser.parseB3Single(input);
+            Matcher matcher = B3_SINGLE_REFERENCE.matcher(input);
+            boolean expected = matcher.matches() && !isAllZeros(matcher.group(1));
+
+            assertEquals(expected, context != null, input);
+            if (expected) {
+                assertEquals(matcher.group(1).toLowerCase(), context.getTraceId(), input);
+                assertEquals(matcher.group(2).toLowerCase(), context.getParentSpanId(), input);
+            }
+        }
+    }
+
+    @Test
+    void testParseB3Multi() {
+        TraceContextParser.TraceContext context = TraceContextParser.parseB3Multi(
+                "4BF92F3577B34DA6A3CE929D0E0E4736", "00f067aa0ba902b7", "true", null);
+        assertNotNull(context);
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", context.getTraceId());
+        assertTrue(context.getSampled());
+
+        assertFalse(TraceContextParser.parseB3Multi("a3ce929d0e0e4736", null, "0", null).getSampled());
+        assertNull(TraceContextParser.parseB3Multi("a3ce929d0e0e4736", null, null, null).getSampled());
+        // X-B3-Flags: 1 表示debug，优先于sampled
+        assertTrue(TraceContextParser.parseB3Multi("a3ce929d0e0e4736", null, "0", "1").getSampled());
+
+        assertNull(TraceContextParser.parseB3Multi("b3-fallback-trace-id", null, null, null));
+        assertNull(TraceContextParser.parseB3Multi("a3ce929d0e0e4736", "short", null, null));
+        assertNull(TraceContextParser.parseB3Multi(null, "00f067aa0ba902b7", null, null));
+    }
+
+    @Test
+    void testValidateTracestate() {
+        assertEquals("congo=t61rcWkgMzE", TraceContextParser.validateTracestate("congo=t61rcWkgMzE"));
+        assertEquals("rojo=00f067aa0ba902b7, congo=t61rcWkgMzE",
+                TraceContextParser.validateTracestate("rojo=00f067aa0ba902b7, congo=t61rcWkgMzE"));
+        assertNotNull(TraceContextParser.validateTracestate("fw529a3039@dt=ZGVmYXVsdA,, ,a_b-c*d/e=x y"));
+        assertNotNull(TraceContextParser.validateTracestate("1tenant@sys=v"));
+
+        assertNull(TraceContextParser.validateTracestate(null));
+        assertNull(TraceContextParser.validateTracestate(""));
+        assertNull(TraceContextParser.validateTracestate(" , "));
+        // key必须以小写字母开头（多租户key的tenant可以数字开头）
+        assertNull(TraceContextParser.validateTracestate("Congo=t61rcWkgMzE"));
+        assertNull(TraceContextParser.validateTracestate("1congo=t61rcWkgMzE"));
+        assertNull(TraceContextParser.validateTracestate("a@b@c=v"));
+        assertNull(TraceContextParser.validateTracestate("tenant@1sys=v"));
+        assertNull(TraceContextParser.validateTracestate("tenant@systemidtoolong=v"));
+        // value不能为空、不能以空格结尾、不能包含"="和","
+        assertNull(TraceContextParser.validateTracestate("congo="));
+        assertNull(TraceContextParser.validateTracestate("congo=a=b"));
+        assertNull(TraceContextParser.validateTracestate("congo"));
+
+        StringBuilder members = new StringBuilder();
+        for (int i = 0; i < 32; i++) {
+            members.append(i == 0 ? "" : ",").append('k').append(i).append("=v");
+        }
+        assertNotNull(TraceContextParser.validateTracestate(members.toString()));
+        assertNull(TraceContextParser.validateTracestate(members.append(",k32=v").toString()));
+    }
+
+    @Test
+    void testTracestateFuzzNeverThrows() {
+        Random random = new Random(20261018L);
+        String tracestate = "rojo=00f067aa0ba902b7,congo=t61rcWkgMzE,fw529a3039@dt=ZGVmYXVsdA";
+        for (int i = 0; i < 20_000; i++) {
+            String input = mutate(tracestate, random);
+            String result = TraceContextParser.validateTracestate(input);
+            assertTrue(result == null || result.equals(input), input);
+        }
+    }
+
+    /**
+     * 随机替换、插入、删除若干字符
+     */
+    private static String mutate(String source, Random random) {
+        StringBuilder sb = new StringBuilder(source);
+        int mutations = random.nextInt(3);
+        for (int i = 0; i < mutations; i++) {
+            int op = random.nextInt(3);
+            char c = ALPHABET[random.nextInt(ALPHABET.length)];
+            if (op == 0 && sb.length() > 0) {
+                sb.setCharAt(random.nextInt(sb.length()), c);
+            } else if (op == 1) {
+                sb.insert(random.nextInt(sb.length() + 1), c);
+            } else if (sb.length() > 0) {
+                sb.deleteCharAt(random.nextInt(sb.length()));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static TraceContextParser.TraceContext referenceTraceparent(String input) {
+        Matcher matcher = TRACEPARENT_REFERENCE.matcher(input);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String version = matcher.group(1);
+        if ("ff".equals(version) || ("00".equals(version) && matcher.group(5) != null)) {
+            return null;
+        }
+        if (isAllZeros(matcher.group(2)) || isAllZeros(matcher.group(3))) {
+            return null;
+        }
+        boolean sampled = (Integer.parseInt(matcher.group(4), 16) & 0x1) == 1;
+        return new TraceContextParser.TraceContext(matcher.group(2), matcher.group(3), sampled);
+    }
+
+    private static boolean isAllZeros(String value) {
+        return value.chars().allMatch(c -> c == '0');
+    }
+}
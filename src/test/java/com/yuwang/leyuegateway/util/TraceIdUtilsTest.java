@@ -1,9 +1,12 @@
 package com.yuwang.leyuegateway.util;
 
+import com.yuwang.leyuegateway.constant.TraceProtocol;
 import com.yuwang.leyuegateway.constant.TracingHeaders;
 import org.junit.jupiter.api.Test;
 import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
 
+import java.util.EnumSet;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -40,6 +43,52 @@ class TraceIdUtilsTest {
         assertNotEquals(spanId, spanId2);
     }
 
+    @Test
+    void testIdGeneratorStrategies() {
+        for (TraceIdGenerator generator : TraceIdGenerator.values()) {
+            String traceId = generator.generateTraceId();
+            String spanId = generator.generateSpanId();
+            
+            assertTrue(TraceIdUtils.isValidW3CTraceId(traceId), generator + ": " + traceId);
+            assertTrue(TraceIdUtils.isValidW3CSpanId(spanId), generator + ": " + spanId);
+            assertNotEquals(traceId, generator.generateTraceId());
+            assertNotEquals(spanId, generator.generateSpanId());
+        }
+    }
+
+    @Test
+    void testTimeOrderedTraceIdPrefix() {
+        long before = System.currentTimeMillis();
+        String traceId = TraceIdGenerator.TIME_ORDERED.generateTraceId();
+        long after = System.currentTimeMillis();
+        
+        // 高48位为毫秒时间戳
+        long timestamp = Long.parseUnsignedLong(traceId.substring(0, 12), 16);
+        assertTrue(timestamp >= before && timestamp <= after);
+    }
+
+    @Test
+    void testExtractWithIdGenerator() {
+        MockServerHttpRequest request = MockServerHttpRequest
+                .get("http://localhost:8080/test")
+                .build();
+        
+        long before = System.currentTimeMillis();
+        TraceIdUtils.TraceInfo traceInfo = TraceIdUtils.extractOrGenerateTraceInfo(request,
+                EnumSet.allOf(TraceProtocol.class), 1.0, TraceIdGenerator.TIME_ORDERED);
+        long after = System.currentTimeMillis();
+        
+        // 根追踪使用传入的生成策略（TIME_ORDERED高48位为毫秒时间戳）
+        long timestamp = Long.parseUnsignedLong(traceInfo.getTraceId().substring(0, 12), 16);
+        assertTrue(timestamp >= before && timestamp <= after);
+        
+        // 未指定策略时使用RANDOM
+        TraceIdUtils.TraceInfo defaultInfo = TraceIdUtils.extractOrGenerateTraceInfo(request,
+                EnumSet.allOf(TraceProtocol.class), 1.0, null);
+        assertTrue(TraceIdUtils.isValidW3CTraceId(defaultInfo.getTraceId()));
+        assertTrue(TraceIdUtils.isValidW3CSpanId(defaultInfo.getSpanId()));
+    }
+
     @Test
     void testNormalizeTraceId() {
         // 测试正常的32位traceId
@@ -87,6 +136,41 @@ class TraceIdUtilsTest {
         assertEquals(16, generated.length());
     }
 
+    @Test
+    void testNormalizeMatchesRegexImplementation() {
+        // 与原先基于正则与String.format的实现逐一对照
+        java.util.Random random = new java.util.Random(20261016L);
+        char[] alphabet = "0123456789abcdefABCDEFxyz-_ ".toCharArray();
+        for (int i = 0; i < 20_000; i++) {
+            char[] chars = new char[1 + random.nextInt(48)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String input = new String(chars);
+            if (input.isBlank()) {
+                continue;
+            }
+            
+            String cleanTraceId = input.replaceAll("[^0-9a-fA-F]", "").toLowerCase();
+            String expectedTraceId;
+            if (cleanTraceId.length() >= 32) {
+                expectedTraceId = cleanTraceId.substring(0, 32);
+            } else if (cleanTraceId.length() >= 16) {
+                expectedTraceId = String.format("%32s", cleanTraceId).replace(' ', '0');
+            } else {
+                String combined = cleanTraceId + Integer.toHexString(input.hashCode());
+                expectedTraceId = String.format("%32s", combined.substring(0, Math.min(combined.length(), 32)))
+                        .replace(' ', '0');
+            }
+            assertEquals(expectedTraceId, TraceIdUtils.normalizeTraceId(input), input);
+            
+            String cleanSpanId = cleanTraceId;
+            String expectedSpanId = cleanSpanId.length() >= 16 ? cleanSpanId.substring(0, 16)
+                    : String.format("%16s", cleanSpanId).replace(' ', '0');
+            assertEquals(expectedSpanId, TraceIdUtils.normalizeSpanId(input), input);
+        }
+    }
+
     @Test
     void testIsValidW3CTraceId() {
         // 有效的traceId
@@ -244,13 +328,13 @@ class TraceIdUtilsTest {
         MockServerHttpRequest request = MockServerHttpRequest
                 .get("http://localhost:8080/test")
                 .header(TracingHeaders.W3C_TRACEPARENT, "invalid-format")
-                .header(TracingHeaders.B3_TRACE_ID, "b3-fallback-trace-id")
+                .header(TracingHeaders.B3_TRACE_ID, "80f198ee56343ba864fe8b2a57d3eff7")
                 .build();
 
         TraceIdUtils.TraceInfo traceInfo = TraceIdUtils.extractOrGenerateTraceInfo(request);
         
         // 应该回退到B3格式
-        assertEquals("b3-fallback-trace-id", traceInfo.getTraceId());
+        assertEquals("80f198ee56343ba864fe8b2a57d3eff7", traceInfo.getTraceId());
         assertEquals("b3-headers", traceInfo.getSource());
     }
 